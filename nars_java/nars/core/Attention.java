@@ -31,6 +31,9 @@ public interface Attention extends Iterable<Concept> {
     /** Invoked during a memory reset to empty all concepts */
     public void reset();
 
+    /** Invoked when the NAR is stopped, to release any threads of its own */
+    public default void stop() { }
+
     /** Maps Term to associated Concept. May also be called 'recognize'
      * as it can be used to determine if a symbolic pattern (term) is known */
     public Concept concept(Term term);
@@ -42,6 +45,10 @@ public interface Attention extends Iterable<Concept> {
      */
     public Concept conceptualize(BudgetValue budget, Term term, boolean createIfMissing);
 
+    /** Removes the concept of a term, ex: one forgotten in a memory being restored
+     * @return the concept removed, or null if there was none */
+    public Concept takeOut(Term term);
+
     /** Activates a concept, adjusting its budget.  
      *  May be invoked by the concept processor or at certain points in the reasoning process.
      */
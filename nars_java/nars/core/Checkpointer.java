@@ -0,0 +1,355 @@
+package nars.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import nars.core.EventEmitter.EventObserver;
+import nars.core.control.NAL;
+import nars.entity.Concept;
+import nars.io.Output.ERR;
+import nars.language.Term;
+
+/**
+ * Persists a memory continuously while it reasons, by writing the concepts
+ * which have changed since the previous checkpoint to an append-only log.
+ * <p>
+ * Concepts are marked dirty by the events of the memory: when they are
+ * created or remembered, fired, or when their beliefs, goals, questions or
+ * links change.  Every few cycles, at the end of a cycle, a checkpoint
+ * writes at most maxConcepts dirty concepts, with the terms of concepts
+ * forgotten since the previous one, as a MemorySnapshot delta.  This is the
+ * only work done in the reasoning thread, so the pause is bounded by
+ * maxConcepts; the delta is appended to the log by a background thread.
+ * <p>
+ * The log is a directory of segment files, each mapped into memory with a
+ * fixed size and holding a sequence of length-prefixed deltas.  When enough
+ * segments have been written, a compaction begins: every active concept is
+ * marked dirty and written to new segments, after which the older segments
+ * are deleted.
+ * <p>
+ * recover() restores a memory by replaying the segments in order.  It must be
+ * called before a Checkpointer is enabled on the same directory, because
+ * enabling it begins a compaction, which deletes the segments written before.
+ */
+public class Checkpointer implements Plugin, EventObserver {
+
+    static final String SEGMENT_PREFIX = "segment-";
+    static final String SEGMENT_SUFFIX = ".nmem";
+
+    /** the directory of the segment files */
+    public final File directory;
+
+    /** bytes mapped for each segment; a larger delta gets a segment of its own */
+    public final int segmentSize;
+
+    /** cycles between checkpoints */
+    public final int period;
+
+    /** most concepts written by one checkpoint */
+    public final int maxConcepts;
+
+    /** segments written after which a compaction begins */
+    public final int compactionSegments;
+
+    private transient Memory memory;
+    private transient ExecutorService writer;
+
+    private final Set<Concept> dirty = new LinkedHashSet();
+    private final Set<Term> forgotten = new LinkedHashSet();
+    private long lastCheckpoint;
+    private boolean compacting;
+
+    //accessed only by the writer thread, except segmentsWritten
+    private transient int segment = -1;
+    private transient int compactionStart;
+    private transient volatile int segmentsWritten;
+    private transient FileChannel channel;
+    private transient MappedByteBuffer buffer;
+
+    public Checkpointer(final File directory) {
+        this(directory, 64 * 1024 * 1024, 10, 1000, 4);
+    }
+
+    public Checkpointer(final File directory, final int segmentSize, final int period, final int maxConcepts, final int compactionSegments) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.period = period;
+        this.maxConcepts = maxConcepts;
+        this.compactionSegments = compactionSegments;
+    }
+
+    @Override
+    public boolean setEnabled(final NAR n, final boolean enabled) {
+        if (!enabled && (writer == null)) {
+            //never enabled, or already disabled
+            return true;
+        }
+        if (enabled) {
+            memory = n.memory;
+            directory.mkdirs();
+
+            writer = Executors.newSingleThreadExecutor(r -> {
+                final Thread t = new Thread(r, "Checkpointer " + directory);
+                t.setDaemon(true);
+                return t;
+            });
+            writer.execute(() -> {
+                final int[] existing = segments(directory);
+                segment = (existing.length > 0) ? existing[existing.length - 1] : -1;
+            });
+
+            lastCheckpoint = memory.getCycleTime();
+            startCompaction();
+        }
+
+        memory.event.set(this, enabled, Events.CycleEnd.class, Events.ResetEnd.class,
+                Events.ConceptNew.class, Events.ConceptRemember.class, Events.ConceptForget.class,
+                Events.ConceptFire.class,
+                Events.ConceptBeliefAdd.class, Events.ConceptBeliefRemove.class,
+                Events.ConceptGoalAdd.class, Events.ConceptGoalRemove.class,
+                Events.ConceptQuestionAdd.class, Events.ConceptQuestionRemove.class,
+                Events.TermLinkAdd.class, Events.TermLinkRemove.class,
+                Events.TaskLinkAdd.class, Events.TaskLinkRemove.class);
+
+        if (!enabled) {
+            //write everything which is still dirty, then wait for it to be written
+            checkpoint();
+            writer.execute(this::close);
+            writer.shutdown();
+            try {
+                writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+        return true;
+    }
+
+    @Override
+    public void event(final Class event, final Object[] args) {
+        if (event == Events.CycleEnd.class) {
+            if (memory.getCycleTime() - lastCheckpoint >= period)
+                checkpoint(maxConcepts, false);
+        }
+        else if (event == Events.ResetEnd.class) {
+            //everything written before describes a memory which no longer exists
+            synchronized (this) {
+                dirty.clear();
+                forgotten.clear();
+            }
+            startCompaction();
+            writer.execute(this::deleteCompacted);
+        }
+        else if (event == Events.ConceptForget.class) {
+            final Concept c = (Concept)args[0];
+            synchronized (this) {
+                dirty.remove(c);
+                forgotten.add(c.term);
+            }
+        }
+        else if (event == Events.ConceptFire.class) {
+            changed(((NAL)args[0]).getCurrentConcept());
+        }
+        else if ((event == Events.TermLinkAdd.class) || (event == Events.TermLinkRemove.class) ||
+                (event == Events.TaskLinkAdd.class) || (event == Events.TaskLinkRemove.class)) {
+            changed((Concept)args[1]);
+        }
+        else {
+            changed((Concept)args[0]);
+        }
+    }
+
+    protected synchronized void changed(final Concept c) {
+        forgotten.remove(c.term);
+        dirty.add(c);
+    }
+
+    /** marks every active concept dirty, and deletes the older segments once they are all written */
+    protected void startCompaction() {
+        synchronized (this) {
+            for (final Concept c : memory.concepts)
+                dirty.add(c);
+            compacting = true;
+        }
+        writer.execute(() -> {
+            try {
+                roll(0);
+                compactionStart = segment;
+            } catch (IOException e) {
+                memory.emit(ERR.class, e);
+            }
+        });
+    }
+
+    /** writes every dirty concept, and the current time even if none is */
+    public void checkpoint() {
+        checkpoint(Integer.MAX_VALUE, true);
+    }
+
+    /** writes, in the calling thread, a delta of at most max dirty concepts, and queues it to be appended */
+    protected void checkpoint(final int max, final boolean always) {
+        lastCheckpoint = memory.getCycleTime();
+
+        final List<Concept> concepts = new ArrayList(Math.min(max, 64));
+        final List<Term> gone;
+        final boolean compacted;
+        synchronized (this) {
+            final Iterator<Concept> d = dirty.iterator();
+            while (d.hasNext() && (concepts.size() < max)) {
+                final Concept c = d.next();
+                d.remove();
+                //it may have been replaced by another concept of the same term
+                if (memory.concept(c.term) == c)
+                    concepts.add(c);
+            }
+
+            gone = new ArrayList(forgotten);
+            forgotten.clear();
+
+            compacted = compacting && dirty.isEmpty();
+            if (compacted)
+                compacting = false;
+        }
+
+        if (always || !concepts.isEmpty() || !gone.isEmpty()) {
+            final ByteArrayOutputStream delta = new ByteArrayOutputStream();
+            try {
+                new MemorySnapshot.Writer(memory, delta).writeDelta(concepts, gone);
+            } catch (IOException e) {
+                memory.emit(ERR.class, e);
+                return;
+            }
+            final byte[] record = delta.toByteArray();
+            writer.execute(() -> append(record));
+        }
+
+        if (compacted) {
+            writer.execute(this::deleteCompacted);
+        }
+        else if (!compacting && (segmentsWritten >= compactionSegments)) {
+            startCompaction();
+        }
+    }
+
+    protected void append(final byte[] record) {
+        try {
+            if ((buffer == null) || (buffer.remaining() < 4 + record.length))
+                roll(record.length);
+
+            //the length is written last, so that a partly written delta is not read
+            final int p = buffer.position();
+            buffer.position(p + 4);
+            buffer.put(record);
+            buffer.putInt(p, record.length);
+            buffer.force();
+        } catch (IOException e) {
+            memory.emit(ERR.class, e);
+        }
+    }
+
+    /** closes the current segment and begins the next, large enough for a record */
+    protected void roll(final int recordLength) throws IOException {
+        close();
+
+        segment++;
+        segmentsWritten++;
+
+        final long size = Math.max(segmentSize, 8 + 4 + recordLength);
+        channel = new RandomAccessFile(segmentFile(directory, segment), "rw").getChannel();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.putInt(MemorySnapshot.MAGIC);
+        buffer.putInt(MemorySnapshot.VERSION);
+    }
+
+    protected void deleteCompacted() {
+        for (final int s : segments(directory)) {
+            if (s < compactionStart)
+                segmentFile(directory, s).delete();
+        }
+        segmentsWritten = segment - compactionStart + 1;
+    }
+
+    protected void close() {
+        if (channel == null) return;
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            memory.emit(ERR.class, e);
+        }
+        channel = null;
+        buffer = null;
+    }
+
+    static File segmentFile(final File directory, final int segment) {
+        return new File(directory, String.format("%s%08d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    /** indices of the segment files in a directory, in order */
+    static int[] segments(final File directory) {
+        final String[] names = directory.list();
+        if (names == null) return new int[0];
+
+        int n = 0;
+        final int[] s = new int[names.length];
+        for (final String f : names) {
+            if (f.startsWith(SEGMENT_PREFIX) && f.endsWith(SEGMENT_SUFFIX)) {
+                try {
+                    s[n] = Integer.parseInt(f.substring(SEGMENT_PREFIX.length(), f.length() - SEGMENT_SUFFIX.length()));
+                    n++;
+                } catch (NumberFormatException e) { }
+            }
+        }
+        final int[] sorted = Arrays.copyOf(s, n);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Resets a memory and replays the deltas of every segment in a directory
+     * @return the number of deltas replayed
+     */
+    public static int recover(final Memory memory, final File directory) throws IOException {
+        memory.reset();
+
+        int deltas = 0;
+        for (final int s : segments(directory)) {
+            try (FileChannel c = new RandomAccessFile(segmentFile(directory, s), "r").getChannel()) {
+                final MappedByteBuffer b = c.map(FileChannel.MapMode.READ_ONLY, 0, c.size());
+
+                if ((b.remaining() < 8) || (b.getInt() != MemorySnapshot.MAGIC))
+                    throw new IOException("Not a checkpoint segment: " + segmentFile(directory, s));
+                final int version = b.getInt();
+                if (version != MemorySnapshot.VERSION)
+                    throw new IOException("Unsupported checkpoint segment version: " + version);
+
+                //the rest of a segment is zero, where no delta has been written
+                while (b.remaining() >= 4) {
+                    final int length = b.getInt();
+                    if (length == 0) break;
+
+                    final byte[] record = new byte[length];
+                    b.get(record);
+                    new MemorySnapshot.Reader(memory, new ByteArrayInputStream(record)).readDelta();
+                    deltas++;
+                }
+            }
+        }
+        return deltas;
+    }
+
+}
@@ -3,11 +3,18 @@ package nars.core;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import nars.io.Output;
 
 /**
  * Adapted from http://www.recursiverobot.com/post/86215392884/witness-a-simple-android-and-java-event-emitter
@@ -21,28 +28,82 @@ public class EventEmitter {
         public void event(Class<? extends C> event, Object[] args);
     }
 
-    private final Map<Class<?>, List<EventObserver>> events;
-            
+    /**
+     * Integer slots of event classes, shared by every emitter, so that an
+     * emitter finds the observers of an event class by indexing an array.
+     * The classes of Events and Output are registered, in a fixed order,
+     * when this class is loaded; others when they are first used.
+     */
+    private static final Map<Class, Integer> slots = new ConcurrentHashMap();
+    private static final ClassValue<Integer> slotOf = new ClassValue<Integer>() {
+        @Override protected Integer computeValue(final Class c) {
+            return register(c);
+        }
+    };
+    
+    static {
+        final List<Class> known = new ArrayList();
+        Collections.addAll(known, Events.class.getDeclaredClasses());
+        Collections.addAll(known, Output.class.getDeclaredClasses());
+        Collections.addAll(known, Output.DefaultOutputEvents);
+        Collections.sort(known, new Comparator<Class>() {
+            @Override public int compare(final Class a, final Class b) {
+                return a.getName().compareTo(b.getName());
+            }
+        });
+        for (final Class c : known)
+            channel(c);
+    }
+    
+    private static synchronized Integer register(final Class c) {
+        Integer s = slots.get(c);
+        if (s == null) {
+            s = slots.size();
+            slots.put(c, s);
+        }
+        return s;
+    }
+    
+    /** the slot of an event class, which can be kept to test isActive(int) */
+    public static int channel(final Class event) {
+        return slotOf.get(event);
+    }
+    
+    /** the observers of an event class */
+    private static final class Channel {
+        /** replaced by a CopyOnWriteArrayList while the channel is asynchronous,
+         *  since the dispatcher thread iterates it while it may be changed */
+        volatile List<EventObserver> observers;
+        /** whether there are observers, tested by emit() before delivering */
+        volatile boolean active;
+        /** number of events dropped on overflow, or null if delivered synchronously */
+        volatile AtomicLong dropped;
+
+        Channel(final List<EventObserver> observers) {
+            this.observers = observers;
+        }
+    }
+    
+    private static final Object[] noArgs = new Object[0];
+    
+    /** channels, indexed by slot; replaced when it grows */
+    private volatile Channel[] channels;
     
     private Deque<Object[]> pendingOps = new ArrayDeque();
     
-    /** EventEmitter that allows unknown events; must use concurrent collection
-     *  for multithreading since new event classes may be added at any time.
+    /** EventEmitter that allows unknown events; channels are added as event
+     *  classes are observed, at any time.
      */
     public EventEmitter() {
-        /*if (Parameters.THREADS > 1)
-            events = new ConcurrentHashMap<>();
-        else*/
-            //events = new HashMap<>();
-        events = new ConcurrentHashMap<>();
+        channels = new Channel[slots.size()];
     }
 
-    /** EventEmitter with a fixed set of known events; the 'events' map
-     *  can then be made unmodifiable and non-concurrent for speed.    */
+    /** EventEmitter with a fixed set of known events, whose channels are
+     *  created in advance.    */
     public EventEmitter(Class... knownEventClasses) {
-        events = new HashMap(knownEventClasses.length);
+        this();
         for (Class c : knownEventClasses) {
-            events.put(c, newObserverList());
+            getChannel(c);
         }
     }
 
@@ -52,11 +113,34 @@ public class EventEmitter {
                 new ArrayList() : Collections.synchronizedList(new ArrayList());*/
     }
     
+    /** the channel of an event class, or null if it has never been observed */
+    private Channel channelOf(final int slot) {
+        final Channel[] c = channels;
+        return (slot < c.length) ? c[slot] : null;
+    }
+    
+    /** the channel of an event class, which is created if necessary */
+    private synchronized Channel getChannel(final Class event) {
+        final int slot = channel(event);
+        Channel[] c = channels;
+        if (slot >= c.length)
+            c = Arrays.copyOf(c, Math.max(slot + 1, slots.size()));
+        if (c[slot] == null)
+            c[slot] = new Channel(newObserverList());
+        channels = c;
+        return c[slot];
+    }
+    
+    /** whether an event class has observers; callers can test it before
+     *  computing the arguments of an event */
     public final boolean isActive(final Class event) {
-        if (events.get(event)!=null)
-            if (!events.get(event).isEmpty())
-                return true;
-        return false;
+        return isActive(channel(event));
+    }
+    
+    /** whether the event class of a slot has observers */
+    public final boolean isActive(final int slot) {
+        final Channel ch = channelOf(slot);
+        return (ch != null) && ch.active;
     }
     
     //apply pending on/off changes when synchronizing, ex: in-between memory cycles
@@ -101,15 +185,11 @@ public class EventEmitter {
         }
     }
             
-    private <C> void _on(final Class<? extends C> event, final EventObserver<? extends C> o) {
-        if (events.containsKey(event))
-            events.get(event).add(o);
-        else {
-            List<EventObserver> a = newObserverList();
-            a.add(o);
-            events.put(event, a);
-        }
-                
+    /* synchronized with setAsync and setSync, which replace the observer lists */
+    private synchronized <C> void _on(final Class<? extends C> event, final EventObserver<? extends C> o) {
+        final Channel ch = getChannel(event);
+        ch.observers.add(o);
+        ch.active = true;
     }
  
     /**
@@ -128,14 +208,16 @@ public class EventEmitter {
         }
     }
     
-    private void _off(final Class<?> event, final EventObserver o) {
+    private synchronized void _off(final Class<?> event, final EventObserver o) {
         if (null == event || null == o)
             throw new RuntimeException("Invalid parameter");
  
-        if (!events.containsKey(event))
+        final Channel ch = channelOf(channel(event));
+        if (ch == null)
             throw new RuntimeException("Unknown event: " + event);
         
-        events.get(event).remove(o);
+        ch.observers.remove(o);
+        ch.active = !ch.observers.isEmpty();
         /*if (!removed) {
             throw new RuntimeException("EventObserver " + o + " was not registered for events");
         }*/        
@@ -151,12 +233,69 @@ public class EventEmitter {
         }
     }
     
+    /** the channel of an event class if it has observers, otherwise null */
+    private Channel active(final Class eventClass) {
+        final Channel ch = channelOf(channel(eventClass));
+        return ((ch != null) && ch.active) ? ch : null;
+    }
+    
+    /* The overloads for up to 3 arguments allocate their array only when the
+       event has observers, unlike the varargs emit() whose caller allocates it. */
+    
+    public void emit(final Class eventClass) {
+        final Channel ch = active(eventClass);
+        if (ch != null)
+            emit(ch, eventClass, noArgs);
+    }
+    
+    public void emit(final Class eventClass, final Object a) {
+        final Channel ch = active(eventClass);
+        if (ch != null)
+            emit(ch, eventClass, new Object[] { a });
+    }
+    
+    public void emit(final Class eventClass, final Object a, final Object b) {
+        final Channel ch = active(eventClass);
+        if (ch != null)
+            emit(ch, eventClass, new Object[] { a, b });
+    }
+    
+    public void emit(final Class eventClass, final Object a, final Object b, final Object c) {
+        final Channel ch = active(eventClass);
+        if (ch != null)
+            emit(ch, eventClass, new Object[] { a, b, c });
+    }
 
     public void emit(final Class eventClass, final Object... params) {
-        List<EventObserver> observers = events.get(eventClass);
-        
-        if ((observers == null) || (observers.isEmpty())) return;
+        final Channel ch = active(eventClass);
+        if (ch != null)
+            emit(ch, eventClass, params);
+    }
+    
+    private void emit(final Channel ch, final Class eventClass, final Object[] params) {
+        final AtomicLong dropped = ch.dropped;
+        if (dropped != null) {
+            final Dispatcher d = dispatcher;
+            //an observer which emits from the dispatcher thread is delivered to directly, so that Block can not deadlock
+            if ((d != null) && (Thread.currentThread() != d)) {
+                d.publish(eventClass, params, dropped);
+                return;
+            }
+        }
 
+        deliver(eventClass, params, ch.observers);
+    }
+
+    protected void deliver(final Class eventClass, final Object[] params, final List<EventObserver> observers) {
+        if (observers instanceof CopyOnWriteArrayList) {
+            //iterates a snapshot, which observers added or removed meanwhile do not change
+            for (final EventObserver m : observers) {
+                try {
+                    m.event(eventClass, params);
+                } catch (Exception ex) { }
+            }
+            return;
+        }
         int n = observers.size();
         for (int i = 0; i < n; i++) {
             try{
@@ -164,7 +303,243 @@ public class EventEmitter {
             m.event(eventClass, params);
             }catch(Exception ex){}
         }
+    }
+    
+    
+    /** What emit() does with an asynchronous event when the ring buffer is full */
+    public enum Overflow {
+        /** discard the event */
+        Drop,
+        /** block until there is room for one of every SAMPLE_RATE overflowing events, and discard the others */
+        Sample,
+        /** block until there is room */
+        Block
+    }
+    
+    /** with Overflow.Sample, one of this many overflowing events is kept */
+    public static final int SAMPLE_RATE = 16;
+    
+    /** most events delivered per batch by the dispatcher thread */
+    public static final int BATCH_SIZE = 256;
+    
+    /** number of asynchronous event classes */
+    private int asyncChannels;
+    private volatile Dispatcher dispatcher;
+    
+    /**
+     * Delivers the events of some classes asynchronously: emit() publishes
+     * them into a bounded ring buffer, and a daemon thread delivers them to
+     * their observers in batches, in the order they were emitted.  The
+     * arguments of an event are delivered as they are when it is delivered,
+     * not as they were when it was emitted.  Changing the capacity or
+     * overflow policy replaces the ring buffer, after delivering what it
+     * holds.
+     *
+     * @param capacity size of the ring buffer, rounded up to a power of 2
+     */
+    public synchronized void setAsync(final Overflow overflow, final int capacity, final Class... eventClasses) {
+        Dispatcher d = dispatcher;
+        if ((d == null) || (d.overflow != overflow) || (d.capacity() != roundCapacity(capacity))) {
+            if (d != null)
+                d.finish();
+            dispatcher = d = new Dispatcher(overflow, capacity);
+            d.start();
+        }
+        for (final Class c : eventClasses) {
+            final Channel ch = getChannel(c);
+            if (ch.dropped == null) {
+                ch.observers = new CopyOnWriteArrayList(ch.observers);
+                ch.dropped = new AtomicLong();
+                asyncChannels++;
+            }
+        }
+    }
+    
+    /** delivers the events of some classes synchronously again, after delivering those pending */
+    public synchronized void setSync(final Class... eventClasses) {
+        for (final Class c : eventClasses) {
+            final Channel ch = channelOf(channel(c));
+            if ((ch != null) && (ch.dropped != null)) {
+                ch.dropped = null;
+                asyncChannels--;
+            }
+        }
+        if ((asyncChannels == 0) && (dispatcher != null)) {
+            dispatcher.finish();
+            dispatcher = null;
+        }
+        else {
+            flush();
+        }
+        //nothing of these classes is delivered by the dispatcher anymore
+        for (final Class c : eventClasses) {
+            final Channel ch = channelOf(channel(c));
+            if ((ch != null) && (ch.observers instanceof CopyOnWriteArrayList)) {
+                final List<EventObserver> l = newObserverList();
+                l.addAll(ch.observers);
+                ch.observers = l;
+            }
+        }
+    }
+    
+    public boolean isAsync(final Class eventClass) {
+        final Channel ch = channelOf(channel(eventClass));
+        return (ch != null) && (ch.dropped != null);
+    }
+    
+    /** number of events of an asynchronous class which have been dropped on overflow */
+    public long getDropped(final Class eventClass) {
+        final Channel ch = channelOf(channel(eventClass));
+        final AtomicLong d = (ch != null) ? ch.dropped : null;
+        return (d != null) ? d.get() : 0;
+    }
+    
+    /** blocks until every asynchronous event published so far has been delivered */
+    public void flush() {
+        final Dispatcher d = dispatcher;
+        if ((d != null) && (Thread.currentThread() != d))
+            d.flush();
+    }
+    
+    /** ring buffer size for a capacity: the next power of 2 */
+    static int roundCapacity(final int capacity) {
+        return Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+    }
+    
+    /**
+     * Delivers asynchronous events.  The ring buffer is a bounded lock-free
+     * queue for multiple producers (reasoning threads) and this one consumer:
+     * each slot has a sequence number, which tells a producer that it is free
+     * and the consumer that it has been written.
+     */
+    private final class Dispatcher extends Thread {
+        
+        final Overflow overflow;
+        private final int mask;
+        private final Class[] classes;
+        private final Object[][] params;
+        private final AtomicLongArray sequence;
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong overflowed = new AtomicLong();
+        /** position of the next slot to deliver; written only by this thread */
+        private volatile long head;
+        private volatile boolean finishing;
+        
+        Dispatcher(final Overflow overflow, final int capacity) {
+            super("EventEmitter dispatcher");
+            setDaemon(true);
+            this.overflow = overflow;
+            final int n = roundCapacity(capacity);
+            mask = n - 1;
+            classes = new Class[n];
+            params = new Object[n][];
+            sequence = new AtomicLongArray(n);
+            for (int i = 0; i < n; i++)
+                sequence.set(i, i);
+        }
+        
+        int capacity() {
+            return classes.length;
+        }
+        
+        void publish(final Class eventClass, final Object[] args, final AtomicLong dropped) {
+            if (offer(eventClass, args))
+                return;
+            
+            if ((overflow == Overflow.Drop) ||
+                    ((overflow == Overflow.Sample) && ((overflowed.getAndIncrement() % SAMPLE_RATE) != 0))) {
+                dropped.incrementAndGet();
+                return;
+            }
+            
+            while (!offer(eventClass, args)) {
+                if (finishing) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                LockSupport.parkNanos(1000);
+            }
+        }
+        
+        private boolean offer(final Class eventClass, final Object[] args) {
+            long pos = tail.get();
+            while (true) {
+                final int i = (int)(pos & mask);
+                final long dif = sequence.get(i) - pos;
+                if (dif == 0) {
+                    if (tail.compareAndSet(pos, pos + 1)) {
+                        classes[i] = eventClass;
+                        params[i] = args;
+                        sequence.lazySet(i, pos + 1);
+                        return true;
+                    }
+                    pos = tail.get();
+                }
+                else if (dif < 0) {
+                    return false; //full
+                }
+                else {
+                    pos = tail.get();
+                }
+            }
+        }
+        
+        @Override
+        public void run() {
+            final Class[] batchClasses = new Class[BATCH_SIZE];
+            final Object[][] batchParams = new Object[BATCH_SIZE][];
+            
+            while (true) {
+                long h = head;
+                int n = 0;
+                while (n < BATCH_SIZE) {
+                    final int i = (int)(h & mask);
+                    if (sequence.get(i) != h + 1)
+                        break;
+                    batchClasses[n] = classes[i];
+                    batchParams[n] = params[i];
+                    classes[i] = null;
+                    params[i] = null;
+                    sequence.lazySet(i, h + mask + 1);
+                    h++;
+                    n++;
+                }
+                
+                if (n == 0) {
+                    if (finishing && (tail.get() == h))
+                        return;
+                    LockSupport.parkNanos(100000);
+                    continue;
+                }
+                
+                for (int j = 0; j < n; j++) {
+                    final Channel ch = channelOf(channel(batchClasses[j]));
+                    if (ch != null)
+                        deliver(batchClasses[j], batchParams[j], ch.observers);
+                    batchClasses[j] = null;
+                    batchParams[j] = null;
+                }
+                head = h;
+            }
+        }
         
+        void flush() {
+            final long t = tail.get();
+            while ((head < t) && isAlive())
+                LockSupport.parkNanos(100000);
+        }
+        
+        /** delivers what has been published, then stops */
+        void finish() {
+            finishing = true;
+            if (Thread.currentThread() == this)
+                return;
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
  
 //    public void emitLater(final Class eventClass, final Object... params) {
@@ -22,7 +22,6 @@ package nars.core;
 
 import java.io.Serializable;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Deque;
@@ -103,6 +102,7 @@ import nars.language.SetExt;
 import nars.language.SetInt;
 import nars.language.Tense;
 import nars.language.Term;
+import nars.language.TermIndex;
 import static nars.language.Terms.equalSubTermsInRespectToImageAndProduct;
 import nars.operator.Operation;
 import nars.operator.Operator;
@@ -111,6 +111,9 @@ import nars.operator.io.PauseInput;
 import nars.operator.io.Reset;
 import nars.operator.io.SetVolume;
 import nars.storage.Bag;
+import nars.storage.DerivationIndex;
+import nars.storage.NoveltyIndex;
+import nars.storage.QuestionIndex;
 
 
 /**
@@ -133,10 +136,10 @@ public class Memory implements Serializable {
     
     private boolean enabled = true;
     
-    private long timeRealStart;
-    private long timeRealNow;
-    private long timePreviousCycle;
-    private long timeSimulation;
+    long timeRealStart;
+    long timeRealNow;
+    long timePreviousCycle;
+    long timeSimulation;
 
 
 
@@ -155,6 +158,24 @@ public class Memory implements Serializable {
         Simulation
     }
     
+    /** how the work of a memory cycle is distributed when Parameters.THREADS > 1 */
+    public static enum Concurrency {
+        /** all of a cycle's processes are collected, executed together, and the cycle blocks until every one finishes */
+        Barrier,
+        
+        /** a persistent work-stealing pool which fires concepts as soon as they are selected;
+         *  the cycle waits for them at its end.  Requires ConcurrentLevelBag (Default.setConcurrentBags),
+         *  without which the cycle is run as Barrier */
+        WorkStealing,
+        
+        /** as Barrier, but each process buffers the tasks it derives, and the buffers are added
+         *  to newTasks in the order of the processes once every one finishes, so that the order
+         *  of the tasks derived, and which of two equal derivations is kept, does not depend on
+         *  how the processes were scheduled on the threads.  What the processes derive still may,
+         *  since they share the random number generator and the bags */
+        Ordered
+    }
+    
     Timing timing;
     
     
@@ -183,7 +204,7 @@ public class Memory implements Serializable {
     /* InnateOperator registry. Containing all registered operators of the system */
     public final HashMap<CharSequence, Operator> operators;
     
-    private long currentStampSerial = 0;
+    long currentStampSerial = 0;
     
     
     
@@ -233,14 +254,14 @@ public class Memory implements Serializable {
     /**
      * The remaining number of steps to be carried out (stepLater mode)
      */
-    private int inputPausedUntil;
+    int inputPausedUntil;
 
     
     /**
      * System clock, relatively defined to guarantee the repeatability of
      * behaviors
      */
-    private long cycle;
+    long cycle;
     
     
     public final Param param;
@@ -255,9 +276,21 @@ public class Memory implements Serializable {
         @Override public void emit(final Class eventClass, final Object... params) {
             super.emit(eventClass, params); 
 
+            if (params.length > 1)
+                emitted(eventClass, params[1]);
+        }
+
+        /** ConceptQuestionAdd and ConceptQuestionRemove have 2 arguments */
+        @Override public void emit(final Class eventClass, final Object a, final Object b) {
+            super.emit(eventClass, a, b);
+
+            emitted(eventClass, b);
+        }
+
+        private void emitted(final Class eventClass, final Object task) {
             if (eventClass == Events.ConceptQuestionAdd.class) {                    
                 //Concept c = params[0];
-                Task t = (Task)params[1];
+                Task t = (Task)task;
                 Term term = t.getTerm();
                 if (term instanceof Conjunction) {
                     questionsConjunction.add(t);
@@ -265,7 +298,7 @@ public class Memory implements Serializable {
             }
             else if (eventClass == Events.ConceptQuestionAdd.class) {
                 //Concept c = params[0];
-                Task t = (Task)params[1];
+                Task t = (Task)task;
                 Term term = t.getTerm();
                 if (term instanceof Conjunction) {
                     questionsConjunction.remove(t);
@@ -372,6 +405,11 @@ public class Memory implements Serializable {
         concepts.reset();
         novelTasks.clear();
         newTasks.clear();     
+        novelty.clear();
+        if (derivations != null)
+            derivations.clear();
+        if (questionIndex != null)
+            questionIndex.clear();
         
         timing = param.getTiming();      
         cycle = 0;
@@ -503,9 +541,9 @@ public class Memory implements Serializable {
      */
     public Term term(final CompoundTerm compound, final Term[] components) {
         if (compound instanceof ImageExt) {
-            return new ImageExt(components, ((Image) compound).relationIndex);
+            return termIndex.intern(new ImageExt(components, ((Image) compound).relationIndex));
         } else if (compound instanceof ImageInt) {
-            return ImageInt.make(components, ((Image) compound).relationIndex);
+            return termIndex.intern(ImageInt.make(components, ((Image) compound).relationIndex));
         } else {
             return term(compound.operator(), components);
         }
@@ -524,9 +562,13 @@ public class Memory implements Serializable {
      *
      * @param op Term operator
      * @param arg Component list
-     * @return A term or null
+     * @return A term or null; the canonical instance if it can be interned
      */
     public Term term(final NativeOperator op, final Term[] a) {
+        return termIndex.intern(make(op, a));
+    }
+    
+    protected static Term make(final NativeOperator op, final Term[] a) {
         
         switch (op) {
             
@@ -676,7 +718,7 @@ public class Memory implements Serializable {
             param.noiseLevel.set(((SetVolume)t).volume);
             emit(IN.class, t);
         }            
-        else {
+        else if (emitting(IN.class)) {
             emit(IN.class, "Unrecognized Input Task: " + t);
         }
     }
@@ -720,6 +762,22 @@ public class Memory implements Serializable {
         event.emit(c, signal);
     }
 
+    final public void emit(final Class c) {
+        event.emit(c);
+    }
+
+    final public void emit(final Class c, final Object a) {
+        event.emit(c, a);
+    }
+
+    final public void emit(final Class c, final Object a, final Object b) {
+        event.emit(c, a, b);
+    }
+
+    final public void emit(final Class c, final Object a, final Object b, final Object d) {
+        event.emit(c, a, b, d);
+    }
+
     final public boolean emitting(final Class channel) {
         return event.isActive(channel);
     }
@@ -867,6 +925,14 @@ public class Memory implements Serializable {
         }
         else {   
             //execute in parallel, multithreaded                        
+            final boolean ordered = (param.getConcurrency() == Concurrency.Ordered);
+            if (ordered) {
+                for (final Runnable r : tasks) {
+                    if (r instanceof NAL)
+                        ((NAL)r).setBuffered(true);
+                }
+            }
+            
             final ConcurrentContext ctx = ConcurrentContext.enter(); 
             
             ctx.setConcurrency(concurrency);
@@ -878,6 +944,14 @@ public class Memory implements Serializable {
                 // Waits for all concurrent executions to complete.
                 // Re-exports any exception raised during concurrent executions. 
                 ctx.exit();                              
+                
+                if (ordered) {
+                    //merge the derivations, in the order of the processes
+                    for (final Runnable r : tasks) {
+                        if (r instanceof NAL)
+                            ((NAL)r).flush();
+                    }
+                }
             }
         }
     }
@@ -952,7 +1026,8 @@ public class Memory implements Serializable {
 
 
 
-    public long newStampSerial() {
+    /** synchronized, since tasks may be parsed in other threads, ex: by BulkLoader */
+    public synchronized long newStampSerial() {
         return currentStampSerial++;
     }
 
@@ -1030,17 +1105,17 @@ public class Memory implements Serializable {
     
     //there are some inference rules like temporal induction, which violate the semantic dependence
     //like temporal induction, this applies the Novelty strategy also for this case
-    public class Recording
-    {
-        public Recording(Sentence task, Term belief, long time) {
-            this.task=task;
-            this.belief=belief;
-            this.time=time;
-        }
-        Sentence task; //the sentence of the task
-        Term belief; //the remembered termlink this recording represents
-        public long time; //when it was recorded
-    }
+    public final NoveltyIndex novelty = new NoveltyIndex(Parameters.NOVELTY_HORIZON, Parameters.NOVEL_TASKS_TRACK_SIZE);
+
+    /** conclusions derived in recent cycles, or null if derivations are not deduplicated */
+    public final DerivationIndex derivations = (Parameters.DERIVATION_DEDUP_WINDOW >= 0) ?
+            new DerivationIndex(Parameters.DERIVATION_DEDUP_WINDOW, Parameters.DERIVATION_DEDUP_SIZE) : null;
+
+    /** the open questions and the concepts with beliefs or desires, by term structure, or null if they are only matched within a concept */
+    public final QuestionIndex questionIndex = Parameters.QUESTION_INDEX ? new QuestionIndex() : null;
+
+    /** the canonical instances of the constant compound terms of this memory */
+    public final TermIndex termIndex = new TermIndex();
     
     public Concept sampleNextConceptNovel(Sentence t) {
         if(t==null) {
@@ -1054,61 +1129,20 @@ public class Memory implements Serializable {
         return null;
     }
     
-    public HashMap<Sentence,Integer> recorded=new HashMap<Sentence,Integer>(); //its not ideal but at least a speedup in case of novel
-    public ArrayList<Recording> records=new ArrayList<Recording>();
-    
     public void setNotNovelAnymore(Sentence t, Term belief) {
-        
-        if(recorded.containsKey(t)) { //"tasklink-sentence" exists
-            recorded.put(t, recorded.get(t)+1); //so count 1 up for how many tracked "termlinks" it has
-        } else {
-            recorded.put(t, 1); //init counter to 1
-        }
-        
-        records.add(new Recording(t,belief,this.time())); //add the record and init it to current time
-        
-        while(records.size()>Parameters.NOVEL_TASKS_TRACK_SIZE) { //too much records, remove oldest
-            removeRecord(records.get(0));
-        }
+        novelty.record(t, belief, time());
     }
     
-    public void removeRecord(Recording rec) {
-        records.remove(rec);
-        Sentence key=rec.task;
-        //it is in records so it is at least with number 1 in recorded:
-        Integer val=recorded.get(key);
-        if(val<=1) { //it can be removed entirely because it is only 1 time in the records
-            recorded.remove(key);
-        } else {
-            recorded.put(key, recorded.get(key)-1); //decrement "ref counter"
-        }
-    }
-            
-    
-    
+    /** whether the task sentence (by reference) has not been reasoned on with the belief term within the novelty horizon */
     public boolean isNovelInRegardTo(Sentence t, Term belief) {
-        if(!recorded.containsKey(t)) {
-            return true;  //it is not contained so it has to be novel
-        }
-        //it is contained, so lets look through records till we find one with t as taskSentence and 
-        ArrayList<Recording> toRemove=new ArrayList<Recording>();
-        for(Recording r : records) {
-            
-            if(r.time+Parameters.NOVELTY_HORIZON<this.time()) { //outdated, can be removed entirely
-                toRemove.add(r);
-            }
-        }
-        for(Recording r : toRemove) { //this way we don't search through records which are outdated
-            removeRecord(r);
-        }
-        for(Recording r : records) {
-            if(r.task==t) { //it is the same task sentence reference (note: ref is important here)
-                if(r.belief.equals(belief)) { //same "termlink" which means novel=false
-                    return false;
-                }
-            }
+        final boolean novel = novelty.isNovel(t, belief, time());
+        if (logic!=null) {
+            if (novel)
+                logic.NOVELTY_MISS.commit();
+            else
+                logic.NOVELTY_HIT.commit();
         }
-        return true; //we didnt find a recording which wasnt outdated, so it is novel
+        return novel;
     }
     
     public Timing getTiming() {
@@ -0,0 +1,584 @@
+package nars.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import nars.entity.BudgetValue;
+import nars.entity.Concept;
+import nars.entity.ConceptBuilder;
+import nars.entity.DerivationChain;
+import nars.entity.Sentence;
+import nars.entity.Stamp;
+import nars.entity.Task;
+import nars.entity.TaskLink;
+import nars.entity.TermLink;
+import nars.entity.TruthValue;
+import nars.io.narsese.Narsese;
+import nars.io.narsese.Narsese.InvalidInputException;
+import nars.language.Tense;
+import nars.language.Term;
+import nars.operator.Operator;
+import nars.storage.QuestionIndex;
+
+/**
+ * Compact binary snapshot of the state of a Memory: its clock, the names of
+ * its operators, every active Concept with its beliefs, desires, questions,
+ * quests and link bags, and the novel and new task queues.
+ * <p>
+ * A snapshot is written and read as a single stream.  Terms and Tasks are
+ * written once, where they are first referred to, and referred to by index
+ * afterward; a Term is written as its name and parsed when it is read.
+ * Numbers are written as variable-length integers.  The streams are buffered,
+ * so a snapshot should be the only content of the stream it is read from.
+ * <p>
+ * A snapshot is read into a Memory built the same way as the one it was
+ * written from, which is reset first.  A delta, as written by a Checkpointer,
+ * holds only some concepts, and updates a Memory without resetting it.  The subconscious concept cache, the
+ * executive's plans and the parents of tasks are not part of a snapshot.
+ */
+public class MemorySnapshot {
+
+    static final int MAGIC = 0x4E415253; //"NARS"
+    static final int VERSION = 1;
+
+    public static class Writer {
+        private final Memory memory;
+        private final DataOutputStream out;
+        private final Map<Term, Integer> terms = new HashMap();
+        private final Map<Task, Integer> tasks = new IdentityHashMap();
+
+        public Writer(final Memory memory, final OutputStream out) {
+            this.memory = memory;
+            this.out = new DataOutputStream(new BufferedOutputStream(out));
+        }
+
+        public void write() throws IOException {
+            writeHeader();
+            writeClock();
+
+            writeVarInt(memory.operators.size());
+            for (final Operator o : memory.operators.values())
+                writeString(o.name());
+
+            for (final Concept c : memory.concepts) {
+                out.writeBoolean(true);
+                writeConcept(c);
+            }
+            out.writeBoolean(false);
+
+            writeVarInt(memory.novelTasks.size());
+            for (final Task t : memory.novelTasks)
+                writeTask(t);
+
+            final Collection<Task> newTasks = new ArrayList(memory.newTasks);
+            writeVarInt(newTasks.size());
+            for (final Task t : newTasks)
+                writeTask(t);
+
+            out.flush();
+        }
+
+        /**
+         * Writes the clock, then the terms of concepts which have been
+         * forgotten, then the state of some concepts, as read by Reader.readDelta
+         */
+        public void writeDelta(final Iterable<Concept> concepts, final Collection<Term> forgotten) throws IOException {
+            writeClock();
+
+            writeVarInt(forgotten.size());
+            for (final Term t : forgotten)
+                writeTerm(t);
+
+            for (final Concept c : concepts) {
+                out.writeBoolean(true);
+                writeConcept(c);
+            }
+            out.writeBoolean(false);
+
+            out.flush();
+        }
+
+        /** writes one concept, by itself, as read by Reader.readDetachedConcept */
+        public void writeDetachedConcept(final Concept c) throws IOException {
+            writeConcept(c);
+            out.flush();
+        }
+
+        public void writeHeader() throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        protected void writeClock() throws IOException {
+            writeVarLong(memory.cycle);
+            writeVarLong(memory.timeSimulation);
+            writeVarLong(memory.getRealTime());
+            writeVarLong(memory.currentStampSerial);
+            writeVarLong(memory.inputPausedUntil);
+            out.writeFloat(memory.emotion.happy());
+            out.writeFloat(memory.emotion.busy());
+        }
+
+        protected void writeConcept(final Concept c) throws IOException {
+            writeTerm(c.term);
+            writeBudget(c.budget);
+
+            writeSentences(c.beliefs);
+            writeSentences(c.desires);
+            writeTasks(c.questions);
+            writeTasks(c.quests);
+
+            writeVarInt(c.termLinks.size());
+            for (final TermLink l : c.termLinks) {
+                writeLink(l.target, l.type, l.index);
+                writeBudget(l.budget);
+            }
+
+            writeVarInt(c.taskLinks.size());
+            for (final TaskLink l : c.taskLinks) {
+                writeTask(l.targetTask);
+                writeVarInt(l.type);
+                writeIndex(l.index);
+                writeBudget(l.budget);
+
+                writeVarInt(l.recordCount());
+                for (int i = 0; i < l.recordCount(); i++) {
+                    final TermLink r = l.recordLink(i);
+                    writeLink(r.target, r.type, r.index);
+                    writeVarLong(l.recordTime(i));
+                }
+            }
+        }
+
+        protected void writeLink(final Term target, final short type, final short[] index) throws IOException {
+            writeTerm(target);
+            writeVarInt(type);
+            writeIndex(index);
+        }
+
+        protected void writeIndex(final short[] index) throws IOException {
+            if (index == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(index.length + 1);
+            for (final short i : index)
+                writeVarInt(i);
+        }
+
+        protected void writeSentences(final List<Sentence> l) throws IOException {
+            writeVarInt(l.size());
+            for (final Sentence s : l)
+                writeSentence(s);
+        }
+
+        protected void writeTasks(final List<Task> l) throws IOException {
+            writeVarInt(l.size());
+            for (final Task t : l)
+                writeTask(t);
+        }
+
+        /** a Task is written where it is first referred to; afterward, only its index */
+        protected void writeTask(final Task t) throws IOException {
+            final Integer i = tasks.get(t);
+            if (i != null) {
+                writeVarInt(i);
+                return;
+            }
+            final int n = tasks.size();
+            tasks.put(t, n);
+            writeVarInt(n);
+
+            writeSentence(t.sentence);
+            writeBudget(t.budget);
+            writeOptionalSentence(t.parentBelief);
+            writeOptionalSentence(t.getBestSolution());
+            out.writeBoolean(t.isParticipatingInTemporalInductionOnSucceedingEvents());
+        }
+
+        protected void writeOptionalSentence(final Sentence s) throws IOException {
+            out.writeBoolean(s != null);
+            if (s != null)
+                writeSentence(s);
+        }
+
+        protected void writeSentence(final Sentence s) throws IOException {
+            writeTerm(s.term);
+            out.writeChar(s.punctuation);
+
+            out.writeBoolean(s.truth != null);
+            if (s.truth != null) {
+                out.writeFloat(s.truth.getFrequency());
+                out.writeFloat(s.truth.getConfidence());
+                out.writeBoolean(s.truth.getAnalytic());
+            }
+
+            writeStamp(s.stamp);
+            out.writeBoolean(s.getRevisible());
+            out.writeBoolean(s.producedByTemporalInduction);
+        }
+
+        protected void writeStamp(final Stamp s) throws IOException {
+            writeVarInt(s.evidentialBase.length);
+            for (final long serial : s.evidentialBase)
+                writeVarLong(serial);
+            writeVarLong(s.getCreationTime());
+            writeVarLong(s.getOccurrenceTime());
+
+            final Tense tense = s.getTense();
+            writeVarInt(tense == null ? 0 : tense.ordinal() + 1);
+
+            final DerivationChain chain = s.getChain();
+            writeVarInt(chain.size());
+            for (final Term t : chain)
+                writeTerm(t);
+        }
+
+        protected void writeBudget(final BudgetValue b) throws IOException {
+            out.writeFloat(b.getPriority());
+            out.writeFloat(b.getDurability());
+            out.writeFloat(b.getQuality());
+            writeVarLong(b.getLastForgetTime());
+        }
+
+        /** a Term is written where it is first referred to, by name; afterward, only its index */
+        protected void writeTerm(final Term t) throws IOException {
+            final Integer i = terms.get(t);
+            if (i != null) {
+                writeVarInt(i);
+                return;
+            }
+            final int n = terms.size();
+            terms.put(t, n);
+            writeVarInt(n);
+            writeString(t.name());
+        }
+
+        protected void writeString(final CharSequence s) throws IOException {
+            final byte[] b = s.toString().getBytes(StandardCharsets.UTF_8);
+            writeVarInt(b.length);
+            out.write(b);
+        }
+
+        protected void writeVarInt(final int x) throws IOException {
+            writeVarLong(x);
+        }
+
+        /** zig-zag encoded so that small negative values, ex: -1, are also short */
+        protected void writeVarLong(final long x) throws IOException {
+            long v = (x << 1) ^ (x >> 63);
+            while ((v & ~0x7FL) != 0) {
+                out.writeByte((int)((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.writeByte((int)v);
+        }
+    }
+
+    public static class Reader {
+        private final Memory memory;
+        private final DataInputStream in;
+        private final Narsese narsese;
+        private final List<Term> terms = new ArrayList();
+        private final List<Task> tasks = new ArrayList();
+        private final int recordLength;
+
+        public Reader(final Memory memory, final InputStream in) {
+            this.memory = memory;
+            this.in = new DataInputStream(new BufferedInputStream(in));
+            this.narsese = new Narsese(memory);
+            this.recordLength = memory.param.termLinkRecordLength.get();
+        }
+
+        /** resets the memory, then restores the state read */
+        public void read() throws IOException {
+            readHeader();
+
+            memory.reset();
+
+            readClock();
+
+            final int operators = readVarInt();
+            for (int i = 0; i < operators; i++) {
+                final String o = readString();
+                if (memory.getOperator(o) == null)
+                    throw new IOException("Memory snapshot requires unregistered operator " + o);
+            }
+
+            while (in.readBoolean())
+                readConcept();
+
+            final int novelTasks = readVarInt();
+            for (int i = 0; i < novelTasks; i++)
+                memory.novelTasks.putIn(readTask());
+
+            final int newTasks = readVarInt();
+            for (int i = 0; i < newTasks; i++)
+                memory.newTasks.add(readTask());
+        }
+
+        /**
+         * Updates the memory with what was written by Writer.writeDelta: sets
+         * the clock, removes the concepts forgotten, and replaces those read
+         */
+        public void readDelta() throws IOException {
+            readClock();
+
+            final int forgotten = readVarInt();
+            for (int i = 0; i < forgotten; i++)
+                memory.concepts.takeOut(readTerm());
+
+            while (in.readBoolean())
+                readConcept();
+        }
+
+        public void readHeader() throws IOException {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a memory snapshot");
+            final int version = in.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported memory snapshot version: " + version);
+        }
+
+        protected void readClock() throws IOException {
+            memory.cycle = readVarLong();
+            memory.timeSimulation = readVarLong();
+            memory.timeRealStart = memory.timeRealNow - readVarLong();
+            memory.currentStampSerial = Math.max(memory.currentStampSerial, readVarLong());
+            memory.inputPausedUntil = (int)readVarLong();
+            memory.timePreviousCycle = memory.time();
+            memory.emotion.set(in.readFloat(), in.readFloat());
+        }
+
+        protected void readConcept() throws IOException {
+            final Term term = readTerm();
+            final BudgetValue budget = readBudget();
+
+            //a concept read replaces any with the same term
+            memory.concepts.takeOut(term);
+            final Concept c = memory.concepts.conceptualize(new BudgetValue(budget), term, true);
+
+            readContents(c, budget);
+        }
+
+        /**
+         * Reads a concept written by Writer.writeDetachedConcept, creating it
+         * with a ConceptBuilder instead of adding it to the memory
+         */
+        public Concept readDetachedConcept(final ConceptBuilder builder) throws IOException {
+            final Term term = readTerm();
+            final BudgetValue budget = readBudget();
+
+            final Concept c = builder.newConcept(new BudgetValue(budget), term, memory);
+            readContents(c, budget);
+            return c;
+        }
+
+        /** reads the contents of a concept, and sets its budget; c may be null, to skip them */
+        protected void readContents(final Concept c, final BudgetValue budget) throws IOException {
+            final List<Sentence> beliefs = readSentences();
+            final List<Sentence> desires = readSentences();
+            final List<Task> questions = readTasks();
+            final List<Task> quests = readTasks();
+
+            final List<TermLink> termLinks = new ArrayList();
+            final int numTermLinks = readVarInt();
+            for (int i = 0; i < numTermLinks; i++) {
+                final Term target = readTerm();
+                final short type = (short)readVarInt();
+                final short[] index = readIndex();
+                termLinks.add(new TermLink(target, type, index, readBudget()));
+            }
+
+            final List<TaskLink> taskLinks = new ArrayList();
+            final int numTaskLinks = readVarInt();
+            for (int i = 0; i < numTaskLinks; i++) {
+                final Task task = readTask();
+                final short type = (short)readVarInt();
+                final short[] index = readIndex();
+                final TaskLink l = new TaskLink(task, type, index, readBudget(), recordLength);
+
+                final int records = readVarInt();
+                for (int j = 0; j < records; j++) {
+                    final Term target = readTerm();
+                    final short linkType = (short)readVarInt();
+                    final short[] linkIndex = readIndex();
+                    l.addRecord(new TermLink(target, linkType, linkIndex, null), readVarLong());
+                }
+                taskLinks.add(l);
+            }
+
+            //the concept may not fit in the memory, but its contents are read regardless
+            if (c == null)
+                return;
+
+            //conceptualize() applies forgetting to the budget; restore it as it was
+            c.budget.setPriority(budget.getPriority());
+            c.budget.setDurability(budget.getDurability());
+            c.budget.setQuality(budget.getQuality());
+            c.budget.setLastForgetTime(budget.getLastForgetTime());
+
+            c.beliefs.addAll(beliefs);
+            c.desires.addAll(desires);
+            c.questions.addAll(questions);
+            c.quests.addAll(quests);
+            for (final TermLink l : termLinks)
+                c.termLinks.putIn(l);
+            for (final TaskLink l : taskLinks)
+                c.taskLinks.putIn(l);
+
+            //indexed as Concept indexes what it processes
+            final QuestionIndex index = memory.questionIndex;
+            if (index != null) {
+                if (!c.beliefs.isEmpty() || !c.desires.isEmpty())
+                    index.addConcept(c);
+                for (final Task q : c.questions)
+                    index.addQuestion(c, q);
+            }
+        }
+
+        protected short[] readIndex() throws IOException {
+            final int n = readVarInt();
+            if (n == 0)
+                return null;
+            final short[] index = new short[n - 1];
+            for (int i = 0; i < index.length; i++)
+                index[i] = (short)readVarInt();
+            return index;
+        }
+
+        protected List<Sentence> readSentences() throws IOException {
+            final int n = readVarInt();
+            final List<Sentence> l = new ArrayList(n);
+            for (int i = 0; i < n; i++)
+                l.add(readSentence());
+            return l;
+        }
+
+        protected List<Task> readTasks() throws IOException {
+            final int n = readVarInt();
+            final List<Task> l = new ArrayList(n);
+            for (int i = 0; i < n; i++)
+                l.add(readTask());
+            return l;
+        }
+
+        protected Task readTask() throws IOException {
+            final int i = readVarInt();
+            if (i < tasks.size())
+                return tasks.get(i);
+            if (i != tasks.size())
+                throw new IOException("Invalid task reference: " + i);
+
+            final Sentence sentence = readSentence();
+            final BudgetValue budget = readBudget();
+            final Sentence parentBelief = readOptionalSentence();
+            final Sentence bestSolution = readOptionalSentence();
+            final Task t = new Task(sentence, budget, (Task)null, parentBelief, bestSolution);
+            t.setParticipateInTemporalInductionOnSucceedingEvents(in.readBoolean());
+
+            tasks.add(t);
+            return t;
+        }
+
+        protected Sentence readOptionalSentence() throws IOException {
+            return in.readBoolean() ? readSentence() : null;
+        }
+
+        protected Sentence readSentence() throws IOException {
+            final Term term = readTerm();
+            final char punctuation = in.readChar();
+
+            TruthValue truth = null;
+            if (in.readBoolean())
+                truth = new TruthValue(in.readFloat(), in.readFloat(), in.readBoolean());
+
+            final Sentence s = new Sentence(term, punctuation, truth, readStamp());
+            s.setRevisible(in.readBoolean());
+            s.producedByTemporalInduction = in.readBoolean();
+            return s;
+        }
+
+        protected Stamp readStamp() throws IOException {
+            final long[] base = new long[readVarInt()];
+            for (int i = 0; i < base.length; i++)
+                base[i] = readVarLong();
+            final long creationTime = readVarLong();
+            final long occurrenceTime = readVarLong();
+
+            final int tense = readVarInt();
+
+            DerivationChain chain = DerivationChain.Empty;
+            final int chainLength = readVarInt();
+            for (int i = 0; i < chainLength; i++)
+                chain = chain.with(readTerm());
+
+            return new Stamp(base, creationTime, occurrenceTime, (tense == 0) ? null : Tense.values()[tense - 1], chain);
+        }
+
+        protected BudgetValue readBudget() throws IOException {
+            final BudgetValue b = new BudgetValue(in.readFloat(), in.readFloat(), in.readFloat());
+            b.setLastForgetTime(readVarLong());
+            return b;
+        }
+
+        protected Term readTerm() throws IOException {
+            final int i = readVarInt();
+            if (i < terms.size())
+                return terms.get(i);
+            if (i != terms.size())
+                throw new IOException("Invalid term reference: " + i);
+
+            final String name = readString();
+            final Term t;
+            try {
+                t = narsese.parseTerm(name);
+            } catch (InvalidInputException e) {
+                throw new IOException("Invalid term in memory snapshot: " + name, e);
+            }
+            terms.add(t);
+            return t;
+        }
+
+        protected String readString() throws IOException {
+            final byte[] b = new byte[readVarInt()];
+            in.readFully(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        protected int readVarInt() throws IOException {
+            return (int)readVarLong();
+        }
+
+        protected long readVarLong() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = in.readByte();
+                v |= (long)(b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return (v >>> 1) ^ -(v & 1);
+            }
+            throw new IOException("Malformed variable-length number");
+        }
+    }
+
+    public static void write(final Memory memory, final OutputStream out) throws IOException {
+        new Writer(memory, out).write();
+    }
+
+    public static void read(final Memory memory, final InputStream in) throws IOException {
+        new Reader(memory, in).read();
+    }
+
+}
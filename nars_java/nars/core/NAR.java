@@ -4,6 +4,8 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Iterators;
 import static com.google.common.collect.Iterators.singletonIterator;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -134,7 +136,8 @@ public class NAR implements Runnable, TaskSource {
     private boolean threadYield;
     
     private int inputSelected = 0; //counter for the current selected input channel
-    private boolean ioChanged;
+    /** set by addInput, which may be called from other threads */
+    private volatile boolean ioChanged;
     
     private int cyclesPerFrame = 1; //how many memory cycles to execute in one NAR cycle
     
@@ -167,6 +170,27 @@ public class NAR implements Runnable, TaskSource {
         memory.reset();        
     }
 
+    /**
+     * Writes a snapshot of the memory, from which it can be restored by 
+     * readSnapshot.  The NAR must not be running.
+     * @see MemorySnapshot
+     */
+    public void writeSnapshot(final OutputStream out) throws IOException {
+        if (running)
+            throw new IllegalStateException("Unable to write snapshot while running");
+        MemorySnapshot.write(memory, out);
+    }
+
+    /**
+     * Replaces the memory with one read from a snapshot written by a NAR built
+     * the same way.  Input channels are kept.  The NAR must not be running.
+     */
+    public void readSnapshot(final InputStream in) throws IOException {
+        if (running)
+            throw new IllegalStateException("Unable to read snapshot while running");
+        MemorySnapshot.read(memory, in);
+    }
+
     /**
      * Convenience method for creating a TextInput and adding as Input Channel.
      * Generally the text will consist of Task's to be parsed in Narsese, but
@@ -351,7 +375,9 @@ public class NAR implements Runnable, TaskSource {
         ObjectTaskInPort i = new ObjectTaskInPort(channel, new FIFO(), 1.0f);
                
         try {
-            i.update();
+            //while running, the input is read by the NAR's thread, not the caller's
+            if (!running)
+                i.update();
             newInputChannels.add(i);
         } catch (IOException ex) {  
             if (Parameters.DEBUG)
@@ -409,11 +435,12 @@ public class NAR implements Runnable, TaskSource {
     @Deprecated public void start(final long minCyclePeriodMS, int cyclesPerFrame) {
         this.minCyclePeriodMS = minCyclePeriodMS;
         this.cyclesPerFrame = cyclesPerFrame;
+        //set before the thread starts, which exits if it is not running
+        running = true;        
         if (thread == null) {
             thread = new Thread(this, "Inference");
             thread.start();
         }
-        running = true;        
     }
     
     /**
@@ -445,6 +472,7 @@ public class NAR implements Runnable, TaskSource {
         }
         stopped = true;
         running = false;
+        memory.concepts.stop();
     }    
     
     /** Execute a fixed number of frames. 
@@ -542,9 +570,10 @@ public class NAR implements Runnable, TaskSource {
         
         ioChanged = false;        
         
-        if (!newInputChannels.isEmpty()) {
-            inputChannels.addAll(newInputChannels);
-            newInputChannels.clear();
+        //removed one at a time, so that a channel added meanwhile remains for the next update
+        for (final InPort<Object,AbstractTask> i : newInputChannels) {
+            inputChannels.add(i);
+            newInputChannels.remove(i);
         }
 
     }
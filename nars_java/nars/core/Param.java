@@ -1,6 +1,7 @@
 package nars.core;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import nars.core.Memory.Concurrency;
 import nars.core.Memory.Forgetting;
 import nars.core.Memory.Timing;
 import nars.language.Interval.AtomicDuration;
@@ -43,6 +44,7 @@ public class Param implements Serializable {
 
     Timing timing;
     Forgetting forgetting;
+    Concurrency concurrency = Concurrency.Barrier;
     List<DerivationFilter> defaultDerivationFilters = new ArrayList();
     
     public static Param fromJSON(String json) {
@@ -130,6 +132,15 @@ public class Param implements Serializable {
         this.forgetting = forgetMode;
     }
 
+    /** execution mode of the memory cycle when Parameters.THREADS > 1 */
+    public Concurrency getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(Concurrency concurrency) {
+        this.concurrency = concurrency;
+    }
+
     public final List<DerivationFilter> getDerivationFilters() {
         return defaultDerivationFilters;
     }
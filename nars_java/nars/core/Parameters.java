@@ -131,6 +131,16 @@ public class Parameters {
     //work a bit differently, in order for it not to bypass the novelty strategy (because it doesn't use a termlink
     //for inference, we track the tasks extra for now
 
+    /** cycles within which a derivation which repeats an earlier conclusion is dropped by NAL.derivedTask; negative to disable.
+     *  Disabled by default: a dropped repetition does not activate its concept and links again, which changes the reasoning */
+    public static int DERIVATION_DEDUP_WINDOW = -1;
+
+    /** most conclusions remembered for DERIVATION_DEDUP_WINDOW */
+    public static int DERIVATION_DEDUP_SIZE = 4096;
+
+    /** whether beliefs and questions are matched through a QuestionIndex of the memory, rather than only within their concept */
+    public static boolean QUESTION_INDEX = true;
+
     /**
      * The rate of confidence decrease in mental operations Doubt and Hesitate
      * set to zero to disable this feature.
@@ -21,6 +21,7 @@ import nars.core.control.DefaultAttention;
 import nars.entity.BudgetValue;
 import nars.entity.Concept;
 import nars.entity.ConceptBuilder;
+import nars.entity.Item;
 import nars.entity.Sentence;
 import nars.entity.Task;
 import nars.entity.TaskLink;
@@ -39,6 +40,8 @@ import nars.plugin.mental.InternalExperience;
 import nars.plugin.mental.RuntimeNARSettings;
 import nars.storage.Bag;
 import nars.storage.CacheBag;
+import nars.storage.ConcurrentLevelBag;
+import nars.storage.DirectConceptCache;
 import nars.storage.LevelBag;
 
 /**
@@ -67,11 +70,17 @@ public class Default extends Build implements ConceptBuilder {
     /** max # subconscious "subconcept" concepts */
     int subconceptBagSize;
 
+    /** max bytes of direct buffers for subconscious concepts evicted from the subconcept bag, or 0 to drop them */
+    long subconceptDirectBytes;
+
     /** Size of TaskBuffer */
     int taskBufferSize;
     
     int taskBufferLevels;
     
+    /** use thread-safe ConcurrentLevelBag instead of LevelBag, for Parameters.THREADS > 1 */
+    boolean concurrentBags;
+    
     public static enum InternalExperienceMode {
         None, Minimal, Full
     }
@@ -180,18 +189,25 @@ public class Default extends Build implements ConceptBuilder {
 
     @Override
     public Concept newConcept(BudgetValue b, Term t, Memory m) {        
-        Bag<TaskLink,Task> taskLinks = new LevelBag<>(getTaskLinkBagLevels(), getConceptTaskLinks());
-        Bag<TermLink,TermLink> termLinks = new LevelBag<>(getTermLinkBagLevels(), getConceptTermLinks());
+        Bag<TaskLink,Task> taskLinks = newLevelBag(getTaskLinkBagLevels(), getConceptTaskLinks());
+        Bag<TermLink,TermLink> termLinks = newLevelBag(getTermLinkBagLevels(), getConceptTermLinks());
         
         return new Concept(b, t, taskLinks, termLinks, m);        
     }
 
+    protected <E extends Item<K>,K> Bag<E,K> newLevelBag(int levels, int capacity) {
+        if (concurrentBags)
+            return new ConcurrentLevelBag<>(levels, capacity);
+        return new LevelBag<>(levels, capacity);
+    }
     
     public Bag<Concept,Term> newConceptBag() {
-        return new LevelBag(getConceptBagLevels(), getConceptBagSize());
+        return newLevelBag(getConceptBagLevels(), getConceptBagSize());
     }
     
     CacheBag<Term,Concept> newSubconceptBag() {        
+        if (getSubconceptDirectBytes() > 0)
+            return new DirectConceptCache(getSubconceptBagSize(), getSubconceptDirectBytes(), getConceptBuilder());
         if (getSubconceptBagSize() == 0) return null;
         return new CacheBag(getSubconceptBagSize());
     }
@@ -202,7 +218,16 @@ public class Default extends Build implements ConceptBuilder {
     }
     
     public Bag<Task<Term>,Sentence<Term>> newNovelTaskBag() {
-        return new LevelBag<>(getNovelTaskBagLevels(), getNovelTaskBagSize());
+        return newLevelBag(getNovelTaskBagLevels(), getNovelTaskBagSize());
+    }
+
+    public boolean isConcurrentBags() {
+        return concurrentBags;
+    }
+
+    public Default setConcurrentBags(boolean concurrentBags) {
+        this.concurrentBags = concurrentBags;
+        return this;
     }
 
     public Default setSubconceptBagSize(int subconceptBagSize) {
@@ -212,6 +237,14 @@ public class Default extends Build implements ConceptBuilder {
     public int getSubconceptBagSize() {
         return subconceptBagSize;
     }
+
+    public Default setSubconceptDirectBytes(long subconceptDirectBytes) {
+        this.subconceptDirectBytes = subconceptDirectBytes;
+        return this;
+    }
+    public long getSubconceptDirectBytes() {
+        return subconceptDirectBytes;
+    }
  
     
     
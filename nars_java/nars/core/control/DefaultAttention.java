@@ -4,21 +4,27 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import nars.core.Attention;
 import nars.core.Events;
 import nars.core.Events.ConceptForget;
 import nars.core.Memory;
+import nars.core.Memory.Concurrency;
 import nars.core.Parameters;
 import nars.entity.BudgetValue;
 import nars.entity.Concept;
 import nars.entity.ConceptBuilder;
 import nars.inference.BudgetFunctions;
 import nars.inference.BudgetFunctions.Activating;
+import nars.io.Output.ERR;
 import nars.language.Term;
 import nars.storage.Bag;
 import nars.storage.Bag.MemoryAware;
 import nars.storage.CacheBag;
+import nars.storage.ConcurrentLevelBag;
 
 /**
  * The original deterministic memory cycle implementation that is currently used as a standard
@@ -39,6 +45,9 @@ public class DefaultAttention implements Attention {
     
     private Cycle loop = new Cycle();
     
+    /** persistent worker threads for Concurrency.WorkStealing, created on first use */
+    private transient volatile ForkJoinPool workers;
+    
        
     public class Cycle {
         public final AtomicInteger threads = new AtomicInteger();
@@ -97,6 +106,7 @@ public class DefaultAttention implements Attention {
     }
 
     /** for removing a specific concept (if it's not putBack) */
+    @Override
     public Concept takeOut(Term t) {
         return concepts.take(t);
     }
@@ -108,6 +118,8 @@ public class DefaultAttention implements Attention {
             ((AttentionAware)concepts).setAttention(this);
         if (concepts instanceof MemoryAware)
             ((MemoryAware)concepts).setMemory(m);
+        if (subcon instanceof MemoryAware)
+            ((MemoryAware)subcon).setMemory(m);
     }
 
     @Override
@@ -162,6 +174,11 @@ public class DefaultAttention implements Attention {
     }
 
     public void cycleParallel() {
+        
+        if ((memory.param.getConcurrency() == Concurrency.WorkStealing) && (concepts instanceof ConcurrentLevelBag)) {
+            cycleWorkStealing();
+            return;
+        }
 
         final List<Runnable> run = new ArrayList();
         
@@ -177,6 +194,77 @@ public class DefaultAttention implements Attention {
 
     }    
     
+    /** 
+     * Submits the cycle's work to the persistent work-stealing pool.
+     * Concept selection is pipelined with firing: each concept starts firing as soon as it is
+     * taken from the bag.  The cycle then waits for all of it to finish, so that nothing but
+     * the pool's workers accesses the memory while they run.  The concept bag, and the bags of
+     * the concepts, must be ConcurrentLevelBag (see Default.setConcurrentBags); cycleParallel
+     * uses the barrier instead if the concept bag is not.
+     */
+    public void cycleWorkStealing() {
+        final ForkJoinPool w = workers();
+        
+        final List<Runnable> run = new ArrayList();
+        
+        memory.processNewTasks(loop.newTasksPriority(), run);
+        
+        memory.processNovelTasks(loop.novelTasksPriority(), run);
+        
+        for (final Runnable r : run)
+            execute(w, r);
+        
+        final int c = loop.conceptsPriority();
+        for (int i = 0; i < c; i++) {
+            FireConcept f = next();
+            
+            if (f!=null)
+                execute(w, f);
+            else
+                break;
+        }
+        
+        quiesce();
+    }
+    
+    /** executes a process in the pool, or in this thread if the pool was stopped meanwhile */
+    private static void execute(final ForkJoinPool w, final Runnable r) {
+        try {
+            w.execute(r);
+        }
+        catch (RejectedExecutionException e) {
+            r.run();
+        }
+    }
+    
+    protected ForkJoinPool workers() {
+        ForkJoinPool w = workers;
+        if (w == null) {
+            workers = w = new ForkJoinPool(Parameters.THREADS, ForkJoinPool.defaultForkJoinWorkerThreadFactory, 
+                    (thread, e) -> memory.emit(ERR.class, e), 
+                    true /* FIFO: submitted processes are never joined */);
+        }
+        return w;
+    }
+    
+    /** blocks until all processes submitted to the work-stealing pool have finished */
+    public void quiesce() {
+        final ForkJoinPool w = workers;
+        if (w != null)
+            w.awaitQuiescence(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+    
+    /** shuts down the work-stealing pool, after its processes have finished; it is created again if needed */
+    @Override
+    public void stop() {
+        final ForkJoinPool w = workers;
+        if (w != null) {
+            workers = null;
+            w.shutdown();
+            w.awaitQuiescence(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+    
     public void processConcepts(int c, Collection<Runnable> run) {
         if (c == 0) return;                
         
@@ -198,6 +286,7 @@ public class DefaultAttention implements Attention {
 
     @Override
     public void reset() {
+        stop();
         concepts.clear();
     }
 
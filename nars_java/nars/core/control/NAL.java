@@ -59,6 +59,15 @@ public abstract class NAL implements Runnable {
 
     /** stores the tasks that this process generates, and adds to memory */
     public final List<Task> tasksAdded = new ArrayList();
+
+    /**
+     * tasks added, their reasons, and the Events.TaskDerive arguments of
+     * those derived (null for the others), while buffered, or null if tasks
+     * are added to memory directly
+     */
+    private List<Task> buffer = null;
+    private List<String> bufferReasons = null;
+    private List<Object[]> bufferDerivations = null;
     
     //TODO tasksDicarded
     
@@ -76,6 +85,18 @@ public abstract class NAL implements Runnable {
         memory.emit(c, o);
     }
 
+    public void emit(final Class c, final Object a) {
+        memory.emit(c, a);
+    }
+
+    public void emit(final Class c, final Object a, final Object b) {
+        memory.emit(c, a, b);
+    }
+
+    public void emit(final Class c, final Object a, final Object b, final Object d) {
+        memory.emit(c, a, b, d);
+    }
+
 
     
     /**
@@ -86,6 +107,11 @@ public abstract class NAL implements Runnable {
      */
     public boolean derivedTask(final Task task, final boolean revised, final boolean single, Task parent,Sentence occurence2, boolean overlapAllowed) {                        
 
+        if (!isNewDerivation(task, parent, occurence2)) {
+            memory.removeTask(task, "Duplicate derivation");
+            return false;
+        }
+
         if (derivationFilters!=null) {            
             for (int i = 0; i < derivationFilters.size(); i++) {
                 DerivationFilter d = derivationFilters.get(i);
@@ -140,18 +166,15 @@ public abstract class NAL implements Runnable {
         final Term currentTaskContent = getCurrentTask().getTerm();
         if (getCurrentBelief() != null && getCurrentBelief().isJudgment()) {
             final Term currentBeliefContent = getCurrentBelief().term;
-            stamp.chainRemove(currentBeliefContent);
-            stamp.chainAdd(currentBeliefContent);
+            stamp.chainAddLast(currentBeliefContent);
         }
         //workaround for single premise task issue:
         if (currentBelief == null && single && currentTask != null && currentTask.sentence.isJudgment()) {
-            stamp.chainRemove(currentTaskContent);
-            stamp.chainAdd(currentTaskContent);
+            stamp.chainAddLast(currentTaskContent);
         }
         //end workaround
         if (currentTask != null && !single && currentTask.sentence.isJudgment()) {
-            stamp.chainRemove(currentTaskContent);
-            stamp.chainAdd(currentTaskContent);
+            stamp.chainAddLast(currentTaskContent);
         }
         //its a inference rule, so we have to do the derivation chain check to hamper cycles
         /*if (!revised) {
@@ -176,16 +199,9 @@ public abstract class NAL implements Runnable {
         } else {*/
             //its revision, of course its cyclic, apply evidental base policy
         if(revised || !overlapAllowed) { //TODO cleanup for 1.6.3, revised variable wont be needed anymore I guess.
-            final int stampLength = stamp.baseLength;
-            for (int i = 0; i < stampLength; i++) {
-                final long baseI = stamp.evidentialBase[i];
-                for (int j = 0; j < stampLength; j++) {
-                    if ((i != j) && (baseI == stamp.evidentialBase[j])) {
-                        memory.removeTask(task, "Overlapping Evidenctal Base");
-                        //"(i=" + i + ",j=" + j +')' /* + " in " + stamp.toString()*/
-                        return false;
-                    }
-                }
+            if (stamp.hasOverlap()) {
+                memory.removeTask(task, "Overlapping Evidenctal Base");
+                return false;
             }
         }
         
@@ -196,12 +212,44 @@ public abstract class NAL implements Runnable {
         task.setParticipateInTemporalInductionOnSucceedingEvents(false);
         task.getBudget().setDurability(task.getBudget().getDurability()*Parameters.DERIVATION_DURABILITY_LEAK);
         task.getBudget().setPriority(task.getBudget().getPriority()*Parameters.DERIVATION_PRIORITY_LEAK);
-        memory.event.emit(Events.TaskDerive.class, task, revised, single, occurence, occurence2);
-        memory.logic.TASK_DERIVED.commit(task.budget.getPriority());
-        addTask(task, "Derived");
+        addDerivedTask(task, new Object[] { task, revised, single, occurence, occurence2 });
         return true;
     }
 
+    /**
+     * Whether a derived task's conclusion has not already been derived within
+     * Parameters.DERIVATION_DEDUP_WINDOW cycles, recording it if so.  Its
+     * occurrence time is that which derivedTask will give it.  While
+     * buffered, it is only recorded by flush(), in the order of the buffers,
+     * so that which of two processes derived a conclusion first does not
+     * depend on their threads.
+     */
+    protected boolean isNewDerivation(final Task task, final Task parent, final Sentence occurence2) {
+        if (memory.derivations == null)
+            return true;
+
+        final Sentence s = task.sentence;
+        long occurrence = s.getOccurenceTime();
+        if (parent != null && !parent.sentence.isEternal())
+            occurrence = parent.sentence.getOccurenceTime();
+        if (occurence2 != null && !occurence2.isEternal())
+            occurrence = occurence2.getOccurenceTime();
+
+        if (buffer != null) {
+            if (!memory.derivations.contains(s, occurrence, memory.getCycleTime()))
+                return true;
+            memory.logic.DERIVATION_DEDUP_HIT.commit();
+            return false;
+        }
+
+        final boolean novel = memory.derivations.record(s, occurrence, memory.getCycleTime());
+        if (novel)
+            memory.logic.DERIVATION_DEDUP_MISS.commit();
+        else
+            memory.logic.DERIVATION_DEDUP_HIT.commit();
+        return novel;
+    }
+
     /* --------------- new task building --------------- */
     /**
      * Shared final operations by all double-premise rules, called from the
@@ -520,11 +568,103 @@ public abstract class NAL implements Runnable {
     /** tasks added with this method will be remembered by this NAL instance; useful for feedback */
     public void addTask(Task t, String reason) {
         
-        memory.addNewTask(t, reason);
+        if (buffer != null) {
+            buffer.add(t);
+            bufferReasons.add(reason);
+            bufferDerivations.add(null);
+        }
+        else {
+            memory.addNewTask(t, reason);
+        }
         
         tasksAdded.add(t);
         
     }
+
+    /**
+     * Adds a derived task, and signals its derivation, with the arguments of
+     * Events.TaskDerive, as it is added to memory.  While buffered, that is
+     * by flush(), which drops it instead if its conclusion was derived before.
+     */
+    public void addDerivedTask(final Task t, final Object[] derivation) {
+        if (buffer != null) {
+            buffer.add(t);
+            bufferReasons.add("Derived");
+            bufferDerivations.add(derivation);
+        }
+        else {
+            derived(derivation);
+            memory.addNewTask(t, "Derived");
+        }
+
+        tasksAdded.add(t);
+    }
+
+    /** emits Events.TaskDerive and meters a derivation, of the arguments of the event */
+    private void derived(final Object[] derivation) {
+        if (memory.event.isActive(Events.TaskDerive.class))
+            memory.event.emit(Events.TaskDerive.class, derivation);
+        memory.logic.TASK_DERIVED.commit(((Task)derivation[0]).budget.getPriority());
+    }
+
+    /**
+     * Buffers the tasks which this process adds, until flush(), instead of
+     * adding them to memory.newTasks as they are derived.  A process which
+     * runs on one thread of a parallel cycle then writes only to its own
+     * buffer, and the buffers are flushed in the order of the processes.
+     */
+    public void setBuffered(final boolean buffered) {
+        if (buffered && (buffer == null)) {
+            buffer = new ArrayList();
+            bufferReasons = new ArrayList();
+            bufferDerivations = new ArrayList();
+        }
+        else if (!buffered && (buffer != null)) {
+            flush();
+            buffer = null;
+            bufferReasons = null;
+            bufferDerivations = null;
+        }
+    }
+
+    /**
+     * Adds the buffered tasks to memory, in the order they were added,
+     * dropping derived tasks whose conclusions were recorded first by
+     * another process or by an earlier task of the buffer, and signals the
+     * derivations of the others.
+     */
+    public void flush() {
+        if (buffer == null)
+            return;
+        
+        for (int i = 0; i < buffer.size(); i++) {
+            final Task t = buffer.get(i);
+            final String reason = bufferReasons.get(i);
+            final Object[] derivation = bufferDerivations.get(i);
+            if ((derivation != null) && (memory.derivations != null)) {
+                if (memory.derivations.record(t.sentence, t.sentence.getOccurenceTime(), memory.getCycleTime())) {
+                    memory.logic.DERIVATION_DEDUP_MISS.commit();
+                }
+                else {
+                    memory.logic.DERIVATION_DEDUP_HIT.commit();
+                    memory.removeTask(t, "Duplicate derivation");
+                    for (int j = tasksAdded.size() - 1; j >= 0; j--) {
+                        if (tasksAdded.get(j) == t) {
+                            tasksAdded.remove(j);
+                            break;
+                        }
+                    }
+                    continue;
+                }
+            }
+            if (derivation != null)
+                derived(derivation);
+            memory.addNewTask(t, reason);
+        }
+        buffer.clear();
+        bufferReasons.clear();
+        bufferDerivations.clear();
+    }
     
     /**
      * Activated task called in MatchingRules.trySolution and
@@ -104,6 +104,11 @@ abstract public class WaveAttention implements Attention {
         return c;
     }
 
+    @Override
+    public Concept takeOut(Term term) {
+        return concepts.take(term);
+    }
+
     @Override
     public void activate(Concept c, BudgetValue b, BudgetFunctions.Activating mode) {
         conceptualize(b, c.term, false);
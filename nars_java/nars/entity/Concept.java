@@ -55,6 +55,7 @@ import nars.operator.Operation;
 import nars.operator.Operator;
 import nars.storage.Bag;
 import nars.storage.Bag.MemoryAware;
+import nars.storage.BeliefTable;
 
 public class Concept extends Item<Term> implements Termable {
 
@@ -95,15 +96,15 @@ public class Concept extends Item<Term> implements Termable {
     public final ArrayList<Task> quests;
 
     /**
-     * Judgments directly made about the term Use ArrayList because of access
-     * and insertion in the middle
+     * Judgments directly made about the term, sorted by rank, with indices of
+     * the eternal and temporal ones
      */
-    public final ArrayList<Sentence> beliefs;
+    public final BeliefTable beliefs;
 
     /**
      * Desire values on the term, similar to the above one
      */
-    public final ArrayList<Sentence> desires;
+    public final BeliefTable desires;
 
     /**
      * Reference to the memory to which the Concept belongs
@@ -129,9 +130,9 @@ public class Concept extends Item<Term> implements Termable {
         this.memory = memory;
 
         this.questions = new ArrayList<>();
-        this.beliefs = new ArrayList<>();
+        this.beliefs = new BeliefTable();
         this.quests = new ArrayList<>();
-        this.desires = new ArrayList<>();
+        this.desires = new BeliefTable();
 
         this.taskLinks = taskLinks;
         this.termLinks = termLinks;
@@ -270,24 +271,31 @@ public class Concept extends Item<Term> implements Termable {
             for (int i = 0; i < nnq; i++) {                
                 trySolution(judg, questions.get(i), nal);
             }
+            if (memory.questionIndex != null) {
+                //the questions of other concepts which it answers
+                final List<Task> answered = new ArrayList();
+                memory.questionIndex.questions(judg, this, memory, answered);
+                for (int i = 0; i < answered.size(); i++) {
+                    trySolution(judg, answered.get(i), nal);
+                }
+            }
 
             addToTable(task, beliefs, memory.param.conceptBeliefsMax.get(), ConceptBeliefAdd.class, ConceptBeliefRemove.class);
+            if ((memory.questionIndex != null) && !beliefs.isEmpty())
+                memory.questionIndex.addConcept(this);
         }
     }
 
-    protected void addToTable(final Task task, final ArrayList<Sentence> table, final int max, final Class eventAdd, final Class eventRemove, final Object... extraEventArguments) {
+    protected void addToTable(final Task task, final BeliefTable table, final int max, final Class eventAdd, final Class eventRemove, final Object... extraEventArguments) {
         final Sentence newSentence = task.sentence;
         int preSize = table.size();
 
-        Sentence removed;
-        synchronized (table) {
-            removed = addToTable(newSentence, table, max);
-        }
+        final Sentence removed = table.add(newSentence, max);
 
-        if (removed != null) {
+        if ((removed != null) && memory.event.isActive(eventRemove)) {
             memory.event.emit(eventRemove, this, removed, task, extraEventArguments);
         }
-        if ((preSize != table.size()) || (removed != null)) {
+        if (((preSize != table.size()) || (removed != null)) && memory.event.isActive(eventAdd)) {
             memory.event.emit(eventAdd, this, task, extraEventArguments);
         }
     }
@@ -378,6 +386,8 @@ public class Concept extends Item<Term> implements Termable {
             if (task.aboveThreshold()) {
 
                 addToTable(task, desires, memory.param.conceptGoalsMax.get(), ConceptGoalAdd.class, ConceptGoalRemove.class);
+                if ((memory.questionIndex != null) && !desires.isEmpty())
+                    memory.questionIndex.addConcept(this);
                 //task.sentence.getOccurenceTime()>=memory.time()-memory.param.duration.get()
                 //if(task.sentence.getOccurenceTime()==Stamp.ETERNAL || task.sentence.getOccurenceTime()>=memory.time()-memory.param.duration.get()) {
                     if(!executeDecision(task)) {
@@ -397,31 +407,62 @@ public class Concept extends Item<Term> implements Termable {
     protected void processQuestion(final NAL nal, final Task task) {
 
         Sentence ques = task.sentence;
+        Task stored = task;
 
         boolean newQuestion = true;
         for (final Task t : questions) {
             final Sentence q = t.sentence;
             if (q.equalsContent(ques)) {
                 ques = q;
+                stored = t;
                 newQuestion = false;
                 break;
             }
         }
 
         if (newQuestion) {
-            if (questions.size() + 1 > memory.param.conceptQuestionsMax.get()) {
-                Task removed = questions.remove(0);    // FIFO
+            Task removed = null;
+            //synchronized for QuestionIndex, which reads the questions of any concept
+            synchronized (questions) {
+                if (questions.size() + 1 > memory.param.conceptQuestionsMax.get())
+                    removed = questions.remove(0);    // FIFO
+                questions.add(task);
+            }
+            if (removed != null) {
+                if (memory.questionIndex != null)
+                    memory.questionIndex.removeQuestion(removed);
                 memory.event.emit(ConceptQuestionRemove.class, this, removed);
             }
 
-            questions.add(task);
             memory.event.emit(ConceptQuestionAdd.class, this, task);
         }
+        if (memory.questionIndex != null)
+            memory.questionIndex.addQuestion(this, stored);
 
-        final Sentence newAnswer = (ques.isQuestion())
+        Sentence newAnswer = (ques.isQuestion())
                 ? selectCandidate(ques, beliefs)
                 : selectCandidate(ques, desires);
 
+        if ((memory.questionIndex != null) && ques.term.hasVarQuery()) {
+            //the best answer of the concepts whose terms unify with it
+            float bestQuality = (newAnswer != null) ? solutionQuality(ques, newAnswer, memory) : 0;
+            final List<Concept> answering = new ArrayList();
+            memory.questionIndex.concepts(ques, memory, answering);
+            for (int i = 0; i < answering.size(); i++) {
+                final Concept c = answering.get(i);
+                if (c == this) continue;
+                final Sentence a = (ques.isQuestion())
+                        ? c.selectCandidate(ques, c.beliefs)
+                        : c.selectCandidate(ques, c.desires);
+                if (a == null) continue;
+                final float q = solutionQuality(ques, a, memory);
+                if (q > bestQuality) {
+                    bestQuality = q;
+                    newAnswer = a;
+                }
+            }
+        }
+
         if (newAnswer != null) {
             trySolution(newAnswer, task, nal);
         }
@@ -482,6 +523,9 @@ public class Concept extends Item<Term> implements Termable {
      * @return whether table was modified
      */
     public static Sentence addToTable(final Sentence newSentence, final List<Sentence> table, final int capacity) {
+        if (table instanceof BeliefTable)
+            return ((BeliefTable)table).add(newSentence, capacity);
+
         final float rank1 = rankBelief(newSentence);    // for the new isBelief
         float rank2;        
         int i;
@@ -519,24 +563,8 @@ public class Concept extends Item<Term> implements Termable {
      * @param list The list of beliefs or desires to be used
      * @return The best candidate selected
      */
-    private Sentence selectCandidate(final Sentence query, final List<Sentence> list) {
- //        if (list == null) {
-        //            return null;
-        //        }
-        float currentBest = 0;
-        float beliefQuality;
-        Sentence candidate = null;
-        synchronized (list) {            
-            for (int i = 0; i < list.size(); i++) {
-                Sentence judg = list.get(i);
-                beliefQuality = solutionQuality(query, judg, memory);
-                if (beliefQuality > currentBest) {
-                    currentBest = beliefQuality;
-                    candidate = judg;
-                }
-            }
-        }
-        return candidate;
+    private Sentence selectCandidate(final Sentence query, final BeliefTable list) {
+        return list.select(query, memory);
     }
 
     /* ---------- insert Links for indirect processing ---------- */
@@ -752,14 +780,17 @@ public class Concept extends Item<Term> implements Termable {
         for (Task t : questions) t.end();
         for (Task t : quests) t.end();
         
-        questions.clear();
+        synchronized (questions) {
+            questions.clear();
+        }
         quests.clear();                
         desires.clear();
         //evidentalDiscountBases.clear();
         termLinks.clear();
         taskLinks.clear();        
         beliefs.clear();
-        termLinkTemplates.clear();
+        if (termLinkTemplates != null)
+            termLinkTemplates.clear();
     }
     
 
@@ -830,10 +861,12 @@ public class Concept extends Item<Term> implements Termable {
             for (final Sentence s : beliefs) {
                 s.discountConfidence();
             }
+            beliefs.rerank();
         } else {
             for (final Sentence s : desires) {
                 s.discountConfidence();
             }
+            desires.rerank();
         }
     }
 
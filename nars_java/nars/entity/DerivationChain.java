@@ -0,0 +1,151 @@
+/*
+ * DerivationChain.java
+ *
+ * Copyright (C) 2008  Pei Wang
+ *
+ * This file is part of Open-NARS.
+ *
+ * Open-NARS is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * Open-NARS is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Open-NARS.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package nars.entity;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import nars.core.Parameters;
+import nars.language.Term;
+
+/**
+ * Immutable derivation chain of a Stamp: the distinct premises and conclusions
+ * which made deriving the conclusion possible, oldest first, at most
+ * MAXIMUM_DERIVATION_CHAIN_LENGTH long.
+ * <p>
+ * Every modification returns a new chain, so a chain can be shared by stamps
+ * and read by any thread without copying.
+ * The terms are held in a compact array, so contains() is a short scan.
+ */
+public final class DerivationChain extends AbstractList<Term> implements RandomAccess {
+
+    public static final DerivationChain Empty = new DerivationChain(new Term[0]);
+
+    private final Term[] terms;
+
+    private DerivationChain(final Term[] terms) {
+        this.terms = terms;
+    }
+
+    /**
+     * Collates the chains of two premises: the terms of the second chain which
+     * the first chain also contains, in the order of the second.
+     */
+    public static DerivationChain zip(final DerivationChain first, final DerivationChain second) {
+        final Term[] a = first.terms, b = second.terms;
+        if ((a.length == 0) || (b.length == 0)) return Empty;
+        if (first == second) return first;
+
+        final Term[] common = new Term[Math.min(Math.min(a.length, b.length), Parameters.MAXIMUM_DERIVATION_CHAIN_LENGTH)];
+        int j = 0;
+        for (int i = 0; (i < b.length) && (j < common.length); i++) {
+            final Term t = b[i];
+            if (indexOf(a, a.length, t) != -1)
+                common[j++] = t;
+        }
+
+        if (j == b.length) return second;
+        if (j == 0) return Empty;
+        return new DerivationChain((j == common.length) ? common : Arrays.copyOf(common, j));
+    }
+
+    private static int indexOf(final Term[] terms, final int length, final Object t) {
+        for (int i = 0; i < length; i++) {
+            if (terms[i] == t)
+                return i;
+        }
+        for (int i = 0; i < length; i++) {
+            if (terms[i].equals(t))
+                return i;
+        }
+        return -1;
+    }
+
+    /** returns this chain with t appended, removing the oldest term if it is full; unchanged if t is already present */
+    public DerivationChain with(final Term t) {
+        if (t == null)
+            throw new RuntimeException("Chain must contain non-null items");
+
+        if (contains(t))
+            return this;
+
+        final int max = Parameters.MAXIMUM_DERIVATION_CHAIN_LENGTH;
+        final int keep = Math.min(terms.length, max - 1);
+        final Term[] next = new Term[keep + 1];
+        System.arraycopy(terms, terms.length - keep, next, 0, keep);
+        next[keep] = t;
+        return new DerivationChain(next);
+    }
+
+    /** returns this chain with t moved to (or appended at) the most recent position */
+    public DerivationChain withLast(final Term t) {
+        final int n = terms.length;
+        if ((n > 0) && (terms[n - 1] == t))
+            return this;
+        return without(t).with(t);
+    }
+
+    /** returns this chain without t */
+    public DerivationChain without(final Term t) {
+        final int i = indexOf(terms, terms.length, t);
+        if (i == -1)
+            return this;
+
+        final Term[] next = new Term[terms.length - 1];
+        System.arraycopy(terms, 0, next, 0, i);
+        System.arraycopy(terms, i + 1, next, i, next.length - i);
+        return new DerivationChain(next);
+    }
+
+    @Override
+    public boolean contains(final Object t) {
+        return indexOf(terms, terms.length, t) != -1;
+    }
+
+    @Override
+    public int indexOf(final Object t) {
+        return indexOf(terms, terms.length, t);
+    }
+
+    @Override
+    public Term get(final int index) {
+        return terms[index];
+    }
+
+    @Override
+    public int size() {
+        return terms.length;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o instanceof DerivationChain)
+            return Arrays.equals(terms, ((DerivationChain)o).terms);
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(terms);
+    }
+
+}
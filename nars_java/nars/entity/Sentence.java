@@ -365,6 +365,27 @@ public class Sentence<T extends Term> implements Cloneable, Termable, Truthable
         return newTruth;
     }
 
+    /** the confidence of projectionTruth(targetTime, currentTime), without creating it */
+    public float projectionConfidence(final long targetTime, final long currentTime) {
+        final float c = truth.getConfidence();
+        if (stamp.isEternal())
+            return c;
+
+        float newConfidence = maxConfidence(TruthFunctions.w2c(c));
+        if (targetTime != Stamp.ETERNAL) {
+            final float factor = TruthFunctions.temporalProjection(stamp.getOccurrenceTime(), targetTime, currentTime);
+            final float projectedConfidence = factor * c;
+            if (projectedConfidence > newConfidence)
+                newConfidence = maxConfidence(projectedConfidence);
+        }
+        return newConfidence;
+    }
+
+    /** a confidence as TruthValue.setConfidence limits it */
+    private static float maxConfidence(final float c) {
+        return (c < Parameters.MAX_CONFIDENCE) ? c : Parameters.MAX_CONFIDENCE;
+    }
+
 
 //    /**
 //     * Clone the content of the sentence
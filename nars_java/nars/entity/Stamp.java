@@ -21,17 +21,9 @@
 package nars.entity;
 
 import com.google.common.collect.Iterators;
-import com.google.common.collect.Lists;
-import java.lang.ref.WeakReference;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import nars.core.Memory;
 import nars.core.Parameters;
 import nars.inference.TemporalRules;
@@ -44,14 +36,14 @@ import static nars.language.Tense.Future;
 import static nars.language.Tense.Past;
 import static nars.language.Tense.Present;
 import nars.language.Term;
-import nars.language.Terms;
 
 
 public class Stamp implements Cloneable {
 
 
     /**
-     * serial numbers. not to be modified after Stamp constructor has initialized it
+     * serial numbers. not to be modified after Stamp constructor has initialized it;
+     * use setEvidentialBase() to replace it
      */
     public long[] evidentialBase;
 
@@ -95,19 +87,13 @@ public class Stamp implements Cloneable {
     /** caches  */
     transient CharSequence name = null;
     
-    /* used for lazily calculating derivationChain on-demand */
-    private DerivationBuilder derivationBuilder = null;
-    
-    
-    final static Collection<Term> EmptyDerivationChain = Collections.EMPTY_LIST;
-    
     /**
      * derivation chain containing the used premises and conclusions which made
-     * deriving the conclusion c possible
-     * Uses LinkedHashSet for optimal contains/indexOf performance.
-     * TODO use thread-safety for this
+     * deriving the conclusion c possible.  The chain itself is immutable; the
+     * reference is shared with the stamps which inherit it (single-premise
+     * derivations and clones), so that adding to one chain adds to all of them.
      */
-    private Collection<Term> derivationChain;
+    private final AtomicReference<DerivationChain> derivationChain;
     
     /** analytics metric */
     transient public final long latency;
@@ -115,6 +101,12 @@ public class Stamp implements Cloneable {
     /** cache of hashcode of evidential base */
     transient private int evidentialHash;
 
+    /** Bloom-style summary of the evidential base: bit (serial mod 64) is set for each serial */
+    transient private long evidentialSummary;
+
+    /** whether two serials of the evidential base set the same summary bit, so it may contain a duplicate */
+    transient private boolean summaryCollision;
+
     
     public boolean before(Stamp s, int duration) {
         if (isEternal() || s.isEternal())
@@ -131,122 +123,16 @@ public class Stamp implements Cloneable {
         return 1.0f / (evidentialBase.length + 1);
     }
     
-    public interface DerivationBuilder {
-        LinkedHashSet<Term> build();
-    }
-    
-    /** creates a Derivation Chain by collating / zipping 2 Stamps Derivation Chains */
-    public static class ZipperDerivationBuilder implements DerivationBuilder {
-        private final WeakReference<Stamp> first;
-        private final WeakReference<Stamp> second;
-
-        public ZipperDerivationBuilder(Stamp first, Stamp second) {
-            this.first = new WeakReference(first);
-            this.second = new WeakReference(second);
-        }
-            
-        @Override public LinkedHashSet<Term> build()  {
-            Stamp ff = first.get();
-            Stamp ss = second.get();
-            
-            //check if the parent stamps still exist, because they may have been garbage collected
-            if ((ff == null) && (ss == null)) {                
-                return new LinkedHashSet();
-            }
-            else {
-                //TODO decide if it can use the parent chains directly?
-                if (ff == null) {
-                    //ss!=null
-                    return new LinkedHashSet(ss.getChain());
-                }
-                else if (ss == null) {
-                    //ff!=null                    
-                    return new LinkedHashSet(ff.getChain());
-                }
-            }
-                    
-            final Collection<Term> chain1 = ff.getChain();
-            final Collection<Term> chain2 = ss.getChain();
-            
-            final Iterator<Term> iter1 = chain1.iterator();
-            int i1 = chain1.size() - 1;
-            
-            final Iterator<Term> iter2 = chain2.iterator();
-            int i2 = chain2.size() - 1;
-
-            Set<Term> added = new HashSet();
-            //set here is for fast contains() checking
-            List<Term> sequence = new ArrayList<>(Parameters.MAXIMUM_EVIDENTAL_BASE_LENGTH);      
-
-            //take as long till the chain is full or all elements were taken out of chain1 and chain2:
-            int j = 0;
-            while (j < Parameters.MAXIMUM_DERIVATION_CHAIN_LENGTH && (i1 >= 0 || i2 >= 0)) {
-                if (j % 2 == 0) {//one time take from first, then from second, last ones are more important
-                    if (i1 >= 0) {
-                        final Term c1i1 = iter1.next();
-                        if (!added.add(c1i1)) {
-                            sequence.add(c1i1);                        
-                        }
-                        else {
-                            j--; //was double, so we can add one more now
-                        }
-                        i1--;
-                    }
-                } else {
-                    if (i2 >= 0) {
-                        final Term c2i2 = iter2.next();
-                        if (!added.add(c2i2)) {
-                            sequence.add(c2i2);
-                        }
-                        else {
-                            j--; //was double, so we can add one more now
-                        }
-                        i2--;
-                    }
-                }
-                j++;
-            } 
-
-            if (Parameters.DEBUG) {
-                Terms.verifyNonNull(added);
-            }
-
-            Collections.reverse(sequence);
-
-            return new LinkedHashSet<>(sequence);
-        }                            
-    }
-    
-    /** lazily inherit the derivation from a parent, causing it to cache the derivation also (in case other children get it */
-    public static class InheritDerivationBuilder implements DerivationBuilder {
-        private final WeakReference<Stamp> parent;
-
-        public InheritDerivationBuilder(Stamp parent) {
-            this.parent = new WeakReference(parent);            
-        }
-        
-        @Override public LinkedHashSet<Term> build() {
-            if (parent.get() == null) {
-                //parent doesnt exist anymore (garbage collected)
-                return new LinkedHashSet();
-            }
-            
-            Collection<Term> p = parent.get().getChain();
-            return new LinkedHashSet(p);
-        }
-        
-    }
-    
     /** used for when the ocrrence time will be set later; so should not be called from externally but through another Stamp constructor */
     protected Stamp(final Tense tense, final long serial) {
         this.baseLength = 1;
         this.evidentialBase = new long[baseLength];
         this.evidentialBase[0] = serial;
+        this.evidentialSummary = summaryBit(serial);
         this.tense = tense;
         this.latency = 0;
         this.creationTime = -1;
-        this.derivationBuilder = null;
-        this.derivationChain = EmptyDerivationChain; // new LinkedHashSet(Parameters.MAXIMUM_DERIVATION_CHAIN_LENGTH);
+        this.derivationChain = new AtomicReference(DerivationChain.Empty);
     }
     
     /**
@@ -284,16 +170,15 @@ public class Stamp implements Cloneable {
     public Stamp(final Stamp old, final long creationTime, final Stamp useEvidentialBase) {        
         this.evidentialBase = useEvidentialBase.evidentialBase;
         this.baseLength = useEvidentialBase.baseLength;
+        this.evidentialSet = useEvidentialBase.evidentialSet;
+        this.evidentialHash = useEvidentialBase.evidentialHash;
+        this.evidentialSummary = useEvidentialBase.evidentialSummary;
+        this.summaryCollision = useEvidentialBase.summaryCollision;
         this.creationTime = creationTime;
 
         this.occurrenceTime = old.getOccurrenceTime();
-        this.derivationChain = old.getChain();
+        this.derivationChain = old.derivationChain;
         this.latency = this.creationTime - old.latency;
-        
-        if (derivationChain == null)
-            this.derivationBuilder = new InheritDerivationBuilder(old);        
-        else
-            this.derivationBuilder = null;
     }
     
     /**
@@ -331,10 +216,91 @@ public class Stamp implements Cloneable {
             evidentialBase[j++] = firstBase[i1++];
         }
         
-        this.derivationBuilder = new ZipperDerivationBuilder(first, second);
+        if ((i1 == firstLength) && (i2 == secondLength)) {
+            //nothing truncated: the summary and set are the union of the parents'
+            evidentialSummary = first.evidentialSummary | second.evidentialSummary;
+            summaryCollision = first.summaryCollision || second.summaryCollision ||
+                    ((first.evidentialSummary & second.evidentialSummary) != 0);
+            
+            if ((first.evidentialSet != null) && (second.evidentialSet != null)) {
+                evidentialSet = toSetArray(first.evidentialSet, second.evidentialSet);
+                evidentialHash = Arrays.hashCode(evidentialSet);
+            }
+        }
+        else {
+            summarize();
+        }
+        
+        this.derivationChain = new AtomicReference(DerivationChain.zip(first.getChain(), second.getChain()));
 
     }
 
+    /** sets the evidentialBase bit of a serial in a summary word */
+    static long summaryBit(final long serial) {
+        return 1L << (serial & 63);
+    }
+    
+    /** computes the summary word of the evidentialBase */
+    private void summarize() {
+        long summary = 0;
+        boolean collision = false;
+        for (final long serial : evidentialBase) {
+            final long bit = summaryBit(serial);
+            if ((summary & bit) != 0)
+                collision = true;
+            summary |= bit;
+        }
+        evidentialSummary = summary;
+        summaryCollision = collision;
+    }
+    
+    /** replaces the evidentialBase, invalidating what was computed from the previous one */
+    public void setEvidentialBase(final long[] base) {
+        this.evidentialBase = base;
+        this.baseLength = base.length;
+        this.evidentialSet = null;
+        this.name = null;
+        summarize();
+    }
+    
+    /**
+     * Whether a serial occurs more than once in the evidentialBase, meaning
+     * some evidence has been counted twice.  In the common case that no two
+     * serials share a summary bit this is answered without examining the base.
+     */
+    public boolean hasOverlap() {
+        if (!summaryCollision)
+            return false;
+        
+        final long[] base = evidentialBase;
+        if (evidentialSet != null)
+            return evidentialSet.length < base.length;
+        
+        //bases are short (MAXIMUM_EVIDENTAL_BASE_LENGTH), so a scan is cheaper than sorting a copy
+        for (int i = 0; i < base.length; i++) {
+            final long baseI = base[i];
+            for (int j = i + 1; j < base.length; j++) {
+                if (baseI == base[j])
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Restores a stamp from its fields, as written to a snapshot
+     */
+    public Stamp(final long[] evidentialBase, final long creationTime, final long occurrenceTime, final Tense tense, final DerivationChain chain) {
+        this.evidentialBase = evidentialBase;
+        this.baseLength = evidentialBase.length;
+        this.creationTime = creationTime;
+        this.occurrenceTime = occurrenceTime;
+        this.tense = tense;
+        this.latency = 0;
+        this.derivationChain = new AtomicReference(chain);
+        summarize();
+    }
+
     public Stamp(final Memory memory, final Tense tense) {
         this(memory.time(), tense, memory.newStampSerial(), memory.param.duration.get());
     }
@@ -375,26 +341,7 @@ public class Stamp implements Cloneable {
     }
     
     protected boolean chainIsNullOrEmpty() {
-        return derivationChain == null || derivationChain.isEmpty();
-    }
-    
-    /** for creating the chain lazily */
-    protected synchronized void ensureChain() {
-        
-        if (derivationChain == EmptyDerivationChain) {
-            derivationChain = new LinkedHashSet();
-            return;
-        }
-        
-            
-        if (this.derivationChain != null) return;
-        
-        //create chain
-        if (derivationBuilder==null)
-            throw new RuntimeException("Null derivationChain and derivationBuilder");
-        
-        this.derivationChain = derivationBuilder.build();
-        this.derivationBuilder = null;
+        return getChain().isEmpty();
     }
 
     /*
@@ -439,51 +386,41 @@ public class Stamp implements Cloneable {
 
 
     /**
-     * Get the derivationChain, called from derivedTask in Memory
-     * Provides a snapshot copy if in multi-threaded mode.
-     * @return The evidentialBase of numbers
+     * Get the derivationChain, called from derivedTask in Memory.
+     * The chain is immutable, so it is safe to read from any thread.
+     * @return The derivation chain, oldest first
      */
-    public Collection<Term> getChain() {
-        ensureChain();
-        
-        if (Parameters.THREADS == 1)
-            return derivationChain;
-        else {
-            //unmodifiable list copy
-            return Lists.newArrayList(derivationChain);
-        }
+    public DerivationChain getChain() {
+        return derivationChain.get();
     }
 
     /**
-     * Add element to the chain.
-     *
-     * @return The evidentialBase of numbers
+     * Add element to the chain, removing the oldest element if it is full.
      */
     public void chainAdd(final Term t) {
         if (t == null)
             throw new RuntimeException("Chain must contain non-null items");
-            
-        ensureChain();        
-        
-        if (derivationChain.size()+1 > Parameters.MAXIMUM_DERIVATION_CHAIN_LENGTH) {
-            //remove first element
-            Term first = derivationChain.iterator().next();
-            derivationChain.remove(first); 
-        }
 
-        derivationChain.add(t);
+        derivationChain.updateAndGet(c -> c.with(t));
         name = null;
     }
-    public void chainRemove(final Term t) {
+
+    /**
+     * Add element to the chain, or move it to the end if it is already present.
+     */
+    public void chainAddLast(final Term t) {
         if (t == null)
             throw new RuntimeException("Chain must contain non-null items");
 
-        if (chainIsNullOrEmpty())
-            return;
-        
-        ensureChain();
+        derivationChain.updateAndGet(c -> c.withLast(t));
+        name = null;
+    }
 
-        derivationChain.remove(t);
+    public void chainRemove(final Term t) {
+        if (t == null)
+            throw new RuntimeException("Chain must contain non-null items");
+
+        derivationChain.updateAndGet(c -> c.without(t));
         name = null;
     }
     
@@ -520,6 +457,22 @@ public class Stamp implements Cloneable {
         return sorted;
     }
 
+    /** merges two sorted sets (as produced by toSetArray) into a sorted set of their union */
+    public static long[] toSetArray(final long[] a, final long[] b) {
+        final long[] union = new long[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while ((i < a.length) && (j < b.length)) {
+            final long x = a[i], y = b[j];
+            if (x < y) { union[k++] = x; i++; }
+            else if (y < x) { union[k++] = y; j++; }
+            else { union[k++] = x; i++; j++; }
+        }
+        while (i < a.length) union[k++] = a[i++];
+        while (j < b.length) union[k++] = b[j++];
+        
+        return (k == union.length) ? union : Arrays.copyOf(union, k);
+    }
+
     /**
      * Convert the evidentialBase into a set
      *
@@ -566,14 +519,10 @@ public class Stamp implements Cloneable {
     }
             
 
-    /** necessary because LinkedHashSet.equals does not compare order, only set content */
+    /** compares content and order */
     public static boolean chainEquals(final Collection<Term> a, final Collection<Term> b) {
         if (a == b) return true;
-        
-        if ((a instanceof LinkedHashSet) && (b instanceof LinkedHashSet))
-            return Iterators.elementsEqual(a.iterator(), b.iterator());        
-        else
-            return a.equals(b);
+        return Iterators.elementsEqual(a.iterator(), b.iterator());
     }
     
     /**
@@ -587,6 +536,11 @@ public class Stamp implements Cloneable {
         return evidentialHash;
     }
 
+    /** the evidential base as a sorted set, without duplicates; not to be modified */
+    public final long[] getEvidentialSet() {
+        return toSet();
+    }
+
     public Stamp cloneWithNewCreationTime(long newCreationTime) {
         return new Stamp(this, newCreationTime);
     }
@@ -601,6 +555,11 @@ public class Stamp implements Cloneable {
         return cloneWithNewOccurrenceTime(ETERNAL);
     }
 
+    /** the tense the stamp was created with, or null if it was derived */
+    public Tense getTense() {
+        return tense;
+    }
+
     /**
      * Get the occurrenceTime of the truth-value
      *
@@ -667,8 +626,7 @@ public class Stamp implements Cloneable {
 
     public CharSequence name() {
         if (name == null) {
-            ensureChain();
-            
+            final DerivationChain derivationChain = getChain();
             final int estimatedInitialSize = 10 * (baseLength + derivationChain.size());
 
             final StringBuilder buffer = new StringBuilder(estimatedInitialSize);
@@ -20,9 +20,7 @@
  */
 package nars.entity;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.Iterator;
+import java.util.Arrays;
 import nars.core.Parameters;
 import nars.language.Term;
 import nars.language.Terms.Termable;
@@ -44,32 +42,17 @@ public class TaskLink extends Item<Task> implements TLink<Task>, Termable {
     private final int recordLength;
     
     
-    /* Remember the TermLinks, and when they has been used recently with this TaskLink */
-    public final static class Recording {
-    
-        public final TermLink link;
-        long time;
-
-        public Recording(TermLink link, long time) {
-            this.link = link;
-            this.time = time;
-        }
-
-        public long getTime() {
-            return time;
-        }
-
-        
-        public void setTime(long t) {
-            this.time = t;
-        }
-        
-    }
-    
-    public final Deque<Recording> records;
-    
+    /*
+     * Remember the TermLinks, and when they has been used recently with this
+     * TaskLink: a ring of parallel arrays, from the oldest (at recordStart)
+     * to the newest, holding at most recordLength - 1 records.  The hash of a
+     * link is compared before the link itself.
+     */
+    private final TermLink[] recordLinks;
+    private final int[] recordHashes;
+    private final long[] recordTimes;
+    private int recordStart, recordCount;
 
-    
     /** The type of link, one of the above */    
     public final short type;
 
@@ -87,22 +70,31 @@ public class TaskLink extends Item<Task> implements TLink<Task>, Termable {
      * @param v The budget
      */
     public TaskLink(final Task t, final TermLink template, final BudgetValue v, int recordLength) {
-        super(v);
-        this.type =
+        this(t,
                 template == null ? 
                         TermLink.SELF : 
-                        template.type;
-        this.index =
-                
+                        template.type,
                 template == null ?
                         null : 
-                        template.index
-        ;
+                        template.index,
+                v, recordLength);
+    }
+
+    /**
+     * Constructor for a link of a given type and index, ex: restored from a snapshot
+     */
+    public TaskLink(final Task t, final short type, final short[] index, final BudgetValue v, int recordLength) {
+        super(v);
+        this.type = type;
+        this.index = index;
         
         this.targetTask = t;
         
         this.recordLength = recordLength;
-        this.records = new ArrayDeque(recordLength);
+        final int capacity = Math.max(1, recordLength - 1);
+        this.recordLinks = new TermLink[capacity];
+        this.recordHashes = new int[capacity];
+        this.recordTimes = new long[capacity];
         
     }
 
@@ -157,38 +149,71 @@ public class TaskLink extends Item<Task> implements TLink<Task>, Termable {
         if (bTerm.equals(targetTask.sentence.term)) {            
             return false;
         }
-        TermLink linkKey = termLink.name();
-        int next, i;
+        final TermLink linkKey = termLink.name();
+        final int hash = linkKey.hashCode();
+        final int capacity = recordLinks.length;
         
-        
-                
-        //iterating the FIFO deque from oldest (first) to newest (last)
-        Iterator<Recording> ir = records.iterator();
-        while (ir.hasNext()) {
-            Recording r = ir.next();
-            if (linkKey.equals(r.link)) {
-                if (currentTime < r.getTime() + Parameters.NOVELTY_HORIZON) {
+        //iterating the ring from oldest to newest
+        for (int i = 0; i < recordCount; i++) {
+            final int r = (recordStart + i) % capacity;
+            if ((recordHashes[r] == hash) && linkKey.equals(recordLinks[r])) {
+                if (currentTime < recordTimes[r] + Parameters.NOVELTY_HORIZON) {
                     //too recent, not novel
                     return false;
                 } else {
                     //happened long enough ago that we have forgotten it somewhat, making it seem more novel
-                    r.setTime(currentTime);
-                    ir.remove();
-                    records.addLast(r);
+                    //move it to the newest position, shifting the newer records back
+                    final TermLink link = recordLinks[r];
+                    for (int j = i; j < recordCount - 1; j++) {
+                        final int a = (recordStart + j) % capacity, b = (a + 1) % capacity;
+                        recordLinks[a] = recordLinks[b];
+                        recordHashes[a] = recordHashes[b];
+                        recordTimes[a] = recordTimes[b];
+                    }
+                    final int last = (recordStart + recordCount - 1) % capacity;
+                    recordLinks[last] = link;
+                    recordHashes[last] = hash;
+                    recordTimes[last] = currentTime;
                     return true;
                 }
             }
         }
         
-        
-        //keep recordedLinks queue a maximum finite size
-        while (records.size() + 1 >= recordLength) records.removeFirst();
-        
         // add knowledge reference to recordedLinks
-        records.addLast(new Recording(linkKey, currentTime));
+        addRecord(linkKey, currentTime);
         
         return true;
     }
+    
+    /** appends a record as the newest, removing the oldest to keep at most recordLength - 1 */
+    public void addRecord(final TermLink link, final long time) {
+        final int capacity = recordLinks.length;
+        if (recordCount == capacity) {
+            recordLinks[recordStart] = null;
+            recordStart = (recordStart + 1) % capacity;
+            recordCount--;
+        }
+        final int r = (recordStart + recordCount) % capacity;
+        recordLinks[r] = link;
+        recordHashes[r] = link.hashCode();
+        recordTimes[r] = time;
+        recordCount++;
+    }
+    
+    /** number of TermLinks recorded */
+    public int recordCount() {
+        return recordCount;
+    }
+    
+    /** the i-th recorded TermLink, from the oldest */
+    public TermLink recordLink(final int i) {
+        return recordLinks[(recordStart + i) % recordLinks.length];
+    }
+    
+    /** when the i-th recorded TermLink, from the oldest, was last used */
+    public long recordTime(final int i) {
+        return recordTimes[(recordStart + i) % recordTimes.length];
+    }
 
     @Override
     public String toString() {
@@ -210,7 +235,8 @@ public class TaskLink extends Item<Task> implements TLink<Task>, Termable {
 
     @Override
     public void end() {
-        records.clear();
+        Arrays.fill(recordLinks, null);
+        recordStart = recordCount = 0;
     }
 
     @Override
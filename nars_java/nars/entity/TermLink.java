@@ -110,12 +110,21 @@ public class TermLink extends Item<TermLink> implements TLink<Term>, Termable {
      * @param v Budget value of the link
      */
     public TermLink(final Term t, final TermLink template, final BudgetValue v) {
+        this(t, 
+                (template.target.equals(t)) 
+                ? (short)(template.type - 1) //// point to component
+                : template.type,
+                template.index, v);
+    }
+
+    /**
+     * Constructor for a link of a given type and index, ex: restored from a snapshot
+     */
+    public TermLink(final Term t, final short type, final short[] index, final BudgetValue v) {
         super(v);
         target = t;
-        type = (template.target.equals(t)) 
-                ? (short)(template.type - 1) //// point to component
-                : template.type;
-        index = template.index;
+        this.type = type;
+        this.index = index;
         hash = init();
     }
 
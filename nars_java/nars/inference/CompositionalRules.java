@@ -62,6 +62,7 @@ import nars.language.SetExt;
 import nars.language.SetInt;
 import nars.language.Similarity;
 import nars.language.Statement;
+import nars.language.Substitution;
 import nars.language.Term;
 import static nars.language.Terms.reduceComponents;
 import static nars.language.Terms.reduceUntilLayer2;
@@ -817,6 +818,21 @@ OUT: <lock1 --> lock>.
     http://code.google.com/p/open-nars/issues/detail?id=40&can=1
     */
     public static void eliminateVariableOfConditionAbductive(final int figure, final Sentence sentence, final Sentence belief, final NAL nal) {
+        final Substitution res1 = Substitution.acquire();
+        final Substitution res2 = Substitution.acquire();
+        final Substitution res3 = Substitution.acquire();
+        final Substitution res4 = Substitution.acquire();
+        try {
+            eliminateVariableOfConditionAbductive(figure, sentence, belief, nal, res1, res2, res3, res4);
+        } finally {
+            res4.release();
+            res3.release();
+            res2.release();
+            res1.release();
+        }
+    }
+
+    private static void eliminateVariableOfConditionAbductive(final int figure, final Sentence sentence, final Sentence belief, final NAL nal, final Substitution res1, final Substitution res2, final Substitution res3, final Substitution res4) {
         Statement T1 = (Statement) sentence.term;
         Statement T2 = (Statement) belief.term;
 
@@ -825,11 +841,6 @@ OUT: <lock1 --> lock>.
         Term P1 = T2.getPredicate();
         Term P2 = T1.getPredicate();
 
-        HashMap<Term, Term> res1 = new HashMap<>();
-        HashMap<Term, Term> res2 = new HashMap<>();
-        HashMap<Term, Term> res3 = new HashMap<>();
-        HashMap<Term, Term> res4 = new HashMap<>();
-
         if (figure == 21) {
             res1.clear();
             res2.clear();
@@ -1168,11 +1179,11 @@ OUT: <(&&,<#1 --> lock>,<#1 --> (/,open,$2,_)>) ==> <$2 --> key>>.
         //these are intiailized further into the first cycle below. afterward, they are clear() and re-used for subsequent cycles to avoid reallocation cost
         ArrayList<Term> terms_dependent = null;
         ArrayList<Term> terms_independent = null;
-        HashMap<Term, Term> Values = null;
-        HashMap<Term, Term> Values2 = null;
-        HashMap<Term, Term> Values3 = null;
-        HashMap<Term, Term> Values4 = null;
-        HashMap<Term, Term> smap = null;
+        Substitution Values = null;
+        Substitution Values2 = null;
+        Substitution Values3 = null;
+        Substitution Values4 = null;
+        Substitution smap = null;
 
         for (int k = 0; k < maxUnificationAttempts; k++) {
             Concept secondConcept = nal.mem().sampleNextConceptNovel(task.sentence);
@@ -1198,11 +1209,11 @@ OUT: <(&&,<#1 --> lock>,<#1 --> (/,open,$2,_)>) ==> <$2 --> key>>.
                 final int initialTermListSize = 8;
                 terms_dependent = new ArrayList<>(initialTermListSize);
                 terms_independent = new ArrayList<>(initialTermListSize);
-                Values = newVariableSubstitutionMap();
-                Values2 = newVariableSubstitutionMap();
-                Values3 = newVariableSubstitutionMap();
-                Values4 = newVariableSubstitutionMap();
-                smap = newVariableSubstitutionMap();
+                Values = Substitution.acquire();
+                Values2 = Substitution.acquire();
+                Values3 = Substitution.acquire();
+                Values4 = Substitution.acquire();
+                smap = Substitution.acquire();
             }
 
             //we have to select a random belief
@@ -1346,6 +1357,14 @@ OUT: <(&&,<#1 --> lock>,<#1 --> (/,open,$2,_)>) ==> <$2 --> key>>.
 
         }
 
+        if (Values != null) {
+            smap.release();
+            Values4.release();
+            Values3.release();
+            Values2.release();
+            Values.release();
+        }
+
         return unifiedAnything;
     }
 
@@ -1407,9 +1426,4 @@ OUT: <(&&,<#1 --> lock>,<#1 --> (/,open,$2,_)>) ==> <$2 --> key>>.
             
         }
     }
-
-    private static HashMap<Term, Term> newVariableSubstitutionMap() {
-        //TODO give appropraite size
-        return new HashMap();
-    }
 }
@@ -23,7 +23,6 @@ package nars.inference;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.HashMap;
 import nars.core.Events;
 import nars.core.Memory;
 import nars.core.Parameters;
@@ -40,6 +39,7 @@ import nars.entity.TruthValue;
 import static nars.inference.TemporalRules.ORDER_CONCURRENT;
 import static nars.inference.TemporalRules.ORDER_FORWARD;
 import nars.io.Symbols;
+import nars.io.Symbols.NativeOperator;
 import static nars.io.Symbols.VAR_DEPENDENT;
 import static nars.io.Symbols.VAR_INDEPENDENT;
 import static nars.io.Symbols.VAR_QUERY;
@@ -54,6 +54,7 @@ import nars.language.SetExt;
 import nars.language.SetInt;
 import nars.language.Similarity;
 import nars.language.Statement;
+import nars.language.Substitution;
 import nars.language.Term;
 import static nars.language.Terms.equalSubTermsInRespectToImageAndProduct;
 import nars.language.Variables;
@@ -149,88 +150,92 @@ public class RuleTables {
                             //the case where its equal is already handled by other inference rule
                             if(conj2.term.length<conj.term.length) {
                                 boolean equal=true;
-                                HashMap<Term,Term> map=new HashMap<Term,Term>();
-                                HashMap<Term,Term> map2=new HashMap<Term,Term>();
-                                for(int j=0;j<conj2.term.length;j++) //ok now check if it is really a minor
-                                {
-                                    if(!Variables.findSubstitute(VAR_INDEPENDENT, conj.term[j], conj2.term[j], map, map2)) {
-                                        equal=false;
-                                        break;
+                                Substitution map=Substitution.acquire();
+                                Substitution map2=Substitution.acquire();
+                                try {
+                                    for(int j=0;j<conj2.term.length;j++) //ok now check if it is really a minor
+                                    {
+                                        if(!Variables.findSubstitute(VAR_INDEPENDENT, conj.term[j], conj2.term[j], map, map2)) {
+                                            equal=false;
+                                            break;
+                                        }
                                     }
-                                }
-                                if(equal) {
-                                    //ok its a minor, we have to construct the residue implication now
+                                    if(equal) {
+                                        //ok its a minor, we have to construct the residue implication now
 
-                                    ///SPECIAL REASONING CONTEXT FOR TEMPORAL INDUCTION
-                                    Stamp SVSTamp=nal.getNewStamp();
-                                    Sentence SVBelief=nal.getCurrentBelief();
-                                    NAL.StampBuilder SVstampBuilder=nal.newStampBuilder; 
-                                    //now set the current context:
-                                    nal.setCurrentBelief(s);
-                                    //END
+                                        ///SPECIAL REASONING CONTEXT FOR TEMPORAL INDUCTION
+                                        Stamp SVSTamp=nal.getNewStamp();
+                                        Sentence SVBelief=nal.getCurrentBelief();
+                                        NAL.StampBuilder SVstampBuilder=nal.newStampBuilder; 
+                                        //now set the current context:
+                                        nal.setCurrentBelief(s);
+                                        //END
                                     
-                                    Term[] residue=new Term[conj.term.length-conj2.term.length];
-                                    for(int k=0;k<residue.length;k++) {
-                                        residue[k]=conj.term[conj2.term.length+k];
-                                    }
-                                    Term C=Conjunction.make(residue,conj.getTemporalOrder());
-                                    Implication resImp=Implication.make(C, imp.getPredicate(), imp.getTemporalOrder());
-                                    if(resImp==null) {
-                                        continue;
-                                    }
-                                    resImp=(Implication) resImp.applySubstitute(map);
-                                    //todo add
-                                    Stamp st=new Stamp(task.sentence.stamp,nal.memory.time());
-                                    boolean eternalBelieve=nal.getCurrentBelief().isEternal(); //https://groups.google.com/forum/#!searchin/open-nars/projection/open-nars/8KnAbKzjp4E/rBc-6V5pem8J
-                                    boolean eternalTask=task.sentence.isEternal();
+                                        Term[] residue=new Term[conj.term.length-conj2.term.length];
+                                        for(int k=0;k<residue.length;k++) {
+                                            residue[k]=conj.term[conj2.term.length+k];
+                                        }
+                                        Term C=Conjunction.make(residue,conj.getTemporalOrder());
+                                        Implication resImp=Implication.make(C, imp.getPredicate(), imp.getTemporalOrder());
+                                        if(resImp==null) {
+                                            continue;
+                                        }
+                                        resImp=(Implication) resImp.applySubstitute(map);
+                                        //todo add
+                                        Stamp st=new Stamp(task.sentence.stamp,nal.memory.time());
+                                        boolean eternalBelieve=nal.getCurrentBelief().isEternal(); //https://groups.google.com/forum/#!searchin/open-nars/projection/open-nars/8KnAbKzjp4E/rBc-6V5pem8J
+                                        boolean eternalTask=task.sentence.isEternal();
                                     
-                                    TruthValue BelieveTruth=nal.getCurrentBelief().truth;
-                                    TruthValue TaskTruth=task.sentence.truth;
+                                        TruthValue BelieveTruth=nal.getCurrentBelief().truth;
+                                        TruthValue TaskTruth=task.sentence.truth;
                                     
-                                    if(eternalBelieve && !eternalTask) { //occurence time of task
-                                        st.setOccurrenceTime(task.sentence.getOccurenceTime());
-                                    }
+                                        if(eternalBelieve && !eternalTask) { //occurence time of task
+                                            st.setOccurrenceTime(task.sentence.getOccurenceTime());
+                                        }
                                     
-                                    if(!eternalBelieve && eternalTask) { //eternalize case
-                                        BelieveTruth=TruthFunctions.eternalize(BelieveTruth);
-                                    }
+                                        if(!eternalBelieve && eternalTask) { //eternalize case
+                                            BelieveTruth=TruthFunctions.eternalize(BelieveTruth);
+                                        }
                                     
-                                    if(!eternalBelieve && !eternalTask) { //project believe to task
-                                        BelieveTruth=nal.getCurrentBelief().projectionTruth(task.sentence.getOccurenceTime(), memory.time());
-                                    }
+                                        if(!eternalBelieve && !eternalTask) { //project believe to task
+                                            BelieveTruth=nal.getCurrentBelief().projectionTruth(task.sentence.getOccurenceTime(), memory.time());
+                                        }
                                     
-                                    //we also need to add one to stamp... time to think about redoing this for 1.6.3 in a more clever way..
-                                    ArrayList<Long> evBase=new ArrayList<Long>();
-                                    for(long l: st.evidentialBase) {
-                                        if(!evBase.contains(l)) {
-                                            evBase.add(l);
+                                        //we also need to add one to stamp... time to think about redoing this for 1.6.3 in a more clever way..
+                                        ArrayList<Long> evBase=new ArrayList<Long>();
+                                        for(long l: st.evidentialBase) {
+                                            if(!evBase.contains(l)) {
+                                                evBase.add(l);
+                                            }
                                         }
-                                    }
-                                    for(long l: nal.getCurrentBelief().stamp.evidentialBase) {
-                                        if(!evBase.contains(l)) {
-                                            evBase.add(l);
+                                        for(long l: nal.getCurrentBelief().stamp.evidentialBase) {
+                                            if(!evBase.contains(l)) {
+                                                evBase.add(l);
+                                            }
+                                        }
+                                        long[] evB=new long[evBase.size()];
+                                        int u=0;
+                                        for(long l : evBase) {
+                                            evB[i]=l;
+                                            u++;
                                         }
-                                    }
-                                    long[] evB=new long[evBase.size()];
-                                    int u=0;
-                                    for(long l : evBase) {
-                                        evB[i]=l;
-                                        u++;
-                                    }
 
-                                    st.evidentialBase=evB;
-                                    st.baseLength=evB.length;
-                                    TruthValue truth=TruthFunctions.deduction(BelieveTruth, TaskTruth);
+                                        st.setEvidentialBase(evB);
+                                        TruthValue truth=TruthFunctions.deduction(BelieveTruth, TaskTruth);
                                     
                                     
-                                    Sentence S=new Sentence(resImp,s.punctuation,truth,st);
-                                    Task Tas=new Task(S,new BudgetValue(BudgetFunctions.forward(truth, nal)));
-                                    nal.derivedTask(Tas, false, false, null, null, true);
+                                        Sentence S=new Sentence(resImp,s.punctuation,truth,st);
+                                        Task Tas=new Task(S,new BudgetValue(BudgetFunctions.forward(truth, nal)));
+                                        nal.derivedTask(Tas, false, false, null, null, true);
                                     
-                                    //RESTORE CONTEXT
-                                    nal.setNewStamp(SVSTamp);
-                                    nal.setCurrentBelief(SVBelief);
-                                    nal.newStampBuilder=SVstampBuilder; //also restore this one
+                                        //RESTORE CONTEXT
+                                        nal.setNewStamp(SVSTamp);
+                                        nal.setCurrentBelief(SVBelief);
+                                        nal.newStampBuilder=SVstampBuilder; //also restore this one
+                                    }
+                                } finally {
+                                    map2.release();
+                                    map.release();
                                 }
                             }
                         }
@@ -285,7 +290,8 @@ public class RuleTables {
         
         if (belief != null) {   
             
-            nal.emit(Events.BeliefReason.class, belief, beliefTerm, taskTerm, nal);
+            if (nal.mem().emitting(Events.BeliefReason.class))
+                nal.emit(Events.BeliefReason.class, belief, beliefTerm, taskTerm, nal);
             
             
             
@@ -366,183 +372,310 @@ public class RuleTables {
         CompositionalRules.dedConjunctionByQuestion(taskSentence, belief, nal);
         
         final short tIndex = tLink.getIndex(0);
-        short bIndex = bLink.getIndex(0);
-        switch (tLink.type) {          // dispatch first by TaskLink type
+        final short bIndex = bLink.getIndex(0);
+        switch (rule(tLink.type, bLink.type, taskTerm, beliefTerm, belief != null)) {
+            case JUNCTION_AND_TASK_COMPONENT:
+                junctionAndSelf((CompoundTerm) taskTerm, beliefTerm, true, bIndex, nal);
+                break;
+            case NEGATION_AND_TASK_COMPONENT:
+                negationAndSelf((CompoundTerm) taskTerm, true, nal);
+                break;
+            case JUNCTION_AND_BELIEF_COMPONENT:
+                junctionAndSelf((CompoundTerm) beliefTerm, taskTerm, false, bIndex, nal);
+                break;
+            case NEGATION_AND_BELIEF_COMPONENT:
+                negationAndSelf((CompoundTerm) beliefTerm, false, nal);
+                break;
+            case COMPOUND_AND_COMPOUND:
+                compoundAndCompound((CompoundTerm) taskTerm, (CompoundTerm) beliefTerm, bIndex, nal);
+                break;
+            case TASK_COMPOUND_AND_STATEMENT:
+                compoundAndStatement((CompoundTerm) taskTerm, tIndex, (Statement) beliefTerm, bIndex, beliefTerm, nal);
+                break;
+            case BELIEF_COMPOUND_AND_STATEMENT:
+                compoundAndStatement((CompoundTerm) beliefTerm, bIndex, (Statement) taskTerm, tIndex, beliefTerm, nal);
+                break;
+            case COMPONENT_AND_STATEMENT:
+                componentAndStatement((CompoundTerm) nal.getCurrentTerm(), bIndex, (Statement) taskTerm, tIndex, nal);
+                break;
+
+            case DETACHMENT_OF_TASK:
+                SyllogisticRules.detachment(taskSentence, belief, bIndex, nal);
+                break;
+            case DETACHMENT_OF_BELIEF:
+                SyllogisticRules.detachment(belief, taskSentence, bIndex, nal);
+                break;
+            case CONDITIONAL_OF_TASK:
+                SyllogisticRules.conditionalDedInd((Implication) taskTerm, bLink.getIndex(1), beliefTerm, tIndex, nal);
+                break;
+            case CONDITIONAL_OF_BELIEF:
+                SyllogisticRules.conditionalDedInd((Implication) beliefTerm, bLink.getIndex(1), taskTerm, tIndex, nal);
+                break;
+            case CONDITION_OF_BELIEF: {
+                Term[] u = new Term[] { beliefTerm, taskTerm };
+                if (Variables.unify(VAR_INDEPENDENT, ((Statement) beliefTerm).getSubject(), taskTerm, u)) {
+                    Sentence newBelief = belief.clone(u[0]);
+                    Sentence newTaskSentence = taskSentence.clone(u[1]);
+                    detachmentWithVar(newBelief, newTaskSentence, bIndex, nal);
+                } else {
+                    SyllogisticRules.conditionalDedInd((Implication) beliefTerm, bIndex, taskTerm, -1, nal);
+                }
+                break;
+            }
+            case CONDITIONAL_ANALOGY:
+                SyllogisticRules.conditionalAna((Equivalence) beliefTerm, bIndex, taskTerm, -1, nal);
+                break;
+            case CONDITIONAL_WITH_VAR_OF_BELIEF:
+                conditionalDedIndWithVar((Implication) beliefTerm, bLink.getIndex(1), (Statement) taskTerm, tIndex, nal);
+                break;
+            case CONDITIONAL_WITH_VAR_OF_TASK: {
+                Term subj = ((Statement) taskTerm).getSubject();
+                if (subj instanceof Negation) {
+                    if (taskSentence.isJudgment()) {
+                        componentAndStatement((CompoundTerm) subj, bIndex, (Statement) taskTerm, tIndex, nal);
+                    } else {
+                        componentAndStatement((CompoundTerm) subj, tIndex, (Statement) beliefTerm, bIndex, nal);
+                    }
+                } else {
+                    conditionalDedIndWithVar((Implication) taskTerm, tIndex, (Statement) beliefTerm, bIndex, nal);
+                }
+                break;
+            }
+            case DETACHMENT_WITH_VAR_OF_TASK:
+                detachmentWithVar(taskSentence, belief, tIndex, nal);
+                break;
+
+            case ASYMMETRIC_ASYMMETRIC:
+                asymmetricAsymmetric(taskSentence, belief, indexToFigure(tLink, bLink), nal);
+                break;
+            case ASYMMETRIC_SYMMETRIC:
+                asymmetricSymmetric(taskSentence, belief, indexToFigure(tLink, bLink), nal);
+                break;
+            case SYMMETRIC_ASYMMETRIC:
+                asymmetricSymmetric(belief, taskSentence, indexToFigure(bLink, tLink), nal);
+                break;
+            case SYMMETRIC_SYMMETRIC:
+                symmetricSymmetric(belief, taskSentence, indexToFigure(bLink, tLink), nal);
+                break;
+            case SYLLOGISTIC_DETACHMENT_OF_BELIEF:
+                detachmentWithVar(belief, taskSentence, bIndex, nal);
+                break;
+            case SYLLOGISTIC_DETACHMENT_OF_TASK:
+                detachmentWithVar(taskSentence, belief, tIndex, nal);
+                break;
+        }
+        
+    }
+
+    /* ----- rule dispatch ----- */
+    
+    /* Groups of rules, which a premise pair is dispatched to, by the types
+       of its links and the operators of its terms.  The groups from
+       DETACHMENT_OF_TASK on need a belief. */
+    private static final byte NONE = 0;
+    private static final byte JUNCTION_AND_TASK_COMPONENT = 1;
+    private static final byte NEGATION_AND_TASK_COMPONENT = 2;
+    private static final byte JUNCTION_AND_BELIEF_COMPONENT = 3;
+    private static final byte NEGATION_AND_BELIEF_COMPONENT = 4;
+    private static final byte COMPOUND_AND_COMPOUND = 5;
+    private static final byte TASK_COMPOUND_AND_STATEMENT = 6;
+    private static final byte BELIEF_COMPOUND_AND_STATEMENT = 7;
+    private static final byte COMPONENT_AND_STATEMENT = 8;
+    private static final byte DETACHMENT_OF_TASK = 9;
+    private static final byte DETACHMENT_OF_BELIEF = 10;
+    private static final byte CONDITIONAL_OF_TASK = 11;
+    private static final byte CONDITIONAL_OF_BELIEF = 12;
+    private static final byte CONDITION_OF_BELIEF = 13;
+    private static final byte CONDITIONAL_ANALOGY = 14;
+    private static final byte CONDITIONAL_WITH_VAR_OF_BELIEF = 15;
+    private static final byte CONDITIONAL_WITH_VAR_OF_TASK = 16;
+    private static final byte DETACHMENT_WITH_VAR_OF_TASK = 17;
+    private static final byte ASYMMETRIC_ASYMMETRIC = 18;
+    private static final byte ASYMMETRIC_SYMMETRIC = 19;
+    private static final byte SYMMETRIC_ASYMMETRIC = 20;
+    private static final byte SYMMETRIC_SYMMETRIC = 21;
+    private static final byte SYLLOGISTIC_DETACHMENT_OF_BELIEF = 22;
+    private static final byte SYLLOGISTIC_DETACHMENT_OF_TASK = 23;
+
+    private static final NativeOperator[] operators = NativeOperator.values();
+    private static final int LINK_TYPES = TermLink.TRANSFORM + 1;
+    
+    /** 
+     * The rule group of each premise pair, indexed by the TaskLink and
+     * TermLink types, and then by the operators of the task and belief terms;
+     * null for a pair of link types which has no rules.
+     */
+    private static final byte[][] rules = new byte[LINK_TYPES * LINK_TYPES][];
+    
+    static {
+        final int n = operators.length;
+        for (short t = 0; t < LINK_TYPES; t++) {
+            for (short b = 0; b < LINK_TYPES; b++) {
+                final byte[] r = new byte[n * n];
+                boolean any = false;
+                for (final NativeOperator taskOp : operators) {
+                    for (final NativeOperator beliefOp : operators) {
+                        final byte g = rule(t, b, taskOp, beliefOp);
+                        r[taskOp.ordinal() * n + beliefOp.ordinal()] = g;
+                        any |= (g != NONE);
+                    }
+                }
+                if (any)
+                    rules[t * LINK_TYPES + b] = r;
+            }
+        }
+    }
+    
+    /** the rule group of a premise pair, from the table */
+    private static byte rule(final short taskLinkType, final short termLinkType, final Term taskTerm, final Term beliefTerm, final boolean hasBelief) {
+        final byte[] r = rules[taskLinkType * LINK_TYPES + termLinkType];
+        if (r == null)
+            return NONE;
+        final byte g = r[taskTerm.operator().ordinal() * operators.length + beliefTerm.operator().ordinal()];
+        return ((g >= DETACHMENT_OF_TASK) && !hasBelief) ? NONE : g;
+    }
+    
+    /** 
+     * The rule group of a premise pair, decided as the switches on the link
+     * types and the classes of the terms do; used to build the table.
+     */
+    private static byte rule(final short taskLinkType, final short termLinkType, final NativeOperator taskOp, final NativeOperator beliefOp) {
+        switch (taskLinkType) {
             case TermLink.SELF:
-                switch (bLink.type) {
+                switch (termLinkType) {
                     case TermLink.COMPONENT:
-                        compoundAndSelf((CompoundTerm) taskTerm, beliefTerm, true, bIndex,  nal);
-                        break;
+                        return isJunction(taskOp) ? JUNCTION_AND_TASK_COMPONENT :
+                                (taskOp == NativeOperator.NEGATION) ? NEGATION_AND_TASK_COMPONENT : NONE;
                     case TermLink.COMPOUND:
-                        compoundAndSelf((CompoundTerm) beliefTerm, taskTerm, false, bIndex, nal);
-                        break;
+                        return isJunction(beliefOp) ? JUNCTION_AND_BELIEF_COMPONENT :
+                                (beliefOp == NativeOperator.NEGATION) ? NEGATION_AND_BELIEF_COMPONENT : NONE;
                     case TermLink.COMPONENT_STATEMENT:
-                        if (belief != null) {
-                            if (taskTerm instanceof Statement) {
-                                SyllogisticRules.detachment(taskSentence, belief, bIndex, nal);
-                            }
-                        }
-                        break;
+                        return taskOp.relation ? DETACHMENT_OF_TASK : NONE;
                     case TermLink.COMPOUND_STATEMENT:
-                        if (belief != null) {
-                            SyllogisticRules.detachment(belief, taskSentence, bIndex, nal);
-                        }
-                        break;
+                        return DETACHMENT_OF_BELIEF;
                     case TermLink.COMPONENT_CONDITION:
-                        if ((belief != null) && (taskTerm instanceof Implication)) {
-                            bIndex = bLink.getIndex(1);
-                            SyllogisticRules.conditionalDedInd((Implication) taskTerm, bIndex, beliefTerm, tIndex, nal);
-                        }
-                        break;
+                        return isImplication(taskOp) ? CONDITIONAL_OF_TASK : NONE;
                     case TermLink.COMPOUND_CONDITION:
-                        if ((belief != null) && (taskTerm instanceof Implication) && (beliefTerm instanceof Implication)) {
-                            bIndex = bLink.getIndex(1);
-                            SyllogisticRules.conditionalDedInd((Implication) beliefTerm, bIndex, taskTerm, tIndex, nal);
-                        }
-                        break;
+                        return (isImplication(taskOp) && isImplication(beliefOp)) ? CONDITIONAL_OF_BELIEF : NONE;
                 }
-                break;
+                return NONE;
             case TermLink.COMPOUND:
-                switch (bLink.type) {
+                switch (termLinkType) {
                     case TermLink.COMPOUND:
-                        compoundAndCompound((CompoundTerm) taskTerm, (CompoundTerm) beliefTerm, bIndex, nal);
-                        break;
+                        //compounds of the same class, on which compoundAndSelf has rules
+                        return ((isJunction(taskOp) || (taskOp == NativeOperator.NEGATION)) &&
+                                (isConjunction(taskOp) ? isConjunction(beliefOp) : (taskOp == beliefOp))) ? COMPOUND_AND_COMPOUND : NONE;
                     case TermLink.COMPOUND_STATEMENT:
-                        compoundAndStatement((CompoundTerm) taskTerm, tIndex, (Statement) beliefTerm, bIndex, beliefTerm, nal);
-                        break;
+                        return hasCompoundAndStatementRules(taskOp, beliefOp) ? TASK_COMPOUND_AND_STATEMENT : NONE;
                     case TermLink.COMPOUND_CONDITION:
-                        if (belief != null) {
-                            if (beliefTerm instanceof Implication) {
-                                Term[] u = new Term[] { beliefTerm, taskTerm };
-                                if (Variables.unify(VAR_INDEPENDENT, ((Statement) beliefTerm).getSubject(), taskTerm, u)) {
-                                    Sentence newBelief = belief.clone(u[0]);
-                                    Sentence newTaskSentence = taskSentence.clone(u[1]);
-                                    detachmentWithVar(newBelief, newTaskSentence, bIndex, nal);
-                                } else {
-                                    SyllogisticRules.conditionalDedInd((Implication) beliefTerm, bIndex, taskTerm, -1, nal);
-                                }                                
-                                
-                            } else if (beliefTerm instanceof Equivalence) {
-                                SyllogisticRules.conditionalAna((Equivalence) beliefTerm, bIndex, taskTerm, -1, nal);
-                            }
-                        }
-                        break;
+                        return isImplication(beliefOp) ? CONDITION_OF_BELIEF :
+                                isEquivalence(beliefOp) ? CONDITIONAL_ANALOGY : NONE;
                 }
-                break;
+                return NONE;
             case TermLink.COMPOUND_STATEMENT:
-                switch (bLink.type) {
+                switch (termLinkType) {
                     case TermLink.COMPONENT:
-                        if (taskTerm instanceof Statement) {
-                            componentAndStatement((CompoundTerm) nal.getCurrentTerm(), bIndex, (Statement) taskTerm, tIndex, nal);
-                        }
-                        break;
+                        //componentAndStatement has rules on these statements
+                        return ((taskOp == NativeOperator.INHERITANCE) || (taskOp == NativeOperator.SIMILARITY)) ? COMPONENT_AND_STATEMENT : NONE;
                     case TermLink.COMPOUND:
-                        if (taskTerm instanceof Statement) {
-                            compoundAndStatement((CompoundTerm) beliefTerm, bIndex, (Statement) taskTerm, tIndex, beliefTerm, nal);
-                        }
-                        break;
+                        return (taskOp.relation && hasCompoundAndStatementRules(beliefOp, taskOp)) ? BELIEF_COMPOUND_AND_STATEMENT : NONE;
                     case TermLink.COMPOUND_STATEMENT:
-                        if (belief != null) {
-                            syllogisms(tLink, bLink, taskTerm, beliefTerm, nal);
-                        }
-                        break;
+                        return syllogism(taskOp, beliefOp);
                     case TermLink.COMPOUND_CONDITION:
-                        if (belief != null) {
-                            bIndex = bLink.getIndex(1);
-                            if ((taskTerm instanceof Statement) && (beliefTerm instanceof Implication)) {
-                                
-                                    conditionalDedIndWithVar((Implication) beliefTerm, bIndex, (Statement) taskTerm, tIndex, nal);
-                            }
-                        }
-                        break;
+                        return (taskOp.relation && isImplication(beliefOp)) ? CONDITIONAL_WITH_VAR_OF_BELIEF : NONE;
                 }
-                break;
+                return NONE;
             case TermLink.COMPOUND_CONDITION:
-                switch (bLink.type) {
-                      case TermLink.COMPOUND:
-                        if (belief != null) {
-                            detachmentWithVar(taskSentence, belief, tIndex, nal);
-                        }
-                        break;
-                    
+                switch (termLinkType) {
+                    case TermLink.COMPOUND:
+                        return DETACHMENT_WITH_VAR_OF_TASK;
                     case TermLink.COMPOUND_STATEMENT:
-                        if (belief != null) {
-                            if (taskTerm instanceof Implication) // TODO maybe put instanceof test within conditionalDedIndWithVar()
-                            {
-                                Term subj = ((Statement) taskTerm).getSubject();
-                                if (subj instanceof Negation) {
-                                    if (taskSentence.isJudgment()) {
-                                    componentAndStatement((CompoundTerm) subj, bIndex, (Statement) taskTerm, tIndex, nal);
-                                    } else {
-                                    componentAndStatement((CompoundTerm) subj, tIndex, (Statement) beliefTerm, bIndex, nal);
-                                    }
-                                    } else {
-                                    conditionalDedIndWithVar((Implication) taskTerm, tIndex, (Statement) beliefTerm, bIndex, nal);
-                                    }
-                                }
-                                break;
-                            
-                        }
-                        break;
+                        return isImplication(taskOp) ? CONDITIONAL_WITH_VAR_OF_TASK : NONE;
                 }
+                return NONE;
         }
-        
+        return NONE;
     }
 
     /* ----- syllogistic inferences ----- */
     /**
-     * Meta-table of syllogistic rules, indexed by the content classes of the
-     * taskSentence and the belief
+     * Meta-table of syllogistic rules, indexed by the operators of the task
+     * and the belief
      *
-     * @param tLink The link to task
-     * @param bLink The link to belief
-     * @param taskTerm The content of task
-     * @param beliefTerm The content of belief
-     * @param nal Reference to the memory
+     * @param taskOp The operator of the content of task
+     * @param beliefOp The operator of the content of belief
+     * @return The rule group
      */
-    private static void syllogisms(TaskLink tLink, TermLink bLink, Term taskTerm, Term beliefTerm, NAL nal) {
-        Sentence taskSentence = nal.getCurrentTask().sentence;
-        Sentence belief = nal.getCurrentBelief();
-        int figure;
-        if (taskTerm instanceof Inheritance) {
-            if (beliefTerm instanceof Inheritance) {
-                figure = indexToFigure(tLink, bLink);
-                asymmetricAsymmetric(taskSentence, belief, figure, nal);
-            } else if (beliefTerm instanceof Similarity) {
-                figure = indexToFigure(tLink, bLink);
-                asymmetricSymmetric(taskSentence, belief, figure, nal);
+    private static byte syllogism(final NativeOperator taskOp, final NativeOperator beliefOp) {
+        if (taskOp == NativeOperator.INHERITANCE) {
+            if (beliefOp == NativeOperator.INHERITANCE) {
+                return ASYMMETRIC_ASYMMETRIC;
+            } else if (beliefOp == NativeOperator.SIMILARITY) {
+                return ASYMMETRIC_SYMMETRIC;
             } else {
-                detachmentWithVar(belief, taskSentence, bLink.getIndex(0), nal);
+                return SYLLOGISTIC_DETACHMENT_OF_BELIEF;
             }
-        } else if (taskTerm instanceof Similarity) {
-            if (beliefTerm instanceof Inheritance) {
-                figure = indexToFigure(bLink, tLink);
-                asymmetricSymmetric(belief, taskSentence, figure, nal);
-            } else if (beliefTerm instanceof Similarity) {
-                figure = indexToFigure(bLink, tLink);
-                symmetricSymmetric(belief, taskSentence, figure, nal);
+        } else if (taskOp == NativeOperator.SIMILARITY) {
+            if (beliefOp == NativeOperator.INHERITANCE) {
+                return SYMMETRIC_ASYMMETRIC;
+            } else if (beliefOp == NativeOperator.SIMILARITY) {
+                return SYMMETRIC_SYMMETRIC;
             }
-        } else if (taskTerm instanceof Implication) {
-            if (beliefTerm instanceof Implication) {
-                figure = indexToFigure(tLink, bLink);
-                asymmetricAsymmetric(taskSentence, belief, figure, nal);
-            } else if (beliefTerm instanceof Equivalence) {
-                figure = indexToFigure(tLink, bLink);
-                asymmetricSymmetric(taskSentence, belief, figure, nal);
-            } else if (beliefTerm instanceof Inheritance) {
-                detachmentWithVar(taskSentence, belief, tLink.getIndex(0), nal);
+        } else if (isImplication(taskOp)) {
+            if (isImplication(beliefOp)) {
+                return ASYMMETRIC_ASYMMETRIC;
+            } else if (isEquivalence(beliefOp)) {
+                return ASYMMETRIC_SYMMETRIC;
+            } else if (beliefOp == NativeOperator.INHERITANCE) {
+                return SYLLOGISTIC_DETACHMENT_OF_TASK;
             }
-        } else if (taskTerm instanceof Equivalence) {
-            if (beliefTerm instanceof Implication) {
-                figure = indexToFigure(bLink, tLink);
-                asymmetricSymmetric(belief, taskSentence, figure, nal);
-            } else if (beliefTerm instanceof Equivalence) {
-                figure = indexToFigure(bLink, tLink);
-                symmetricSymmetric(belief, taskSentence, figure, nal);
-            } else if (beliefTerm instanceof Inheritance) {
-                detachmentWithVar(taskSentence, belief, tLink.getIndex(0), nal);
+        } else if (isEquivalence(taskOp)) {
+            if (isImplication(beliefOp)) {
+                return SYMMETRIC_ASYMMETRIC;
+            } else if (isEquivalence(beliefOp)) {
+                return SYMMETRIC_SYMMETRIC;
+            } else if (beliefOp == NativeOperator.INHERITANCE) {
+                return SYLLOGISTIC_DETACHMENT_OF_TASK;
             }
         }
+        return NONE;
+    }
+
+    /** whether compoundAndStatement has rules for a compound and a statement of these operators */
+    private static boolean hasCompoundAndStatementRules(final NativeOperator compoundOp, final NativeOperator statementOp) {
+        return isConjunction(compoundOp) || (statementOp == NativeOperator.INHERITANCE) || (statementOp == NativeOperator.SIMILARITY);
+    }
+
+    /** whether terms of an operator are Implications */
+    private static boolean isImplication(final NativeOperator o) {
+        switch (o) {
+            case IMPLICATION: case IMPLICATION_AFTER: case IMPLICATION_WHEN: case IMPLICATION_BEFORE:
+                return true;
+        }
+        return false;
+    }
+
+    /** whether terms of an operator are Equivalences */
+    private static boolean isEquivalence(final NativeOperator o) {
+        switch (o) {
+            case EQUIVALENCE: case EQUIVALENCE_AFTER: case EQUIVALENCE_WHEN:
+                return true;
+        }
+        return false;
+    }
+
+    /** whether terms of an operator are Conjunctions */
+    private static boolean isConjunction(final NativeOperator o) {
+        switch (o) {
+            case CONJUNCTION: case SEQUENCE: case PARALLEL:
+                return true;
+        }
+        return false;
+    }
+
+    /** whether terms of an operator are Conjunctions or Disjunctions */
+    private static boolean isJunction(final NativeOperator o) {
+        return isConjunction(o) || (o == NativeOperator.DISJUNCTION);
     }
 
     /**
@@ -879,19 +1012,33 @@ public class RuleTables {
      */
      private static void compoundAndSelf(CompoundTerm compound, Term component, boolean compoundTask, int index, NAL nal) {
         if ((compound instanceof Conjunction) || (compound instanceof Disjunction)) {
-            if (nal.getCurrentBelief() != null) {
-                CompositionalRules.decomposeStatement(compound, component, compoundTask, index, nal);
-            } else if (compound.containsTerm(component)) {
-                StructuralRules.structuralCompound(compound, component, compoundTask, index, nal);
-            }
+            junctionAndSelf(compound, component, compoundTask, index, nal);
 //        } else if ((compound instanceof Negation) && !memory.getCurrentTask().isStructural()) {
         } else if (compound instanceof Negation) {
-            if (compoundTask) {
-                if (compound.term[0] instanceof CompoundTerm)
-                    StructuralRules.transformNegation((CompoundTerm)compound.term[0], nal);
-            } else {
-                StructuralRules.transformNegation(compound, nal);
-            }
+            negationAndSelf(compound, compoundTask, nal);
+        }
+    }
+
+    /**
+     * Inference between a Conjunction or Disjunction and a component of it
+     */
+    private static void junctionAndSelf(CompoundTerm compound, Term component, boolean compoundTask, int index, NAL nal) {
+        if (nal.getCurrentBelief() != null) {
+            CompositionalRules.decomposeStatement(compound, component, compoundTask, index, nal);
+        } else if (compound.containsTerm(component)) {
+            StructuralRules.structuralCompound(compound, component, compoundTask, index, nal);
+        }
+    }
+
+    /**
+     * Inference between a Negation and its component
+     */
+    private static void negationAndSelf(CompoundTerm negation, boolean compoundTask, NAL nal) {
+        if (compoundTask) {
+            if (negation.term[0] instanceof CompoundTerm)
+                StructuralRules.transformNegation((CompoundTerm)negation.term[0], nal);
+        } else {
+            StructuralRules.transformNegation(negation, nal);
         }
     }
 
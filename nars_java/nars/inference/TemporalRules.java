@@ -43,6 +43,7 @@ import nars.language.Interval;
 import nars.language.Product;
 import nars.language.Similarity;
 import nars.language.Statement;
+import nars.language.Substitution;
 import nars.language.Term;
 import nars.language.Terms;
 import nars.language.Variable;
@@ -199,20 +200,29 @@ public class TemporalRules {
         //ok we have our B2, no matter if packed as first argument of &/ or directly, lets see if it unifies
         Term[] term = args.toArray(new Term[args.size()]);
         Term realB2 = term[beginoffset];
-        HashMap<Term, Term> res1 = new HashMap<>();
-        HashMap<Term, Term> res2 = new HashMap<>();
-
-        if(Variables.findSubstitute(Symbols.VAR_INDEPENDENT, B1, realB2, res1,res2)) {
-            //ok it unifies, so lets create a &/ term
-            for(int i=0;i<term.length;i++) {
-                if(term[i] instanceof CompoundTerm) {
-                    term[i]=((CompoundTerm) term[i]).applySubstitute(res1);
-                    if(term[i]==null) { 
-                        //it resulted in invalid term for example <a --> a>, so wrong
-                        return false;
+        final Substitution res1 = Substitution.acquire();
+        final Substitution res2 = Substitution.acquire();
+        final boolean unifies;
+        try {
+            unifies = Variables.findSubstitute(Symbols.VAR_INDEPENDENT, B1, realB2, res1,res2);
+            if(unifies) {
+                for(int i=0;i<term.length;i++) {
+                    if(term[i] instanceof CompoundTerm) {
+                        term[i]=((CompoundTerm) term[i]).applySubstitute(res1);
+                        if(term[i]==null) { 
+                            //it resulted in invalid term for example <a --> a>, so wrong
+                            return false;
+                        }
                     }
                 }
             }
+        } finally {
+            res2.release();
+            res1.release();
+        }
+
+        if(unifies) {
+            //ok it unifies, so lets create a &/ term
             int order1=s1.getTemporalOrder();
             int order2=s2.getTemporalOrder();
             Term S = Conjunction.make(term,order1);
@@ -476,15 +486,17 @@ public class TemporalRules {
             return 0.0F;
         }
         
-        TruthValue truth = solution.truth;
+        //the confidence of the projected truth, which is not created since only its confidence differs
+        float confidence = solution.truth.getConfidence();
         if (problem.getOccurenceTime()!=solution.getOccurenceTime()) {
-            truth = solution.projectionTruth(problem.getOccurenceTime(), memory.time());            
+            confidence = solution.projectionConfidence(problem.getOccurenceTime(), memory.time());            
         }
         
         if (problem.containQueryVar()) {
-            return truth.getExpectation() / solution.term.getComplexity();
+            final float expectation = confidence * (solution.truth.getFrequency() - 0.5f) + 0.5f;
+            return expectation / solution.term.getComplexity();
         } else {
-            return truth.getConfidence();
+            return confidence;
         }
     }
 
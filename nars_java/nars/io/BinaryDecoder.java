@@ -0,0 +1,369 @@
+package nars.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import nars.core.Memory;
+import nars.entity.BudgetValue;
+import nars.entity.DerivationChain;
+import nars.entity.Sentence;
+import nars.entity.Stamp;
+import nars.entity.Task;
+import nars.entity.TruthValue;
+import nars.inference.TemporalRules;
+import static nars.io.BinaryEncoder.ANALYTIC;
+import static nars.io.BinaryEncoder.ANSWER;
+import static nars.io.BinaryEncoder.ETERNAL;
+import static nars.io.BinaryEncoder.FIXED_POINT;
+import static nars.io.BinaryEncoder.HAS_TRUTH;
+import static nars.io.BinaryEncoder.RESET;
+import static nars.io.BinaryEncoder.REVISIBLE;
+import static nars.io.BinaryEncoder.SENTENCE;
+import static nars.io.BinaryEncoder.TASK;
+import static nars.io.BinaryEncoder.TEMPORAL_INDUCTION;
+import static nars.io.BinaryEncoder.TERM_ATOM;
+import static nars.io.BinaryEncoder.TERM_COMPOUND;
+import static nars.io.BinaryEncoder.TERM_INTERVAL;
+import static nars.io.BinaryEncoder.TERM_NAME;
+import static nars.io.BinaryEncoder.TERM_OPERATOR;
+import static nars.io.BinaryEncoder.TERM_VARIABLE;
+import static nars.io.BinaryEncoder.TEXT;
+import nars.io.Symbols.NativeOperator;
+import nars.io.narsese.Narsese.InvalidInputException;
+import nars.io.narsese.NarseseReader;
+import nars.language.ImageExt;
+import nars.language.ImageInt;
+import nars.language.Interval;
+import nars.language.Statement;
+import nars.language.Tense;
+import nars.language.Term;
+import nars.language.Variable;
+import nars.operator.Operator;
+
+/**
+ * Reads the records written by BinaryEncoder, building terms through the
+ * term factories of a Memory, whose operators are used for operations.
+ * <p>
+ * If restamp is set, each sentence read gets a new stamp from the memory, as
+ * Narsese input does: its tense is kept (or, for a stamp which has none, its
+ * occurrence time relative to its creation time, as TextOutput writes it), and
+ * its creation time is set when it is input.
+ * <p>
+ * A decoder created without a stream reads from buffers instead, with
+ * read(ByteBuffer), for input which arrives in pieces, ex: from a
+ * non-blocking socket.
+ */
+public class BinaryDecoder {
+
+    private final Memory memory;
+    private final DataInputStream in;
+    /** the source of a decoder which reads buffers, otherwise null */
+    private final BufferInputStream buffer;
+    private final List<Term> terms = new ArrayList();
+    private final NativeOperator[] operators = NativeOperator.values();
+    private NarseseReader narsese;
+
+    private boolean restamp = false;
+    private Class channel;
+
+    public BinaryDecoder(final Memory memory, final InputStream in) {
+        this.memory = memory;
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        this.buffer = null;
+    }
+
+    /** creates a decoder which reads buffers with read(ByteBuffer) */
+    public BinaryDecoder(final Memory memory) {
+        this.memory = memory;
+        this.buffer = new BufferInputStream();
+        //unbuffered, so that the position of the buffer is that of the records read
+        this.in = new DataInputStream(buffer);
+    }
+
+    public BinaryDecoder setRestamp(final boolean restamp) {
+        this.restamp = restamp;
+        return this;
+    }
+
+    /**
+     * Reads the next record, blocking until it is available.
+     *
+     * @return a Task, a Sentence, an answer as Object[] { Task, Sentence },
+     * or a String; null at the end of the stream
+     */
+    public Object read() throws IOException {
+        int kind = in.read();
+        while (kind == RESET) {
+            terms.clear();
+            kind = in.read();
+        }
+        if (kind == -1)
+            return null;
+
+        final int c = in.readUnsignedByte();
+        channel = (c == 0) ? null : Output.DefaultOutputEvents[c - 1];
+
+        switch (kind) {
+            case TASK:
+                return readTask();
+            case SENTENCE:
+                return readSentence();
+            case ANSWER:
+                final Task question = readTask();
+                return new Object[] { question, readSentence() };
+            case TEXT:
+                return readString();
+        }
+        throw new IOException("Invalid record: " + kind);
+    }
+
+    /**
+     * Reads the next record from a buffer, if it holds all of it; otherwise
+     * the buffer's position is left at the start of the record, to be read
+     * again once the rest has been appended.
+     *
+     * @return the record, as read() returns it, or null if the buffer does
+     * not hold a complete record
+     */
+    public Object read(final ByteBuffer b) throws IOException {
+        if (buffer == null)
+            throw new IllegalStateException("Decoder reads a stream");
+
+        //a reset has no content, so it is never incomplete
+        while (b.hasRemaining() && (b.get(b.position()) == RESET)) {
+            b.get();
+            terms.clear();
+        }
+        if (!b.hasRemaining())
+            return null;
+
+        final int start = b.position();
+        final int numTerms = terms.size();
+        buffer.source = b;
+        try {
+            return read();
+        }
+        catch (EOFException incomplete) {
+            b.position(start);
+            //forget the terms of the partial record, which will be read again
+            terms.subList(numTerms, terms.size()).clear();
+            return null;
+        }
+        finally {
+            buffer.source = null;
+        }
+    }
+
+    /** reads records until a Task, which it returns; null at the end of the stream */
+    public Task readNextTask() throws IOException {
+        Object o;
+        while ((o = read()) != null) {
+            if (o instanceof Task)
+                return (Task)o;
+        }
+        return null;
+    }
+
+    /** the output channel of the last record read, or null if it had none */
+    public Class getChannel() {
+        return channel;
+    }
+
+    public void close() throws IOException {
+        in.close();
+    }
+
+    protected Task readTask() throws IOException {
+        final Sentence s = readSentence();
+        return new Task(s, readBudget());
+    }
+
+    protected Sentence readSentence() throws IOException {
+        final Term term = readTerm();
+        final char punctuation = (char)in.readUnsignedByte();
+        final int flags = in.readUnsignedByte();
+
+        TruthValue truth = null;
+        if ((flags & HAS_TRUTH) != 0)
+            truth = new TruthValue(readFixed(), readFixed(), (flags & ANALYTIC) != 0);
+
+        final Sentence s = new Sentence(term, punctuation, truth, readStamp((flags & ETERNAL) != 0));
+        s.setRevisible((flags & REVISIBLE) != 0);
+        s.producedByTemporalInduction = (flags & TEMPORAL_INDUCTION) != 0;
+        return s;
+    }
+
+    protected Stamp readStamp(final boolean eternal) throws IOException {
+        final int t = in.readUnsignedByte();
+        Tense tense = (t == 0) ? null : Tense.values()[t - 1];
+
+        final long[] base = new long[readVarInt()];
+        long last = 0;
+        for (int i = 0; i < base.length; i++)
+            base[i] = last = last + readVarLong();
+
+        final long creationTime = readVarLong();
+        final long occurrenceTime = eternal ? Stamp.ETERNAL : creationTime + readVarLong();
+
+        DerivationChain chain = DerivationChain.Empty;
+        final int chainLength = readVarInt();
+        for (int i = 0; i < chainLength; i++)
+            chain = chain.with(readTerm());
+
+        if (restamp) {
+            final int duration = memory.param.duration.get();
+            if ((tense == null) && !eternal) {
+                switch (TemporalRules.order(creationTime, occurrenceTime, duration)) {
+                    case TemporalRules.ORDER_FORWARD: tense = Tense.Future; break;
+                    case TemporalRules.ORDER_BACKWARD: tense = Tense.Past; break;
+                    default: tense = Tense.Present; break;
+                }
+            }
+            return new Stamp(-1 /* set right before the Task is input */, tense, memory.newStampSerial(), duration);
+        }
+
+        return new Stamp(base, creationTime, occurrenceTime, tense, chain);
+    }
+
+    protected BudgetValue readBudget() throws IOException {
+        return new BudgetValue(readFixed(), readFixed(), readFixed());
+    }
+
+    protected Term readTerm() throws IOException {
+        final int i = readVarInt();
+        if (i > 0) {
+            if (i > terms.size())
+                throw new IOException("Invalid term reference: " + i);
+            return terms.get(i - 1);
+        }
+
+        final Term t;
+        final int tag = in.readUnsignedByte();
+        switch (tag) {
+            case TERM_COMPOUND:
+                t = readCompound();
+                break;
+            case TERM_ATOM:
+                t = Term.get(readString());
+                break;
+            case TERM_VARIABLE:
+                t = new Variable(readString());
+                break;
+            case TERM_INTERVAL:
+                t = Interval.interval(readVarInt());
+                break;
+            case TERM_OPERATOR: {
+                final String name = readString();
+                t = memory.getOperator(name);
+                if (t == null)
+                    throw new IOException("Unknown operator: " + name);
+                break;
+            }
+            case TERM_NAME: {
+                final String name = readString();
+                if (narsese == null)
+                    narsese = new NarseseReader(memory);
+                try {
+                    t = narsese.parseTerm(name);
+                } catch (InvalidInputException e) {
+                    throw new IOException("Invalid term: " + name, e);
+                }
+                break;
+            }
+            default:
+                throw new IOException("Invalid term tag: " + tag);
+        }
+        terms.add(t);
+        return t;
+    }
+
+    protected Term readCompound() throws IOException {
+        final int o = in.readUnsignedByte();
+        if (o >= operators.length)
+            throw new IOException("Invalid operator: " + o);
+        final NativeOperator op = operators[o];
+
+        final boolean image = (op == NativeOperator.IMAGE_EXT) || (op == NativeOperator.IMAGE_INT);
+        final short relationIndex = image ? (short)readVarInt() : 0;
+
+        final Term[] a = new Term[readVarInt()];
+        for (int i = 0; i < a.length; i++)
+            a[i] = readTerm();
+
+        final Term t;
+        if (op == NativeOperator.IMAGE_EXT)
+            t = memory.termIndex.intern(new ImageExt(a, relationIndex));
+        else if (op == NativeOperator.IMAGE_INT)
+            t = memory.termIndex.intern(ImageInt.make(a, relationIndex));
+        else if (op.relation)
+            t = memory.termIndex.intern(Statement.make(op, a[0], a[1], false, 0));
+        else
+            t = memory.term(op, a);
+
+        if (t == null)
+            throw new IOException("Invalid compound term: " + op + " of " + a.length);
+        return t;
+    }
+
+    protected float readFixed() throws IOException {
+        return in.readUnsignedShort() / FIXED_POINT;
+    }
+
+    protected String readString() throws IOException {
+        final byte[] b = new byte[readVarInt()];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    protected int readVarInt() throws IOException {
+        return (int)readVarLong();
+    }
+
+    protected long readVarLong() throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.read();
+            if (b == -1)
+                throw new EOFException();
+            v |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return (v >>> 1) ^ -(v & 1);
+        }
+        throw new IOException("Malformed variable-length number");
+    }
+
+    /** the remaining bytes of the buffer being read */
+    private static final class BufferInputStream extends InputStream {
+
+        ByteBuffer source;
+
+        @Override
+        public int read() {
+            return source.hasRemaining() ? (source.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0)
+                return 0;
+            if (!source.hasRemaining())
+                return -1;
+            final int n = Math.min(len, source.remaining());
+            source.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return source.remaining();
+        }
+
+    }
+
+}
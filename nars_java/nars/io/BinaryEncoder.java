@@ -0,0 +1,295 @@
+package nars.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import nars.entity.BudgetValue;
+import nars.entity.DerivationChain;
+import nars.entity.Sentence;
+import nars.entity.Stamp;
+import nars.entity.Task;
+import nars.entity.TruthValue;
+import nars.io.Symbols.NativeOperator;
+import nars.language.CompoundTerm;
+import nars.language.Image;
+import nars.language.Interval;
+import nars.language.Tense;
+import nars.language.Term;
+import nars.language.Variable;
+import nars.operator.Operator;
+
+/**
+ * Writes Tasks, Sentences and Terms to a stream in a compact binary format,
+ * which BinaryDecoder reads without any Narsese formatting or parsing.
+ * <p>
+ * The stream is a sequence of records.  Each record begins with its kind and
+ * the index of its output channel in Output.DefaultOutputEvents (+1; 0 for
+ * none), and holds a Task, a Sentence, an answer (a Task and a Sentence), or
+ * a text.
+ * <p>
+ * Terms are written by structure: an atom by its name, a compound by its
+ * operator and components.  Each term is written once, where it is first
+ * referred to, and assigned the next index in a term table which the decoder
+ * builds in the same order; afterward, only its index is written.  When the
+ * table holds maxTerms terms, both tables are cleared with a RESET record.
+ * <p>
+ * Truth values and budgets are written as 16-bit fixed-point numbers, and
+ * integers as zig-zag variable-length numbers (as in MemorySnapshot).
+ * <p>
+ * Output is buffered: call flush() to send what has been written.
+ */
+public class BinaryEncoder {
+
+    /* record kinds */
+    static final int RESET = 0;
+    static final int TASK = 1;
+    static final int SENTENCE = 2;
+    static final int ANSWER = 3;
+    static final int TEXT = 4;
+
+    /* term definition tags */
+    static final int TERM_ATOM = 0;
+    static final int TERM_VARIABLE = 1;
+    static final int TERM_INTERVAL = 2;
+    static final int TERM_OPERATOR = 3;
+    static final int TERM_COMPOUND = 4;
+    /** any other term, written by name and parsed when it is read */
+    static final int TERM_NAME = 5;
+
+    /* sentence flags */
+    static final int HAS_TRUTH = 1;
+    static final int ANALYTIC = 2;
+    static final int REVISIBLE = 4;
+    static final int TEMPORAL_INDUCTION = 8;
+    static final int ETERNAL = 16;
+
+    static final float FIXED_POINT = 65535f;
+
+    private final DataOutputStream out;
+    private final Map<Term, Integer> terms = new HashMap();
+    private final int maxTerms;
+
+    public BinaryEncoder(final OutputStream out) {
+        this(out, 64 * 1024);
+    }
+
+    public BinaryEncoder(final OutputStream out, final int maxTerms) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.maxTerms = maxTerms;
+    }
+
+    /**
+     * Writes an output signal as a record: a Task, a Sentence, an answer
+     * (a Task and the Sentence which answers it) or, for anything else, its
+     * text
+     */
+    public void write(final Class channel, final Object... signal) throws IOException {
+        final Object o = signal[0];
+        if ((signal.length > 1) && (o instanceof Task) && (signal[1] instanceof Sentence)) {
+            begin(ANSWER, channel);
+            writeTaskContent((Task)o);
+            writeSentenceContent((Sentence)signal[1]);
+        }
+        else if (o instanceof Task) {
+            begin(TASK, channel);
+            writeTaskContent((Task)o);
+        }
+        else if (o instanceof Sentence) {
+            begin(SENTENCE, channel);
+            writeSentenceContent((Sentence)o);
+        }
+        else {
+            begin(TEXT, channel);
+            writeString(String.valueOf(o));
+        }
+    }
+
+    /** writes a task record, with no channel */
+    public void writeTask(final Task t) throws IOException {
+        begin(TASK, null);
+        writeTaskContent(t);
+    }
+
+    /** writes a sentence record, with no channel */
+    public void writeSentence(final Sentence s) throws IOException {
+        begin(SENTENCE, null);
+        writeSentenceContent(s);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /** number of terms in the term table */
+    public int getTerms() {
+        return terms.size();
+    }
+
+    protected void begin(final int kind, final Class channel) throws IOException {
+        if (terms.size() >= maxTerms) {
+            terms.clear();
+            out.writeByte(RESET);
+        }
+        out.writeByte(kind);
+        out.writeByte(channel(channel));
+    }
+
+    /**
+     * Whether a stream which begins with this byte can be a record stream;
+     * text, ex: Narsese, begins with a printable character instead
+     */
+    public static boolean isRecordStart(final byte b) {
+        return (b >= RESET) && (b <= TEXT);
+    }
+
+    static int channel(final Class c) {
+        if (c != null) {
+            final Class[] channels = Output.DefaultOutputEvents;
+            for (int i = 0; i < channels.length; i++)
+                if (channels[i] == c)
+                    return i + 1;
+        }
+        return 0;
+    }
+
+    protected void writeTaskContent(final Task t) throws IOException {
+        writeSentenceContent(t.sentence);
+        writeBudget(t.budget);
+    }
+
+    protected void writeSentenceContent(final Sentence s) throws IOException {
+        writeTerm(s.term);
+        out.writeByte(s.punctuation);
+
+        final TruthValue truth = s.truth;
+        final Stamp stamp = s.stamp;
+        int flags = 0;
+        if (truth != null) {
+            flags |= HAS_TRUTH;
+            if (truth.getAnalytic()) flags |= ANALYTIC;
+        }
+        if (s.getRevisible()) flags |= REVISIBLE;
+        if (s.producedByTemporalInduction) flags |= TEMPORAL_INDUCTION;
+        if (stamp.getOccurrenceTime() == Stamp.ETERNAL) flags |= ETERNAL;
+        out.writeByte(flags);
+
+        if (truth != null) {
+            writeFixed(truth.getFrequency());
+            writeFixed(truth.getConfidence());
+        }
+
+        writeStamp(stamp);
+    }
+
+    /** the evidential base is written as differences between serials, which are usually close */
+    protected void writeStamp(final Stamp s) throws IOException {
+        final Tense tense = s.getTense();
+        out.writeByte(tense == null ? 0 : tense.ordinal() + 1);
+
+        final long[] base = s.evidentialBase;
+        writeVarInt(base.length);
+        long last = 0;
+        for (final long serial : base) {
+            writeVarLong(serial - last);
+            last = serial;
+        }
+
+        final long creationTime = s.getCreationTime();
+        writeVarLong(creationTime);
+        if (s.getOccurrenceTime() != Stamp.ETERNAL)
+            writeVarLong(s.getOccurrenceTime() - creationTime);
+
+        final DerivationChain chain = s.getChain();
+        writeVarInt(chain.size());
+        for (final Term t : chain)
+            writeTerm(t);
+    }
+
+    protected void writeBudget(final BudgetValue b) throws IOException {
+        writeFixed(b.getPriority());
+        writeFixed(b.getDurability());
+        writeFixed(b.getQuality());
+    }
+
+    /**
+     * A term already in the table is written as its index + 1; otherwise 0,
+     * then its definition, after which it is added to the table
+     */
+    protected void writeTerm(final Term t) throws IOException {
+        final Integer i = terms.get(t);
+        if (i != null) {
+            writeVarInt(i + 1);
+            return;
+        }
+        writeVarInt(0);
+
+        if (t instanceof CompoundTerm) {
+            final CompoundTerm c = (CompoundTerm)t;
+            final NativeOperator op = c.operator();
+            out.writeByte(TERM_COMPOUND);
+            out.writeByte(op.ordinal());
+            if (c instanceof Image)
+                writeVarInt(((Image)c).relationIndex);
+            writeVarInt(c.term.length);
+            for (final Term x : c.term)
+                writeTerm(x);
+        }
+        else if (t.getClass() == Term.class) {
+            out.writeByte(TERM_ATOM);
+            writeString(t.name());
+        }
+        else if (t instanceof Variable) {
+            out.writeByte(TERM_VARIABLE);
+            writeString(t.name());
+        }
+        else if (t instanceof Interval) {
+            out.writeByte(TERM_INTERVAL);
+            writeVarInt(((Interval)t).magnitude);
+        }
+        else if (t instanceof Operator) {
+            out.writeByte(TERM_OPERATOR);
+            writeString(t.name());
+        }
+        else {
+            out.writeByte(TERM_NAME);
+            writeString(t.name());
+        }
+
+        //components were added first, as the decoder reads them
+        terms.put(t, terms.size());
+    }
+
+    protected void writeFixed(final float x) throws IOException {
+        final float y = (x < 0) ? 0 : ((x > 1) ? 1 : x);
+        out.writeChar(Math.round(y * FIXED_POINT));
+    }
+
+    protected void writeString(final CharSequence s) throws IOException {
+        final byte[] b = s.toString().getBytes(StandardCharsets.UTF_8);
+        writeVarInt(b.length);
+        out.write(b);
+    }
+
+    protected void writeVarInt(final int x) throws IOException {
+        writeVarLong(x);
+    }
+
+    /** zig-zag encoded so that small negative values, ex: -1, are also short */
+    protected void writeVarLong(final long x) throws IOException {
+        long v = (x << 1) ^ (x >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int)((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int)v);
+    }
+
+}
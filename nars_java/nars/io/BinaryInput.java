@@ -0,0 +1,49 @@
+package nars.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import nars.core.NAR;
+import nars.entity.Task;
+
+/**
+ * Inputs the tasks of a stream written by BinaryEncoder or BinaryOutput,
+ * such as the output of another reasoner; other records are skipped.  Like
+ * TextInput, next() blocks until a record is available.
+ * <p>
+ * Each task gets a new stamp, as if it were input in Narsese.
+ */
+public class BinaryInput implements Input {
+
+    private final BinaryDecoder decoder;
+    private boolean finished = false;
+
+    public BinaryInput(final NAR n, final InputStream in) {
+        this.decoder = new BinaryDecoder(n.memory, in).setRestamp(true);
+    }
+
+    @Override
+    public Object next() throws IOException {
+        if (finished)
+            return null;
+
+        final Task t = decoder.readNextTask();
+        if (t == null) {
+            finished = true;
+            decoder.close();
+        }
+        return t;
+    }
+
+    @Override
+    public boolean finished(boolean stop) {
+        if (stop && !finished) {
+            finished = true;
+            try {
+                decoder.close();
+            } catch (IOException ex) {
+            }
+        }
+        return finished;
+    }
+
+}
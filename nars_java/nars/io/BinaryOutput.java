@@ -0,0 +1,79 @@
+package nars.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import nars.core.NAR;
+import nars.entity.Task;
+import nars.io.Output.ERR;
+import nars.io.Output.IN;
+
+/**
+ * Writes output signals to a stream with a BinaryEncoder, for another
+ * process (ex: a BinaryInput) to read without parsing Narsese.
+ * <p>
+ * The stream is flushed after each signal unless autoFlush is disabled, in
+ * which case the owner calls flush(), ex: once per cycle.
+ */
+public class BinaryOutput extends Output {
+
+    private final BinaryEncoder encoder;
+    private boolean autoFlush = true;
+    private boolean showErrors = true;
+    private boolean showInput = true;
+    private float minPriority = 0;
+
+    public BinaryOutput(final NAR n, final OutputStream out) {
+        super(n, true);
+        this.encoder = new BinaryEncoder(out);
+    }
+
+    @Override
+    public void event(final Class channel, final Object... oo) {
+        if (!showErrors && (channel == ERR.class))
+            return;
+
+        if (!showInput && (channel == IN.class))
+            return;
+
+        if ((oo[0] instanceof Task) && (((Task)oo[0]).getPriority() < minPriority))
+            return;
+
+        try {
+            encoder.write(channel, oo);
+            if (autoFlush)
+                encoder.flush();
+        } catch (IOException ex) {
+            //the reader is gone
+            stop();
+        }
+    }
+
+    public void flush() throws IOException {
+        encoder.flush();
+    }
+
+    public void stop() {
+        setActive(false);
+    }
+
+    public BinaryOutput setAutoFlush(final boolean autoFlush) {
+        this.autoFlush = autoFlush;
+        return this;
+    }
+
+    public BinaryOutput setErrors(final boolean errors) {
+        this.showErrors = errors;
+        return this;
+    }
+
+    public BinaryOutput setShowInput(final boolean showInput) {
+        this.showInput = showInput;
+        return this;
+    }
+
+    public BinaryOutput setMinPriority(final float minPriority) {
+        this.minPriority = minPriority;
+        return this;
+    }
+
+}
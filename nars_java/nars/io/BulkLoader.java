@@ -0,0 +1,273 @@
+package nars.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import nars.core.Memory;
+import nars.core.NAR;
+import nars.core.build.Default;
+import nars.entity.Task;
+import nars.io.narsese.Narsese.InvalidInputException;
+import nars.io.narsese.NarseseReader;
+
+/**
+ * Loads a large file of Narsese tasks, one per line, into a NAR.
+ * <p>
+ * The file is memory-mapped and split into chunks of about chunkSize bytes,
+ * which a pool of threads parse into tasks.  Chunks are parsed in parallel
+ * but input in the order of the file: the thread which calls load() waits for
+ * each chunk in turn and inputs its tasks directly with Memory.inputTask,
+ * without the InPort buffers of TextInput.  At most two chunks per thread are
+ * parsed ahead, and while the memory has maxNewTasks or more new tasks, the
+ * NAR is stepped until it has processed some of them.
+ * <p>
+ * Blank lines, comments, and lines which are not tasks (such as the cycle
+ * counts of .nal files) are skipped; lines which can not be parsed are
+ * counted as errors, and the first error is kept.  A line belongs to the
+ * chunk in which it begins, so it may extend past the end of its chunk by at
+ * most maxLineLength bytes.
+ * <p>
+ * load() must be called from the thread which steps the NAR, while the NAR
+ * is not running in a thread of its own.
+ */
+public class BulkLoader {
+
+    public final NAR nar;
+    public final File file;
+
+    /** parsing threads */
+    public final int threads;
+
+    /** bytes per chunk */
+    public final int chunkSize;
+
+    /** longest line, in bytes */
+    public final int maxLineLength;
+
+    /** new tasks in memory at or above which input waits for the NAR to process them */
+    public final int maxNewTasks;
+
+    /** milliseconds between calls to progress() */
+    public long progressMS = 1000;
+
+    private final Memory memory;
+    private final NarseseReader narsese;
+
+    private long lines, tasks, errors, bytes;
+    private String firstError;
+    private long start, lastProgress;
+
+    public BulkLoader(final NAR nar, final File file) {
+        this(nar, file, Runtime.getRuntime().availableProcessors(), 4 * 1024 * 1024, 64 * 1024, 1024);
+    }
+
+    public BulkLoader(final NAR nar, final File file, final int threads, final int chunkSize, final int maxLineLength, final int maxNewTasks) {
+        this.nar = nar;
+        this.memory = nar.memory;
+        this.narsese = new NarseseReader(nar);
+        this.file = file;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.maxLineLength = maxLineLength;
+        this.maxNewTasks = maxNewTasks;
+    }
+
+    /** the tasks parsed from one chunk */
+    static class Parsed {
+        final List<Task> tasks = new ArrayList();
+        long lines, errors, bytes;
+        String firstError;
+    }
+
+    /**
+     * Parses and inputs every task of the file.
+     * @return the number of tasks input
+     */
+    public long load() throws IOException {
+        start = lastProgress = System.nanoTime();
+
+        final ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            final Thread t = new Thread(r, "BulkLoader " + file.getName());
+            t.setDaemon(true);
+            return t;
+        });
+
+        try (RandomAccessFile f = new RandomAccessFile(file, "r")) {
+            final FileChannel channel = f.getChannel();
+            final long size = channel.size();
+            final long chunks = (size + chunkSize - 1) / chunkSize;
+
+            final Deque<Future<Parsed>> parsing = new ArrayDeque();
+            long next = 0;
+            while ((next < chunks) || !parsing.isEmpty()) {
+                while ((next < chunks) && (parsing.size() < threads * 2)) {
+                    final long chunkStart = next++ * chunkSize;
+                    final long chunkEnd = Math.min(size, chunkStart + chunkSize);
+                    parsing.add(workers.submit(() -> parse(channel, size, chunkStart, chunkEnd)));
+                }
+
+                final Parsed p;
+                try {
+                    p = parsing.removeFirst().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException)
+                        throw (IOException)e.getCause();
+                    throw new IOException(e.getCause());
+                }
+
+                input(p);
+
+                final long now = System.nanoTime();
+                if (now - lastProgress >= progressMS * 1000000L) {
+                    lastProgress = now;
+                    progress();
+                }
+            }
+        }
+        finally {
+            workers.shutdownNow();
+        }
+
+        progress();
+        return tasks;
+    }
+
+    /** inputs the tasks of a chunk, stepping the NAR while it has too many new tasks */
+    protected void input(final Parsed p) {
+        for (final Task t : p.tasks) {
+            while ((memory.newTasks.size() >= maxNewTasks) && memory.isEnabled())
+                nar.step(1);
+            memory.inputTask(t);
+        }
+
+        lines += p.lines;
+        tasks += p.tasks.size();
+        errors += p.errors;
+        bytes += p.bytes;
+        if ((firstError == null) && (p.firstError != null))
+            firstError = p.firstError;
+    }
+
+    /** parses the lines which begin in [chunkStart, chunkEnd); called by a parsing thread */
+    Parsed parse(final FileChannel channel, final long size, final long chunkStart, final long chunkEnd) throws IOException {
+        final Parsed p = new Parsed();
+
+        //map from the byte before the chunk, to tell whether its first line begins in it
+        final long from = Math.max(0, chunkStart - 1);
+        final long to = Math.min(size, chunkEnd + maxLineLength);
+        final MappedByteBuffer m = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        final int end = (int)(chunkEnd - from);
+        final int limit = m.limit();
+
+        int i = 0;
+        if (chunkStart > 0) {
+            //skip the rest of the line which began in the previous chunk
+            while ((i < limit) && (m.get(i++) != '\n')) { }
+        }
+
+        byte[] line = new byte[256];
+        while (i < end) {
+            int j = i;
+            while ((j < limit) && (m.get(j) != '\n'))
+                j++;
+            if ((j == limit) && (to < size))
+                throw new IOException(file + ": line longer than " + maxLineLength + " bytes at " + (from + i));
+
+            final int length = j - i;
+            if (length > line.length)
+                line = new byte[Math.max(length, line.length * 2)];
+            m.position(i);
+            m.get(line, 0, length);
+
+            parse(new String(line, 0, length, StandardCharsets.UTF_8).trim(), p);
+            p.bytes += Math.min(j + 1, limit) - i;
+            p.lines++;
+
+            i = j + 1;
+        }
+        return p;
+    }
+
+    private void parse(final String line, final Parsed p) {
+        if (line.isEmpty())
+            return;
+        final char c = line.charAt(0);
+        if ((c == Symbols.COMMENT_MARK) || (c == '\'') || (c == '*') || Character.isDigit(c))
+            return;
+
+        try {
+            final Task t = narsese.parseNarsese(line);
+            if (t != null)
+                p.tasks.add(t);
+        } catch (InvalidInputException | RuntimeException e) {
+            if (p.errors++ == 0)
+                p.firstError = line + ": " + e;
+        }
+    }
+
+    /** called every progressMS while loading, and when finished */
+    protected void progress() {
+    }
+
+    /** lines read so far, including those skipped */
+    public long getLines() {
+        return lines;
+    }
+
+    public long getTasks() {
+        return tasks;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /** the first line which could not be parsed, and why; null if none */
+    public String getFirstError() {
+        return firstError;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public double getLinesPerSecond() {
+        final double seconds = (System.nanoTime() - start) / 1.0e9;
+        return (seconds > 0) ? lines / seconds : 0;
+    }
+
+    /**
+     * Usage: BulkLoader file [cycles]
+     * Loads a file into a default NAR, reporting the throughput, then runs
+     * some cycles.
+     */
+    public static void main(String[] args) throws IOException {
+        final NAR n = new NAR(new Default());
+        final BulkLoader l = new BulkLoader(n, new File(args[0])) {
+            @Override protected void progress() {
+                System.out.println(getLines() + " lines, " + getTasks() + " tasks, " + getErrors() + " errors, " +
+                        Math.round(getLinesPerSecond()) + " lines/s");
+            }
+        };
+        l.load();
+        if (l.getFirstError() != null)
+            System.out.println("First error: " + l.getFirstError());
+        if (args.length > 1)
+            n.run(Integer.parseInt(args[1]));
+    }
+
+}
@@ -20,6 +20,7 @@ import nars.entity.Task;
 import nars.io.Output.IN;
 import nars.io.narsese.Narsese;
 import nars.io.narsese.Narsese.InvalidInputException;
+import nars.io.narsese.NarseseReader;
 import nars.io.nlp.Englisch;
 import nars.io.nlp.NaturalLanguagePerception;
 import nars.io.nlp.Twenglish;
@@ -44,6 +45,7 @@ public class DefaultTextPerception implements Plugin, EventObserver {
     
     
     public Narsese narsese;    
+    public NarseseReader narseseReader;
     public Englisch englisch;
     public Twenglish twenglish;
     
@@ -60,6 +62,7 @@ public class DefaultTextPerception implements Plugin, EventObserver {
         if (enabled) {
             this.memory = n.memory;
             this.narsese = new Narsese(memory);
+            this.narseseReader = new NarseseReader(memory);
             this.englisch = new Englisch();
             this.twenglish = new Twenglish(memory);
             this.parsers = getParsers();
@@ -253,7 +256,7 @@ public class DefaultTextPerception implements Plugin, EventObserver {
                     char c = input.charAt(0);
                     if (c != Symbols.COMMENT_MARK) {
                         try {
-                            AbstractTask task = narsese.parseNarsese(new StringBuilder(input));
+                            AbstractTask task = narseseReader.parseNarsese(input);
                             if (task != null) {
                                 return task;
                             }
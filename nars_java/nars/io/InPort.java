@@ -79,8 +79,10 @@ abstract public class InPort<X,Y> implements Iterator<Y> {
         
         while (!input.finished(false) && (buffer.available() > 0) ) {            
             X x = input.next();
-            if (x == null)
-                continue;
+            if (x == null) {
+                //nothing available yet from a non-blocking input
+                break;
+            }
             
             perceive(x);
         }
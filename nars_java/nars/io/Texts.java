@@ -8,6 +8,7 @@ import java.util.HashMap;
 import java.util.Map;
 import nars.util.rope.Rope;
 import nars.util.rope.impl.CharArrayRope;
+import nars.util.rope.impl.CompoundNameRope;
 
 /**
  * Utilities for process Text & String input/output, ex: encoding/escaping and decoding/unescaping Terms 
@@ -285,7 +286,10 @@ public class Texts {
             
             StringBuilder sb = new StringBuilder(totalLen);
             for (final CharSequence s : components) {
-                if (s != null) {
+                if (s instanceof CompoundNameRope) {
+                    ((CompoundNameRope)s).appendTo(sb);
+                }
+                else if (s != null) {
                     sb.append(s);
                 }
             }
@@ -362,6 +366,12 @@ public class Texts {
         if ((s instanceof String) && (t instanceof String)) {
             return ((String)s).compareTo((String)t);
         }
+        else if (s instanceof CompoundNameRope) {
+            return ((CompoundNameRope)s).compareTo(t);
+        }
+        else if (t instanceof CompoundNameRope) {
+            return -((CompoundNameRope)t).compareTo(s);
+        }
         else if ((s instanceof CharBuffer) && (t instanceof CharBuffer)) {
             return ((CharBuffer)s).compareTo((CharBuffer)t);
         }
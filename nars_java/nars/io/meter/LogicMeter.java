@@ -53,6 +53,15 @@ public class LogicMeter extends AbstractMeter implements Serializable {
     public final EventValueSensor DED_SECOND_LAYER_VARIABLE_UNIFICATION;
     public final EventValueSensor DED_CONJUNCTION_BY_QUESTION;
     public final EventValueSensor ANALOGY;
+    
+    /** Memory.isNovelInRegardTo: the pair was reasoned on recently (hit), or is novel (miss) */
+    public final EventValueSensor NOVELTY_HIT;
+    public final EventValueSensor NOVELTY_MISS;
+
+    /** NAL.derivedTask: the conclusion was derived within the dedup window (hit), or is new (miss) */
+    public final EventValueSensor DERIVATION_DEDUP_HIT;
+    public final EventValueSensor DERIVATION_DEDUP_MISS;
+
     public final EventValueSensor IO_INPUTS_BUFFERED;
     public final EventValueSensor TASK_ADD_NOVEL;
     public final EventValueSensor SHORT_TERM_MEMORY_UPDATE;
@@ -115,6 +124,10 @@ public class LogicMeter extends AbstractMeter implements Serializable {
         add(DED_SECOND_LAYER_VARIABLE_UNIFICATION = new EventValueSensor("reason.ded2ndunif"));
         add(DED_CONJUNCTION_BY_QUESTION = new EventValueSensor("reason.dedconjbyquestion"));
         add(ANALOGY = new EventValueSensor("reason.analogy"));
+        add(NOVELTY_HIT = new EventValueSensor("reason.novelty.hit"));
+        add(NOVELTY_MISS = new EventValueSensor("reason.novelty.miss"));
+        add(DERIVATION_DEDUP_HIT = new EventValueSensor("reason.derivation.dedup.hit"));
+        add(DERIVATION_DEDUP_MISS = new EventValueSensor("reason.derivation.dedup.miss"));
         
         add(IO_INPUTS_BUFFERED = new EventValueSensor("io.inputs.buffered"));
         
@@ -197,6 +210,13 @@ public class LogicMeter extends AbstractMeter implements Serializable {
             put(DERIVATION_LATENCY.name() + ".max", max);
             put(DERIVATION_LATENCY.name() + ".mean", d.mean());
         }
+        {
+            final double hits = DERIVATION_DEDUP_HIT.getHits();
+            final double misses = DERIVATION_DEDUP_MISS.getHits();
+            put(DERIVATION_DEDUP_HIT.getName(), hits);
+            put(DERIVATION_DEDUP_MISS.getName(), misses);
+            put("reason.derivation.dedup.rate", (hits + misses) > 0 ? hits / (hits + misses) : 0);
+        }
         {
             putHits(TASK_ADD_NEW);
             putHits(TASK_ADD_NOVEL);            
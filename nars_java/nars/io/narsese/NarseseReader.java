@@ -0,0 +1,630 @@
+package nars.io.narsese;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import nars.core.Memory;
+import nars.core.NAR;
+import nars.core.Parameters;
+import nars.entity.BudgetValue;
+import nars.entity.Sentence;
+import nars.entity.Stamp;
+import nars.entity.Task;
+import nars.entity.TruthValue;
+import static nars.inference.BudgetFunctions.truthToQuality;
+import static nars.io.Symbols.ARGUMENT_SEPARATOR;
+import static nars.io.Symbols.BUDGET_VALUE_MARK;
+import static nars.io.Symbols.GOAL_MARK;
+import static nars.io.Symbols.INPUT_LINE_PREFIX;
+import static nars.io.Symbols.INTERVAL_PREFIX;
+import static nars.io.Symbols.JUDGMENT_MARK;
+import nars.io.Symbols.NativeOperator;
+import static nars.io.Symbols.NativeOperator.COMPOUND_TERM_CLOSER;
+import static nars.io.Symbols.NativeOperator.COMPOUND_TERM_OPENER;
+import static nars.io.Symbols.NativeOperator.SET_EXT_CLOSER;
+import static nars.io.Symbols.NativeOperator.SET_EXT_OPENER;
+import static nars.io.Symbols.NativeOperator.SET_INT_CLOSER;
+import static nars.io.Symbols.NativeOperator.SET_INT_OPENER;
+import static nars.io.Symbols.NativeOperator.STATEMENT_CLOSER;
+import static nars.io.Symbols.NativeOperator.STATEMENT_OPENER;
+import static nars.io.Symbols.OUTPUT_LINE_PREFIX;
+import static nars.io.Symbols.PREFIX_MARK;
+import static nars.io.Symbols.QUESTION_MARK;
+import static nars.io.Symbols.QUEST_MARK;
+import static nars.io.Symbols.QUOTE;
+import static nars.io.Symbols.STAMP_CLOSER;
+import static nars.io.Symbols.STAMP_OPENER;
+import static nars.io.Symbols.TRUTH_VALUE_MARK;
+import static nars.io.Symbols.VALUE_SEPARATOR;
+import nars.io.Texts;
+import nars.io.narsese.Narsese.InvalidInputException;
+import nars.language.Interval;
+import nars.language.SetExt;
+import nars.language.SetInt;
+import nars.language.Statement;
+import nars.language.Tense;
+import nars.language.Term;
+import nars.language.Variable;
+import static nars.language.Variables.containVar;
+import nars.operator.Operation;
+import nars.operator.Operator;
+
+/**
+ * Single-pass Narsese parser which reads tasks and terms with a cursor over a
+ * CharSequence (or char[]) and builds terms directly through the term
+ * factories, without slicing the input into intermediate Strings.
+ * <p>
+ * Accepts the same input as Narsese.parseNarsese / parseTask / parseTerm and
+ * produces equal tasks and terms.  The only Strings created are the names of
+ * atomic terms, which are the keys of the atom table, and the names of
+ * registered operators.
+ * <p>
+ * A NarseseReader holds no parse state, so one instance can be shared by
+ * threads parsing in parallel (ex: BulkLoader).
+ */
+public class NarseseReader {
+
+    public final Memory memory;
+
+    private static final NativeOperator[] operators = NativeOperator.values();
+
+    /** whether a character may begin a relation, ex: '-' of "-->" */
+    private static final boolean[] relationStart = new boolean[128];
+
+    private static final double[] POW10 = new double[19];
+
+    static {
+        for (final NativeOperator o : operators)
+            if (o.relation)
+                relationStart[o.symbol.charAt(0)] = true;
+
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++)
+            POW10[i] = POW10[i-1] * 10;
+    }
+
+    public NarseseReader(Memory memory) {
+        this.memory = memory;
+    }
+
+    public NarseseReader(NAR n) {
+        this(n.memory);
+    }
+
+    /**
+     * Parse a line of input, as Narsese.parseNarsese: an input line prefix
+     * ("IN:") is skipped, output lines ("OUT:") are ignored, and a trailing
+     * stamp or [..] suffix is removed.
+     *
+     * @return the task, or null if the line is an output line
+     */
+    public Task parseNarsese(final CharSequence s) throws InvalidInputException {
+        int start = trimStart(s, 0, s.length());
+        int end = trimEnd(s, start, s.length());
+        if (start == end)
+            throw new InvalidInputException("empty input");
+
+        final int p = indexOf(s, PREFIX_MARK, start, end);
+        if (p > start) {
+            final int ps = start, pe = trimEnd(s, start, p);
+            if (equals(s, ps, pe, INPUT_LINE_PREFIX)) {
+                start = p + 1;
+            }
+            else if (equals(s, ps, pe, OUTPUT_LINE_PREFIX)) {
+                //ignore outputs
+                return null;
+            }
+        }
+
+        if (s.charAt(end - 1) == STAMP_CLOSER) {
+            //ignore stamp
+            final int j = lastIndexOf(s, STAMP_OPENER, start, end);
+            if (j < 0)
+                throw new InvalidInputException("missing stamp opener");
+            end = trimEnd(s, start, j);
+        }
+        if ((end > start) && (s.charAt(end - 1) == ']')) {
+            final int j = lastIndexOf(s, '[', start, end);
+            if (j < 0)
+                throw new InvalidInputException("missing [ opener");
+            end = trimEnd(s, start, j);
+        }
+
+        return parseTask(s, start, end);
+    }
+
+    public Task parseNarsese(final char[] c, final int offset, final int length) throws InvalidInputException {
+        return parseNarsese(CharBuffer.wrap(c, offset, length));
+    }
+
+    /**
+     * Parse a task: [$budget$] term punctuation [tense] [%truth%]
+     */
+    public Task parseTask(final CharSequence s) throws InvalidInputException {
+        return parseTask(s, 0, s.length());
+    }
+
+    public Task parseTask(final char[] c, final int offset, final int length) throws InvalidInputException {
+        return parseTask(CharBuffer.wrap(c, offset, length));
+    }
+
+    protected Task parseTask(final CharSequence s, int start, int end) throws InvalidInputException {
+        start = trimStart(s, start, end);
+        end = trimEnd(s, start, end);
+        if (start == end)
+            throw new InvalidInputException("empty task");
+
+        int budgetFrom = -1, budgetTo = -1;
+        if (s.charAt(start) == BUDGET_VALUE_MARK) {
+            final int i = indexOf(s, BUDGET_VALUE_MARK, start + 1, end);    // looking for the end
+            if (i < 0)
+                throw new InvalidInputException("missing budget closer");
+            budgetFrom = start + 1;
+            budgetTo = i;
+            if (trimStart(s, budgetFrom, budgetTo) == budgetTo)
+                throw new InvalidInputException("empty budget");
+            start = trimStart(s, i + 1, end);
+        }
+
+        int truthFrom = -1, truthTo = -1;
+        if ((end > start) && (s.charAt(end - 1) == TRUTH_VALUE_MARK)) {
+            final int first = indexOf(s, TRUTH_VALUE_MARK, start, end);    // looking for the beginning
+            if (first == end - 1)
+                throw new InvalidInputException("missing truth mark");
+            truthFrom = first + 1;
+            truthTo = end - 1;
+            if (trimStart(s, truthFrom, truthTo) == truthTo)
+                throw new InvalidInputException("empty truth");
+            end = trimEnd(s, start, first);
+        }
+
+        Tense tense = Tense.Eternal;
+        final int t = indexOf(s, PREFIX_MARK, start, end);
+        if (t > start) {
+            tense = tense(s, t, end);
+            end = trimEnd(s, start, t);
+        }
+
+        if (end == start)
+            throw new InvalidInputException("missing punctuation");
+        final char punc = s.charAt(end - 1);
+
+        Stamp stamp = new Stamp(-1 /* if -1, will be set right before the Task is input */,
+                tense, memory.newStampSerial(), memory.param.duration.get());
+
+        TruthValue truth = parseTruth(s, truthFrom, truthTo, punc);
+        Term content = parseTerm(s, start, end - 1);
+        if (content == null) throw new InvalidInputException("Content term missing");
+
+        Sentence sentence = new Sentence(content, punc, truth, stamp);
+        BudgetValue budget = parseBudget(s, budgetFrom, budgetTo, punc, truth);
+        return new Task(sentence, budget);
+    }
+
+    /**
+     * Parse a term
+     *
+     * @return the term, or null if s is empty
+     */
+    public Term parseTerm(final CharSequence s) throws InvalidInputException {
+        return parseTerm(s, 0, s.length());
+    }
+
+    public Term parseTerm(final char[] c, final int offset, final int length) throws InvalidInputException {
+        return parseTerm(CharBuffer.wrap(c, offset, length));
+    }
+
+    protected Term parseTerm(final CharSequence s, final int start, final int end) throws InvalidInputException {
+        if (trimStart(s, start, end) == end)
+            return null;
+
+        final Cursor c = new Cursor(s, start, end);
+        final Term t = c.term();
+        c.skip();
+        if (c.pos != end)
+            throw new InvalidInputException("unexpected '" + s.charAt(c.pos) + "' at " + (c.pos - start));
+        return t;
+    }
+
+    /**
+     * Position in the text being parsed, and a stack of the components of
+     * the compound terms being parsed.  One is created for each term parsed.
+     */
+    private final class Cursor {
+
+        final CharSequence s;
+        final int end;
+        int pos;
+
+        Term[] stack = new Term[8];
+        int sp;
+
+        Cursor(final CharSequence s, final int start, final int end) {
+            this.s = s;
+            this.pos = start;
+            this.end = end;
+        }
+
+        void skip() {
+            pos = trimStart(s, pos, end);
+        }
+
+        /**
+         * There are 5 valid cases: (Op, A1, ..., An) is a CompoundTerm;
+         * {A1, ..., An} is a SetExt; [A1, ..., An] is a SetInt; <T1 Re T2>
+         * is a Statement; otherwise it is an atomic term or, in functional
+         * format, an operation op(A1, ..., An)
+         */
+        Term term() throws InvalidInputException {
+            skip();
+            if (pos == end)
+                throw new InvalidInputException("missing term");
+
+            final char c = s.charAt(pos);
+            if (c == COMPOUND_TERM_OPENER.ch) {
+                pos++;
+                return compound();
+            }
+            if (c == SET_EXT_OPENER.ch) {
+                pos++;
+                return SetExt.make(arguments(SET_EXT_CLOSER.ch));
+            }
+            if (c == SET_INT_OPENER.ch) {
+                pos++;
+                return SetInt.make(arguments(SET_INT_CLOSER.ch));
+            }
+            if (c == STATEMENT_OPENER.ch) {
+                pos++;
+                return statement();
+            }
+            return atom();
+        }
+
+        /** parses the components up to and including the closer */
+        Term[] arguments(final char closer) throws InvalidInputException {
+            final int base = sp;
+            while (true) {
+                push(term());
+                skip();
+                if (pos == end)
+                    throw new InvalidInputException("missing closer '" + closer + "'");
+                final char c = s.charAt(pos++);
+                if (c == closer)
+                    break;
+                if (c != ARGUMENT_SEPARATOR)
+                    throw new InvalidInputException("expected '" + ARGUMENT_SEPARATOR + "' or '" + closer + "' but found '" + c + "'");
+            }
+            final Term[] a = Arrays.copyOfRange(stack, base, sp);
+            Arrays.fill(stack, base, sp, null);
+            sp = base;
+            return a;
+        }
+
+        void push(final Term t) {
+            if (sp == stack.length)
+                stack = Arrays.copyOf(stack, sp * 2);
+            stack[sp++] = t;
+        }
+
+        Term compound() throws InvalidInputException {
+            skip();
+            final int opStart = pos;
+            final int separator = indexOf(s, ARGUMENT_SEPARATOR, pos, end);
+            if (separator == -1)
+                throw new InvalidInputException("Invalid compound term (missing ARGUMENT_SEPARATOR)");
+            final int opEnd = trimEnd(s, opStart, separator);
+
+            final NativeOperator oNative = operator(s, opStart, opEnd);
+            Operator oRegistered = null;
+            if (oNative == null) {
+                final String op = s.subSequence(opStart, opEnd).toString();
+                oRegistered = memory.getOperator(op);
+                if (oRegistered == null)
+                    throw new InvalidInputException("Unknown operator: " + op);
+            }
+
+            pos = separator + 1;
+            final Term[] a = arguments(COMPOUND_TERM_CLOSER.ch);
+
+            if (oNative != null)
+                return memory.term(oNative, a);
+            return Operation.make(oRegistered, a, true);
+        }
+
+        Statement statement() throws InvalidInputException {
+            final Term subject = term();
+            skip();
+            final NativeOperator relation = relation(s, pos, end);
+            if (relation == null)
+                throw new InvalidInputException("invalid statement: missing relation");
+            pos += 3;
+            final Term predicate = term();
+            skip();
+            if ((pos == end) || (s.charAt(pos) != STATEMENT_CLOSER.ch))
+                throw new InvalidInputException("missing Statement closer");
+            pos++;
+
+            final Statement t = memory.termIndex.intern(Statement.make(relation, subject, predicate, false, 0));
+            if (t == null)
+                throw new InvalidInputException("invalid statement: statement unable to create: " + relation + " " + subject + " " + predicate);
+            return t;
+        }
+
+        /**
+         * Parse a term that has no internal structure, or an operation in
+         * functional format.  Ranges between quotes are escaped with
+         * Texts.escapeMap, as Narsese.parseTask does for the whole input.
+         */
+        Term atom() throws InvalidInputException {
+            final int start = pos;
+            StringBuilder escaped = null;
+            boolean inQuotes = false;
+            char lastChar = 0;
+
+            while (pos < end) {
+                final char c = s.charAt(pos);
+                if (c == QUOTE) {
+                    if (escaped == null)
+                        escaped = new StringBuilder().append(s, start, pos);
+                    escaped.append(c);
+                    if (lastChar != '\\')
+                        inQuotes = !inQuotes;
+                    pos++;
+                    continue;
+                }
+                if (inQuotes) {
+                    final Character d = Texts.escapeMap.get(c);
+                    escaped.append(d == null ? c : d);
+                    lastChar = c;
+                    pos++;
+                    continue;
+                }
+                if ((c <= ' ') || (c == ARGUMENT_SEPARATOR) || (c == COMPOUND_TERM_OPENER.ch)
+                        || (c == COMPOUND_TERM_CLOSER.ch) || (c == SET_EXT_CLOSER.ch)
+                        || (c == SET_INT_CLOSER.ch) || (c == STATEMENT_CLOSER.ch))
+                    break;
+                if ((c < 128) && relationStart[c] && (relation(s, pos, end) != null))
+                    break;
+                if (escaped != null)
+                    escaped.append(c);
+                lastChar = c;
+                pos++;
+            }
+            if (inQuotes)
+                throw new InvalidInputException("missing closing quote");
+            if (pos == start)
+                throw new InvalidInputException("missing term");
+
+            if (Parameters.FUNCTIONAL_OPERATIONAL_FORMAT && (pos < end) && (s.charAt(pos) == COMPOUND_TERM_OPENER.ch))
+                return operation(start);
+
+            final char first = s.charAt(start);
+            if (first == INTERVAL_PREFIX)
+                return Interval.interval(parseInt(s, start + 1, pos) - 1);
+
+            final String name = (escaped != null) ? escaped.toString() : s.subSequence(start, pos).toString();
+            if (containVar(name))
+                return new Variable(name);
+            return Term.get(name);
+        }
+
+        /** operation in functional format, ex: op(a,b); the cursor is at the '(' */
+        Operation operation(final int start) throws InvalidInputException {
+            final String operatorString = Operator.addPrefixIfMissing(s.subSequence(start, pos).toString());
+            final Operator operator = memory.getOperator(operatorString);
+            if (operator == null)
+                throw new InvalidInputException("Unknown operator: " + operatorString);
+
+            pos++;
+            skip();
+            final Term[] a;
+            if ((pos < end) && (s.charAt(pos) == COMPOUND_TERM_CLOSER.ch)) {
+                //void "()" arguments, default to (SELF)
+                pos++;
+                a = Operation.SELF_TERM_ARRAY;
+            }
+            else {
+                a = arguments(COMPOUND_TERM_CLOSER.ch);
+            }
+            return Operation.make(operator, a, true);
+        }
+
+    }
+
+    /* ---------- values ---------- */
+
+    private static TruthValue parseTruth(final CharSequence s, final int from, final int to, final char type) throws InvalidInputException {
+        if ((type == QUESTION_MARK) || (type == QUEST_MARK)) {
+            return null;
+        }
+        float frequency = 1.0f;
+        float confidence = Parameters.DEFAULT_JUDGMENT_CONFIDENCE;
+        if (type == GOAL_MARK) {
+            confidence = Parameters.DEFAULT_GOAL_CONFIDENCE;
+        }
+        if (from != -1) {
+            final int i = indexOf(s, VALUE_SEPARATOR, from, to);
+            if (i < 0) {
+                frequency = parseFloat(s, from, to);
+            } else {
+                frequency = parseFloat(s, from, i);
+                confidence = parseFloat(s, i + 1, to);
+            }
+        }
+        return new TruthValue(frequency, confidence);
+    }
+
+    private static BudgetValue parseBudget(final CharSequence s, final int from, final int to, final char punctuation, final TruthValue truth) throws InvalidInputException {
+        float priority, durability;
+        switch (punctuation) {
+            case JUDGMENT_MARK:
+                priority = Parameters.DEFAULT_JUDGMENT_PRIORITY;
+                durability = Parameters.DEFAULT_JUDGMENT_DURABILITY;
+                break;
+            case QUESTION_MARK:
+                priority = Parameters.DEFAULT_QUESTION_PRIORITY;
+                durability = Parameters.DEFAULT_QUESTION_DURABILITY;
+                break;
+            case GOAL_MARK:
+                priority = Parameters.DEFAULT_GOAL_PRIORITY;
+                durability = Parameters.DEFAULT_GOAL_DURABILITY;
+                break;
+            case QUEST_MARK:
+                priority = Parameters.DEFAULT_QUEST_PRIORITY;
+                durability = Parameters.DEFAULT_QUEST_DURABILITY;
+                break;
+            default:
+                throw new InvalidInputException("unknown punctuation: '" + punctuation + "'");
+        }
+        if (from != -1) { // overrite default
+            final int i = indexOf(s, VALUE_SEPARATOR, from, to);
+            if (i < 0) {        // default durability
+                priority = parseFloat(s, from, to);
+            } else {
+                int i2 = indexOf(s, VALUE_SEPARATOR, i + 1, to);
+                if (i2 == -1)
+                    i2 = to;
+                priority = parseFloat(s, from, i);
+                durability = parseFloat(s, i + 1, i2);
+            }
+        }
+        float quality = (truth == null) ? 1 : truthToQuality(truth);
+        return new BudgetValue(priority, durability, quality);
+    }
+
+    private static Tense tense(final CharSequence s, final int from, final int to) {
+        final int end = trimEnd(s, from, to);
+        for (final Tense t : Tense.values())
+            if (equals(s, from, end, t.symbol))
+                return t;
+        return Tense.Eternal;
+    }
+
+    /**
+     * Parses a decimal number without creating a String; other numbers (with
+     * exponents or many digits) fall back to Float.parseFloat
+     */
+    static float parseFloat(final CharSequence s, int from, int to) throws InvalidInputException {
+        from = trimStart(s, from, to);
+        to = trimEnd(s, from, to);
+
+        int i = from;
+        final boolean negative = (i < to) && (s.charAt(i) == '-');
+        if (negative) i++;
+
+        long mantissa = 0;
+        int digits = 0, scale = 0;
+        boolean point = false;
+        for (; i < to; i++) {
+            final char c = s.charAt(i);
+            if ((c >= '0') && (c <= '9')) {
+                if (digits == 18)
+                    return parseFloatSlow(s, from, to);
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (point) scale++;
+            }
+            else if ((c == '.') && !point) {
+                point = true;
+            }
+            else {
+                return parseFloatSlow(s, from, to);
+            }
+        }
+        if (digits == 0)
+            return parseFloatSlow(s, from, to);
+
+        final double v = mantissa / POW10[scale];
+        return (float) (negative ? -v : v);
+    }
+
+    private static float parseFloatSlow(final CharSequence s, final int from, final int to) throws InvalidInputException {
+        final String n = s.subSequence(from, to).toString();
+        try {
+            return Float.parseFloat(n);
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("invalid number: " + n);
+        }
+    }
+
+    private static int parseInt(final CharSequence s, final int from, final int to) throws InvalidInputException {
+        if ((from == to) || (to - from > 9))
+            throw new InvalidInputException("invalid interval: " + s.subSequence(from - 1, to));
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            final char c = s.charAt(i);
+            if ((c < '0') || (c > '9'))
+                throw new InvalidInputException("invalid interval: " + s.subSequence(from - 1, to));
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    /* ---------- scanning ---------- */
+
+    /** the relation beginning at i, or null */
+    private static NativeOperator relation(final CharSequence s, final int i, final int end) {
+        if (i + 3 > end)
+            return null;
+        final char c = s.charAt(i);
+        if ((c >= 128) || !relationStart[c])
+            return null;
+        for (final NativeOperator o : operators)
+            if (o.relation && equals(s, i, i + 3, o.symbol))
+                return o;
+        return null;
+    }
+
+    /** the native operator whose symbol is s[from, to), or null */
+    private static NativeOperator operator(final CharSequence s, final int from, final int to) {
+        final int len = to - from;
+        if ((len == 0) || (len > 3))
+            return null;
+        for (final NativeOperator o : operators)
+            if ((o.symbol.length() == len) && equals(s, from, to, o.symbol))
+                return o;
+        return null;
+    }
+
+    private static boolean equals(final CharSequence s, final int from, final int to, final String x) {
+        final int len = to - from;
+        if (len != x.length())
+            return false;
+        for (int i = 0; i < len; i++)
+            if (s.charAt(from + i) != x.charAt(i))
+                return false;
+        return true;
+    }
+
+    /** index of the first c in [from, to) which is not between quotes, or -1 */
+    private static int indexOf(final CharSequence s, final char c, final int from, final int to) {
+        boolean inQuotes = false;
+        for (int i = from; i < to; i++) {
+            final char d = s.charAt(i);
+            if (d == QUOTE)
+                inQuotes = !inQuotes;
+            else if ((d == c) && !inQuotes)
+                return i;
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(final CharSequence s, final char c, final int from, final int to) {
+        for (int i = to - 1; i >= from; i--)
+            if (s.charAt(i) == c)
+                return i;
+        return -1;
+    }
+
+    private static int trimStart(final CharSequence s, int from, final int to) {
+        while ((from < to) && (s.charAt(from) <= ' '))
+            from++;
+        return from;
+    }
+
+    private static int trimEnd(final CharSequence s, final int from, int to) {
+        while ((to > from) && (s.charAt(to - 1) <= ' '))
+            to--;
+        return to;
+    }
+
+}
@@ -21,7 +21,6 @@
 package nars.language;
 
 import com.google.common.collect.Iterators;
-import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -37,6 +36,7 @@ import nars.entity.TermLink;
 import nars.inference.TemporalRules;
 import nars.io.Symbols;
 import nars.io.Symbols.NativeOperator;
+import nars.util.rope.impl.CompoundNameRope;
 import static nars.io.Symbols.NativeOperator.COMPOUND_TERM_CLOSER;
 import static nars.io.Symbols.NativeOperator.COMPOUND_TERM_OPENER;
 import static nars.language.CompoundTerm.makeCompoundName;
@@ -297,24 +297,28 @@ public abstract class CompoundTerm extends Term implements Iterable<Term> {
      * @return the oldName of the term
      */
     protected static CharSequence makeCompoundName(final NativeOperator op, final Term... arg) {
-        int size = 1 + 1;
-        
-        String opString = op.toString();
-        size += opString.length();
-        for (final Term t : arg) 
-            size += 1 + t.name().length();
-        
-        
-        final CharBuffer n = CharBuffer.allocate(size)
-            .append(COMPOUND_TERM_OPENER.ch).append(opString);
-            
-        for (final Term t : arg) {            
-            n.append(Symbols.ARGUMENT_SEPARATOR).append(t.name());
-        }
-        
-        n.append(COMPOUND_TERM_CLOSER.ch);
-                        
-        return n.compact().toString();
+        return new CompoundNameRope(compoundNamePrefix(op), ARGUMENT_SEPARATOR, COMPOUND_NAME_SUFFIX, names(arg));
+    }
+    
+    protected static final String ARGUMENT_SEPARATOR = String.valueOf(Symbols.ARGUMENT_SEPARATOR);
+    protected static final String COMPOUND_NAME_SUFFIX = String.valueOf(COMPOUND_TERM_CLOSER.ch);
+    
+    private static final String[] compoundNamePrefixes = new String[NativeOperator.values().length];
+    
+    /** "(" operator ",", which begins the name of a compound of the operator */
+    protected static String compoundNamePrefix(final NativeOperator op) {
+        String p = compoundNamePrefixes[op.ordinal()];
+        if (p == null)
+            compoundNamePrefixes[op.ordinal()] = p = COMPOUND_TERM_OPENER.ch + op.toString() + Symbols.ARGUMENT_SEPARATOR;
+        return p;
+    }
+    
+    /** the names of terms, which the name of their compound shares */
+    protected static CharSequence[] names(final Term[] arg) {
+        final CharSequence[] n = new CharSequence[arg.length];
+        for (int i = 0; i < arg.length; i++)
+            n[i] = arg[i].name();
+        return n;
     }
     
 
@@ -845,6 +849,8 @@ public abstract class CompoundTerm extends Term implements Iterable<Term> {
         if (that==this) return true;                
         if (!(that instanceof Term))
             return false;
+        if ((id != 0) && (((Term)that).id != 0) && (index == ((Term)that).index))
+            return false; //distinct canonical instances of the same index
         if (Parameters.TERM_ELEMENT_EQUIVALENCY)
             return equalsByTerm(that);
         return name().equals(((Term)that).name());
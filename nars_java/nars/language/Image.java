@@ -4,8 +4,7 @@ import java.util.Objects;
 import nars.core.Parameters;
 import nars.io.Symbols;
 import nars.io.Symbols.NativeOperator;
-import static nars.io.Symbols.NativeOperator.COMPOUND_TERM_CLOSER;
-import static nars.io.Symbols.NativeOperator.COMPOUND_TERM_OPENER;
+import nars.util.rope.impl.CompoundNameRope;
 
 /**
  *
@@ -76,27 +75,16 @@ abstract public class Image extends CompoundTerm {
      * @param relationIndex the location of the place holder
      * @return the oldName of the term
      */
-    protected static String makeImageName(final NativeOperator op, final Term[] arg, final int relationIndex) {
-        final int sizeEstimate = 12 * arg.length + 2;
-        
-        StringBuilder name = new StringBuilder(sizeEstimate)
-            .append(COMPOUND_TERM_OPENER.ch)
-            .append(op)
-            .append(Symbols.ARGUMENT_SEPARATOR)
-            .append(arg[relationIndex].name());
-        
-        for (int i = 0; i < arg.length; i++) {
-            name.append(Symbols.ARGUMENT_SEPARATOR);
-            if (i == relationIndex) {
-                name.append(Symbols.IMAGE_PLACE_HOLDER);                
-            } else {
-                name.append(arg[i].name());
-            }
-        }
-        name.append(COMPOUND_TERM_CLOSER.ch);
-        return name.toString();
+    protected static CharSequence makeImageName(final NativeOperator op, final Term[] arg, final int relationIndex) {
+        final CharSequence[] parts = new CharSequence[arg.length + 1];
+        parts[0] = arg[relationIndex].name();
+        for (int i = 0; i < arg.length; i++)
+            parts[i + 1] = (i == relationIndex) ? PLACE_HOLDER_NAME : arg[i].name();
+        return new CompoundNameRope(compoundNamePrefix(op), ARGUMENT_SEPARATOR, COMPOUND_NAME_SUFFIX, parts);
     }
     
+    private static final String PLACE_HOLDER_NAME = String.valueOf(Symbols.IMAGE_PLACE_HOLDER);
+    
     
     /**
      * Get the other term in the Image
@@ -1,8 +1,7 @@
 package nars.language;
 
-import java.nio.CharBuffer;
 import nars.core.Parameters;
-import nars.io.Symbols;
+import nars.util.rope.impl.CompoundNameRope;
 
 /**
  * Base class for SetInt (intensional set) and SetExt (extensional set)
@@ -34,23 +33,7 @@ abstract public class SetTensional extends CompoundTerm {
      * @return the oldName of the term
      */
     protected static CharSequence makeSetName(final char opener, final Term[] arg, final char closer) {
-        int size = 1 + 1 - 1; //opener + closer - 1 [no preceding separator for first element]
-        
-        for (final Term t : arg) 
-            size += 1 + t.name().length();
-        
-        
-        final CharBuffer n = CharBuffer.allocate(size);
-        
-        n.append(opener);                    
-        for (int i = 0; i < arg.length; i++) {
-            if (i!=0) n.append(Symbols.ARGUMENT_SEPARATOR);
-            n.append(arg[i].name());
-        }        
-        n.append(closer);
-               
-        
-        return n.compact().toString();
+        return new CompoundNameRope(String.valueOf(opener), ARGUMENT_SEPARATOR, String.valueOf(closer), names(arg));
     }
 
     
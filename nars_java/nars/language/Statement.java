@@ -20,11 +20,11 @@
  */
 package nars.language;
 
-import java.nio.CharBuffer;
 import java.util.Arrays;
 import nars.core.Parameters;
 import nars.inference.TemporalRules;
 import nars.io.Symbols.NativeOperator;
+import nars.util.rope.impl.CompoundNameRope;
 import static nars.io.Symbols.NativeOperator.STATEMENT_CLOSER;
 import static nars.io.Symbols.NativeOperator.STATEMENT_OPENER;
 
@@ -65,38 +65,50 @@ public abstract class Statement extends CompoundTerm {
     
    
     /**
-     * Make a Statement from given components, called by the rules
+     * Make a Statement from given components, called by the rules.  It is
+     * interned by the index of the sample statement, or of the first
+     * component which is interned, if any is.
      * @return The Statement built
      * @param subj The first component
      * @param pred The second component
      * @param statement A sample statement providing the class type
      */
     public static Statement make(final Statement statement, final Term subj, final Term pred) {        
+        final TermIndex index = TermIndex.of(statement, subj, pred);
         if (statement instanceof Inheritance) {
-            return Inheritance.make(subj, pred);
+            return intern(index, Inheritance.make(subj, pred));
         }
         if (statement instanceof Similarity) {
-            return Similarity.make(subj, pred);
+            return intern(index, Similarity.make(subj, pred));
         }
         if (statement instanceof Implication) {
-            return Implication.make(subj, pred, statement.getTemporalOrder());
+            return intern(index, Implication.make(subj, pred, statement.getTemporalOrder()));
         }
         if (statement instanceof Equivalence) {
-            return Equivalence.make(subj, pred, statement.getTemporalOrder());
+            return intern(index, Equivalence.make(subj, pred, statement.getTemporalOrder()));
         }
         return null;
     }
     
     /**
-     * Make a Statement from String, called by StringParser
+     * Make a Statement from String, called by StringParser.  It is interned
+     * by the index of the first component which is interned, if any is; the
+     * parser interns it with the index of its memory.
      *
      * @param o The relation String
      * @param subject The first component
      * @param predicate The second component
-     * @param memory Reference to the memory
      * @return The Statement built
      */
     final public static Statement make(final NativeOperator o, final Term subject, final Term predicate, boolean customOrder, int order) {
+        return intern(TermIndex.of(subject, predicate), makeStatement(o, subject, predicate, customOrder, order));
+    }
+    
+    private static Statement intern(final TermIndex index, final Statement s) {
+        return (index != null) ? index.intern(s) : s;
+    }
+    
+    private static Statement makeStatement(final NativeOperator o, final Term subject, final Term predicate, boolean customOrder, int order) {
         
         switch (o) {
             case INHERITANCE:
@@ -224,26 +236,22 @@ public abstract class Statement extends CompoundTerm {
     }
     
     final protected static CharSequence makeStatementName(final Term subject, final NativeOperator relation, final Term predicate) {
-        final CharSequence subjectName = subject.name();
-        final CharSequence predicateName = predicate.name();
-        int length = subjectName.length() + predicateName.length() + relation.toString().length() + 4;
-        
-        CharBuffer cb = CharBuffer.allocate(length);
-        
-        cb.append(STATEMENT_OPENER.ch);
-        
-        //Texts.append(cb, subjectName);
-        cb.append(subjectName);
-                
-        cb.append(' ').append(relation.toString()).append(' ');
-        
-        //Texts.append(cb, predicateName);
-        cb.append(predicateName);
-                
-        cb.append(STATEMENT_CLOSER.ch);
-                        
-        return cb.compact().toString();
+        return new CompoundNameRope(STATEMENT_NAME_PREFIX, statementNameSeparator(relation), STATEMENT_NAME_SUFFIX, 
+                subject.name(), predicate.name());
     }    
+    
+    private static final String STATEMENT_NAME_PREFIX = String.valueOf(STATEMENT_OPENER.ch);
+    private static final String STATEMENT_NAME_SUFFIX = String.valueOf(STATEMENT_CLOSER.ch);
+    private static final String[] statementNameSeparators = new String[NativeOperator.values().length];
+    
+    /** " " relation " ", between the subject and predicate in the name of a statement */
+    private static String statementNameSeparator(final NativeOperator relation) {
+        String s = statementNameSeparators[relation.ordinal()];
+        if (s == null)
+            statementNameSeparators[relation.ordinal()] = s = ' ' + relation.toString() + ' ';
+        return s;
+    }
+    
     /**
      * Check the validity of a potential Statement. [To be refined]
      * <p>
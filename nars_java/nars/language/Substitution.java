@@ -0,0 +1,173 @@
+package nars.language;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reusable variable substitution, as found by Variables.findSubstitute and
+ * applied by CompoundTerm.applySubstitute.
+ * <p>
+ * Entries are held in small open-addressing arrays and every put is recorded
+ * on a trail, so that clear() and undo() only touch what was put.  Instances
+ * are pooled per thread: acquire() one, and release() it when its
+ * substitution has been applied, so that unification allocates nothing but
+ * the substituted terms.  An instance must not be used after it is released;
+ * one which is never released is simply garbage collected.
+ */
+public final class Substitution extends AbstractMap<Term, Term> {
+
+    private static final int INITIAL_CAPACITY = 16; //power of 2
+
+    private static final ThreadLocal<ArrayDeque<Substitution>> pool = new ThreadLocal<ArrayDeque<Substitution>>() {
+        @Override protected ArrayDeque<Substitution> initialValue() {
+            return new ArrayDeque();
+        }
+    };
+
+    private Term[] keys = new Term[INITIAL_CAPACITY];
+    private Term[] values = new Term[INITIAL_CAPACITY];
+    private int size;
+
+    /** keys in the order they were put, and the values they replaced (null if new) */
+    private Term[] trailKeys = new Term[INITIAL_CAPACITY];
+    private Term[] trailValues = new Term[INITIAL_CAPACITY];
+    private int trail;
+
+    /** gets an empty substitution from this thread's pool */
+    public static Substitution acquire() {
+        final Substitution s = pool.get().pollLast();
+        return (s != null) ? s : new Substitution();
+    }
+
+    /** clears this substitution and returns it to the pool of the calling thread */
+    public void release() {
+        clear();
+        pool.get().addLast(this);
+    }
+
+    private int slot(final Object key) {
+        final int mask = keys.length - 1;
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        int i = h & mask;
+        while (true) {
+            final Term k = keys[i];
+            if ((k == null) || (k == key) || k.equals(key))
+                return i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    @Override
+    public Term get(final Object key) {
+        if (size == 0) return null;
+        return values[slot(key)];
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        if (size == 0) return false;
+        return keys[slot(key)] != null;
+    }
+
+    @Override
+    public Term put(final Term key, final Term value) {
+        if ((size + 1) * 2 > keys.length)
+            resize(keys.length * 2);
+
+        final int i = slot(key);
+        final Term previous = values[i];
+        if (keys[i] == null) {
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+
+        if (trail == trailKeys.length) {
+            trailKeys = Arrays.copyOf(trailKeys, trail * 2);
+            trailValues = Arrays.copyOf(trailValues, trail * 2);
+        }
+        trailKeys[trail] = key;
+        trailValues[trail] = previous;
+        trail++;
+
+        return previous;
+    }
+
+    /** rehashes in the order the keys were added, so that undo() remains valid */
+    private void resize(final int capacity) {
+        final Term[] k = keys, v = values;
+        final int mask = k.length - 1;
+        keys = new Term[capacity];
+        values = new Term[capacity];
+        for (int t = 0; t < trail; t++) {
+            if (trailValues[t] == null) {
+                final Term key = trailKeys[t];
+                final int j = slot(key);
+                keys[j] = key;
+            }
+        }
+        for (int i = 0; i <= mask; i++) {
+            if (k[i] != null)
+                values[slot(k[i])] = v[i];
+        }
+    }
+
+    /** the current position of the trail, to undo() to */
+    public int mark() {
+        return trail;
+    }
+
+    /**
+     * Reverts every put since mark() returned m, most recent first.  Removing
+     * the most recently added key never breaks the probe sequence of another,
+     * because no key present was added after it.
+     */
+    public void undo(final int m) {
+        while (trail > m) {
+            trail--;
+            final Term key = trailKeys[trail];
+            final Term previous = trailValues[trail];
+            final int i = slot(key);
+            if (previous == null) {
+                keys[i] = null;
+                values[i] = null;
+                size--;
+            } else {
+                values[i] = previous;
+            }
+            trailKeys[trail] = trailValues[trail] = null;
+        }
+    }
+
+    @Override
+    public void clear() {
+        undo(0);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** a copy of the entries; not needed to find or apply a substitution */
+    @Override
+    public Set<Map.Entry<Term, Term>> entrySet() {
+        final Map<Term, Term> m = new HashMap(size * 2);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null)
+                m.put(keys[i], values[i]);
+        }
+        return m.entrySet();
+    }
+
+}
@@ -20,9 +20,6 @@
  */
 package nars.language;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.TreeSet;
 import nars.core.Memory;
 import nars.core.Parameters;
@@ -43,7 +40,6 @@ import nars.util.sort.SortedList;
  * exists. Multiple objects may represent the same Term.
  */
 public class Term implements AbstractTerm, Termable {
-    private static final Map<CharSequence,Term> atoms = new HashMap();
 
     final public static Term SELF = Term.get("SELF");
 
@@ -78,6 +74,12 @@ public class Term implements AbstractTerm, Termable {
     
     protected CharSequence name = null;
     
+    /** unique ID assigned by TermIndex to the canonical instance of an interned term; 0 if not interned */
+    transient int id = 0;
+    
+    /** the TermIndex of the memory which interned this compound term; null for atomic and other terms */
+    transient TermIndex index;
+    
     /**
      * Default constructor that build an internal Term
      */
@@ -95,11 +97,7 @@ public class Term implements AbstractTerm, Termable {
     
     /** gets the atomic term given a name */
     public final static Term get(final CharSequence name) {
-        Term x = atoms.get(name);
-        if (x != null) return x;
-        x = new Term(name);
-        atoms.put(name, x);
-        return x;
+        return TermIndex.atom(name);
     }
     
     /** gets the atomic term of an integer */
@@ -159,7 +157,14 @@ public class Term implements AbstractTerm, Termable {
     public boolean equals(final Object that) {
         if (that == this) return true;
         if (getClass() != this.getClass()) return false;
-        return name().equals(((Term)that).name());
+        final Term t = (Term)that;
+        if ((id != 0) && (t.id != 0) && (index == t.index)) return false; //distinct canonical instances
+        return name().equals(t.name());
+    }
+    
+    /** the ID assigned by TermIndex, or 0 if this is not an interned term */
+    public final int getId() {
+        return id;
     }
 
     /**
@@ -0,0 +1,107 @@
+package nars.language;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe hash-consing table of the terms of a Memory.
+ * <p>
+ * Each structurally-unique constant term that passes through intern() is
+ * replaced by one canonical instance, which is assigned a unique int ID.  Two
+ * terms interned by the same index are equal if and only if they are the same
+ * reference, so Term.equals() can reject them without comparing names.
+ * <p>
+ * Atomic terms are shared by every index and held strongly (like the former
+ * Term.atoms map).  Compound terms are held weakly by the index of their
+ * memory, so they are collected once no task, concept or link refers to them,
+ * and a term changed in place by one memory (ex: by a test) is never seen by
+ * another.  Terms containing variables are not interned because unification
+ * renames and substitutes them.
+ */
+public final class TermIndex {
+
+    private static final ConcurrentHashMap<String,Term> atoms = new ConcurrentHashMap();
+
+    private static final AtomicInteger serial = new AtomicInteger();
+
+    /** keyed by name, whose CompoundNameRope is compared without being copied to a String */
+    private final Cache<CharSequence,Term> compounds = CacheBuilder.newBuilder()
+            .weakValues()
+            .concurrencyLevel(Math.max(4, Runtime.getRuntime().availableProcessors()))
+            .build();
+
+    /** gets the canonical atomic term of a name, creating it if necessary */
+    public static Term atom(final CharSequence name) {
+        final String key = name.toString();
+        Term x = atoms.get(key);
+        if (x != null) return x;
+        return atoms.computeIfAbsent(key, k -> {
+            Term a = new Term(k);
+            a.id = serial.incrementAndGet();
+            return a;
+        });
+    }
+
+    /**
+     * Returns the canonical instance structurally equal to t, registering t as
+     * canonical if it is the first.  Returns t itself if it can not be interned
+     * (null, containing variables, not an atom or compound, or interned by
+     * another index).
+     */
+    public <T extends Term> T intern(final T t) {
+        if ((t == null) || (t.id != 0) || (t.hasVar()))
+            return t;
+
+        final Class c = t.getClass();
+        if (c == Term.class)
+            return (T) atom(t.name());
+
+        if (!(t instanceof CompoundTerm))
+            return t;
+
+        final Term existing;
+        try {
+            existing = compounds.get(t.name(), () -> {
+                t.id = serial.incrementAndGet();
+                t.index = this;
+                return t;
+            });
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+
+        //an equally-named term of another class (ex: Operation vs. Inheritance) is not substituted
+        if (existing.getClass() != c)
+            return t;
+
+        return (T) existing;
+    }
+
+    /** the index of the first of some terms which is an interned compound, or null if none is */
+    public static TermIndex of(final Term a, final Term b) {
+        return (a.index != null) ? a.index : b.index;
+    }
+
+    public static TermIndex of(final Term a, final Term b, final Term c) {
+        return (a.index != null) ? a.index : of(b, c);
+    }
+
+    /** whether t is the canonical instance of its term */
+    public static boolean isInterned(final Term t) {
+        return t.id != 0;
+    }
+
+    /** number of interned atomic terms */
+    public static int atoms() {
+        return atoms.size();
+    }
+
+    /** approximate number of interned compound terms which have not been collected */
+    public long compounds() {
+        return compounds.size();
+    }
+
+}
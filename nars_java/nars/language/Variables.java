@@ -10,14 +10,32 @@ import nars.io.Symbols;
  */
 public class Variables {
     
+    /** the 2-element array of each thread, which findSubstitute of a pair of maps passes them in */
+    private static final ThreadLocal<Map[]> pair = new ThreadLocal<Map[]>() {
+        @Override protected Map[] initialValue() {
+            return new Map[2];
+        }
+    };
+    
+    /** as findSubstitute of an array, which never calls this, so the array of a thread is not used twice at once */
     public static boolean findSubstitute(final char type, final Term term1, final Term term2, final Map<Term, Term> map1, final Map<Term, Term> map2) {
-        return findSubstitute(type, term1, term2, new Map[] { map1, map2 });
+        final Map<Term, Term>[] map = pair.get();
+        map[0] = map1;
+        map[1] = map2;
+        try {
+            return findSubstitute(type, term1, term2, map);
+        }
+        finally {
+            map[0] = map[1] = null;
+        }
     }
     
     /** map is a 2-element array of HashMap<Term,Term>. it may be null, in which case
      * the maps will be instantiated as necessary.  
      * this is to delay the instantiation of the 2 HashMap until necessary to avoid
      * wasting them if they are not used.
+     * if the maps are Substitutions, a compound which does not unify leaves them
+     * as they were before it was attempted.
      */
     public static boolean findSubstitute(final char type, final Term term1, final Term term2, final Map<Term, Term>[] map) {
 
@@ -85,14 +103,19 @@ public class Variables {
             if ((cTerm1 instanceof ImageExt) && (((ImageExt) cTerm1).relationIndex != ((ImageExt) cTerm2).relationIndex) || (cTerm1 instanceof ImageInt) && (((ImageInt) cTerm1).relationIndex != ((ImageInt) cTerm2).relationIndex)) {
                 return false;
             }
-            Term[] list = cTerm1.cloneTerms();
+            Term[] list = cTerm1.term;
             if (cTerm1.isCommutative()) {
+                list = cTerm1.cloneTerms();
                 CompoundTerm.shuffle(list, Memory.randomNumber);
             }
-            for (int i = 0; i < cTerm1.size(); i++) {
+            
+            final int mark0 = mark(map[0]), mark1 = mark(map[1]);
+            for (int i = 0; i < list.length; i++) {
                 Term t1 = list[i];
                 Term t2 = cTerm2.term[i];
                 if (!findSubstitute(type, t1, t2, map)) {
+                    undo(map[0], mark0);
+                    undo(map[1], mark1);
                     return false;
                 }
             }
@@ -101,6 +124,15 @@ public class Variables {
         
         return termsEqual;        
     }
+    
+    private static int mark(final Map<Term, Term> m) {
+        return (m instanceof Substitution) ? ((Substitution)m).mark() : -1;
+    }
+    
+    private static void undo(final Map<Term, Term> m, final int mark) {
+        if (mark != -1)
+            ((Substitution)m).undo(mark);
+    }
 
 
     /**
@@ -154,20 +186,24 @@ public class Variables {
      * @return Whether the unification is possible.  't' will refer to the unified terms
      */
     public static boolean unify(final char type, final Term t1, final Term t2, final Term[] compound) {        
-        final Map<Term, Term> map[] = new Map[2]; //begins empty: null,null
-        
-        final boolean hasSubs = findSubstitute(type, t1, t2, map);
-        if (hasSubs) {
-            final Term a = applySubstituteAndRenameVariables(((CompoundTerm)compound[0]), map[0]);
-            if (a == null) return false;
-            final Term b = applySubstituteAndRenameVariables(((CompoundTerm)compound[1]), map[1]);
-            if (b == null) return false;
-            //only set the values if it will return true, otherwise if it returns false the callee can expect its original values untouched
-            compound[0] = a;
-            compound[1] = b;
-            return true;
+        final Substitution map0 = Substitution.acquire(), map1 = Substitution.acquire();
+        try {
+            final boolean hasSubs = findSubstitute(type, t1, t2, map0, map1);
+            if (hasSubs) {
+                final Term a = applySubstituteAndRenameVariables(((CompoundTerm)compound[0]), map0);
+                if (a == null) return false;
+                final Term b = applySubstituteAndRenameVariables(((CompoundTerm)compound[1]), map1);
+                if (b == null) return false;
+                //only set the values if it will return true, otherwise if it returns false the callee can expect its original values untouched
+                compound[0] = a;
+                compound[1] = b;
+                return true;
+            }
+            return false;
+        } finally {
+            map1.release();
+            map0.release();
         }
-        return false;
     }
 
     /** appliesSubstitute and renameVariables, resulting in a cloned object, 
@@ -260,7 +296,13 @@ public class Variables {
      * @return Whether there is a substitution
      */
     public static boolean hasSubstitute(final char type, final Term term1, final Term term2) {
-        return findSubstitute(type, term1, term2, new HashMap<>(), new HashMap<>());
+        final Substitution map0 = Substitution.acquire(), map1 = Substitution.acquire();
+        try {
+            return findSubstitute(type, term1, term2, map0, map1);
+        } finally {
+            map1.release();
+            map0.release();
+        }
     }
     
 }
@@ -27,6 +27,7 @@ import static nars.io.Symbols.NativeOperator.COMPOUND_TERM_OPENER;
 import nars.language.Inheritance;
 import nars.language.Product;
 import nars.language.Term;
+import nars.util.rope.impl.CompoundNameRope;
 
 /**
  * An operation is interpreted as an Inheritance relation.
@@ -97,22 +98,17 @@ public class Operation extends Inheritance {
     }
 
     
+    /** the name in functional form, ex: (^op,a,b), without the last argument (SELF) */
     public static CharSequence makeName(final CharSequence op, final Term[] arg) {
-        final StringBuilder nameBuilder = new StringBuilder(16) //estimate
-                .append(COMPOUND_TERM_OPENER.ch).append(op);
+        if (arg.length < 2)
+            return new StringBuilder(op.length() + 2).append(COMPOUND_TERM_OPENER.ch).append(op).append(COMPOUND_TERM_CLOSER.ch).toString();
         
-        int n=0;
-        for (final Term t : arg) {
-            if(n==arg.length-1) {
-                break;
-            }
-            nameBuilder.append(Symbols.ARGUMENT_SEPARATOR);
-            nameBuilder.append(t.name());
-            n++;
-        }
+        final CharSequence[] parts = new CharSequence[arg.length - 1];
+        for (int i = 0; i < parts.length; i++)
+            parts[i] = arg[i].name();
         
-        nameBuilder.append(COMPOUND_TERM_CLOSER.ch);
-        return nameBuilder.toString();
+        final String prefix = new StringBuilder(op.length() + 2).append(COMPOUND_TERM_OPENER.ch).append(op).append(Symbols.ARGUMENT_SEPARATOR).toString();
+        return new CompoundNameRope(prefix, String.valueOf(Symbols.ARGUMENT_SEPARATOR), String.valueOf(COMPOUND_TERM_CLOSER.ch), parts);
     }
     
     
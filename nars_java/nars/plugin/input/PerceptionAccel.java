@@ -75,7 +75,7 @@ public class PerceptionAccel implements Plugin, EventEmitter.EventObserver {
                     break;
                 }
                 Task current=eventbuffer.get(j);
-                st.getChain().add(current.sentence.term);
+                st.chainAdd(current.sentence.term);
                 for(long l : current.sentence.stamp.evidentialBase) {
                     evBase.add(l);
                 }
@@ -95,8 +95,7 @@ public class PerceptionAccel implements Plugin, EventEmitter.EventObserver {
                 evB[u]=l;
                 u++;
             }
-            st.baseLength=evB.length;
-            st.evidentialBase=evB;
+            st.setEvidentialBase(evB);
             
             boolean eventBufferDidNotHaveSoMuchEvents=false;
             for(int i=0;i<relterms.length;i++) {
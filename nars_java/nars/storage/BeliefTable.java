@@ -0,0 +1,168 @@
+package nars.storage;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import nars.core.Memory;
+import nars.entity.Sentence;
+import static nars.inference.BudgetFunctions.rankBelief;
+import static nars.inference.TemporalRules.solutionQuality;
+
+/**
+ * The beliefs (or desires) of a Concept, as a list sorted by rank, the
+ * highest first.
+ * <p>
+ * The rank of each sentence is computed once, when it is added, so that its
+ * place is found by binary search instead of ranking every sentence of the
+ * table; rerank() computes them again after their truth values have been
+ * changed in place.  select() still rates every sentence: the quality of a
+ * solution depends on its frequency and on projection to the time of the
+ * query, neither of which follows the rank.
+ * <p>
+ * Modifications and select() are synchronized on the table.
+ */
+public class BeliefTable extends AbstractList<Sentence> implements RandomAccess {
+
+    private Sentence[] ranked = new Sentence[4];
+    private float[] ranks = new float[4];
+    private int size;
+
+    /**
+     * Adds a sentence by its rank, before those of the same rank, unless the
+     * sentence it would precede is equivalent to it, and removes the lowest
+     * ranked sentence beyond the capacity.  A sentence ranked below all of a
+     * table at capacity is not added.
+     *
+     * @return the sentence removed, or null
+     */
+    public synchronized Sentence add(final Sentence s, final int capacity) {
+        final float rank = rankBelief(s);
+        final int i = before(ranks, size, rank);
+        if (i < size) {
+            if (s.equivalentTo(ranked[i]))
+                return null;
+            insert(i, s, rank);
+        }
+
+        if (size == capacity) {
+            // nothing
+        }
+        else if (size > capacity) {
+            return remove(size - 1);
+        }
+        else if (i == size) {
+            insert(size, s, rank);
+        }
+        return null;
+    }
+
+    /**
+     * Adds a sentence by its rank, after those of the same rank, so that the
+     * sentences of a table which are added in order (ex: as they were
+     * stored) are in the same order.
+     */
+    @Override
+    public synchronized boolean add(final Sentence s) {
+        final float rank = rankBelief(s);
+        insert(after(ranks, size, rank), s, rank);
+        return true;
+    }
+
+    @Override
+    public Sentence get(final int i) {
+        if (i >= size)
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        return ranked[i];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized Sentence remove(final int i) {
+        if (i >= size)
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        final Sentence s = ranked[i];
+        System.arraycopy(ranked, i + 1, ranked, i, size - i - 1);
+        System.arraycopy(ranks, i + 1, ranks, i, size - i - 1);
+        ranked[--size] = null;
+        modCount++;
+        return s;
+    }
+
+    @Override
+    public synchronized void clear() {
+        Arrays.fill(ranked, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    /** sorts the table again by the ranks of its sentences, after their truth values have changed */
+    public synchronized void rerank() {
+        final Sentence[] s = Arrays.copyOf(ranked, size);
+        clear();
+        for (final Sentence x : s)
+            add(x);
+    }
+
+    /**
+     * The sentence which is the best solution to a query, as
+     * TemporalRules.solutionQuality rates it: the first of the highest
+     * quality, if any has a quality above 0.
+     */
+    public synchronized Sentence select(final Sentence query, final Memory memory) {
+        float currentBest = 0;
+        Sentence candidate = null;
+        for (int i = 0; i < size; i++) {
+            final Sentence s = ranked[i];
+            final float quality = solutionQuality(query, s, memory);
+            if (quality > currentBest) {
+                currentBest = quality;
+                candidate = s;
+            }
+        }
+        return candidate;
+    }
+
+    private void insert(final int i, final Sentence s, final float rank) {
+        if (size == ranked.length) {
+            ranked = Arrays.copyOf(ranked, size * 2);
+            ranks = Arrays.copyOf(ranks, size * 2);
+        }
+        System.arraycopy(ranked, i, ranked, i + 1, size - i);
+        System.arraycopy(ranks, i, ranks, i + 1, size - i);
+        ranked[i] = s;
+        ranks[i] = rank;
+        size++;
+        modCount++;
+    }
+
+    /** index of the first rank, of ranks sorted from the highest, which is not above a rank */
+    private static int before(final float[] ranks, final int size, final float rank) {
+        int low = 0, high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (ranks[mid] > rank)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /** index of the first rank, of ranks sorted from the highest, which is below a rank */
+    private static int after(final float[] ranks, final int size, final float rank) {
+        int low = 0, high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (ranks[mid] >= rank)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+}
@@ -33,13 +33,8 @@ public class CacheBag<K, I extends Item<K>> implements RemovalListener<K,I> {
     }
     
     public I take(K key) {
-        I i = data.getIfPresent(key);
-        if (i!=null) {
-            data.invalidate(i);
-            data.cleanUp();
-            return i;
-        }
-        return null;
+        //removes by key: invalidate(i) would not match, leaving the item to be ended when evicted later
+        return data.asMap().remove(key);
     }
     
     public void add(I i) {        
@@ -53,7 +48,12 @@ public class CacheBag<K, I extends Item<K>> implements RemovalListener<K,I> {
     @Override
     public void onRemoval(RemovalNotification<K, I> rn) {
         if (rn.getCause()==RemovalCause.SIZE)
-            rn.getValue().end();
+            evicted(rn.getValue());
+    }
+
+    /** called when an item is removed to make room for another */
+    protected void evicted(I i) {
+        i.end();
     }
     
     
@@ -0,0 +1,381 @@
+package nars.storage;
+
+import com.google.common.util.concurrent.AtomicDouble;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import nars.core.Parameters;
+import nars.entity.Item;
+
+/**
+ * Thread-safe LevelBag, for use when Parameters.THREADS > 1.
+ *
+ * Items are distributed into the same discrete priority levels and selected by the
+ * same DISTRIBUTOR sequence as LevelBag, but each level is a lock-free queue and the
+ * name table is a ConcurrentHashMap.  An item belongs to whichever thread removes its
+ * entry from the name table, so takeNext() may race with take(key) without an item
+ * being returned twice.  Operations on the same key (putIn, take, and claiming a
+ * polled item) are serialized by a lock stripe chosen from the key's hash; operations
+ * on different keys proceed in parallel.
+ *
+ * Size, mass, and capacity enforcement are exact when used from one thread, and
+ * approximate (by at most the number of concurrent writers) otherwise.
+ */
+public class ConcurrentLevelBag<E extends Item<K>,K> extends Bag<E,K> {
+
+    /**
+     * priority levels
+     */
+    public final int levels;
+
+    /**
+     * firing threshold
+     */
+    public final int fireCompleteLevelThreshold;
+
+    /**
+     * shared DISTRIBUTOR that produce the probability distribution
+     */
+    final short[] DISTRIBUTOR;
+    final int distributorLength;
+
+    /**
+     * mapping from key to item; the owner of an item is whoever removes it from here
+     */
+    public final ConcurrentHashMap<K, E> nameTable;
+
+    /**
+     * lock-free queues of items, for items on different level
+     */
+    final ConcurrentLinkedDeque<E>[] level;
+
+    /** locks serializing putIn/take of the same key */
+    private final Object[] stripes;
+
+    final int capacity;
+
+    private final AtomicDouble mass = new AtomicDouble();
+
+    /** selection state, guarded by itself */
+    private final Object selector = new Object();
+    private int levelIndex;
+    private int currentLevel;
+    private int currentCounter;
+
+
+    public ConcurrentLevelBag(int levels, int capacity) {
+        this(levels, capacity, (int) (Parameters.BAG_THRESHOLD * levels));
+    }
+
+    public ConcurrentLevelBag(int levels, int capacity, int thresholdLevel) {
+        this(levels, capacity, thresholdLevel, 4 * Math.max(Parameters.THREADS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /** thresholdLevel = 0 disables "fire level completely" threshold effect */
+    public ConcurrentLevelBag(int levels, int capacity, int thresholdLevel, int numStripes) {
+        this.levels = levels;
+        this.fireCompleteLevelThreshold = thresholdLevel;
+        this.capacity = capacity;
+
+        nameTable = new ConcurrentHashMap<>(capacity);
+
+        level = new ConcurrentLinkedDeque[levels];
+        for (int i = 0; i < levels; i++)
+            level[i] = new ConcurrentLinkedDeque<>();
+
+        stripes = new Object[numStripes];
+        for (int i = 0; i < numStripes; i++)
+            stripes[i] = new Object();
+
+        DISTRIBUTOR = Distributor.get(this.levels).order;
+        distributorLength = DISTRIBUTOR.length;
+
+        clear();
+    }
+
+    private Object stripe(final K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[(h & 0x7fffffff) % stripes.length];
+    }
+
+    @Override
+    public void clear() {
+        synchronized (selector) {
+            for (ConcurrentLinkedDeque<E> l : level)
+                l.clear();
+            nameTable.clear();
+            currentLevel = levels - 1;
+            levelIndex = capacity % levels; // so that different bags start at different point
+            currentCounter = 0;
+            mass.set(0);
+        }
+    }
+
+    @Override
+    public int size() {
+        return nameTable.size();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return nameTable.keySet();
+    }
+
+    @Override
+    public E get(final K key) {
+        return nameTable.get(key);
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public float getMass() {
+        return mass.floatValue();
+    }
+
+    @Override
+    public float getAveragePriority() {
+        int s = size();
+        if (s == 0) {
+            return 0.01f;
+        }
+        float f = getMass() / s;
+        if (f > 1) {
+            return 1.0f;
+        }
+        return f;
+    }
+
+    /**
+     * Decide the put-in level according to priority
+     *
+     * @param item The Item to put in
+     * @return The put-in level
+     */
+    private int getLevel(final E item) {
+        final float fl = item.getPriority() * levels;
+        final int level = (int) Math.ceil(fl) - 1;
+        if (level < 0) return 0;
+        if (level >= levels) return levels-1;
+        return level;
+    }
+
+    /**
+     * claims an item which has been polled from a level.  Its key's stripe is held so that
+     * the entry is compared by identity and removed at once: Item.equals() only compares
+     * names, and the key may already hold a newer (merged) item.  No other stripe may be
+     * held by the caller.
+     * @return false if another thread already took it by key, in which case it must be ignored
+     */
+    private boolean own(final E polled) {
+        final K name = polled.name();
+        synchronized (stripe(name)) {
+            if (nameTable.get(name) != polled)
+                return false;
+            nameTable.remove(name);
+        }
+        mass.addAndGet(-polled.getPriority());
+        return true;
+    }
+
+    /** chooses the level to take the next item from, or -1 if all levels appear empty */
+    private int nextLevel() {
+        synchronized (selector) {
+            if ((currentCounter > 0) && (!level[currentLevel].isEmpty())) {
+                currentCounter--;
+                return currentLevel;
+            }
+
+            for (int i = 0; i < distributorLength; i++) {
+                //wraps instead of overflowing after 2^31 selections
+                levelIndex %= distributorLength;
+                final int cl = DISTRIBUTOR[levelIndex++];
+                final ConcurrentLinkedDeque<E> l = level[cl];
+                if (!l.isEmpty()) {
+                    currentLevel = cl;
+                    if (cl < fireCompleteLevelThreshold) { // for dormant levels, take one item
+                        currentCounter = 1;
+                    } else {                  // for active levels, take all current items
+                        currentCounter = l.size();
+                    }
+                    currentCounter--;
+                    return cl;
+                }
+            }
+            return -1;
+        }
+    }
+
+    @Override
+    public E takeNext() {
+        while (size() > 0) {
+            final int l = nextLevel();
+            if (l == -1)
+                return null;
+
+            final E selected = level[l].pollFirst();
+            if ((selected != null) && own(selected))
+                return selected;
+
+            //lost a race for this level or item; select again
+        }
+        return null;
+    }
+
+    @Override
+    public E peekNext() {
+        if (size() == 0) return null; // empty bag
+
+        E e = takeNext();
+        if (e != null)
+            putIn(e);
+        return e;
+    }
+
+    @Override
+    public E take(final K name) {
+        synchronized (stripe(name)) {
+            return takeUnlocked(name);
+        }
+    }
+
+    private E takeUnlocked(final K name) {
+        final E oldItem = nameTable.remove(name);
+        if (oldItem == null) {
+            return null;
+        }
+        mass.addAndGet(-oldItem.getPriority());
+
+        final int expectedLevel = getLevel(oldItem);
+        if (!level[expectedLevel].removeFirstOccurrence(oldItem)) {
+            for (int l = 0; l < levels; l++) {
+                if ((l != expectedLevel) && (level[l].removeFirstOccurrence(oldItem)))
+                    break;
+            }
+            //if not found, a concurrent takeNext() has already polled it and will disown it
+        }
+        return oldItem;
+    }
+
+    @Override
+    public E putIn(E newItem) {
+        final K newKey = newItem.name();
+
+        synchronized (stripe(newKey)) {
+            final E existingItemWithSameKey = takeUnlocked(newKey);
+
+            if (existingItemWithSameKey != null) {
+                newItem = (E)existingItemWithSameKey.merge(newItem);
+            }
+
+            insert(newItem);
+        }
+        return evict();
+    }
+
+    /**
+     * Insert an item into the itemTable, and return the overflow.
+     *
+     * @param newItem The Item to put in
+     * @return null if nothing overflowed, non-null if an overflow Item, which
+     * may be the attempted input item (in which case it was not inserted)
+     */
+    @Override
+    protected E addItem(final E newItem) {
+        synchronized (stripe(newItem.name())) {
+            insert(newItem);
+        }
+        return evict();
+    }
+
+    /** inserts an item; the caller must hold its key stripe */
+    private void insert(final E newItem) {
+        //name first, so that the item is never in a level without being owned by the bag
+        nameTable.put(newItem.name(), newItem);
+        mass.addAndGet(newItem.getPriority());
+        level[getLevel(newItem)].addLast(newItem);        // FIFO
+    }
+
+    /**
+     * removes the first item of the lowest non-empty level while the bag is over capacity,
+     * which is the item just inserted if it is alone in the lowest level (so, as LevelBag
+     * does, it is not kept).  No stripe may be held by the caller, as own() takes one.
+     * @return the item removed, or null
+     */
+    private E evict() {
+        while (size() > capacity) {
+            int outLevel = 0;
+            while ((outLevel < levels) && (level[outLevel].isEmpty())) {
+                outLevel++;
+            }
+            if (outLevel == levels) {
+                return null;                    // emptied concurrently
+            }
+
+            final E lowest = level[outLevel].pollFirst();
+            if ((lowest != null) && own(lowest))
+                return lowest;
+        }
+        return null;
+    }
+
+    @Override
+    public Collection<E> values() {
+        return nameTable.values();
+    }
+
+    /** iterates all items in descending level order; weakly consistent with concurrent modification */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            int l = levels - 1;
+            Iterator<E> levelIterator = level[l].iterator();
+            E next = advance();
+
+            private E advance() {
+                while (true) {
+                    while (levelIterator.hasNext()) {
+                        final E e = levelIterator.next();
+                        if (nameTable.get(e.name()) == e)
+                            return e;
+                    }
+                    if (--l < 0)
+                        return null;
+                    levelIterator = level[l].iterator();
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                final E e = next;
+                if (e == null)
+                    throw new NoSuchElementException();
+                next = advance();
+                return e;
+            }
+        };
+    }
+
+    public int numEmptyLevels() {
+        int empty = 0;
+        for (ConcurrentLinkedDeque<E> l : level) {
+            if (l.isEmpty()) {
+                empty++;
+            }
+        }
+        return empty;
+    }
+
+}
@@ -0,0 +1,220 @@
+package nars.storage;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import nars.core.Parameters;
+import nars.entity.Sentence;
+import nars.entity.TruthValue;
+import nars.language.Term;
+
+/**
+ * Remembers the conclusions derived in recent cycles, so that a derivation
+ * which repeats one of them (as rules do each time the same premises are
+ * selected again) can be dropped before it is budgeted and queued.
+ * <p>
+ * A conclusion is keyed by its term, punctuation, occurrence time, truth
+ * rounded to Parameters.TRUTH_EPSILON, and the set of its evidential base,
+ * which is compared by hash and then by content, so that conclusions from
+ * different evidence are never mistaken for each other.
+ * <p>
+ * As in NoveltyIndex, conclusions are recorded in a ring of window + 1
+ * buckets, one per cycle, each an open-addressing hash set which records the
+ * slots it fills so that it is cleared without scanning.  A bucket expires
+ * once its cycle falls out of the window, and the oldest buckets are also
+ * cleared while more than capacity conclusions are recorded.
+ */
+public class DerivationIndex implements Serializable {
+
+    private final int window;
+    private final int capacity;
+
+    private final Bucket[] buckets;
+    /** the cycle of each bucket, or Long.MIN_VALUE if it is empty */
+    private final long[] times;
+    private int size;
+
+    /**
+     * @param window cycles after which a recorded conclusion may be derived again
+     * @param capacity most conclusions recorded; beyond it, the oldest are forgotten
+     */
+    public DerivationIndex(final int window, final int capacity) {
+        this.window = window;
+        this.capacity = capacity;
+        buckets = new Bucket[window + 1];
+        times = new long[window + 1];
+        for (int i = 0; i < buckets.length; i++)
+            buckets[i] = new Bucket();
+        Arrays.fill(times, Long.MIN_VALUE);
+    }
+
+    /**
+     * Records a conclusion at a cycle, unless it was recorded within the
+     * window of that cycle.
+     *
+     * @param occurrence the occurrence time which the conclusion will have
+     * @return whether the conclusion is new, ie. it was not already recorded
+     */
+    public synchronized boolean record(final Sentence s, final long occurrence, final long now) {
+        final Term term = s.term;
+        final long key = key(s);
+        final long[] evidence = s.stamp.getEvidentialSet();
+        final int hash = hash(term, key, occurrence);
+
+        if (contains(term, key, occurrence, evidence, hash, now))
+            return false;
+
+        final int b = (int)Math.floorMod(now, (long)buckets.length);
+        if (times[b] != now) {
+            clear(b);
+            times[b] = now;
+        }
+        buckets[b].add(term, key, occurrence, evidence, hash);
+        size++;
+
+        while (size > capacity) {
+            if (!clearOldest())
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Whether a conclusion was recorded within the window of a cycle, as
+     * record() would find it, without recording it.
+     */
+    public synchronized boolean contains(final Sentence s, final long occurrence, final long now) {
+        final long key = key(s);
+        return contains(s.term, key, occurrence, s.stamp.getEvidentialSet(), hash(s.term, key, occurrence), now);
+    }
+
+    private boolean contains(final Term term, final long key, final long occurrence, final long[] evidence, final int hash, final long now) {
+        if (size == 0)
+            return false;
+        for (int i = 0; i < buckets.length; i++) {
+            if ((times[i] != Long.MIN_VALUE) && (times[i] + window >= now) && (times[i] <= now)
+                    && buckets[i].contains(term, key, occurrence, evidence, hash))
+                return true;
+        }
+        return false;
+    }
+
+    /** number of conclusions recorded, including those which have expired but not been cleared */
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < buckets.length; i++)
+            clear(i);
+    }
+
+    private void clear(final int b) {
+        size -= buckets[b].size;
+        buckets[b].clear();
+        times[b] = Long.MIN_VALUE;
+    }
+
+    private boolean clearOldest() {
+        int oldest = -1;
+        for (int i = 0; i < buckets.length; i++) {
+            if ((times[i] != Long.MIN_VALUE) && ((oldest == -1) || (times[i] < times[oldest])))
+                oldest = i;
+        }
+        if (oldest == -1)
+            return false;
+        clear(oldest);
+        return true;
+    }
+
+    /** the evidential hash, punctuation and rounded truth of a sentence, packed into a word */
+    static long key(final Sentence s) {
+        final TruthValue t = s.truth;
+        final int truth;
+        if (t == null) {
+            truth = 0xFFFF;
+        }
+        else {
+            //at most TRUTH_PRECISION + 1 values each, which fit in a byte
+            final int f = Math.round(t.getFrequency() * Parameters.TRUTH_PRECISION);
+            final int c = Math.round(t.getConfidence() * Parameters.TRUTH_PRECISION);
+            truth = (f << 8) | c;
+        }
+        return ((long)s.stamp.evidentialHash() << 32) | ((long)s.punctuation << 16) | truth;
+    }
+
+    private static int hash(final Term term, final long key, final long occurrence) {
+        int h = term.hashCode() * 31 + Long.hashCode(key);
+        h = h * 31 + Long.hashCode(occurrence);
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** open-addressing set of conclusions, which records its filled slots for clear() */
+    private static final class Bucket implements Serializable {
+        private Term[] terms = new Term[16];
+        private long[] keys = new long[16];
+        private long[] occurrences = new long[16];
+        private long[][] evidence = new long[16][];
+        private int[] hashes = new int[16];
+        private int[] filled = new int[8];
+        int size;
+
+        private int slot(final Term term, final long key, final long occurrence, final long[] base, final int hash) {
+            final int mask = terms.length - 1;
+            int i = hash & mask;
+            while (terms[i] != null) {
+                if ((hashes[i] == hash) && (keys[i] == key) && (occurrences[i] == occurrence)
+                        && terms[i].equals(term) && Arrays.equals(evidence[i], base))
+                    return i;
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        boolean contains(final Term term, final long key, final long occurrence, final long[] base, final int hash) {
+            return (size > 0) && (terms[slot(term, key, occurrence, base, hash)] != null);
+        }
+
+        /** adds a conclusion which it does not contain */
+        void add(final Term term, final long key, final long occurrence, final long[] base, final int hash) {
+            if ((size + 1) * 2 > terms.length)
+                resize();
+
+            final int i = slot(term, key, occurrence, base, hash);
+            terms[i] = term;
+            keys[i] = key;
+            occurrences[i] = occurrence;
+            evidence[i] = base;
+            hashes[i] = hash;
+            if (size == filled.length)
+                filled = Arrays.copyOf(filled, size * 2);
+            filled[size++] = i;
+        }
+
+        private void resize() {
+            final Term[] t = terms;
+            final long[] k = keys, o = occurrences;
+            final long[][] e = evidence;
+            final int[] h = hashes;
+            final int n = size;
+            final int[] f = Arrays.copyOf(filled, n);
+            terms = new Term[t.length * 2];
+            keys = new long[t.length * 2];
+            occurrences = new long[t.length * 2];
+            evidence = new long[t.length * 2][];
+            hashes = new int[t.length * 2];
+            size = 0;
+            for (int j = 0; j < n; j++)
+                add(t[f[j]], k[f[j]], o[f[j]], e[f[j]], h[f[j]]);
+        }
+
+        void clear() {
+            for (int j = 0; j < size; j++) {
+                terms[filled[j]] = null;
+                evidence[filled[j]] = null;
+            }
+            size = 0;
+        }
+    }
+
+}
@@ -0,0 +1,291 @@
+package nars.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import nars.core.Memory;
+import nars.core.MemorySnapshot;
+import nars.entity.Concept;
+import nars.entity.ConceptBuilder;
+import nars.io.Output.ERR;
+import nars.language.Term;
+import nars.storage.Bag.MemoryAware;
+
+/**
+ * Subconscious concept cache which keeps the concepts it evicts off-heap.
+ * <p>
+ * The most recently forgotten concepts are held on-heap, as in CacheBag.
+ * A concept evicted from there is serialized, as a MemorySnapshot detached
+ * concept, into direct buffers outside the Java heap, and is rehydrated by
+ * take() when it is remembered.  The only on-heap structures are the chunk
+ * buffers and an open-addressing index of primitive arrays, so dormant
+ * concepts cost the garbage collector nothing.
+ * <p>
+ * Serialized concepts are appended to fixed-size chunks.  A concept taken
+ * leaves a gap in its chunk; when maxBytes would be exceeded, the oldest chunk
+ * is reused and the concepts remaining in it are dropped, as CacheBag drops
+ * the concepts it evicts.  A rehydrated concept is a new instance, whose task
+ * links refer to copies of the tasks they referred to.
+ */
+public class DirectConceptCache extends CacheBag<Term, Concept> implements MemoryAware {
+
+    private static final long EMPTY = -1;
+
+    /** most bytes of direct buffers allocated */
+    public final long maxBytes;
+
+    /** bytes of each chunk; a larger concept gets a chunk of its own */
+    public final int chunkSize;
+
+    private final ConceptBuilder builder;
+    private Memory memory;
+
+    private final ArrayList<ByteBuffer> chunks = new ArrayList();
+    /** sequence number of the first chunk in chunks */
+    private long firstChunk;
+    private long allocated;
+
+    /** index: term hash, and location of the record ((chunk << 32) | offset), or EMPTY */
+    private int[] hashes = new int[1024];
+    private long[] locations = new long[1024];
+    private int stored;
+
+    private final ByteArrayOutputStream serialized = new ByteArrayOutputStream(1024);
+
+    public DirectConceptCache(final int capacity, final long maxBytes, final ConceptBuilder builder) {
+        this(capacity, maxBytes, (int)Math.min(maxBytes / 4, 16 * 1024 * 1024), builder);
+    }
+
+    public DirectConceptCache(final int capacity, final long maxBytes, final int chunkSize, final ConceptBuilder builder) {
+        super(capacity);
+        this.maxBytes = maxBytes;
+        this.chunkSize = chunkSize;
+        this.builder = builder;
+        Arrays.fill(locations, EMPTY);
+    }
+
+    @Override
+    public void setMemory(final Memory m) {
+        this.memory = m;
+    }
+
+    @Override
+    public Concept take(final Term key) {
+        final Concept c = super.take(key);
+        if (c != null)
+            return c;
+        return takeStored(key);
+    }
+
+    @Override
+    public long size() {
+        return super.size() + stored();
+    }
+
+    /** number of concepts held off-heap */
+    public synchronized int stored() {
+        return stored;
+    }
+
+    /** bytes of direct buffers allocated */
+    public synchronized long allocated() {
+        return allocated;
+    }
+
+    @Override
+    protected synchronized void evicted(final Concept c) {
+        try {
+            serialized.reset();
+            new MemorySnapshot.Writer(memory, serialized).writeDetachedConcept(c);
+            store(c.term, serialized.toByteArray());
+        } catch (IOException e) {
+            memory.emit(ERR.class, e);
+        }
+        c.end();
+    }
+
+    /**
+     * Record: length of the rest, hash of the term, length of its name, the
+     * name, then the serialized concept
+     */
+    protected void store(final Term term, final byte[] payload) {
+        final byte[] name = term.name().toString().getBytes(StandardCharsets.UTF_8);
+        final int hash = term.hashCode();
+
+        final int slot = find(hash, name);
+        if (locations[slot] != EMPTY)
+            remove(slot);
+
+        final int length = 4 + 4 + name.length + payload.length;
+        final ByteBuffer chunk = allocate(4 + length);
+        final long location = ((firstChunk + chunks.size() - 1) << 32) | chunk.position();
+        chunk.putInt(length).putInt(hash).putInt(name.length).put(name).put(payload);
+
+        insert(hash, location);
+    }
+
+    protected synchronized Concept takeStored(final Term key) {
+        if (stored == 0)
+            return null;
+
+        final byte[] name = key.name().toString().getBytes(StandardCharsets.UTF_8);
+        final int slot = find(key.hashCode(), name);
+        final long location = locations[slot];
+        if (location == EMPTY)
+            return null;
+
+        final ByteBuffer r = record(location);
+        final int length = r.getInt();
+        r.position(r.position() + 4 + 4 + name.length);
+        final byte[] payload = new byte[length - 4 - 4 - name.length];
+        r.get(payload);
+        remove(slot);
+
+        try {
+            return new MemorySnapshot.Reader(memory, new ByteArrayInputStream(payload)).readDetachedConcept(builder);
+        } catch (IOException e) {
+            memory.emit(ERR.class, e);
+            return null;
+        }
+    }
+
+    /** a view of a chunk positioned at a record */
+    private ByteBuffer record(final long location) {
+        final ByteBuffer r = chunks.get((int)((location >>> 32) - firstChunk)).duplicate();
+        r.position((int)location);
+        return r;
+    }
+
+    /** the current chunk, with room for n bytes at its position */
+    private ByteBuffer allocate(final int n) {
+        final ByteBuffer last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if ((last != null) && (last.remaining() >= n))
+            return last;
+
+        final int size = Math.max(chunkSize, n);
+        ByteBuffer reused = null;
+        //once a chunk is reused, its capacity is still allocated, for the chunk which replaces it
+        while ((reused == null) && (allocated + size > maxBytes) && !chunks.isEmpty()) {
+            final ByteBuffer dropped = dropOldest();
+            if (dropped.capacity() == size)
+                reused = dropped;
+            else
+                allocated -= dropped.capacity();
+        }
+
+        final ByteBuffer chunk;
+        if (reused != null) {
+            chunk = reused;
+            chunk.clear();
+        } else {
+            chunk = ByteBuffer.allocateDirect(size);
+            allocated += size;
+        }
+        chunks.add(chunk);
+        return chunk;
+    }
+
+    /** removes the oldest chunk, and the concepts remaining in it from the index */
+    private ByteBuffer dropOldest() {
+        final ByteBuffer chunk = chunks.remove(0);
+        final long c = firstChunk++;
+
+        int p = 0;
+        while (p < chunk.position()) {
+            final int length = chunk.getInt(p);
+            final int hash = chunk.getInt(p + 4);
+            final long location = (c << 32) | p;
+
+            //the record is in the index unless it was taken or replaced
+            final int mask = locations.length - 1;
+            for (int i = mix(hash) & mask; locations[i] != EMPTY; i = (i + 1) & mask) {
+                if (locations[i] == location) {
+                    remove(i);
+                    break;
+                }
+            }
+            p += 4 + length;
+        }
+        return chunk;
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** the slot of the record of a term, or the empty slot where it would be inserted */
+    private int find(final int hash, final byte[] name) {
+        final int mask = locations.length - 1;
+        int i = mix(hash) & mask;
+        while (locations[i] != EMPTY) {
+            if ((hashes[i] == hash) && nameEquals(locations[i], name))
+                return i;
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private boolean nameEquals(final long location, final byte[] name) {
+        final ByteBuffer r = record(location);
+        final int p = r.position();
+        if (r.getInt(p + 8) != name.length)
+            return false;
+        for (int i = 0; i < name.length; i++) {
+            if (r.get(p + 12 + i) != name[i])
+                return false;
+        }
+        return true;
+    }
+
+    private void insert(final int hash, final long location) {
+        if ((stored + 1) * 2 > locations.length)
+            resize(locations.length * 2);
+
+        final int mask = locations.length - 1;
+        int i = mix(hash) & mask;
+        while (locations[i] != EMPTY)
+            i = (i + 1) & mask;
+        hashes[i] = hash;
+        locations[i] = location;
+        stored++;
+    }
+
+    /** removes the entry in a slot, shifting back the entries after it so that none is unreachable */
+    private void remove(int i) {
+        final int mask = locations.length - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (locations[j] == EMPTY)
+                break;
+            final int k = mix(hashes[j]) & mask;
+            //leave the entry at j if its home slot k is cyclically within (i, j]
+            if ((i <= j) ? ((i < k) && (k <= j)) : ((i < k) || (k <= j)))
+                continue;
+            hashes[i] = hashes[j];
+            locations[i] = locations[j];
+            i = j;
+        }
+        locations[i] = EMPTY;
+        stored--;
+    }
+
+    private void resize(final int capacity) {
+        final int[] h = hashes;
+        final long[] l = locations;
+        hashes = new int[capacity];
+        locations = new long[capacity];
+        Arrays.fill(locations, EMPTY);
+        stored = 0;
+        for (int i = 0; i < l.length; i++) {
+            if (l[i] != EMPTY)
+                insert(h[i], l[i]);
+        }
+    }
+
+}
@@ -295,13 +295,20 @@ public class LevelBag<E extends Item<K>,K> extends Bag<E,K> {
 
     final int distributorLength;
     
+    /** the next position in DISTRIBUTOR, wrapping instead of overflowing after 2^31 selections */
+    protected final int nextLevelIndex() {
+        final int i = levelIndex % distributorLength;
+        levelIndex = i + 1;
+        return i;
+    }
+    
     /** look for a non-empty level */
     protected void nextNonEmptyLevel() {
                
         int cl = currentLevel;
 
         do {                        
-        } while (levelEmpty[cl = DISTRIBUTOR[(levelIndex++) % distributorLength]]);
+        } while (levelEmpty[cl = DISTRIBUTOR[nextLevelIndex()]]);
         
         currentLevel = cl;
                 
@@ -19,7 +19,7 @@ public class LevelBag2 extends LevelBag {
     @Override
     protected void nextNonEmptyLevel() {
                
-        int cl = DISTRIBUTOR[(levelIndex++) % distributorLength];        
+        int cl = DISTRIBUTOR[nextLevelIndex()];        
         while (levelEmpty[cl]) {
             cl++;
             cl%=levels;
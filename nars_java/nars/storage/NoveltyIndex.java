@@ -0,0 +1,168 @@
+package nars.storage;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import nars.entity.Sentence;
+import nars.language.Term;
+
+/**
+ * Remembers which (task sentence, belief term) pairs have been reasoned on
+ * recently, for the novelty strategy of inference rules such as temporal
+ * induction which are not driven by the termlinks of a task.
+ * <p>
+ * Pairs are recorded in a ring of horizon + 1 buckets, one per time step.
+ * Each bucket is an open-addressing hash set keyed by the identity of the
+ * sentence and the equality of the term, which records the slots it fills so
+ * that it is cleared without scanning.  A bucket is reused, and so expires,
+ * once its time step falls out of the horizon; the oldest buckets are also
+ * cleared while more than capacity pairs are recorded.  Checking, recording
+ * and expiring take constant time, and allocate nothing once the buckets
+ * have grown to the number of pairs recorded per time step.
+ */
+public class NoveltyIndex implements Serializable {
+
+    private final int horizon;
+    private final int capacity;
+
+    private final Bucket[] buckets;
+    /** the time step of each bucket, or Long.MIN_VALUE if it is empty */
+    private final long[] times;
+    private int size;
+
+    /**
+     * @param horizon time steps after which a recorded pair is novel again
+     * @param capacity most pairs recorded; beyond it, the oldest are forgotten
+     */
+    public NoveltyIndex(final int horizon, final int capacity) {
+        this.horizon = horizon;
+        this.capacity = capacity;
+        buckets = new Bucket[horizon + 1];
+        times = new long[horizon + 1];
+        for (int i = 0; i < buckets.length; i++)
+            buckets[i] = new Bucket();
+        Arrays.fill(times, Long.MIN_VALUE);
+    }
+
+    /** whether the pair has not been recorded within the horizon of a time */
+    public synchronized boolean isNovel(final Sentence task, final Term belief, final long now) {
+        if (size == 0)
+            return true;
+        final int hash = hash(task, belief);
+        for (int i = 0; i < buckets.length; i++) {
+            if ((times[i] != Long.MIN_VALUE) && (times[i] + horizon >= now) && (times[i] <= now)
+                    && buckets[i].contains(task, belief, hash))
+                return false;
+        }
+        return true;
+    }
+
+    /** records the pair at a time, so that it is not novel within the horizon */
+    public synchronized void record(final Sentence task, final Term belief, final long now) {
+        final int b = (int)Math.floorMod(now, (long)buckets.length);
+        if (times[b] != now) {
+            clear(b);
+            times[b] = now;
+        }
+        if (buckets[b].add(task, belief, hash(task, belief)))
+            size++;
+
+        while (size > capacity) {
+            if (!clearOldest())
+                break;
+        }
+    }
+
+    /** number of pairs recorded, including those which have expired but not been cleared */
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < buckets.length; i++)
+            clear(i);
+    }
+
+    private void clear(final int b) {
+        size -= buckets[b].size;
+        buckets[b].clear();
+        times[b] = Long.MIN_VALUE;
+    }
+
+    private boolean clearOldest() {
+        int oldest = -1;
+        for (int i = 0; i < buckets.length; i++) {
+            if ((times[i] != Long.MIN_VALUE) && ((oldest == -1) || (times[i] < times[oldest])))
+                oldest = i;
+        }
+        if (oldest == -1)
+            return false;
+        clear(oldest);
+        return true;
+    }
+
+    private static int hash(final Sentence task, final Term belief) {
+        int h = System.identityHashCode(task) * 31 + belief.hashCode();
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** open-addressing set of pairs, which records its filled slots for clear() */
+    private static final class Bucket implements Serializable {
+        private Sentence[] tasks = new Sentence[16];
+        private Term[] beliefs = new Term[16];
+        private int[] filled = new int[8];
+        int size;
+
+        private int slot(final Sentence task, final Term belief, final int hash) {
+            final int mask = tasks.length - 1;
+            int i = hash & mask;
+            while (tasks[i] != null) {
+                if ((tasks[i] == task) && beliefs[i].equals(belief))
+                    return i;
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        boolean contains(final Sentence task, final Term belief, final int hash) {
+            return (size > 0) && (tasks[slot(task, belief, hash)] != null);
+        }
+
+        /** @return whether the pair was not already present */
+        boolean add(final Sentence task, final Term belief, final int hash) {
+            if ((size + 1) * 2 > tasks.length)
+                resize();
+
+            final int i = slot(task, belief, hash);
+            if (tasks[i] != null)
+                return false;
+            tasks[i] = task;
+            beliefs[i] = belief;
+            if (size == filled.length)
+                filled = Arrays.copyOf(filled, size * 2);
+            filled[size++] = i;
+            return true;
+        }
+
+        private void resize() {
+            final Sentence[] t = tasks;
+            final Term[] b = beliefs;
+            final int n = size;
+            final int[] f = Arrays.copyOf(filled, n);
+            tasks = new Sentence[t.length * 2];
+            beliefs = new Term[t.length * 2];
+            size = 0;
+            for (int j = 0; j < n; j++)
+                add(t[f[j]], b[f[j]], hash(t[f[j]], b[f[j]]));
+        }
+
+        void clear() {
+            for (int j = 0; j < size; j++) {
+                tasks[filled[j]] = null;
+                beliefs[filled[j]] = null;
+            }
+            size = 0;
+        }
+    }
+
+}
@@ -0,0 +1,477 @@
+package nars.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import nars.core.Memory;
+import nars.entity.Concept;
+import nars.entity.Sentence;
+import nars.entity.Task;
+import nars.io.Symbols;
+import nars.language.CompoundTerm;
+import nars.language.Image;
+import nars.language.Term;
+import nars.language.Variable;
+import nars.language.Variables;
+
+/**
+ * The open questions (and quests) of a memory, and its concepts which have
+ * beliefs or desires, indexed by the structure of their terms so that a new
+ * belief is matched only against the questions it can answer, and a question
+ * with query variables finds the concepts which can answer it without
+ * following term links.
+ * <p>
+ * Each index is a discrimination tree: a term is a path of the symbols of its
+ * subterms in preorder, where a compound is a symbol of its operator and
+ * number of components, an atomic term is itself, and a query variable is a
+ * wildcard which stands for any one subterm.  A commutative compound which
+ * contains a query variable is a wildcard too, since its components may be
+ * unified in any order.  A term found by its path is then unified with the
+ * query variables of the question, as LocalRules.match does, which rejects
+ * the few whose repeated variables do not unify.
+ * <p>
+ * Entries are not removed when their concept is forgotten.  A lookup skips
+ * those whose concept is not in the memory (which includes a concept while
+ * it is fired), and removes questions which their concept no longer has.
+ * The indices are swept of the entries of concepts not in the memory
+ * whenever they have grown to twice their size at the previous sweep; since
+ * that may remove a concept which is being fired, concepts and questions are
+ * indexed again each time they are processed, which adds them only once.
+ * <p>
+ * Lookups share a read lock, and additions, removals and sweeps take the
+ * write lock, except that an entry which is already indexed is found under
+ * the read lock.  The path of a term is kept for each thread.
+ */
+public class QuestionIndex {
+
+    /** a question, and the concept which has it */
+    private static final class Question {
+        final Concept concept;
+        final Task task;
+
+        Question(final Concept concept, final Task task) {
+            this.concept = concept;
+            this.task = task;
+        }
+    }
+
+    /** the path of a term being added or looked up, and the values found by it */
+    private static final class Path {
+        Term[] terms = new Term[16];
+        /** index of the subterm after each, which a wildcard skips to */
+        int[] next = new int[16];
+        int length;
+        final List<Object> found = new ArrayList();
+
+        /** sets the path of a term, whose query variables are wildcards if it is a question */
+        Path set(final Term t, final boolean wildcards) {
+            length = 0;
+            append(t, wildcards);
+            return this;
+        }
+
+        private void append(final Term t, final boolean wildcards) {
+            if (length == terms.length) {
+                terms = Arrays.copyOf(terms, length * 2);
+                next = Arrays.copyOf(next, length * 2);
+            }
+            final int i = length++;
+            terms[i] = t;
+            if ((t instanceof CompoundTerm) && !(wildcards && isWildcard(t))) {
+                for (final Term x : ((CompoundTerm)t).term)
+                    append(x, wildcards);
+            }
+            next[i] = length;
+        }
+    }
+
+    private static final ThreadLocal<Path> paths = new ThreadLocal<Path>() {
+        @Override protected Path initialValue() {
+            return new Path();
+        }
+    };
+
+    private static final int MIN_SWEEP = 256;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node<Question> questions = new Node();
+    private final Node<Concept> concepts = new Node();
+    private volatile int size;
+    private volatile int sweepAt = MIN_SWEEP;
+
+    /** indexes a question of a concept's questions, once */
+    public void addQuestion(final Concept c, final Task question) {
+        final Path p = paths.get().set(question.sentence.term, true);
+        lock.readLock().lock();
+        try {
+            if (indexOf(find(questions, p), question) != -1)
+                return;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            putQuestion(c, question, p);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** removes a question which a concept has removed from its questions */
+    public void removeQuestion(final Task question) {
+        final Path p = paths.get().set(question.sentence.term, true);
+        lock.writeLock().lock();
+        try {
+            final Node<Question> n = find(questions, p);
+            final int i = indexOf(n, question);
+            if (i != -1) {
+                n.values.remove(i);
+                size--;
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** indexes a concept which has beliefs or desires, once */
+    public void addConcept(final Concept c) {
+        final Path p = paths.get().set(c.term, true);
+        lock.readLock().lock();
+        try {
+            final Node<Concept> n = find(concepts, p);
+            if ((n != null) && n.values.contains(c))
+                return;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            putConcept(c, p);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The questions which a belief (or desire) can answer: those of terms
+     * equal to its term, or which unify with it by their query variables,
+     * except those of a concept (ex: that of the belief, which tries its own
+     * questions).
+     */
+    public void questions(final Sentence belief, final Concept exclude, final Memory memory, final List<Task> result) {
+        sweepIfGrown(memory);
+
+        final Path p = paths.get().set(belief.term, false);
+        final List<Object> found = p.found;
+        List<Task> removed = null;
+        lock.readLock().lock();
+        try {
+            generalizations(questions, p, 0);
+            for (int i = 0; i < found.size(); i++) {
+                final Question q = (Question)found.get(i);
+                if (q.concept == exclude)
+                    continue;
+                if (!hasQuestion(q)) {
+                    if (removed == null)
+                        removed = new ArrayList(1);
+                    removed.add(q.task);
+                    continue;
+                }
+                if ((memory.concept(q.concept.term) == q.concept) && unifies(q.task.sentence.term, belief.term))
+                    result.add(q.task);
+            }
+        }
+        finally {
+            lock.readLock().unlock();
+            found.clear();
+        }
+
+        if (removed != null) {
+            for (final Task t : removed)
+                removeQuestion(t);
+        }
+    }
+
+    /**
+     * The concepts whose beliefs or desires can answer a question: those of
+     * terms equal to its term, or which unify with it by its query variables.
+     */
+    public void concepts(final Sentence question, final Memory memory, final List<Concept> result) {
+        sweepIfGrown(memory);
+
+        final Path p = paths.get().set(question.term, true);
+        final List<Object> found = p.found;
+        lock.readLock().lock();
+        try {
+            instances(concepts, p, 0);
+            for (int i = 0; i < found.size(); i++) {
+                final Concept c = (Concept)found.get(i);
+                if ((memory.concept(c.term) == c) && unifies(question.term, c.term))
+                    result.add(c);
+            }
+        }
+        finally {
+            lock.readLock().unlock();
+            found.clear();
+        }
+    }
+
+    /** number of entries, including those which are stale but have not been removed */
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            questions.clear();
+            concepts.clear();
+            size = 0;
+            sweepAt = MIN_SWEEP;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** whether a concept still has a question, synchronized on its questions as Concept modifies them */
+    private static boolean hasQuestion(final Question q) {
+        final List<Task> l = q.concept.questions;
+        synchronized (l) {
+            for (int i = 0; i < l.size(); i++) {
+                if (l.get(i) == q.task)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean unifies(final Term question, final Term answer) {
+        if (!question.hasVarQuery())
+            return true; //its path is that of the answer
+        return Variables.unify(Symbols.VAR_QUERY, new Term[] { question, answer });
+    }
+
+    private static int indexOf(final Node<Question> n, final Task question) {
+        if (n != null) {
+            for (int i = 0; i < n.values.size(); i++) {
+                if (n.values.get(i).task == question)
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    private void putQuestion(final Concept c, final Task question, final Path p) {
+        final Node<Question> n = add(questions, p);
+        if (indexOf(n, question) != -1)
+            return;
+        n.values.add(new Question(c, question));
+        size++;
+    }
+
+    private void putConcept(final Concept c, final Path p) {
+        final Node<Concept> n = add(concepts, p);
+        if (n.values.contains(c))
+            return;
+        //a concept of the same term which was forgotten
+        size -= n.values.size();
+        n.values.clear();
+        n.values.add(c);
+        size++;
+    }
+
+    private void sweepIfGrown(final Memory memory) {
+        if (size <= sweepAt)
+            return;
+        lock.writeLock().lock();
+        try {
+            if (size > sweepAt)
+                sweep(memory);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** removes the stale entries of both indices, under the write lock */
+    private void sweep(final Memory memory) {
+        final List<Question> q = new ArrayList();
+        final List<Concept> c = new ArrayList();
+        questions.collect(q);
+        concepts.collect(c);
+        questions.clear();
+        concepts.clear();
+        size = 0;
+
+        final Path p = paths.get();
+        for (final Question x : q) {
+            if (hasQuestion(x) && (memory.concept(x.concept.term) == x.concept))
+                putQuestion(x.concept, x.task, p.set(x.task.sentence.term, true));
+        }
+        for (final Concept x : c) {
+            if (memory.concept(x.term) == x)
+                putConcept(x, p.set(x.term, true));
+        }
+        sweepAt = Math.max(MIN_SWEEP, size * 2);
+    }
+
+    private static boolean isWildcard(final Term t) {
+        if (t instanceof Variable)
+            return ((Variable)t).getType() == Symbols.VAR_QUERY;
+        return (t instanceof CompoundTerm) && ((CompoundTerm)t).isCommutative() && t.hasVarQuery();
+    }
+
+    /** the symbol of a compound: its operator, relation index if it is an image, and number of components */
+    private static long key(final CompoundTerm t) {
+        final int relation = (t instanceof Image) ? ((Image)t).relationIndex + 1 : 0;
+        return ((long)t.operator().ordinal() << 32) | ((long)relation << 16) | t.term.length;
+    }
+
+    private static int arity(final long key) {
+        return (int)(key & 0xFFFF);
+    }
+
+    private static <E> Node<E> add(final Node<E> root, final Path p) {
+        Node<E> n = root;
+        for (int i = 0; i < p.length; i++)
+            n = n.add(p.terms[i]);
+        return n;
+    }
+
+    private static <E> Node<E> find(final Node<E> root, final Path p) {
+        Node<E> n = root;
+        for (int i = 0; (i < p.length) && (n != null); i++)
+            n = n.get(p.terms[i]);
+        return n;
+    }
+
+    /** collects the values of the paths which match the path from i, with wildcards */
+    private static void generalizations(final Node<?> n, final Path p, final int i) {
+        if (i == p.length) {
+            p.found.addAll(n.values);
+            return;
+        }
+        if (n.any != null)
+            generalizations(n.any, p, p.next[i]);
+        final Node<?> c = n.get(p.terms[i]);
+        if (c != null)
+            generalizations(c, p, i + 1);
+    }
+
+    /** collects the values of the paths which the path from i, with wildcards, matches */
+    private static void instances(final Node<?> n, final Path p, final int i) {
+        if (i == p.length) {
+            p.found.addAll(n.values);
+            return;
+        }
+        if (isWildcard(p.terms[i])) {
+            skip(n, p, 1, p.next[i]);
+        }
+        else {
+            final Node<?> c = n.get(p.terms[i]);
+            if (c != null)
+                instances(c, p, i + 1);
+        }
+    }
+
+    /** skips a number of subterms of the paths from a node, and continues at i */
+    private static void skip(final Node<?> n, final Path p, final int terms, final int i) {
+        if (terms == 0) {
+            instances(n, p, i);
+            return;
+        }
+        if (n.atoms != null) {
+            for (final Node<?> c : n.atoms.values())
+                skip(c, p, terms - 1, i);
+        }
+        for (int j = 0; j < n.compoundCount; j++)
+            skip(n.compounds[j], p, terms - 1 + arity(n.compoundKeys[j]), i);
+        if (n.any != null)
+            skip(n.any, p, terms - 1, i);
+    }
+
+    /** a node of a discrimination tree, whose values are those of the path to it */
+    private static final class Node<E> {
+        HashMap<Term, Node<E>> atoms;
+        long[] compoundKeys;
+        Node<E>[] compounds;
+        int compoundCount;
+        Node<E> any;
+        final List<E> values = new ArrayList(1);
+
+        Node<E> get(final Term t) {
+            if (isWildcard(t))
+                return any;
+            if (t instanceof CompoundTerm) {
+                final long k = key((CompoundTerm)t);
+                for (int i = 0; i < compoundCount; i++) {
+                    if (compoundKeys[i] == k)
+                        return compounds[i];
+                }
+                return null;
+            }
+            return (atoms != null) ? atoms.get(t) : null;
+        }
+
+        Node<E> add(final Term t) {
+            Node<E> n = get(t);
+            if (n != null)
+                return n;
+
+            n = new Node();
+            if (isWildcard(t)) {
+                any = n;
+            }
+            else if (t instanceof CompoundTerm) {
+                if (compoundKeys == null) {
+                    compoundKeys = new long[2];
+                    compounds = new Node[2];
+                }
+                else if (compoundCount == compoundKeys.length) {
+                    compoundKeys = Arrays.copyOf(compoundKeys, compoundCount * 2);
+                    compounds = Arrays.copyOf(compounds, compoundCount * 2);
+                }
+                compoundKeys[compoundCount] = key((CompoundTerm)t);
+                compounds[compoundCount++] = n;
+            }
+            else {
+                if (atoms == null)
+                    atoms = new HashMap(4);
+                atoms.put(t, n);
+            }
+            return n;
+        }
+
+        void collect(final List<E> result) {
+            result.addAll(values);
+            if (atoms != null) {
+                for (final Node<E> c : atoms.values())
+                    c.collect(result);
+            }
+            for (int i = 0; i < compoundCount; i++)
+                compounds[i].collect(result);
+            if (any != null)
+                any.collect(result);
+        }
+
+        void clear() {
+            atoms = null;
+            compoundKeys = null;
+            compounds = null;
+            compoundCount = 0;
+            any = null;
+            values.clear();
+        }
+    }
+
+}
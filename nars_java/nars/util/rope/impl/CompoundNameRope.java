@@ -0,0 +1,387 @@
+package nars.util.rope.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Iterator;
+import nars.util.rope.Rope;
+
+/**
+ * The name of a compound term, as a rope of the names of its components:
+ * a prefix, the parts joined by a separator, and a suffix, ex: "(&amp;&amp;,"
+ * a "," b ")".  The parts are shared with the components, whose names are
+ * themselves Strings or CompoundNameRopes, so making a name takes time and
+ * space in proportion to the number of components rather than the length of
+ * the name.
+ * <p>
+ * The length and hash code are computed from those of the parts when the
+ * rope is made.  The hash code is that of the String of the same
+ * characters.  A rope is only equal to a rope of the same characters, since
+ * a String is never equal to a rope, so names of compound terms (which are
+ * always ropes) must not be mixed with Strings as keys; compareTo() and
+ * Texts.compareTo compare them with any CharSequence.  Equality compares
+ * the parts before their characters, and the characters are only copied
+ * into a String by toString(), for output, which keeps it.
+ */
+public final class CompoundNameRope extends AbstractRope {
+
+    private final String prefix, separator, suffix;
+    private final CharSequence[] parts;
+    private final int length;
+    private final int hash;
+    private final byte depth;
+    /** the characters as a String, once toString() has made it */
+    private transient String string;
+
+    public CompoundNameRope(final String prefix, final String separator, final String suffix, final CharSequence... parts) {
+        if (parts.length == 0)
+            throw new IllegalArgumentException("CompoundNameRope requires at least one part");
+
+        this.prefix = prefix;
+        this.separator = separator;
+        this.suffix = suffix;
+        this.parts = parts;
+
+        int l = prefix.length() + suffix.length() + separator.length() * (parts.length - 1);
+        int h = prefix.hashCode();
+        final int sepHash = separator.hashCode();
+        byte d = 0;
+        for (int i = 0; i < parts.length; i++) {
+            final CharSequence p = parts[i];
+            if (i > 0)
+                h = concatHash(h, separator.length(), sepHash);
+            final int pl = p.length();
+            h = concatHash(h, pl, hash(p));
+            l += pl;
+            if (p instanceof CompoundNameRope)
+                d = (byte)Math.max(d, ((CompoundNameRope)p).depth);
+        }
+        this.length = l;
+        this.hash = concatHash(h, suffix.length(), suffix.hashCode());
+        this.depth = (byte)(d + 1);
+    }
+
+    /** the hash of a String of the characters of a sequence */
+    static int hash(final CharSequence s) {
+        if ((s instanceof String) || (s instanceof CompoundNameRope))
+            return s.hashCode();
+        int h = 0;
+        for (int i = 0; i < s.length(); i++)
+            h = 31 * h + s.charAt(i);
+        return h;
+    }
+
+    /** the String hash of x + y, from that of x, and the length and hash of y */
+    static int concatHash(final int xHash, final int yLength, final int yHash) {
+        return xHash * pow31(yLength) + yHash;
+    }
+
+    static int pow31(int n) {
+        int r = 1, b = 31;
+        while (n > 0) {
+            if ((n & 1) != 0) r *= b;
+            b *= b;
+            n >>= 1;
+        }
+        return r;
+    }
+
+    /** number of segments: the prefix, the parts and the separators between them, and the suffix */
+    private int segments() {
+        return parts.length * 2 + 1;
+    }
+
+    private CharSequence segment(final int i) {
+        if (i == 0)
+            return prefix;
+        if ((i & 1) == 1)
+            return parts[i >> 1];
+        return (i == parts.length * 2) ? suffix : separator;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public byte depth() {
+        return depth;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if ((index < 0) || (index >= length))
+            throw new IndexOutOfBoundsException("Rope index out of range: " + index);
+
+        CompoundNameRope r = this;
+        while (true) {
+            final int n = r.segments();
+            for (int i = 0; i < n; i++) {
+                final CharSequence s = r.segment(i);
+                final int l = s.length();
+                if (index < l) {
+                    if (s instanceof CompoundNameRope) {
+                        r = (CompoundNameRope)s;
+                        break;
+                    }
+                    return s.charAt(index);
+                }
+                index -= l;
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (other == this) return true;
+        if (!(other instanceof CompoundNameRope)) return false;
+
+        final CompoundNameRope r = (CompoundNameRope)other;
+        if ((r.length != length) || (r.hash != hash))
+            return false;
+
+        if (sameStructure(r)) {
+            for (int i = 0; i < parts.length; i++) {
+                final CharSequence p = parts[i];
+                if ((p != r.parts[i]) && !p.equals(r.parts[i]))
+                    return false;
+            }
+            return true;
+        }
+
+        return compareTo(r) == 0;
+    }
+
+    private boolean sameStructure(final CompoundNameRope r) {
+        return (parts.length == r.parts.length) && prefix.equals(r.prefix) &&
+                separator.equals(r.separator) && suffix.equals(r.suffix);
+    }
+
+    @Override
+    public int compareTo(final CharSequence other) {
+        if (other == this) return 0;
+
+        final int d = firstDifference(this, other);
+        if (d != 0)
+            return d;
+
+        final Cursor a = new Cursor(this);
+        if (other instanceof CompoundNameRope) {
+            final Cursor b = new Cursor((CompoundNameRope)other);
+            while (true) {
+                final int x = a.next(), y = b.next();
+                if ((x != y) || (x == -1))
+                    return compareChars(x, y);
+            }
+        }
+
+        final int l = other.length();
+        for (int i = 0; i < l; i++) {
+            final int x = a.next();
+            if (x == -1)
+                return -1;
+            final char y = other.charAt(i);
+            if (x != y)
+                return x - y;
+        }
+        return (a.next() == -1) ? 0 : 1;
+    }
+
+    /**
+     * The difference of the first characters which differ, if they are in
+     * the leading Strings of both, or of their first parts when their
+     * prefixes are equal; otherwise 0.  Most names differ there, which is
+     * found without iterating their characters.
+     */
+    private static int firstDifference(CharSequence a, CharSequence b) {
+        while (true) {
+            final String x = leading(a), y = leading(b);
+            if ((x == null) || (y == null))
+                return 0;
+
+            final int l = Math.min(x.length(), y.length());
+            for (int i = 0; i < l; i++) {
+                final int d = x.charAt(i) - y.charAt(i);
+                if (d != 0)
+                    return d;
+            }
+
+            if ((a instanceof CompoundNameRope) && (b instanceof CompoundNameRope) && (x.length() == y.length())) {
+                a = ((CompoundNameRope)a).parts[0];
+                b = ((CompoundNameRope)b).parts[0];
+                if (a == b)
+                    return 0;
+            }
+            else {
+                return 0;
+            }
+        }
+    }
+
+    /** the String which a sequence begins with: itself, or the prefix of a rope */
+    private static String leading(final CharSequence s) {
+        if (s instanceof CompoundNameRope)
+            return ((CompoundNameRope)s).prefix;
+        if (s instanceof String)
+            return (String)s;
+        return null;
+    }
+
+    /** as String.compareTo, which compares the lengths after a common prefix */
+    private static int compareChars(final int x, final int y) {
+        if (x == -1) return (y == -1) ? 0 : -1;
+        if (y == -1) return 1;
+        return x - y;
+    }
+
+    /** Iterates the characters of a rope, one part after another */
+    private static final class Cursor {
+        private CompoundNameRope[] nodes = new CompoundNameRope[4];
+        private int[] next = new int[4];
+        private int depth = 0;
+        private CharSequence leaf;
+        private int position;
+
+        Cursor(final CompoundNameRope r) {
+            push(r);
+        }
+
+        private void push(final CompoundNameRope r) {
+            if (depth == nodes.length) {
+                nodes = Arrays.copyOf(nodes, depth * 2);
+                next = Arrays.copyOf(next, depth * 2);
+            }
+            nodes[depth] = r;
+            next[depth++] = 0;
+        }
+
+        /** the next character, or -1 at the end */
+        int next() {
+            while (true) {
+                if ((leaf != null) && (position < leaf.length()))
+                    return leaf.charAt(position++);
+
+                if (depth == 0)
+                    return -1;
+
+                final CompoundNameRope r = nodes[depth - 1];
+                final int i = next[depth - 1]++;
+                if (i == r.segments()) {
+                    nodes[--depth] = null;
+                    continue;
+                }
+
+                final CharSequence s = r.segment(i);
+                if (s instanceof CompoundNameRope) {
+                    leaf = null;
+                    push((CompoundNameRope)s);
+                }
+                else {
+                    leaf = s;
+                    position = 0;
+                }
+            }
+        }
+    }
+
+    /** copies the characters into an array, at an offset */
+    public void getChars(final char[] dst, int offset) {
+        final int n = segments();
+        for (int i = 0; i < n; i++) {
+            final CharSequence s = segment(i);
+            if (s instanceof CompoundNameRope) {
+                ((CompoundNameRope)s).getChars(dst, offset);
+            }
+            else if (s instanceof String) {
+                ((String)s).getChars(0, s.length(), dst, offset);
+            }
+            else {
+                for (int j = 0; j < s.length(); j++)
+                    dst[offset + j] = s.charAt(j);
+            }
+            offset += s.length();
+        }
+    }
+
+    /** appends the characters to a StringBuilder, without copying them to a String */
+    public StringBuilder appendTo(final StringBuilder b) {
+        final int n = segments();
+        for (int i = 0; i < n; i++) {
+            final CharSequence s = segment(i);
+            if (s instanceof CompoundNameRope)
+                ((CompoundNameRope)s).appendTo(b);
+            else
+                b.append(s);
+        }
+        return b;
+    }
+
+    @Override
+    public String toString() {
+        String s = string;
+        if (s == null) {
+            final char[] c = new char[length];
+            getChars(c, 0);
+            string = s = new String(c);
+        }
+        return s;
+    }
+
+    private Rope flat() {
+        final char[] c = new char[length];
+        getChars(c, 0);
+        return new CharArrayRope(c);
+    }
+
+    @Override
+    public Iterator<Character> iterator(final int start) {
+        return flat().iterator(start);
+    }
+
+    @Override
+    public Iterator<Character> reverseIterator(final int start) {
+        return flat().reverseIterator(start);
+    }
+
+    @Override
+    public Rope rebalance() {
+        //the structure is that of the term
+        return this;
+    }
+
+    @Override
+    public Rope reverse() {
+        return flat().reverse();
+    }
+
+    @Override
+    public Rope subSequence(final int start, final int end) {
+        if ((start == 0) && (end == length))
+            return this;
+        return flat().subSequence(start, end);
+    }
+
+    @Override
+    public void write(final Writer out) throws IOException {
+        final int n = segments();
+        for (int i = 0; i < n; i++) {
+            final CharSequence s = segment(i);
+            if (s instanceof CompoundNameRope)
+                ((CompoundNameRope)s).write(out);
+            else
+                out.append(s);
+        }
+    }
+
+    @Override
+    public void write(final Writer out, final int offset, final int length) throws IOException {
+        flat().write(out, offset, length);
+    }
+
+}
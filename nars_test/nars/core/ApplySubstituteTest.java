@@ -5,8 +5,14 @@ import java.util.Map;
 import nars.core.NAR;
 import nars.core.build.Default;
 import nars.io.narsese.Narsese;
+import nars.io.Symbols;
 import nars.language.CompoundTerm;
+import nars.language.Substitution;
 import nars.language.Term;
+import nars.language.Variables;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
@@ -51,4 +57,50 @@ public class ApplySubstituteTest {
         
         assertTrue(c!=null);
     }
+    
+    @Test
+    public void testSubstitutionUndo() {
+        Substitution s = Substitution.acquire();
+        
+        //enough keys to grow it
+        for (int i = 0; i < 40; i++)
+            s.put(Term.get("k" + i), Term.get("v" + i));
+        assertEquals(40, s.size());
+        assertEquals(Term.get("v7"), s.get(Term.get("k7")));
+        
+        int m = s.mark();
+        s.put(Term.get("k7"), Term.get("x"));
+        s.put(Term.get("k40"), Term.get("v40"));
+        assertEquals(Term.get("x"), s.get(Term.get("k7")));
+        assertEquals(41, s.size());
+        
+        s.undo(m);
+        assertEquals(40, s.size());
+        assertEquals(Term.get("v7"), s.get(Term.get("k7")));
+        assertFalse(s.containsKey(Term.get("k40")));
+        for (int i = 0; i < 40; i++)
+            assertEquals(Term.get("v" + i), s.get(Term.get("k" + i)));
+        
+        s.release();
+        assertTrue(s.isEmpty());
+        assertNull(s.get(Term.get("k0")));
+    }
+    
+    @Test
+    public void testFindSubstituteUndoesFailedCompound() throws Narsese.InvalidInputException {
+        Substitution a = Substitution.acquire(), b = Substitution.acquire();
+        
+        //$1 is bound to x before the second component fails to unify
+        assertFalse(Variables.findSubstitute(Symbols.VAR_INDEPENDENT, 
+                np.parseTerm("(*,$1,y)"), np.parseTerm("(*,x,z)"), a, b));
+        assertTrue(a.isEmpty());
+        assertTrue(b.isEmpty());
+        
+        assertTrue(Variables.findSubstitute(Symbols.VAR_INDEPENDENT, 
+                np.parseTerm("(*,$1,y)"), np.parseTerm("(*,x,y)"), a, b));
+        assertEquals(np.parseTerm("x"), a.get(np.parseTerm("$1")));
+        
+        b.release();
+        a.release();
+    }
 }
@@ -0,0 +1,202 @@
+package nars.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import nars.core.EventEmitter.EventObserver;
+import nars.core.build.Default;
+import nars.entity.Sentence;
+import nars.entity.Task;
+import nars.io.BinaryDecoder;
+import nars.io.BinaryEncoder;
+import nars.io.BinaryInput;
+import nars.io.BinaryOutput;
+import nars.io.Output.IN;
+import nars.io.Output.OUT;
+import nars.io.TextOutput;
+import nars.io.narsese.Narsese.InvalidInputException;
+import nars.io.narsese.NarseseReader;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class BinaryCodecTest {
+
+    static final String[] tasks = {
+        "<bird --> animal>. %0.90;0.80%",
+        "<<$x --> bird> ==> <(*,$x,$y) --> [friends]>>.",
+        "$0.70;0.40$ <(*,{tom},(&,[red],apple)) --> eat>?",
+        "<(&/,<(*,SELF,{t002}) --> hold>,+5,(^pick,{t001})) =/> <{t001} --> [opened]>>!",
+        "<robin --> (/,eat,_,worm)>. :|:",
+        "<(\\,eat,worm,_) --> robin>. :\\:",
+        "(--,<a <-> b>). %0;0.9%",
+        "(&|,<#1 --> b>,(||,c,(-,d,e),(~,f,g))). :/:",
+        "<(|,a,b) <=> <?x --> c>>@",
+        "<\"hello world\" --> word>."
+    };
+
+    final NAR n = new NAR(new Default());
+
+    List<Task> parse() throws InvalidInputException {
+        final NarseseReader r = new NarseseReader(n);
+        final List<Task> l = new ArrayList();
+        for (final String s : tasks) {
+            final Task t = r.parseTask(s);
+            final Sentence x = t.sentence;
+            //as when it is input
+            x.stamp.setCreationTime(n.time() + l.size(), n.memory.param.duration.get());
+            l.add(new Task(new Sentence(x.term, x.punctuation, x.truth, x.stamp), t.budget));
+        }
+        return l;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException, InvalidInputException {
+        final List<Task> l = parse();
+
+        final ByteArrayOutputStream b = new ByteArrayOutputStream();
+        final BinaryEncoder e = new BinaryEncoder(b);
+        for (final Task t : l)
+            e.writeTask(t);
+        e.write(OUT.class, l.get(1), l.get(0).sentence);
+        e.write(OUT.class, "text");
+        e.flush();
+
+        final BinaryDecoder d = new BinaryDecoder(new NAR(new Default()).memory, new ByteArrayInputStream(b.toByteArray()));
+        for (final Task t : l)
+            assertSameTask(t, (Task)d.read());
+        assertNull(d.getChannel());
+
+        final Object[] answer = (Object[])d.read();
+        assertEquals(OUT.class, d.getChannel());
+        assertSameTask(l.get(1), (Task)answer[0]);
+        assertSameSentence(l.get(0).sentence, (Sentence)answer[1]);
+
+        assertEquals("text", d.read());
+        assertNull(d.read());
+    }
+
+    @Test
+    public void testTermReferences() throws IOException, InvalidInputException {
+        final Task t = parse().get(3);
+        final ByteArrayOutputStream b = new ByteArrayOutputStream();
+        final BinaryEncoder e = new BinaryEncoder(b);
+
+        e.writeTask(t);
+        e.flush();
+        final int first = b.size();
+        e.writeTask(t);
+        e.flush();
+        final int second = b.size() - first;
+
+        //the second time, the term is a single reference
+        assertTrue(second < first / 2);
+        assertTrue(second < TextOutput.getOutputString(OUT.class, t, false, true, n).length());
+
+        final BinaryDecoder d = new BinaryDecoder(n.memory, new ByteArrayInputStream(b.toByteArray()));
+        final Task a = (Task)d.read();
+        //constant terms are interned
+        assertSame(t.getTerm(), a.getTerm());
+        assertSame(a.getTerm(), ((Task)d.read()).getTerm());
+    }
+
+    @Test
+    public void testTermTableReset() throws IOException, InvalidInputException {
+        final List<Task> l = parse();
+        final ByteArrayOutputStream b = new ByteArrayOutputStream();
+        final BinaryEncoder e = new BinaryEncoder(b, 8);
+        for (int i = 0; i < 3; i++)
+            for (final Task t : l)
+                e.writeTask(t);
+        e.flush();
+
+        final BinaryDecoder d = new BinaryDecoder(n.memory, new ByteArrayInputStream(b.toByteArray()));
+        for (int i = 0; i < 3; i++)
+            for (final Task t : l)
+                assertSameTask(t, d.readNextTask());
+        assertNull(d.readNextTask());
+    }
+
+    /** records which arrive in pieces are read once they are complete */
+    @Test
+    public void testBufferPieces() throws IOException, InvalidInputException {
+        final List<Task> l = parse();
+        final ByteArrayOutputStream b = new ByteArrayOutputStream();
+        final BinaryEncoder e = new BinaryEncoder(b, 8);
+        for (int i = 0; i < 2; i++)
+            for (final Task t : l)
+                e.writeTask(t);
+        e.flush();
+        final byte[] x = b.toByteArray();
+
+        final BinaryDecoder d = new BinaryDecoder(n.memory);
+        final ByteBuffer buffer = ByteBuffer.allocate(x.length);
+        buffer.flip();
+        final List<Task> read = new ArrayList();
+        for (int i = 0; i < x.length; i += 3) {
+            //append the next piece
+            buffer.compact().put(x, i, Math.min(3, x.length - i)).flip();
+            Object o;
+            while ((o = d.read(buffer)) != null)
+                read.add((Task)o);
+        }
+
+        assertEquals(l.size() * 2, read.size());
+        for (int i = 0; i < read.size(); i++)
+            assertSameTask(l.get(i % l.size()), read.get(i));
+    }
+
+    /** one reasoner's output is input to another */
+    @Test
+    public void testPipeline() throws IOException {
+        final ByteArrayOutputStream b = new ByteArrayOutputStream();
+        new BinaryOutput(n, b);
+        n.addInput("<a --> b>.\n<b --> c>.\n<a --> c>?\n");
+        n.run(50);
+
+        final NAR m = new NAR(new Default());
+        final List<Task> input = new ArrayList();
+        m.memory.event.on(IN.class, new EventObserver() {
+            @Override public void event(Class event, Object[] args) {
+                if (args[0] instanceof Task)
+                    input.add((Task)args[0]);
+            }
+        });
+        m.addInput(new BinaryInput(m, new ByteArrayInputStream(b.toByteArray())));
+        m.run(10);
+
+        assertTrue(input.size() > 3);
+        long lastSerial = -1;
+        for (final Task t : input) {
+            //new stamps, as if the tasks were input as text
+            assertEquals(1, t.sentence.stamp.evidentialBase.length);
+            assertTrue(t.sentence.stamp.evidentialBase[0] > lastSerial);
+            lastSerial = t.sentence.stamp.evidentialBase[0];
+        }
+    }
+
+    static void assertSameTask(final Task expected, final Task actual) {
+        assertSameSentence(expected.sentence, actual.sentence);
+        assertEquals(expected.getPriority(), actual.getPriority(), 0.0001);
+        assertEquals(expected.getDurability(), actual.getDurability(), 0.0001);
+        assertEquals(expected.getQuality(), actual.getQuality(), 0.0001);
+    }
+
+    static void assertSameSentence(final Sentence expected, final Sentence actual) {
+        assertEquals(expected, actual);
+        assertEquals(expected.term.getClass(), actual.term.getClass());
+        assertEquals(expected.truth, actual.truth);
+        assertArrayEquals(expected.stamp.evidentialBase, actual.stamp.evidentialBase);
+        assertEquals(expected.stamp.getCreationTime(), actual.stamp.getCreationTime());
+        assertEquals(expected.stamp.getOccurrenceTime(), actual.stamp.getOccurrenceTime());
+        assertEquals(expected.stamp.getTense(), actual.stamp.getTense());
+    }
+
+}
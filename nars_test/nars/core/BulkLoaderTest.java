@@ -0,0 +1,86 @@
+package nars.core;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import nars.core.EventEmitter.EventObserver;
+import nars.core.build.Default;
+import nars.entity.Task;
+import nars.io.BulkLoader;
+import nars.io.Output.IN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class BulkLoaderTest {
+
+    @Test
+    public void testLoad() throws IOException {
+        File f = File.createTempFile("bulk", ".nal");
+        f.deleteOnExit();
+        int lines = 0;
+        try (Writer w = new FileWriter(f)) {
+            w.write("'a comment\n\n"); lines += 2;
+            for (int i = 0; i < 500; i++) {
+                w.write("<x" + i + " --> y" + (i % 7) + ">.\n"); lines++;
+                if (i % 100 == 0) {
+                    w.write("10\r\n"); lines++;
+                    w.write("<broken --> \n"); lines++;
+                }
+            }
+            w.write("<last --> y0>?"); lines++;
+        }
+
+        NAR n = new NAR(new Default());
+        final List<Task> input = new ArrayList();
+        n.memory.event.on(IN.class, new EventObserver() {
+            @Override public void event(Class event, Object[] args) {
+                if (args[0] instanceof Task)
+                    input.add((Task)args[0]);
+            }
+        });
+
+        //small chunks, so that lines cross their boundaries, and few new tasks, so that input waits for the NAR
+        BulkLoader l = new BulkLoader(n, f, 4, 100, 1024, 16);
+        assertEquals(501, l.load());
+        assertEquals(lines, l.getLines());
+        assertEquals(501, l.getTasks());
+        assertEquals(5, l.getErrors());
+        assertNotNull(l.getFirstError());
+        assertEquals(f.length(), l.getBytes());
+        assertTrue(n.time() > 0);
+
+        //input in the order of the file, with unique stamp serials
+        assertEquals(501, input.size());
+        Set<Long> serials = new HashSet();
+        for (int i = 0; i < 500; i++) {
+            assertEquals("<x" + i + " --> y" + (i % 7) + ">", input.get(i).sentence.term.toString());
+            assertTrue(serials.add(input.get(i).sentence.stamp.evidentialBase[0]));
+        }
+        assertEquals("<last --> y0>", input.get(500).sentence.term.toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void testLongLine() throws IOException {
+        File f = File.createTempFile("bulk", ".nal");
+        f.deleteOnExit();
+        try (Writer w = new FileWriter(f)) {
+            for (int i = 0; i < 50; i++)
+                w.write("<x" + i + " --> y>.\n");
+            w.write("<(*");
+            for (int i = 0; i < 100; i++)
+                w.write(",a" + i);
+            w.write(") --> y>.\n");
+            for (int i = 0; i < 50; i++)
+                w.write("<z" + i + " --> y>.\n");
+        }
+        new BulkLoader(new NAR(new Default()), f, 2, 64, 128, 1024).load();
+    }
+}
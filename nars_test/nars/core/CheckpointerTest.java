@@ -0,0 +1,84 @@
+package nars.core;
+
+import java.io.File;
+import java.nio.file.Files;
+import nars.core.build.Default;
+import nars.entity.Concept;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class CheckpointerTest {
+
+    static void delete(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null)
+            for (File f : files)
+                f.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void testRecover() throws Exception {
+        File dir = Files.createTempDirectory("checkpoint").toFile();
+        try {
+            NAR a = new Default().build();
+            //small segments and few concepts per checkpoint, so that segments roll and compaction occurs
+            Checkpointer c = new Checkpointer(dir, 4096, 1, 8, 3);
+            a.addPlugin(c);
+
+            a.addInput("<a --> b>.");
+            a.addInput("<b --> c>.");
+            a.addInput("<c --> d>.");
+            a.addInput("<a --> d>?");
+            a.run(200);
+
+            //flushes what remains dirty
+            a.getPlugins().get(a.getPlugins().size() - 1).setEnabled(false);
+
+            assertTrue(Checkpointer.segments(dir).length > 0);
+
+            NAR b = new Default().build();
+            assertTrue(Checkpointer.recover(b.memory, dir) > 0);
+
+            assertEquals(a.time(), b.time());
+
+            int concepts = 0;
+            for (Concept ca : a.memory.concepts) {
+                Concept cb = b.memory.concept(ca.term);
+                assertNotNull(ca.term.toString(), cb);
+                assertEquals(ca.beliefs.size(), cb.beliefs.size());
+                assertEquals(ca.questions.size(), cb.questions.size());
+                assertEquals(ca.termLinks.size(), cb.termLinks.size());
+                concepts++;
+            }
+            assertTrue(concepts > 0);
+            for (Concept cb : b.memory.concepts)
+                assertNotNull(cb.term.toString(), a.memory.concept(cb.term));
+
+            //the recovered memory continues to reason
+            b.run(50);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /** disabling a checkpointer which was never enabled, or twice, does nothing */
+    @Test
+    public void testDisable() throws Exception {
+        File dir = Files.createTempDirectory("checkpoint").toFile();
+        try {
+            NAR n = new Default().build();
+            Checkpointer c = new Checkpointer(dir, 4096, 1, 8, 3);
+            assertTrue(c.setEnabled(n, false));
+
+            assertTrue(c.setEnabled(n, true));
+            assertTrue(c.setEnabled(n, false));
+            assertTrue(c.setEnabled(n, false));
+        } finally {
+            delete(dir);
+        }
+    }
+}
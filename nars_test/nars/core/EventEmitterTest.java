@@ -0,0 +1,185 @@
+package nars.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import nars.core.EventEmitter.EventObserver;
+import nars.core.EventEmitter.Overflow;
+import nars.core.build.Default;
+import nars.io.Output.OUT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class EventEmitterTest {
+
+    static class A { }
+    static class B { }
+
+    /** records the first argument of each event, and the threads it was delivered on */
+    static class Recorder implements EventObserver {
+        final List<Object> received = Collections.synchronizedList(new ArrayList());
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList());
+
+        @Override public void event(Class event, Object[] args) {
+            received.add(args[0]);
+            threads.add(Thread.currentThread());
+        }
+    }
+
+    @Test
+    public void testChannels() {
+        EventEmitter e = new EventEmitter();
+        Recorder r = new Recorder();
+        int a = EventEmitter.channel(A.class);
+        assertEquals(a, EventEmitter.channel(A.class));
+        assertTrue(a != EventEmitter.channel(B.class));
+        assertFalse(e.isActive(a));
+
+        e.on(A.class, r);
+        assertTrue(e.isActive(a));
+        assertTrue(e.isActive(A.class));
+        assertFalse(e.isActive(B.class));
+
+        e.emit(A.class, 1);
+        e.emit(A.class, 2, 0);
+        e.emit(A.class, 3, 0, 0);
+        e.emit(A.class, 4, 0, 0, 0);
+        e.emit(B.class, 5);
+        assertEquals(4, r.received.size());
+        assertEquals(4, r.received.get(3));
+
+        e.off(A.class, r);
+        assertFalse(e.isActive(a));
+        e.emit(A.class, 6);
+        assertEquals(4, r.received.size());
+    }
+
+    @Test
+    public void testAsyncOrder() {
+        EventEmitter e = new EventEmitter();
+        Recorder a = new Recorder(), b = new Recorder();
+        e.on(A.class, a);
+        e.on(B.class, b);
+        e.setAsync(Overflow.Block, 16, A.class);
+
+        for (int i = 0; i < 1000; i++) {
+            e.emit(A.class, i);
+            e.emit(B.class, i);
+        }
+        e.flush();
+
+        assertEquals(1000, a.received.size());
+        for (int i = 0; i < 1000; i++)
+            assertEquals(i, a.received.get(i));
+        assertFalse(a.threads.contains(Thread.currentThread()));
+        assertEquals(0, e.getDropped(A.class));
+
+        //B remains synchronous
+        assertEquals(1000, b.received.size());
+        assertTrue(b.threads.contains(Thread.currentThread()));
+
+        e.setSync(A.class);
+        assertFalse(e.isAsync(A.class));
+        e.emit(A.class, -1);
+        assertEquals(Thread.currentThread(), a.threads.get(a.threads.size() - 1));
+    }
+
+    /** observers of an asynchronous class may be added and removed while the dispatcher delivers to them */
+    @Test
+    public void testAsyncObserverChange() {
+        EventEmitter e = new EventEmitter();
+        Recorder a = new Recorder();
+        e.on(A.class, a);
+        e.setAsync(Overflow.Block, 16, A.class);
+
+        for (int i = 0; i < 10000; i++) {
+            final Recorder x = new Recorder();
+            e.on(A.class, x);
+            e.emit(A.class, i);
+            e.off(A.class, x);
+        }
+        e.flush();
+
+        assertEquals(10000, a.received.size());
+        for (int i = 0; i < 10000; i++)
+            assertEquals(i, a.received.get(i));
+    }
+
+    @Test
+    public void testDrop() throws InterruptedException {
+        EventEmitter e = new EventEmitter();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        Recorder r = new Recorder() {
+            @Override public void event(Class event, Object[] args) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException ex) { }
+                super.event(event, args);
+            }
+        };
+        e.on(A.class, r);
+        e.setAsync(Overflow.Drop, 8, A.class);
+
+        //the observer blocks the dispatcher, so the ring buffer fills
+        for (int i = 0; i < 100; i++)
+            e.emit(A.class, i);
+        blocked.countDown();
+        e.flush();
+
+        assertTrue(e.getDropped(A.class) > 0);
+        assertEquals(100, r.received.size() + e.getDropped(A.class));
+        e.setSync(A.class);
+    }
+
+    @Test
+    public void testSample() throws InterruptedException {
+        EventEmitter e = new EventEmitter();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        Recorder r = new Recorder() {
+            @Override public void event(Class event, Object[] args) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException ex) { }
+                super.event(event, args);
+            }
+        };
+        e.on(A.class, r);
+        e.setAsync(Overflow.Sample, 8, A.class);
+
+        //the first overflowing event is kept, which blocks until there is room
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 100; i++)
+                e.emit(A.class, i);
+        });
+        producer.start();
+        Thread.sleep(100);
+        blocked.countDown();
+        producer.join();
+        e.flush();
+
+        assertTrue(e.getDropped(A.class) > 0);
+        assertEquals(100, r.received.size() + e.getDropped(A.class));
+        e.setSync(A.class);
+    }
+
+    @Test
+    public void testNAROutput() {
+        NAR n = new Default().build();
+        Recorder r = new Recorder();
+        n.memory.event.on(OUT.class, r);
+        n.memory.event.setAsync(Overflow.Block, 1024, OUT.class);
+
+        n.addInput("<a --> b>.");
+        n.addInput("<b --> c>.");
+        n.run(50);
+        n.memory.event.flush();
+
+        assertTrue(r.received.size() > 0);
+        assertFalse(r.threads.contains(Thread.currentThread()));
+        n.memory.event.setSync(OUT.class);
+    }
+}
@@ -0,0 +1,119 @@
+package nars.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import nars.core.build.Default;
+import nars.entity.Concept;
+import nars.entity.Sentence;
+import nars.entity.Task;
+import nars.entity.TaskLink;
+import nars.io.narsese.Narsese;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class MemorySnapshotTest {
+
+    static byte[] snapshot(NAR n) throws IOException {
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        n.writeSnapshot(b);
+        return b.toByteArray();
+    }
+
+    /** the task links of a concept, described by their task's sentence and their type */
+    static List<String> taskLinks(Concept c) {
+        List<String> l = new ArrayList();
+        for (TaskLink t : c.taskLinks)
+            l.add(t.targetTask.sentence + " " + t.type + " " + t.recordCount());
+        Collections.sort(l);
+        return l;
+    }
+
+    @Test
+    public void testRestore() throws Exception {
+        NAR a = new Default().build();
+        a.addInput("<a --> b>.");
+        a.addInput("<b --> c>.");
+        a.addInput("<(*,a,$x) --> r>. :|:");
+        a.addInput("<a --> c>?");
+        a.run(100);
+
+        byte[] s = snapshot(a);
+
+        NAR b = new Default().build();
+        b.addInput("<x --> y>.");
+        b.run(10);
+        b.readSnapshot(new ByteArrayInputStream(s));
+
+        assertEquals(a.time(), b.time());
+        assertEquals(a.memory.newStampSerial(), b.memory.newStampSerial());
+        assertTrue(b.memory.concept(new Narsese(b).parseTerm("<x --> y>")) == null);
+
+        int concepts = 0;
+        for (Concept ca : a.memory.concepts) {
+            Concept cb = b.memory.concept(ca.term);
+            assertNotNull(ca.term.toString(), cb);
+
+            assertEquals(ca.budget.getPriority(), cb.budget.getPriority(), 0);
+            assertEquals(ca.budget.getLastForgetTime(), cb.budget.getLastForgetTime());
+            assertEquals(ca.beliefs.size(), cb.beliefs.size());
+            for (int i = 0; i < ca.beliefs.size(); i++) {
+                Sentence x = ca.beliefs.get(i), y = cb.beliefs.get(i);
+                //not equals(): the hash of a sentence does not follow changes to its occurrence time
+                assertEquals(x.term, y.term);
+                assertEquals(x.truth, y.truth);
+                assertEquals(x.stamp.getOccurrenceTime(), y.stamp.getOccurrenceTime());
+                assertEquals(x.stamp.getCreationTime(), y.stamp.getCreationTime());
+                assertEquals(x.stamp.getChain(), y.stamp.getChain());
+            }
+            assertEquals(ca.questions.size(), cb.questions.size());
+            assertEquals(ca.termLinks.size(), cb.termLinks.size());
+            assertEquals(taskLinks(ca), taskLinks(cb));
+            concepts++;
+        }
+        assertTrue(concepts > 0);
+
+        //the restored memory continues to reason
+        b.run(100);
+
+        //and a snapshot of it is as large as the one it was restored from
+        NAR c = new Default().build();
+        c.readSnapshot(new ByteArrayInputStream(s));
+        assertEquals(s.length, snapshot(c).length);
+    }
+
+    /** restored questions and concepts are in the question index, so a belief of another concept answers a restored question */
+    @Test
+    public void testRestoreQuestionIndex() throws Exception {
+        NAR a = new Default().build();
+        a.addInput("<c --> d>.");
+        a.addInput("<?x --> b>?");
+        a.run(5);
+
+        NAR b = new Default().build();
+        b.readSnapshot(new ByteArrayInputStream(snapshot(a)));
+
+        Narsese np = new Narsese(b);
+        List<Concept> concepts = new ArrayList();
+        b.memory.questionIndex.concepts(((Task)np.parseNarsese(new StringBuilder("<?x --> d>?"))).sentence, b.memory, concepts);
+        assertEquals(1, concepts.size());
+        assertEquals("<c --> d>", concepts.get(0).term.toString());
+
+        Task question = b.memory.concept(np.parseTerm("<?1 --> b>")).questions.get(0);
+        b.addInput("<a --> b>.");
+        b.run(1);
+        assertNotNull(question.getBestSolution());
+        assertEquals("<a --> b>", question.getBestSolution().term.toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalid() throws IOException {
+        new Default().build().readSnapshot(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+    }
+}
@@ -0,0 +1,175 @@
+package nars.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import nars.core.build.Default;
+import nars.entity.Task;
+import nars.io.narsese.Narsese;
+import nars.io.narsese.Narsese.InvalidInputException;
+import nars.io.narsese.NarseseReader;
+import nars.language.Term;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+
+public class NarseseReaderTest {
+
+    final NAR n = new NAR(new Default());
+    final Narsese narsese = new Narsese(n);
+    final NarseseReader reader = new NarseseReader(n);
+
+    static final String[] tasks = {
+        "<bird --> animal>.",
+        "  <bird-->animal>  .  ",
+        "<<$x --> bird> ==> <(*,$x,$y) --> [friends]>>. %0.90;0.80%",
+        "<(*,{tom},(&,[red],apple)) --> eat>?",
+        "<(&/,<(*,SELF,{t002}) --> hold>,+5,(^open,{t001})) =/> <{t001} --> [opened]>>!",
+        "<robin --> (/,eat,_,worm)>. :|:",
+        "<robin --> (\\,eat,_,worm)>. :\\: %1.00;0.90%",
+        "$0.80;0.60$ <a <-> b>. %0.5%",
+        "$0.9$ <?x --> b>?",
+        "<#1 --> b>@",
+        "(--,<a --> b>). %0;0.9%",
+        "(&&,<a --> b>,<c --> d>,(||,e,f)).",
+        "<a <=> b>. :/:",
+        "<{a,b,c} {-- d>.",
+        "<[a,b] --] c>.",
+        "<a {-] c>.",
+        "<(-,a,b) --> (~,c,d)>.",
+        "<<a --> b> </> <c --> d>>.",
+        "<<a --> b> <|> <c --> d>>.",
+        "<<a --> b> =|> <c --> d>>.",
+        "<<a --> b> =\\> <c --> d>>.",
+        "(^want,SELF,<a --> b>)!",
+        "want(a,b)!",
+        "(&|,a,b,(|,c,d)).",
+        "bird.",
+        "0.5.",
+        "<a-b --> -1>.",
+        "<\"hello world\" --> \"a:b;c%d\">. %0.6;0.7%",
+        "IN: <a --> b>. %1.00;0.90%",
+        "<a --> b>. %1.00;0.90% {3 : 1;2}"
+    };
+
+    @Test
+    public void testTasks() throws InvalidInputException {
+        for (final String s : tasks)
+            assertSameTask(s, narsese.parseNarsese(new StringBuilder(s)), reader.parseNarsese(s));
+    }
+
+    @Test
+    public void testCharArray() throws InvalidInputException {
+        final char[] c = ("xx" + tasks[2] + "yy").toCharArray();
+        assertSameTask(tasks[2], narsese.parseTask(tasks[2]), reader.parseTask(c, 2, c.length - 4));
+    }
+
+    @Test
+    public void testTerms() throws InvalidInputException {
+        assertNull(reader.parseTerm("  "));
+
+        final Term t = reader.parseTerm("<(*,a,b) --> c>");
+        assertEquals(narsese.parseTerm("<(*,a,b) --> c>"), t);
+        //constant terms are interned
+        assertSame(t, reader.parseTerm("<(*, a, b)-->c>"));
+        assertSame(Term.get("a"), reader.parseTerm("a"));
+
+        assertEquals(narsese.parseTerm("+3"), reader.parseTerm("+3"));
+    }
+
+    @Test
+    public void testOutputLineIgnored() throws InvalidInputException {
+        assertNull(reader.parseNarsese("OUT: <a --> b>. %1.00;0.90%"));
+    }
+
+    @Test
+    public void testInvalid() {
+        for (final String s : new String[] {
+                "<a --> b>", "<a --> b.", "<a b>.", "(*,a,b.", "(a).", "<a --> b>. %",
+                "$0.5 <a --> b>.", "<a --> b>; ", "(*,a,,b).", "<a --> b c>.", "(nope,a).",
+                "<a --> b>. %x%", "\"a.", "+x." }) {
+            try {
+                reader.parseNarsese(s);
+                fail("parsed: " + s);
+            } catch (InvalidInputException e) {
+            }
+        }
+    }
+
+    /** every task which Narsese parses in the NAL test and example files is parsed equally */
+    @Test
+    public void testNALFiles() throws IOException {
+        final List<File> files = new ArrayList();
+        files(new File("nal/test"), files);
+        files(new File("nal/Examples"), files);
+        assertTrue(!files.isEmpty());
+
+        int parsed = 0;
+        for (final File f : files) {
+            for (String line : Files.readAllLines(f.toPath(), StandardCharsets.ISO_8859_1)) {
+                //as TextInput does
+                line = line.trim();
+                if (line.isEmpty())
+                    continue;
+                final char c = line.charAt(0);
+                if ((c == '/') || (c == '\'') || (c == '*') || Character.isDigit(c))
+                    continue;
+
+                final Task expected;
+                try {
+                    expected = narsese.parseNarsese(new StringBuilder(line));
+                } catch (InvalidInputException | RuntimeException e) {
+                    continue;
+                }
+
+                try {
+                    assertSameTask(f + ": " + line, expected, reader.parseNarsese(line));
+                } catch (InvalidInputException e) {
+                    fail(f + ": " + line + ": " + e);
+                }
+                parsed++;
+            }
+        }
+        assertTrue(parsed > 1000);
+    }
+
+    static void files(final File dir, final List<File> files) {
+        final File[] l = dir.listFiles();
+        if (l == null) return;
+        for (final File f : l) {
+            if (f.isDirectory())
+                files(f, files);
+            else if (f.getName().endsWith(".nal") || f.getName().endsWith(".txt"))
+                files.add(f);
+        }
+    }
+
+    static void assertSameTask(final String input, final Task expected, final Task actual) {
+        if (expected == null) {
+            assertNull(input, actual);
+            return;
+        }
+        assertNotNull(input, actual);
+        assertEquals(input, expected.sentence.term, actual.sentence.term);
+        assertEquals(input, expected.sentence.term.getClass(), actual.sentence.term.getClass());
+        assertEquals(input, expected.sentence.punctuation, actual.sentence.punctuation);
+        assertEquals(input, expected.sentence.truth, actual.sentence.truth);
+        if (expected.sentence.truth != null) {
+            assertEquals(input, expected.sentence.truth.getFrequency(), actual.sentence.truth.getFrequency(), 0);
+            assertEquals(input, expected.sentence.truth.getConfidence(), actual.sentence.truth.getConfidence(), 0);
+        }
+        assertEquals(input, expected.sentence.stamp.getTense(), actual.sentence.stamp.getTense());
+        assertEquals(input, expected.getPriority(), actual.getPriority(), 0);
+        assertEquals(input, expected.getDurability(), actual.getDurability(), 0);
+        assertEquals(input, expected.getQuality(), actual.getQuality(), 0);
+    }
+
+}
@@ -0,0 +1,159 @@
+package nars.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import nars.core.EventEmitter.EventObserver;
+import nars.core.Events.TaskDerive;
+import nars.core.Memory.Concurrency;
+import nars.core.build.Default;
+import nars.core.control.NAL;
+import nars.entity.Concept;
+import nars.entity.Task;
+import nars.io.narsese.Narsese;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class OrderedConcurrencyTest {
+
+    Task task(Narsese np, String s) throws Narsese.InvalidInputException {
+        Task t = (Task)np.parseNarsese(new StringBuilder(s));
+        t.sentence.stamp.setEvidentialBase(new long[] { 1 });
+        return t;
+    }
+
+    /** adds a task derived by a process, as NAL.derivedTask does */
+    static void derive(NAL p, Task t) {
+        p.addDerivedTask(t, new Object[] { t, false, false, null, null });
+    }
+
+    static NAL process(Memory m) {
+        return new NAL(m) {
+            @Override public void run() { }
+        };
+    }
+
+    /** buffered tasks are added by flush(), in the order of the buffers, and repeated derivations are dropped without being signaled */
+    @Test
+    public void testFlush() throws Narsese.InvalidInputException {
+        final int window = Parameters.DERIVATION_DEDUP_WINDOW;
+        Parameters.DERIVATION_DEDUP_WINDOW = 1;
+        try {
+            NAR n = new Default().build();
+            Narsese np = new Narsese(n);
+            Memory m = n.memory;
+
+            final List<Task> derived = new ArrayList();
+            n.on(TaskDerive.class, new EventObserver() {
+                @Override public void event(Class event, Object[] args) {
+                    derived.add((Task)args[0]);
+                }
+            });
+
+            NAL a = process(m), b = process(m);
+            a.setBuffered(true);
+            b.setBuffered(true);
+
+            Task x = task(np, "<x --> y>."), z = task(np, "<z --> y>.");
+            derive(b, task(np, "<x --> y>."));
+            derive(b, z);
+            derive(a, x);
+            assertEquals(0, m.newTasks.size());
+            assertEquals(0, derived.size());
+
+            a.flush();
+            b.flush();
+            List<Task> added = new ArrayList(m.newTasks);
+            assertEquals(2, added.size());
+            assertSame(x, added.get(0));
+            assertSame(z, added.get(1));
+            assertEquals(added, derived);
+            assertEquals(1, b.tasksAdded.size());
+
+            //a task which is not derived is added whatever its reason
+            b.addTask(task(np, "<z --> y>."), "Derived");
+            b.flush();
+            assertEquals(3, m.newTasks.size());
+
+            //no longer buffered
+            a.setBuffered(false);
+            derive(a, task(np, "<w --> y>."));
+            assertEquals(4, m.newTasks.size());
+            assertEquals(3, derived.size());
+        }
+        finally {
+            Parameters.DERIVATION_DEDUP_WINDOW = window;
+        }
+    }
+
+    /** the tasks which processes derive, on several threads, in an order of a random seed */
+    List<String> newTasks(final long seed) throws Narsese.InvalidInputException {
+        NAR n = new Default().build();
+        n.param.setConcurrency(Concurrency.Ordered);
+        Narsese np = new Narsese(n);
+        Memory m = n.memory;
+        Random r = new Random(seed);
+
+        List<Runnable> processes = new ArrayList();
+        for (int i = 0; i < 4; i++) {
+            final List<Task> derived = new ArrayList();
+            for (int j = 0; j < 8; j++)
+                derived.add(task(np, "<t" + r.nextInt(6) + " --> p" + i + ">."));
+            processes.add(new NAL(m) {
+                @Override public void run() {
+                    for (final Task t : derived) {
+                        Thread.yield();
+                        derive(this, t);
+                    }
+                }
+            });
+        }
+        m.run(processes, 2);
+
+        List<String> l = new ArrayList();
+        for (final Task t : m.newTasks)
+            l.add(t.sentence.term.toString());
+        return l;
+    }
+
+    /** the process of a task of newTasks(), the digit of its predicate */
+    static char process(final String term) {
+        return term.charAt(term.length() - 2);
+    }
+
+    /** two runs with the same seed add the same tasks to newTasks in the same order, that of the processes */
+    @Test
+    public void testSameSeed() throws Narsese.InvalidInputException {
+        List<String> a = newTasks(1);
+        assertEquals(a, newTasks(1));
+        assertTrue(a.toString(), a.size() > 4);
+        for (int i = 1; i < a.size(); i++)
+            assertTrue(a.toString(), process(a.get(i - 1)) <= process(a.get(i)));
+    }
+
+    /** a reasoner with several threads, whose derivations are buffered and merged in the order of its processes, still derives conclusions */
+    @Test
+    public void testReasoner() throws Narsese.InvalidInputException {
+        final int threads = Parameters.THREADS;
+        Parameters.THREADS = 2;
+        try {
+            NAR n = new Default().setConcurrentBags(true).build();
+            n.param.setConcurrency(Concurrency.Ordered);
+            //event observers, which read the input, are added once a cycle has run
+            n.run(1);
+            n.addInput("<a --> b>.\n<b --> c>.\n");
+            n.run(50);
+
+            Concept c = n.memory.concept(new Narsese(n).parseTerm("<a --> c>"));
+            assertTrue(c != null);
+            assertTrue(!c.beliefs.isEmpty());
+        }
+        finally {
+            Parameters.THREADS = threads;
+        }
+    }
+
+}
@@ -293,4 +293,37 @@ public class TermTest {
         
         
     }
+    
+    @Test public void testInterning() throws Narsese.InvalidInputException {
+        Term a = np.parseTerm("<(*,a,b) --> c>");
+        Term b = np.parseTerm("<(*,a,b) --> c>");
+        assertTrue(a == b);
+        assertTrue(a.getId() != 0);
+        assertTrue(((CompoundTerm)a).term[0] == ((CompoundTerm)np.parseTerm("(*,a,b)")));
+        assertTrue(Term.get("c") == ((Statement)a).getPredicate());
+        
+        Term c = np.parseTerm("<(*,a,b) --> d>");
+        assertTrue(c.getId() != 0);
+        assertTrue(!a.equals(c));
+        
+        //a non-canonical copy is still equal to its canonical instance
+        Term copy = ((CompoundTerm)a).clone();
+        assertEquals(0, copy.getId());
+        assertEquals(a, copy);
+        assertEquals(copy, a);
+        
+        //terms with variables are not interned
+        assertEquals(0, np.parseTerm("<$x --> c>").getId());
+        
+        //each memory has its own canonical instances, which are equal to those of another
+        Term other = new Narsese(new Default().build()).parseTerm("<(*,a,b) --> c>");
+        assertTrue(other.getId() != 0);
+        assertTrue(a != other);
+        assertEquals(a, other);
+        assertEquals(other, a);
+        
+        //terms derived from interned terms are interned by the same index
+        Statement d = Statement.make((Statement)a, ((Statement)a).getSubject(), Term.get("d"));
+        assertTrue(d == c);
+    }
 }
@@ -1,7 +1,11 @@
 package nars.core;
 
 import java.util.Arrays;
+import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
+import nars.entity.DerivationChain;
+import nars.entity.Stamp;
+import nars.language.Term;
 import static nars.entity.Stamp.toSetArray;
 import org.junit.Test;
 
@@ -30,4 +34,74 @@ public class TestStamp {
                 Arrays.hashCode(toSetArray(new long[] { 1,1,3 }))
         );    
     }
+    
+    @Test
+    public void testStampMergeSetArrays() {
+        assertTrue(Arrays.equals(new long[] { 1, 2, 3, 5 }, toSetArray(new long[] { 1, 3 }, new long[] { 2, 3, 5 })));
+        assertTrue(Arrays.equals(new long[] { 1, 2 }, toSetArray(new long[] { 1, 2 }, new long[] { })));
+    }
+    
+    @Test
+    public void testStampOverlap() {
+        Stamp a = new Stamp(0, null, 1, 1);
+        Stamp b = new Stamp(0, null, 2, 1);
+        Stamp c = new Stamp(0, null, 65, 1); //same summary bit as 1
+        
+        Stamp ab = new Stamp(a, b, 1);
+        assertFalse(ab.hasOverlap());
+        assertFalse(new Stamp(a, c, 1).hasOverlap());
+        assertTrue(new Stamp(ab, a, 2).hasOverlap());
+        assertTrue(new Stamp(ab, new Stamp(b, c, 1), 2).hasOverlap());
+        assertFalse(new Stamp(ab, c, 2).hasOverlap());
+        
+        //merge of cached sets
+        Stamp ac = new Stamp(a, c, 1);
+        assertTrue(ab.equals(new Stamp(b, a, 1), false, false, true, false));
+        ac.evidentialHash();
+        assertTrue(new Stamp(ab, ac, 2).equals(new Stamp(ab, c, 2), false, false, true, false));
+        
+        Stamp s = new Stamp(0, null, 3, 1);
+        s.setEvidentialBase(new long[] { 3, 4, 3 });
+        assertTrue(s.hasOverlap());
+        s.setEvidentialBase(new long[] { 3, 4 });
+        assertFalse(s.hasOverlap());
+    }
+    
+    @Test
+    public void testDerivationChain() {
+        Term a = Term.get("a"), b = Term.get("b"), c = Term.get("c"), d = Term.get("d");
+        
+        Stamp x = new Stamp(0, null, 1, 1);
+        x.chainAdd(a);
+        x.chainAdd(b);
+        x.chainAdd(a);
+        assertTrue(x.getChain().equals(Arrays.asList(a, b)));
+        
+        Stamp y = new Stamp(0, null, 2, 1);
+        y.chainAdd(c);
+        y.chainAdd(b);
+        
+        //terms common to both premises
+        Stamp xy = new Stamp(x, y, 1);
+        assertTrue(xy.getChain().equals(Arrays.asList(b)));
+        
+        //inherited chains are shared; derived chains are not
+        Stamp z = new Stamp(xy, 2);
+        assertTrue(z.getChain() == xy.getChain());
+        z.chainAddLast(a);
+        z.chainAdd(d);
+        assertTrue(z.getChain().equals(Arrays.asList(b, a, d)));
+        assertTrue(xy.getChain() == z.getChain());
+        z.chainRemove(b);
+        assertTrue(xy.getChain().equals(Arrays.asList(a, d)));
+        assertTrue(x.getChain().equals(Arrays.asList(a, b)));
+        
+        //bounded length
+        DerivationChain l = DerivationChain.Empty;
+        for (int i = 0; i < Parameters.MAXIMUM_DERIVATION_CHAIN_LENGTH + 5; i++)
+            l = l.with(Term.get("t" + i));
+        assertTrue(l.size() == Parameters.MAXIMUM_DERIVATION_CHAIN_LENGTH);
+        assertTrue(l.get(0).equals(Term.get("t5")));
+        assertFalse(DerivationChain.zip(l, l).size() > Parameters.MAXIMUM_DERIVATION_CHAIN_LENGTH);
+    }
 }
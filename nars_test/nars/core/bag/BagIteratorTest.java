@@ -3,6 +3,7 @@ package nars.core.bag;
 import java.util.Iterator;
 import nars.perf.BagPerf.NullItem;
 import nars.storage.Bag;
+import nars.storage.ConcurrentLevelBag;
 import nars.storage.LevelBag;
 import nars.storage.CurveBag;
 import static org.junit.Assert.assertTrue;
@@ -67,6 +68,7 @@ public class BagIteratorTest {
         testBagIterator(new LevelBag(L, L*2));
         testBagIterator(new CurveBag(L*2, false));
         testBagIterator(new CurveBag(L*2, true));
+        testBagIterator(new ConcurrentLevelBag(L, L*2));
         
     }
     
@@ -9,6 +9,7 @@ import nars.entity.Concept;
 import nars.entity.Item;
 import nars.language.Term;
 import nars.storage.Bag;
+import nars.storage.ConcurrentLevelBag;
 import nars.storage.CurveBag;
 import nars.storage.GearBag;
 import nars.storage.LevelBag;
@@ -42,6 +43,7 @@ public class BagOperationsTest {
         //testBagSequence(new CurveBag(2, new CurveBag.FairPriorityProbabilityCurve(), true, new FractalSortedItemList()));
         //testBagSequence(new LevelBag(2, 2));
         testBagSequence(new GearBag(2,2));        
+        testBagSequence(new ConcurrentLevelBag(2,2));
     }
     
     public static void testBagSequence(Bag b) {
@@ -87,7 +89,7 @@ public class BagOperationsTest {
         assertEquals(null, b.putIn(new NullConcept("a", 0.2f)));
         assertEquals(null, b.putIn(new NullConcept("b", 0.3f)));
         
-        if (b instanceof LevelBag) {
+        if ((b instanceof LevelBag) || (b instanceof ConcurrentLevelBag)) {
             assertEquals("a", b.putIn(new NullConcept("c", 0.1f)).name().toString()); //replaces item on level
         }
         else if (b instanceof CurveBag) {
@@ -0,0 +1,111 @@
+package nars.core.bag;
+
+import java.util.ArrayList;
+import java.util.List;
+import nars.core.NAR;
+import nars.core.build.Default;
+import nars.entity.Concept;
+import nars.entity.Sentence;
+import nars.entity.Task;
+import nars.io.narsese.Narsese;
+import nars.storage.BeliefTable;
+import static nars.inference.BudgetFunctions.rankBelief;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class BeliefTableTest {
+
+    final NAR n = new Default().build();
+    final Narsese np = new Narsese(n);
+
+    Sentence sentence(String s, long... base) throws Narsese.InvalidInputException {
+        Sentence x = ((Task)np.parseNarsese(new StringBuilder(s))).sentence;
+        x.stamp.setEvidentialBase(base);
+        return x;
+    }
+
+    Sentence temporal(String s, long occurrence, long... base) throws Narsese.InvalidInputException {
+        Sentence x = sentence(s, base);
+        x.stamp.setOccurrenceTime(occurrence);
+        return x;
+    }
+
+    static void assertRanked(List<Sentence> t) {
+        for (int i = 1; i < t.size(); i++)
+            assertTrue(rankBelief(t.get(i - 1)) >= rankBelief(t.get(i)));
+    }
+
+    /** the table keeps the order of Concept.addToTable on a list */
+    @Test
+    public void testSameAsList() throws Narsese.InvalidInputException {
+        final BeliefTable t = new BeliefTable();
+        final List<Sentence> l = new ArrayList();
+        final float[] c = { 0.5f, 0.9f, 0.7f, 0.9f, 0.3f, 0.8f, 0.6f, 0.1f, 0.95f };
+        for (int i = 0; i < c.length; i++) {
+            final Sentence s = sentence("<a --> b>. %1.00;" + c[i] + "%", i + 1);
+            assertEquals(Concept.addToTable(s, l, 5), t.add(s, 5));
+        }
+        assertEquals(l, t);
+        assertRanked(t);
+        assertEquals(5, t.size());
+    }
+
+    @Test
+    public void testEvict() throws Narsese.InvalidInputException {
+        final BeliefTable t = new BeliefTable();
+        final Sentence low = sentence("<a --> b>. %1.00;0.20%", 1);
+        assertNull(t.add(sentence("<a --> b>. %1.00;0.90%", 2), 2));
+        assertNull(t.add(low, 2));
+        assertSame(low, t.add(sentence("<a --> b>. %1.00;0.50%", 3), 2));
+        assertEquals(2, t.size());
+
+        //ranked below all of a full table
+        assertNull(t.add(sentence("<a --> b>. %1.00;0.10%", 4), 2));
+        assertEquals(2, t.size());
+
+        //equivalent to the one it would precede
+        assertNull(t.add(sentence("<a --> b>. %1.00;0.90%", 2), 3));
+        assertEquals(2, t.size());
+    }
+
+    /** select() rates every sentence, since the best solution need not be the highest ranked */
+    @Test
+    public void testSelect() throws Narsese.InvalidInputException {
+        final BeliefTable t = new BeliefTable();
+        assertNull(t.select(sentence("<a --> b>?", 1), n.memory));
+
+        final Sentence negative = sentence("<a --> b>. %0.00;0.90%", 1);
+        final Sentence positive = sentence("<a --> b>. %1.00;0.60%", 2);
+        t.add(negative, 10);
+        t.add(positive, 10);
+        assertSame(negative, t.get(0));
+
+        //the most confident
+        assertSame(negative, t.select(sentence("<a --> b>?", 3), n.memory));
+        //the highest expectation
+        assertSame(positive, t.select(sentence("<?x --> b>?", 3), n.memory));
+
+        final Sentence query = temporal("<a --> b>. %1.00;0.90%", 20, 3);
+        final Sentence now = temporal("<a --> b>. %1.00;0.50%", 20, 4);
+        t.add(now, 10);
+        assertSame(negative, t.select(query, n.memory));
+    }
+
+    /** sentences added in order, as they are restored, stay in that order */
+    @Test
+    public void testRestore() throws Narsese.InvalidInputException {
+        final BeliefTable t = new BeliefTable();
+        final List<Sentence> l = new ArrayList();
+        for (int i = 0; i < 4; i++)
+            l.add(sentence("<a --> b>. %1.00;0.90%", i + 1));
+        t.addAll(l);
+        assertEquals(l, t);
+        for (int i = 0; i < 4; i++)
+            assertSame(l.get(i), t.get(i));
+    }
+
+}
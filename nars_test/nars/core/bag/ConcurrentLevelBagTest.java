@@ -0,0 +1,88 @@
+package nars.core.bag;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import nars.perf.BagPerf.NullItem;
+import nars.storage.ConcurrentLevelBag;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class ConcurrentLevelBagTest {
+    
+    @Test
+    public void testRemovalDistribution() {
+        ConcurrentLevelBag<NullItem,CharSequence> b = new ConcurrentLevelBag(100, 1000);
+        CurveBagTest.testRemovalPriorityDistribution(2, 500, 0.8f, 0.6f, b);
+    }
+    
+    /** many threads cycling the same items through takeNext/putIn must neither lose nor duplicate any */
+    @Test
+    public void testContention() throws InterruptedException {
+        final int threads = 8;
+        final int items = 200;
+        final int iterations = 20000;
+        
+        final ConcurrentLevelBag<NullItem,CharSequence> b = new ConcurrentLevelBag(10, items);
+        for (int i = 0; i < items; i++)
+            b.putIn(new NullItem(0.01f + 0.98f * i / items));
+        assertEquals(items, b.size());
+        
+        final AtomicInteger overflows = new AtomicInteger();
+        Thread[] t = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            t[i] = new Thread(() -> {
+                for (int j = 0; j < iterations; j++) {
+                    NullItem n = b.takeNext();
+                    if (n == null) continue;
+                    n.budget.setPriority(0.01f + 0.98f * ((j * 31 + n.key.hashCode()) % 100) / 100f);
+                    if (b.putIn(n) != null)
+                        overflows.incrementAndGet();
+                }
+            });
+            t[i].start();
+        }
+        for (Thread x : t)
+            x.join();
+        
+        assertEquals(0, overflows.get());
+        assertEquals(items, b.size());
+        
+        Set<CharSequence> taken = new HashSet();
+        NullItem n;
+        while ((n = b.takeNext())!=null) {
+            assertTrue("duplicate " + n.key, taken.add(n.key));
+        }
+        assertEquals(items, taken.size());
+        assertEquals(0, b.size());
+        assertEquals(0, b.getMass(), 0.01f);
+    }
+    
+    /** concurrent take by key and takeNext must hand each item to exactly one thread */
+    @Test
+    public void testTakeRace() throws InterruptedException {
+        final int items = 5000;
+        final ConcurrentLevelBag<NullItem,CharSequence> b = new ConcurrentLevelBag(10, items);
+        final NullItem[] all = new NullItem[items];
+        for (int i = 0; i < items; i++)
+            b.putIn(all[i] = new NullItem(0.5f));
+        
+        final AtomicInteger received = new AtomicInteger();
+        Thread byKey = new Thread(() -> {
+            for (NullItem x : all)
+                if (b.take(x.key)!=null) received.incrementAndGet();
+        });
+        Thread byPriority = new Thread(() -> {
+            while (b.size() > 0)
+                if (b.takeNext()!=null) received.incrementAndGet();
+        });
+        byKey.start(); byPriority.start();
+        byKey.join(); byPriority.join();
+        
+        assertEquals(items, received.get());
+        assertEquals(0, b.size());
+    }
+    
+}
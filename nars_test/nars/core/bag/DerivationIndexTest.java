@@ -0,0 +1,109 @@
+package nars.core.bag;
+
+import nars.core.EventEmitter.EventObserver;
+import nars.core.Events.TaskRemove;
+import nars.core.NAR;
+import nars.core.Parameters;
+import nars.core.build.Default;
+import nars.entity.Sentence;
+import nars.entity.Stamp;
+import nars.entity.Task;
+import nars.io.narsese.Narsese;
+import nars.storage.DerivationIndex;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class DerivationIndexTest {
+
+    final NAR n = new Default().build();
+    final Narsese np = new Narsese(n);
+
+    Sentence sentence(String s, long... base) throws Narsese.InvalidInputException {
+        Sentence x = ((Task)np.parseNarsese(new StringBuilder(s))).sentence;
+        x.stamp.setEvidentialBase(base);
+        return x;
+    }
+
+    @Test
+    public void testKey() throws Narsese.InvalidInputException {
+        DerivationIndex x = new DerivationIndex(1, 1000);
+        final long E = Stamp.ETERNAL;
+
+        assertTrue(x.record(sentence("<a --> b>. %1.00;0.90%", 1, 2), E, 0));
+        //equal conclusions, with the evidence in another order
+        assertFalse(x.record(sentence("<a --> b>. %1.00;0.90%", 2, 1), E, 0));
+        //truth within the same bucket
+        assertFalse(x.record(sentence("<a --> b>. %1.00;0.901%", 1, 2), E, 0));
+
+        assertTrue(x.record(sentence("<a --> b>. %1.00;0.80%", 1, 2), E, 0));
+        assertTrue(x.record(sentence("<a --> b>. %1.00;0.90%", 1, 3), E, 0));
+        assertTrue(x.record(sentence("<a --> b>. %1.00;0.90%", 1, 2), 5, 0));
+        assertTrue(x.record(sentence("<a --> b>?", 1, 2), E, 0));
+        assertTrue(x.record(sentence("<a --> c>. %1.00;0.90%", 1, 2), E, 0));
+        assertEquals(6, x.size());
+    }
+
+    @Test
+    public void testWindow() throws Narsese.InvalidInputException {
+        DerivationIndex x = new DerivationIndex(1, 1000);
+        final long E = Stamp.ETERNAL;
+
+        assertTrue(x.record(sentence("<a --> b>.", 1), E, 5));
+        assertFalse(x.record(sentence("<a --> b>.", 1), E, 6));
+        //expired, and its bucket reused
+        assertTrue(x.record(sentence("<a --> b>.", 1), E, 7));
+        assertEquals(1, x.size());
+
+        x.clear();
+        assertEquals(0, x.size());
+        assertTrue(x.record(sentence("<a --> b>.", 1), E, 7));
+    }
+
+    @Test
+    public void testCapacity() throws Narsese.InvalidInputException {
+        DerivationIndex x = new DerivationIndex(4, 100);
+        for (int t = 0; t < 4; t++)
+            for (int i = 0; i < 40; i++)
+                x.record(sentence("<x" + t + "_" + i + " --> b>.", 1), Stamp.ETERNAL, t);
+
+        assertTrue(x.size() <= 100);
+        //the oldest are forgotten first
+        assertTrue(x.record(sentence("<x0_0 --> b>.", 1), Stamp.ETERNAL, 4));
+        assertFalse(x.record(sentence("<x3_39 --> b>.", 1), Stamp.ETERNAL, 4));
+    }
+
+    /** a reasoner which derives the same conclusion repeatedly drops the repetitions */
+    @Test
+    public void testReasoner() {
+        final int window = Parameters.DERIVATION_DEDUP_WINDOW;
+        Parameters.DERIVATION_DEDUP_WINDOW = 1;
+        try {
+            NAR r = new Default().build();
+            final int[] duplicates = { 0 };
+            r.on(TaskRemove.class, new EventObserver() {
+                @Override public void event(Class event, Object[] args) {
+                    if ("Duplicate derivation".equals(args[1]))
+                        duplicates[0]++;
+                }
+            });
+            r.addInput("<a --> b>.\n<b --> c>.\n<c --> d>.\n<a --> d>?\n");
+            r.run(100);
+            assertTrue(r.memory.derivations.size() > 0);
+            assertTrue(duplicates[0] > 0);
+        }
+        finally {
+            Parameters.DERIVATION_DEDUP_WINDOW = window;
+        }
+    }
+
+    /** dedup is disabled by default, since it changes the reasoning */
+    @Test
+    public void testDisabled() {
+        assertNull(new Default().build().memory.derivations);
+    }
+
+}
@@ -0,0 +1,140 @@
+package nars.core.bag;
+
+import java.util.ArrayList;
+import java.util.List;
+import nars.core.NAR;
+import nars.core.build.Default;
+import nars.core.control.DefaultAttention;
+import nars.entity.Concept;
+import nars.entity.Sentence;
+import nars.io.narsese.Narsese;
+import nars.language.Term;
+import nars.storage.DirectConceptCache;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+
+public class DirectConceptCacheTest {
+
+    static List<String> beliefs(Concept c) {
+        List<String> l = new ArrayList();
+        for (Sentence s : c.beliefs)
+            l.add(s.toString());
+        return l;
+    }
+
+    @Test
+    public void testStoreAndRehydrate() throws Narsese.InvalidInputException {
+        //no on-heap capacity: every concept added is stored off-heap
+        NAR n = new NAR(new Default().setSubconceptDirectBytes(1 << 20));
+        DirectConceptCache cache = (DirectConceptCache)((DefaultAttention)n.memory.concepts).subcon;
+
+        n.addInput("<a --> b>.");
+        n.addInput("<b --> c>.");
+        n.run(20);
+
+        Term t = new Narsese(n).parseTerm("<a --> b>");
+        Concept c = n.memory.concepts.takeOut(t);
+        List<String> beliefs = beliefs(c);
+        int termLinks = c.termLinks.size();
+        assertTrue(beliefs.size() > 0);
+
+        cache.add(c);
+        assertEquals(1, cache.stored());
+        assertEquals(1, cache.size());
+
+        Concept r = cache.take(t);
+        assertNotNull(r);
+        assertTrue(r != c);
+        assertEquals(t, r.term);
+        assertEquals(beliefs, beliefs(r));
+        assertEquals(termLinks, r.termLinks.size());
+
+        assertEquals(0, cache.stored());
+        assertNull(cache.take(t));
+    }
+
+    @Test
+    public void testDropOldest() throws Narsese.InvalidInputException {
+        NAR n = new NAR(new Default());
+        for (int i = 0; i < 40; i++)
+            n.addInput("<a" + i + " --> b" + i + ">.");
+        n.run(10);
+
+        DirectConceptCache cache = new DirectConceptCache(0, 4096, 1024, new Default());
+        cache.setMemory(n.memory);
+
+        List<Concept> concepts = new ArrayList();
+        for (Concept c : n.memory.concepts)
+            concepts.add(c);
+        assertTrue(concepts.size() > 40);
+
+        for (Concept c : concepts)
+            cache.add(c);
+
+        assertTrue(cache.allocated() <= 4096);
+        assertTrue(cache.stored() > 0);
+        assertTrue(cache.stored() < concepts.size());
+
+        //the oldest were dropped, the most recent remain
+        assertNull(cache.take(concepts.get(0).term));
+        assertNotNull(cache.take(concepts.get(concepts.size() - 1).term));
+    }
+
+    /** a rollover drops the concepts of the oldest chunk, which is reused, and no others */
+    @Test
+    public void testRollover() throws Narsese.InvalidInputException {
+        NAR n = new NAR(new Default());
+        for (int i = 0; i < 40; i++)
+            n.addInput("<a" + i + " --> b" + i + ">.");
+        n.run(10);
+
+        DirectConceptCache cache = new DirectConceptCache(0, 4096, 1024, new Default());
+        cache.setMemory(n.memory);
+
+        List<Concept> concepts = new ArrayList();
+        for (Concept c : n.memory.concepts)
+            concepts.add(c);
+
+        //concepts in the first chunk
+        int first = 0;
+        for (int i = 0; i < concepts.size(); i++) {
+            final int before = cache.stored();
+            cache.add(concepts.get(i));
+            if (cache.allocated() == 1024)
+                first++;
+            if (cache.stored() <= before) {
+                assertTrue(first > 0);
+                assertEquals(before + 1 - first, cache.stored());
+                assertEquals(4096, cache.allocated());
+
+                int retrieved = 0;
+                for (int j = 0; j <= i; j++) {
+                    if (cache.take(concepts.get(j).term) != null)
+                        retrieved++;
+                }
+                assertEquals(before + 1 - first, retrieved);
+                return;
+            }
+        }
+        fail("no rollover");
+    }
+
+    @Test
+    public void testReasoning() {
+        //a small concept bag, so that concepts are forgotten and remembered while reasoning
+        NAR n = new NAR(new Default().setConceptBagSize(20).setSubconceptBagSize(5).setSubconceptDirectBytes(1 << 20));
+        DirectConceptCache cache = (DirectConceptCache)((DefaultAttention)n.memory.concepts).subcon;
+
+        for (int i = 0; i < 20; i++)
+            n.addInput("<a" + i + " --> a" + (i + 1) + ">.");
+        n.run(200);
+
+        assertTrue(cache.stored() > 0);
+        assertTrue(cache.size() > cache.stored());
+    }
+}
@@ -0,0 +1,66 @@
+package nars.core.bag;
+
+import nars.core.NAR;
+import nars.core.build.Default;
+import nars.entity.Sentence;
+import nars.entity.Task;
+import nars.io.narsese.Narsese;
+import nars.language.Term;
+import nars.storage.NoveltyIndex;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class NoveltyIndexTest {
+
+    final NAR n = new Default().build();
+    final Narsese np = new Narsese(n);
+
+    Sentence sentence(String s) throws Narsese.InvalidInputException {
+        return ((Task)np.parseNarsese(new StringBuilder(s))).sentence;
+    }
+
+    @Test
+    public void testHorizon() throws Narsese.InvalidInputException {
+        NoveltyIndex x = new NoveltyIndex(10, 1000);
+        Sentence s = sentence("<a --> b>.");
+        Term b = np.parseTerm("c"), c = np.parseTerm("d");
+
+        assertTrue(x.isNovel(s, b, 0));
+        x.record(s, b, 5);
+        assertFalse(x.isNovel(s, b, 5));
+        assertFalse(x.isNovel(s, b, 15));
+        assertTrue(x.isNovel(s, b, 16));
+        assertTrue(x.isNovel(s, c, 5));
+
+        //the sentence is compared by reference, not by equality
+        assertTrue(x.isNovel(sentence("<a --> b>."), b, 5));
+
+        //its bucket is reused after the horizon
+        x.record(s, c, 16);
+        assertTrue(x.isNovel(s, b, 16));
+        assertFalse(x.isNovel(s, c, 20));
+        assertEquals(1, x.size());
+
+        x.clear();
+        assertEquals(0, x.size());
+        assertTrue(x.isNovel(s, c, 20));
+    }
+
+    @Test
+    public void testCapacity() throws Narsese.InvalidInputException {
+        NoveltyIndex x = new NoveltyIndex(10, 100);
+        Sentence s = sentence("<a --> b>.");
+        for (int t = 0; t < 5; t++)
+            for (int i = 0; i < 40; i++)
+                x.record(s, np.parseTerm("x" + t + "_" + i), t);
+
+        assertTrue(x.size() <= 100);
+        //the oldest are forgotten first
+        assertTrue(x.isNovel(s, np.parseTerm("x0_0"), 5));
+        assertFalse(x.isNovel(s, np.parseTerm("x4_39"), 5));
+        assertFalse(x.isNovel(s, np.parseTerm("x4_0"), 5));
+    }
+}
@@ -0,0 +1,101 @@
+package nars.core.bag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import nars.core.EventEmitter.EventObserver;
+import nars.core.Events.Answer;
+import nars.core.NAR;
+import nars.core.build.Default;
+import nars.entity.Concept;
+import nars.entity.Sentence;
+import nars.entity.Task;
+import nars.io.narsese.Narsese;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class QuestionIndexTest {
+
+    final NAR n = new Default().build();
+    final Narsese np = new Narsese(n);
+
+    Sentence sentence(String s) throws Narsese.InvalidInputException {
+        return ((Task)np.parseNarsese(new StringBuilder(s))).sentence;
+    }
+
+    /** the terms of the concepts which the index finds for a question */
+    TreeSet<String> answering(String question) throws Narsese.InvalidInputException {
+        List<Concept> l = new ArrayList();
+        n.memory.questionIndex.concepts(sentence(question), n.memory, l);
+        TreeSet<String> s = new TreeSet();
+        for (Concept c : l)
+            s.add(c.term.toString());
+        return s;
+    }
+
+    @Test
+    public void testConcepts() throws Narsese.InvalidInputException {
+        n.addInput("<a --> b>.\n<c --> b>.\n<a --> c>.\n<(*,a,c) --> d>.\n<(*,a,a) --> d>.\n<{a,c} --> e>.\n");
+        n.run(1);
+
+        assertEquals("[<a --> b>]", answering("<a --> b>?").toString());
+
+        TreeSet<String> s = answering("<?x --> b>?");
+        assertTrue(s.toString(), s.contains("<a --> b>") && s.contains("<c --> b>") && !s.contains("<a --> c>"));
+
+        s = answering("<a --> ?x>?");
+        assertTrue(s.toString(), s.contains("<a --> c>") && s.contains("<a --> b>") && !s.contains("<c --> b>"));
+
+        s = answering("<(*,a,?x) --> ?y>?");
+        assertTrue(s.toString(), s.contains("<(*,a,c) --> d>") && s.contains("<(*,a,a) --> d>"));
+        for (String x : s)
+            assertTrue(x, x.startsWith("<(*,a,"));
+
+        //a repeated variable unifies with equal terms only
+        assertEquals("[<(*,a,a) --> d>]", answering("<(*,?x,?x) --> d>?").toString());
+
+        s = answering("<{?x,c} --> e>?");
+        assertTrue(s.toString(), s.contains("<{a,c} --> e>"));
+
+        assertEquals("[]", answering("<?x --> f>?").toString());
+    }
+
+    @Test
+    public void testQuestions() throws Narsese.InvalidInputException {
+        n.addInput("<?x --> b>?\n<a --> ?y>?\n<c --> d>?\n");
+        n.run(1);
+
+        List<Task> l = new ArrayList();
+        n.memory.questionIndex.questions(sentence("<a --> b>."), null, n.memory, l);
+        assertEquals(2, l.size());
+
+        l.clear();
+        n.memory.questionIndex.questions(sentence("<c --> d>."), null, n.memory, l);
+        assertEquals(1, l.size());
+        assertEquals("<c --> d>", l.get(0).sentence.term.toString());
+
+        //except those of the concept which tries its own
+        l.clear();
+        n.memory.questionIndex.questions(sentence("<c --> d>."), n.memory.concept(np.parseTerm("<c --> d>")), n.memory, l);
+        assertEquals(0, l.size());
+    }
+
+    /** a question with a query variable is answered by a belief of another concept without waiting for term links */
+    @Test
+    public void testAnswer() {
+        final List<String> answers = new ArrayList();
+        n.on(Answer.class, new EventObserver() {
+            @Override public void event(Class event, Object[] args) {
+                answers.add(((Sentence)args[1]).term.toString());
+            }
+        });
+        n.addInput("<a --> b>.\n");
+        n.run(1);
+        n.addInput("<?x --> b>?\n");
+        n.run(1);
+        assertTrue(answers.toString(), answers.contains("<a --> b>"));
+    }
+
+}
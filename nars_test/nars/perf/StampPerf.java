@@ -0,0 +1,123 @@
+package nars.perf;
+
+import java.util.Collection;
+import java.util.Random;
+import nars.core.EventEmitter.EventObserver;
+import nars.core.Events;
+import nars.core.NAR;
+import nars.core.NALTest;
+import nars.core.Parameters;
+import nars.core.build.Default;
+import nars.entity.Stamp;
+
+/**
+ * Measures the cost of merging stamps and checking them for overlapping
+ * evidence, comparing Stamp.hasOverlap() with the pairwise scan of the
+ * evidential base that NAL.derivedTask previously performed, and then the
+ * derivation throughput of the NAL example suite.
+ */
+public class StampPerf {
+
+    static final int stamps = 4096;
+    static final int merges = 200000;
+
+    /** the overlap check formerly in NAL.derivedTask */
+    static boolean pairwiseOverlap(final Stamp stamp) {
+        final int stampLength = stamp.baseLength;
+        for (int i = 0; i < stampLength; i++) {
+            final long baseI = stamp.evidentialBase[i];
+            for (int j = 0; j < stampLength; j++) {
+                if ((i != j) && (baseI == stamp.evidentialBase[j])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** builds stamps of varying base length by repeatedly merging input stamps */
+    static Stamp[] newStamps(final Random rng) {
+        final Stamp[] s = new Stamp[stamps];
+        long serial = 1;
+        for (int i = 0; i < stamps; i++) {
+            if ((i < 64) || (rng.nextInt(4) == 0))
+                s[i] = new Stamp(i, null, serial++, 1);
+            else
+                s[i] = new Stamp(s[rng.nextInt(i)], s[rng.nextInt(i)], i);
+        }
+        return s;
+    }
+
+    public static void testMerge(final boolean pairwise, int repeats, int warmups) {
+        final Stamp[] s = newStamps(new Random(1));
+
+        new Performance(pairwise ? "merge + pairwise overlap" : "merge + hasOverlap", repeats, warmups) {
+            int overlaps;
+
+            @Override
+            public void init() {
+                System.out.print(name);
+            }
+
+            @Override
+            public void run(boolean warmup) {
+                final Random rng = new Random(2);
+                overlaps = 0;
+                for (int i = 0; i < merges; i++) {
+                    final Stamp m = new Stamp(s[rng.nextInt(stamps)], s[rng.nextInt(stamps)], i);
+                    if (pairwise ? pairwiseOverlap(m) : m.hasOverlap())
+                        overlaps++;
+                }
+            }
+
+            @Override
+            public Performance print() {
+                super.print();
+                System.out.print(", " + df.format(getCycleTimeMS() * 1.0e6 / merges) + " nS/merge, " + overlaps + " overlapping");
+                return this;
+            }
+
+        }.print();
+        System.out.println();
+    }
+
+    /** derived tasks per second over the NAL example suite */
+    public static double testDerivations(final int extraCycles) {
+        final NAR n = new NAR(new Default());
+        final long[] derived = new long[1];
+        n.on(Events.TaskDerive.class, new EventObserver() {
+            @Override
+            public void event(Class event, Object[] arguments) {
+                derived[0]++;
+            }
+        });
+
+        final Collection c = NALTest.params();
+        long time = 0;
+        for (Object o : c) {
+            final String example = NALTest.getExample((String)((Object[])o)[0]);
+            n.reset();
+            final long start = System.nanoTime();
+            n.addInput(example);
+            n.run(extraCycles);
+            time += System.nanoTime() - start;
+        }
+
+        final double rate = derived[0] / (time / 1.0e9);
+        System.out.println(c.size() + " examples: " + derived[0] + " derivations in " + (time / 1000000) + " ms, " + ((long)rate) + " derivations/s");
+        return rate;
+    }
+
+    public static void main(String[] args) {
+        Parameters.DEBUG = false;
+
+        int repeats = 8;
+        int warmups = 2;
+
+        testMerge(true, repeats, warmups);
+        testMerge(false, repeats, warmups);
+
+        testDerivations(500); //warmup
+        testDerivations(2000);
+    }
+}
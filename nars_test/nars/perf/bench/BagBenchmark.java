@@ -0,0 +1,92 @@
+package nars.perf.bench;
+
+import com.google.common.base.Supplier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import nars.perf.BagPerf.NullItem;
+import nars.storage.AdaptiveContinuousBag;
+import nars.storage.Bag;
+import nars.storage.ConcurrentLevelBag;
+import nars.storage.CurveBag;
+import nars.storage.GearBag;
+import nars.storage.LevelBag;
+
+/**
+ * Bag.putIn and Bag.takeNext on a full bag of each type.
+ *
+ * putIn inserts items from a pool twice the bag's capacity, so it exercises
+ * merging with an existing item as well as overflow.  takeNext takes the next
+ * item and puts it back, so the bag remains full.
+ */
+public class BagBenchmark extends Benchmark {
+
+    static final int levels = 100;
+    static final int capacity = 1000;
+
+    final Supplier<Bag<NullItem,CharSequence>> bagBuilder;
+    final boolean take;
+
+    Bag<NullItem,CharSequence> bag;
+    NullItem[] pool;
+    int next;
+
+    public BagBenchmark(String bagName, boolean take, Supplier<Bag<NullItem,CharSequence>> bagBuilder) {
+        super("bag." + bagName + "." + (take ? "takeNext" : "putIn"));
+        this.take = take;
+        this.bagBuilder = bagBuilder;
+    }
+
+    @Override
+    public void setup() {
+        final Random rng = new Random(1);
+        pool = new NullItem[capacity * 2];
+        for (int i = 0; i < pool.length; i++)
+            pool[i] = new NullItem(rng.nextFloat() * 0.99f);
+    }
+
+    @Override
+    public void setupIteration() {
+        bag = bagBuilder.get();
+        for (int i = 0; i < capacity; i++)
+            bag.putIn(pool[i]);
+        next = 0;
+    }
+
+    @Override
+    public Object run() {
+        if (take) {
+            final NullItem n = bag.takeNext();
+            bag.putIn(n);
+            return n;
+        }
+        else {
+            final NullItem n = pool[next++];
+            if (next == pool.length) next = 0;
+            return bag.putIn(n);
+        }
+    }
+
+    public static List<Benchmark> all() {
+        final List<Benchmark> l = new ArrayList();
+        for (boolean take : new boolean[] { false, true }) {
+            l.add(new BagBenchmark("LevelBag", take, new Supplier<Bag<NullItem,CharSequence>>() {
+                @Override public Bag<NullItem,CharSequence> get() { return new LevelBag(levels, capacity); }
+            }));
+            l.add(new BagBenchmark("ConcurrentLevelBag", take, new Supplier<Bag<NullItem,CharSequence>>() {
+                @Override public Bag<NullItem,CharSequence> get() { return new ConcurrentLevelBag(levels, capacity); }
+            }));
+            l.add(new BagBenchmark("GearBag", take, new Supplier<Bag<NullItem,CharSequence>>() {
+                @Override public Bag<NullItem,CharSequence> get() { return new GearBag(levels, capacity); }
+            }));
+            l.add(new BagBenchmark("CurveBag", take, new Supplier<Bag<NullItem,CharSequence>>() {
+                @Override public Bag<NullItem,CharSequence> get() { return new CurveBag(capacity, true); }
+            }));
+            l.add(new BagBenchmark("AdaptiveContinuousBag", take, new Supplier<Bag<NullItem,CharSequence>>() {
+                @Override public Bag<NullItem,CharSequence> get() { return new AdaptiveContinuousBag(capacity); }
+            }));
+        }
+        return l;
+    }
+
+}
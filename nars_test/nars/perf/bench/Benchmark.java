@@ -0,0 +1,35 @@
+package nars.perf.bench;
+
+/**
+ * A named operation measured by BenchmarkRunner in operations per second.
+ *
+ * setup() prepares state once per benchmark; setupIteration() restores it
+ * before each warmup or measurement iteration so that every iteration
+ * measures the same work.  run() performs one operation and returns a
+ * result, which the runner keeps so that it can not be eliminated.
+ */
+public abstract class Benchmark {
+
+    public final String name;
+
+    public Benchmark(String name) {
+        this.name = name;
+    }
+
+    public void setup() {
+    }
+
+    public void setupIteration() {
+    }
+
+    abstract public Object run();
+
+    public void teardown() {
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -0,0 +1,205 @@
+package nars.perf.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import nars.core.Parameters;
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+
+/**
+ * Runs the reasoner benchmarks and reports their throughput.
+ *
+ * Each benchmark is run for a number of timed warmup iterations, then a number
+ * of timed measurement iterations; the score is the mean throughput of the
+ * measurement iterations, with its 99.9% confidence interval.  The bytes
+ * allocated per operation by the benchmark thread during the measurement
+ * iterations are also reported, when the JVM can count them.  Results are
+ * written as JSON in the layout of JMH's JSON result format, so that
+ * successive releases can be compared with the same tools.
+ *
+ * Usage: BenchmarkRunner [-wi warmupIterations] [-i iterations]
+ *                        [-t iterationMS] [-rf result.json] [regex ...]
+ *
+ * Benchmarks whose name matches any regex are run, all if none is given.
+ */
+public class BenchmarkRunner {
+
+    int warmupIterations = 3;
+    int iterations = 5;
+    long iterationMS = 1000;
+
+    /** holds the last result of each benchmark, so that it is not optimized away */
+    public volatile Object sink;
+
+    /** counts the bytes allocated by a thread, or null if the JVM can not */
+    protected final com.sun.management.ThreadMXBean allocation;
+
+    /** operations, and bytes allocated, by the iterations since the last reset */
+    long operations, allocated;
+
+    public BenchmarkRunner() {
+        final ThreadMXBean t = ManagementFactory.getThreadMXBean();
+        if ((t instanceof com.sun.management.ThreadMXBean) && ((com.sun.management.ThreadMXBean)t).isThreadAllocatedMemorySupported()) {
+            allocation = (com.sun.management.ThreadMXBean)t;
+            allocation.setThreadAllocatedMemoryEnabled(true);
+        }
+        else {
+            allocation = null;
+        }
+    }
+
+    protected long allocatedBytes() {
+        return (allocation != null) ? allocation.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    protected final DecimalFormat df = new DecimalFormat("#.###");
+
+    public static List<Benchmark> benchmarks() {
+        List<Benchmark> b = new ArrayList();
+        b.addAll(BagBenchmark.all());
+        b.addAll(TermBenchmark.all());
+        b.addAll(StampBenchmark.all());
+        b.addAll(ReasonBenchmark.all());
+        b.addAll(PremiseBenchmark.all());
+        b.addAll(SelectTermLinkBenchmark.all());
+        b.addAll(NALBenchmark.all());
+        b.addAll(RunBenchmark.all());
+        return b;
+    }
+
+    /** runs one timed iteration, returning operations per second */
+    protected double iterate(final Benchmark b) {
+        b.setupIteration();
+
+        final long duration = iterationMS * 1000000L;
+        final long start = System.nanoTime();
+        long now = start;
+        long ops = 0;
+        int batch = 1;
+        Object result = null;
+        final long allocatedStart = allocatedBytes();
+
+        while (now - start < duration) {
+            final long batchStart = now;
+            for (int i = 0; i < batch; i++)
+                result = b.run();
+            ops += batch;
+            now = System.nanoTime();
+
+            //grow the batch until checking the time is a small fraction of it
+            if (now - batchStart < 100000)
+                batch *= 2;
+        }
+        sink = result;
+        allocated += allocatedBytes() - allocatedStart;
+        operations += ops;
+
+        return ops / ((now - start) / 1.0e9);
+    }
+
+    public JsonObject run(final Benchmark b) {
+        System.out.print(b.name + ": ");
+
+        b.setup();
+        for (int i = 0; i < warmupIterations; i++)
+            iterate(b);
+
+        final SummaryStatistics s = new SummaryStatistics();
+        final JsonArray raw = new JsonArray();
+        operations = allocated = 0;
+        for (int i = 0; i < iterations; i++) {
+            double r = iterate(b);
+            s.addValue(r);
+            raw.add(new JsonPrimitive(r));
+        }
+        b.teardown();
+
+        final double score = s.getMean();
+        final double error = (iterations > 1) ?
+                new TDistribution(iterations - 1).inverseCumulativeProbability(1.0 - 0.001 / 2) * s.getStandardDeviation() / Math.sqrt(iterations) :
+                Double.NaN;
+
+        final double bytesPerOp = (allocation != null) ? ((double)allocated) / operations : Double.NaN;
+
+        System.out.println(df.format(score) + " +- " + df.format(error) + " ops/s, " + df.format(bytesPerOp) + " B/op");
+
+        final JsonObject metric = new JsonObject();
+        metric.addProperty("score", score);
+        metric.addProperty("scoreError", error);
+        final JsonArray confidence = new JsonArray();
+        confidence.add(new JsonPrimitive(score - error));
+        confidence.add(new JsonPrimitive(score + error));
+        metric.add("scoreConfidence", confidence);
+        metric.addProperty("scoreUnit", "ops/s");
+        final JsonArray rawData = new JsonArray();
+        rawData.add(raw);
+        metric.add("rawData", rawData);
+
+        final JsonObject alloc = new JsonObject();
+        alloc.addProperty("score", bytesPerOp);
+        alloc.addProperty("scoreError", Double.NaN);
+        alloc.addProperty("scoreUnit", "B/op");
+        final JsonObject secondary = new JsonObject();
+        secondary.add("\u00b7gc.alloc.rate.norm", alloc);
+
+        final JsonObject j = new JsonObject();
+        j.addProperty("benchmark", b.name);
+        j.addProperty("mode", "thrpt");
+        j.addProperty("threads", 1);
+        j.addProperty("forks", 0);
+        j.addProperty("warmupIterations", warmupIterations);
+        j.addProperty("warmupTime", iterationMS + " ms");
+        j.addProperty("measurementIterations", iterations);
+        j.addProperty("measurementTime", iterationMS + " ms");
+        j.add("primaryMetric", metric);
+        j.add("secondaryMetrics", secondary);
+        return j;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Parameters.DEBUG = false;
+
+        final BenchmarkRunner r = new BenchmarkRunner();
+        String resultFile = "nars-bench.json";
+        final List<Pattern> include = new ArrayList();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-wi": r.warmupIterations = Integer.parseInt(args[++i]); break;
+                case "-i": r.iterations = Integer.parseInt(args[++i]); break;
+                case "-t": r.iterationMS = Long.parseLong(args[++i]); break;
+                case "-rf": resultFile = args[++i]; break;
+                default: include.add(Pattern.compile(args[i]));
+            }
+        }
+
+        final JsonArray results = new JsonArray();
+        for (Benchmark b : benchmarks()) {
+            boolean included = include.isEmpty();
+            for (Pattern p : include)
+                included |= p.matcher(b.name).find();
+
+            if (included)
+                results.add(r.run(b));
+        }
+
+        final Gson gson = new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create();
+        try (Writer w = new FileWriter(resultFile)) {
+            gson.toJson(results, w);
+        }
+        System.out.println("Results written to " + resultFile);
+    }
+
+}
@@ -0,0 +1,75 @@
+package nars.perf.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import nars.core.NAR;
+import nars.core.NALTest;
+import nars.core.build.Default;
+
+/**
+ * NAR.step on the nal/test example files, grouped by NAL level.
+ *
+ * Each operation is one cycle.  The examples of a group are input in turn,
+ * each followed by a fixed number of cycles before the NAR is reset and the
+ * next example is input.
+ */
+public class NALBenchmark extends Benchmark {
+
+    static final int cyclesPerExample = 200;
+
+    final List<String> examples;
+    NAR nar;
+    int example, cycle;
+
+    public NALBenchmark(String group, List<String> examples) {
+        super("nar.step." + group);
+        this.examples = examples;
+    }
+
+    @Override
+    public void setup() {
+        nar = new NAR(new Default());
+    }
+
+    @Override
+    public void setupIteration() {
+        example = -1;
+        cycle = cyclesPerExample;
+    }
+
+    @Override
+    public Object run() {
+        if (cycle++ == cyclesPerExample) {
+            if (++example == examples.size()) example = 0;
+            nar.reset();
+            nar.addInput(examples.get(example));
+            cycle = 1;
+        }
+        nar.step(1);
+        return nar;
+    }
+
+    public static List<Benchmark> all() {
+        //group examples by NAL level from the file name, ex: nal1.0.nal; the others are "misc"
+        final Map<String, List<String>> groups = new TreeMap();
+        for (Object o : NALTest.params()) {
+            final String path = (String)((Object[])o)[0];
+            final String file = new File(path).getName();
+            final String group = file.matches("nal\\d+\\..*") ? file.substring(0, file.indexOf('.')) : "misc";
+
+            List<String> g = groups.get(group);
+            if (g == null)
+                groups.put(group, g = new ArrayList());
+            g.add(NALTest.getExample(path));
+        }
+
+        final List<Benchmark> l = new ArrayList();
+        for (Map.Entry<String, List<String>> e : groups.entrySet())
+            l.add(new NALBenchmark(e.getKey(), e.getValue()));
+        return l;
+    }
+
+}
@@ -0,0 +1,110 @@
+package nars.perf.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import nars.core.Memory;
+import nars.core.NAR;
+import nars.core.NALTest;
+import nars.core.build.Default;
+import nars.core.control.FireConcept;
+import nars.core.control.NAL;
+import nars.entity.Concept;
+import nars.entity.TaskLink;
+import nars.entity.TermLink;
+import nars.inference.RuleTables;
+
+/**
+ * RuleTables.reason on the premise pairs of the nal/test example files: the
+ * task link and term link pairs of each concept after an example has run for
+ * some cycles.  Each operation reasons on one pair, in turn, so that the time
+ * per operation is that of dispatching a premise pair of the NAL suite and
+ * applying its rules.
+ */
+public class PremiseBenchmark extends Benchmark {
+
+    static final int cyclesPerExample = 50;
+    static final int premisesPerExample = 200;
+
+    /** a premise pair, in the memory whose concept links it */
+    static final class Premise {
+        final Memory memory;
+        final Concept concept;
+        final TaskLink taskLink;
+        final TermLink termLink;
+
+        Premise(Memory memory, Concept concept, TaskLink taskLink, TermLink termLink) {
+            this.memory = memory;
+            this.concept = concept;
+            this.taskLink = taskLink;
+            this.termLink = termLink;
+        }
+    }
+
+    final List<Premise> premises = new ArrayList();
+    int next;
+
+    public PremiseBenchmark() {
+        super("reason.premise.nal");
+    }
+
+    @Override
+    public void setup() {
+        for (Object o : NALTest.params()) {
+            final NAR n = new NAR(new Default());
+            n.addInput(NALTest.getExample((String)((Object[])o)[0]));
+            n.run(cyclesPerExample);
+
+            int added = 0;
+            concepts:
+            for (Concept c : n.memory.concepts) {
+                for (TaskLink t : c.taskLinks) {
+                    if (t.type == TermLink.TRANSFORM) continue;
+                    for (TermLink b : c.termLinks) {
+                        premises.add(new Premise(n.memory, c, t, b));
+                        if (++added == premisesPerExample)
+                            break concepts;
+                    }
+                }
+            }
+        }
+        if (premises.isEmpty())
+            throw new RuntimeException(name + ": no premises");
+    }
+
+    @Override
+    public void setupIteration() {
+        next = 0;
+    }
+
+    @Override
+    public Object run() {
+        final Premise p = premises.get(next);
+        if (++next == premises.size()) next = 0;
+
+        final NAL nal = new FireConcept(p.memory, p.concept, 1) {
+            @Override public void onFinished() { }
+        };
+        nal.setCurrentTerm(p.concept.term);
+        nal.setCurrentTaskLink(p.taskLink);
+        nal.setCurrentBeliefLink(p.termLink);
+        nal.setCurrentTask(p.taskLink.getTarget());
+
+        try {
+            RuleTables.reason(p.taskLink, p.termLink, nal);
+        }
+        catch (RuntimeException e) {
+            //some rules reject their conclusions by throwing, which NAR.frame reports and continues past
+        }
+
+        //discard the derivations, so that each operation starts from the same memory
+        p.memory.newTasks.clear();
+        return nal.tasksAdded;
+    }
+
+    public static List<Benchmark> all() {
+        final List<Benchmark> l = new ArrayList();
+        l.add(new PremiseBenchmark());
+        return l;
+    }
+
+}
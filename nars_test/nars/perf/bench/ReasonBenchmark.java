@@ -0,0 +1,102 @@
+package nars.perf.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import nars.core.Memory;
+import nars.core.NAR;
+import nars.core.build.Default;
+import nars.core.control.FireConcept;
+import nars.core.control.NAL;
+import nars.entity.Concept;
+import nars.entity.TaskLink;
+import nars.entity.TermLink;
+import nars.inference.RuleTables;
+import nars.io.narsese.Narsese;
+import nars.io.narsese.Narsese.InvalidInputException;
+import nars.language.Term;
+
+/**
+ * RuleTables.reason on a fixed pair of premises: a task, and a belief reached
+ * through a term link, as selected when a concept is fired.  The premises are
+ * input to a NAR which runs until some concept links the task to the belief.
+ */
+public class ReasonBenchmark extends Benchmark {
+
+    final String task, belief;
+
+    Memory memory;
+    Concept concept;
+    TaskLink taskLink;
+    TermLink termLink;
+
+    public ReasonBenchmark(String name, String task, String belief) {
+        super("reason." + name);
+        this.task = task;
+        this.belief = belief;
+    }
+
+    @Override
+    public void setup() {
+        final NAR n = new NAR(new Default());
+        final Term taskTerm, beliefTerm;
+        try {
+            final Narsese narsese = new Narsese(n);
+            taskTerm = narsese.parseTerm(task.substring(0, task.length() - 1));
+            beliefTerm = narsese.parseTerm(belief.substring(0, belief.length() - 1));
+        } catch (InvalidInputException e) {
+            throw new RuntimeException(e);
+        }
+
+        n.addInput(task);
+        n.addInput(belief);
+
+        for (int cycles = 0; cycles < 100; cycles++) {
+            n.step(1);
+            for (Concept c : n.memory.concepts) {
+                TaskLink tl = null;
+                for (TaskLink t : c.taskLinks) {
+                    if (t.getTerm().equals(taskTerm) && (t.type != TermLink.TRANSFORM))
+                        tl = t;
+                }
+                if (tl == null) continue;
+
+                for (TermLink b : c.termLinks) {
+                    if (b.getTarget().equals(beliefTerm)) {
+                        memory = n.memory;
+                        concept = c;
+                        taskLink = tl;
+                        termLink = b;
+                        return;
+                    }
+                }
+            }
+        }
+        throw new RuntimeException(name + ": no concept links " + task + " to " + belief);
+    }
+
+    @Override
+    public Object run() {
+        final NAL nal = new FireConcept(memory, concept, 1) {
+            @Override public void onFinished() { }
+        };
+        nal.setCurrentTerm(concept.term);
+        nal.setCurrentTaskLink(taskLink);
+        nal.setCurrentBeliefLink(termLink);
+        nal.setCurrentTask(taskLink.getTarget());
+
+        RuleTables.reason(taskLink, termLink, nal);
+
+        //discard the derivations, so that each operation starts from the same memory
+        memory.newTasks.clear();
+        return nal.tasksAdded;
+    }
+
+    public static List<Benchmark> all() {
+        final List<Benchmark> l = new ArrayList();
+        l.add(new ReasonBenchmark("syllogism", "<a --> b>.", "<b --> c>."));
+        l.add(new ReasonBenchmark("composition", "<(*,a,b) --> r>.", "<(*,a,b) --> s>."));
+        l.add(new ReasonBenchmark("detachment", "<robin --> bird>.", "<<robin --> bird> ==> <robin --> animal>>."));
+        return l;
+    }
+
+}
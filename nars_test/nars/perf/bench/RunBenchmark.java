@@ -0,0 +1,61 @@
+package nars.perf.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import nars.core.EventEmitter.EventObserver;
+import nars.core.NAR;
+import nars.core.build.Default;
+import nars.io.Output.OUT;
+
+/**
+ * NAR.run on a few premises about a common term, from a reset NAR.
+ *
+ * Each operation resets the NAR, inputs the premises and runs a fixed number
+ * of cycles.  With no observers, no event should allocate its arguments, so
+ * the bytes allocated per operation are those of reasoning; the observed
+ * variant adds an observer of every output, as a user interface would.
+ */
+public class RunBenchmark extends Benchmark {
+
+    static final int cycles = 100;
+
+    final boolean observed;
+    NAR nar;
+    long outputs;
+
+    public RunBenchmark(boolean observed) {
+        super(observed ? "nar.run.observed" : "nar.run");
+        this.observed = observed;
+    }
+
+    @Override
+    public void setup() {
+        nar = new NAR(new Default());
+        if (observed) {
+            nar.memory.event.on(OUT.class, new EventObserver() {
+                @Override public void event(Class event, Object[] args) {
+                    outputs++;
+                }
+            });
+        }
+    }
+
+    @Override
+    public Object run() {
+        nar.reset();
+        for (int i = 0; i < 4; i++)
+            nar.addInput("<x" + i + " --> a>.");
+        nar.addInput("<a --> b>.");
+        nar.addInput("<b --> ?x>?");
+        nar.run(cycles);
+        return nar;
+    }
+
+    public static List<Benchmark> all() {
+        final List<Benchmark> l = new ArrayList();
+        l.add(new RunBenchmark(false));
+        l.add(new RunBenchmark(true));
+        return l;
+    }
+
+}
@@ -0,0 +1,68 @@
+package nars.perf.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import nars.core.NAR;
+import nars.core.build.Default;
+import nars.entity.Concept;
+import nars.entity.TaskLink;
+import nars.entity.TermLink;
+
+/**
+ * Concept.selectTermLink for a task link of the concept with the most term
+ * links, after reasoning on some premises about a common term.
+ *
+ * Each operation selects a term link, which checks the novelty records of the
+ * task link, and puts it back.  The time advances by one per operation, so
+ * that records become novel again after the novelty horizon.
+ */
+public class SelectTermLinkBenchmark extends Benchmark {
+
+    Concept concept;
+    TaskLink taskLink;
+    long time, startTime;
+
+    public SelectTermLinkBenchmark() {
+        super("concept.selectTermLink");
+    }
+
+    @Override
+    public void setup() {
+        final NAR n = new NAR(new Default());
+        for (int i = 0; i < 20; i++)
+            n.addInput("<x" + i + " --> a>.");
+        n.addInput("<a --> b>.");
+        n.run(50);
+
+        for (Concept c : n.memory.concepts) {
+            for (TaskLink t : c.taskLinks) {
+                if ((t != null) && ((concept == null) || (c.termLinks.size() > concept.termLinks.size()))) {
+                    concept = c;
+                    taskLink = t;
+                }
+            }
+        }
+        startTime = n.time();
+    }
+
+    @Override
+    public void setupIteration() {
+        taskLink.end();
+        time = startTime;
+    }
+
+    @Override
+    public Object run() {
+        final TermLink t = concept.selectTermLink(taskLink, time++);
+        if (t != null)
+            concept.returnTermLink(t);
+        return t;
+    }
+
+    public static List<Benchmark> all() {
+        final List<Benchmark> l = new ArrayList();
+        l.add(new SelectTermLinkBenchmark());
+        return l;
+    }
+
+}
@@ -0,0 +1,62 @@
+package nars.perf.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import nars.entity.Stamp;
+import nars.language.Term;
+
+/**
+ * Merging the stamps of two premises, as for every two-premise derivation,
+ * and checking the result for overlapping evidence, as NAL.derivedTask does
+ * for revisions.
+ */
+public class StampBenchmark extends Benchmark {
+
+    static final int stamps = 1024;
+
+    final boolean overlap;
+    Stamp[] s;
+    Random rng;
+
+    public StampBenchmark(boolean overlap) {
+        super(overlap ? "stamp.mergeOverlap" : "stamp.merge");
+        this.overlap = overlap;
+    }
+
+    @Override
+    public void setup() {
+        final Random r = new Random(1);
+        s = new Stamp[stamps];
+        long serial = 1;
+        for (int i = 0; i < stamps; i++) {
+            if ((i < 32) || (r.nextInt(4) == 0)) {
+                s[i] = new Stamp(i, null, serial++, 1);
+                s[i].chainAdd(Term.get("t" + i));
+            }
+            else {
+                s[i] = new Stamp(s[r.nextInt(i)], s[r.nextInt(i)], i);
+            }
+        }
+    }
+
+    @Override
+    public void setupIteration() {
+        rng = new Random(2);
+    }
+
+    @Override
+    public Object run() {
+        final Stamp m = new Stamp(s[rng.nextInt(stamps)], s[rng.nextInt(stamps)], 0);
+        if (overlap)
+            return m.hasOverlap();
+        return m;
+    }
+
+    public static List<Benchmark> all() {
+        final List<Benchmark> l = new ArrayList();
+        l.add(new StampBenchmark(false));
+        l.add(new StampBenchmark(true));
+        return l;
+    }
+}
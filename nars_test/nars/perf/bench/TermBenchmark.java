@@ -0,0 +1,149 @@
+package nars.perf.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import nars.core.NAR;
+import nars.core.build.Default;
+import nars.io.Symbols;
+import nars.io.narsese.Narsese;
+import nars.io.narsese.Narsese.InvalidInputException;
+import nars.io.narsese.NarseseParser;
+import nars.io.narsese.NarseseReader;
+import nars.language.Conjunction;
+import nars.language.Implication;
+import nars.language.Inheritance;
+import nars.language.Product;
+import nars.language.Term;
+import nars.language.Variables;
+import org.parboiled.Rule;
+import org.parboiled.parserunners.BasicParseRunner;
+
+/**
+ * Narsese parsing, CompoundTerm construction (of small and large
+ * components), and Variables.unify.
+ * <p>
+ * The parsers are compared on the same tasks: Narsese, NarseseReader, and
+ * the grappa NarseseParser, which only recognizes its input (and does not
+ * build tasks).
+ */
+public class TermBenchmark {
+
+    static final String[] tasks = {
+        "<bird --> animal>.",
+        "<<$x --> bird> ==> <(*,$x,$y) --> [friends]>>. %0.90;0.80%",
+        "<(*,{tom},(&,[red],apple)) --> eat>?",
+        "<(&/,<(*,SELF,{t002}) --> hold>,+5,(^open,{t001})) =/> <{t001} --> [opened]>>!",
+        "<robin --> (/,eat,_,worm)>. :|:"
+    };
+
+    public static List<Benchmark> all() {
+        final List<Benchmark> l = new ArrayList();
+
+        l.add(new Benchmark("narsese.parseTask") {
+            Narsese narsese;
+            int next;
+
+            @Override public void setup() {
+                narsese = new Narsese(new NAR(new Default()));
+            }
+
+            @Override public Object run() {
+                final String s = tasks[next++];
+                if (next == tasks.length) next = 0;
+                try {
+                    return narsese.parseTask(s);
+                } catch (InvalidInputException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+
+        l.add(new Benchmark("narsese.reader.parseTask") {
+            NarseseReader reader;
+            int next;
+
+            @Override public void setup() {
+                reader = new NarseseReader(new NAR(new Default()));
+            }
+
+            @Override public Object run() {
+                final String s = tasks[next++];
+                if (next == tasks.length) next = 0;
+                try {
+                    return reader.parseTask(s);
+                } catch (InvalidInputException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+
+        l.add(new Benchmark("narsese.grappa.match") {
+            Rule task;
+            int next;
+
+            @Override public void setup() {
+                task = NarseseParser.newParser().Task();
+            }
+
+            @Override public Object run() {
+                final String s = tasks[next++];
+                if (next == tasks.length) next = 0;
+                return new BasicParseRunner(task).run(s);
+            }
+        });
+
+        l.add(new Benchmark("term.compound") {
+            final Term a = Term.get("a"), b = Term.get("b"), c = Term.get("c"),
+                    d = Term.get("d"), e = Term.get("e");
+
+            @Override public Object run() {
+                return Implication.make(
+                        Conjunction.make(Inheritance.make(a, b), Inheritance.make(c, d)),
+                        Inheritance.make(Product.make(a, e), d));
+            }
+        });
+
+        //the names of large components are shared rather than copied
+        l.add(new Benchmark("term.compound.large") {
+            Term x, y;
+
+            @Override public void setup() {
+                final Narsese narsese = new Narsese(new NAR(new Default()));
+                try {
+                    x = narsese.parseTerm("<(&/,<(*,SELF,{t002}) --> hold>,<(*,SELF,{t001}) --> at>,(^open,{t001})) =/> <{t001} --> [opened]>>");
+                    y = narsese.parseTerm("<(*,{tom},(&,[red],apple),(|,[green],pear)) --> (/,eat,_,(&,[fresh],worm))>");
+                } catch (InvalidInputException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            @Override public Object run() {
+                return Conjunction.make(x, y);
+            }
+        });
+
+        l.add(new Benchmark("variables.unify") {
+            Term x, y;
+
+            @Override public void setup() {
+                final Narsese narsese = new Narsese(new NAR(new Default()));
+                try {
+                    x = narsese.parseTerm("<<$x --> bird> ==> <(*,$x,$y) --> [friends]>>");
+                    y = narsese.parseTerm("<<robin --> bird> ==> <(*,robin,tweety) --> [friends]>>");
+                } catch (InvalidInputException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            @Override public Object run() {
+                final Term[] u = new Term[] { x, y };
+                if (!Variables.unify(Symbols.VAR_INDEPENDENT, u))
+                    throw new RuntimeException("unification failed");
+                return u[0];
+            }
+        });
+
+        return l;
+    }
+
+}
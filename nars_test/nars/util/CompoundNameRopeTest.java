@@ -0,0 +1,120 @@
+package nars.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import nars.core.NAR;
+import nars.core.build.Default;
+import nars.io.Texts;
+import nars.io.narsese.Narsese;
+import nars.io.narsese.Narsese.InvalidInputException;
+import nars.language.CompoundTerm;
+import nars.language.Inheritance;
+import nars.language.Term;
+import nars.util.rope.impl.CompoundNameRope;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class CompoundNameRopeTest {
+
+    final CompoundNameRope ab = new CompoundNameRope("(&&,", ",", ")", "a", "bc");
+    final CompoundNameRope nested = new CompoundNameRope("<", " --> ", ">", ab, "d");
+
+    @Test
+    public void testString() {
+        assertEquals("(&&,a,bc)", ab.toString());
+        assertEquals("<(&&,a,bc) --> d>", nested.toString());
+        assertEquals(nested.toString().length(), nested.length());
+        for (int i = 0; i < nested.length(); i++)
+            assertEquals(nested.toString().charAt(i), nested.charAt(i));
+
+        assertEquals("x<(&&,a,bc) --> d>", nested.appendTo(new StringBuilder("x")).toString());
+        final char[] c = new char[nested.length()];
+        nested.getChars(c, 0);
+        assertEquals(nested.toString(), new String(c));
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        final StringWriter w = new StringWriter();
+        nested.write(w);
+        assertEquals(nested.toString(), w.toString());
+        assertEquals("a,bc", nested.subSequence(5, 9).toString());
+    }
+
+    /** hashed as the String of its characters, but only equal to ropes, as a String is not equal to it */
+    @Test
+    public void testEqualsAndHash() {
+        final String s = nested.toString();
+        assertEquals(s.hashCode(), nested.hashCode());
+        assertFalse(nested.equals(s));
+        assertFalse(s.equals(nested));
+        assertFalse(nested.equals(new StringBuilder(s)));
+        assertEquals(0, nested.compareTo(s));
+        //the String is kept
+        assertSame(s, nested.toString());
+
+        //the same characters from a different structure
+        final CompoundNameRope other = new CompoundNameRope("<(&&,a,", "", ") --> d>", "bc");
+        assertEquals(s, other.toString());
+        assertEquals(nested, other);
+        assertEquals(nested.hashCode(), other.hashCode());
+
+        assertNotEquals(nested, new CompoundNameRope("<", " --> ", ">", ab, "e"));
+        assertNotEquals(nested, s + " ");
+    }
+
+    @Test
+    public void testCompareTo() {
+        final String[] names = { "(&&,a,bc)", "(&&,a,b)", "(&&,a,bcd)", "(&&,a,bc", "(&&,b,a)", "(&&,a,bc))", "" };
+        final CompoundNameRope[] ropes = {
+            ab,
+            new CompoundNameRope("(&&,", ",", ")", "a", "b"),
+            new CompoundNameRope("(&&,", ",", ")", "a", "bcd"),
+            new CompoundNameRope("(&&,", ",", "", "a", "bc"),
+            new CompoundNameRope("(&&,", ",", ")", "b", "a"),
+            new CompoundNameRope("(&&,", ",", ")", "a", "bc)"),
+            null
+        };
+        for (int i = 0; i < names.length; i++) {
+            for (int j = 0; j < names.length; j++) {
+                final int expected = Integer.signum(names[i].compareTo(names[j]));
+                if (ropes[i] != null) {
+                    assertEquals(names[i] + " " + names[j], expected, Integer.signum(ropes[i].compareTo(names[j])));
+                    if (ropes[j] != null)
+                        assertEquals(names[i] + " " + names[j], expected, Integer.signum(ropes[i].compareTo(ropes[j])));
+                }
+                final CharSequence x = (ropes[i] != null) ? ropes[i] : names[i];
+                assertEquals(expected, Integer.signum(Texts.compareTo(names[j], x)) * -1);
+            }
+        }
+    }
+
+    /** a compound's name shares the names of its components */
+    @Test
+    public void testTermNames() throws InvalidInputException {
+        final Narsese n = new Narsese(new NAR(new Default()));
+        final String s = "<(*,{tom},(&,[red],apple)) --> (/,eat,_,worm)>";
+        final CompoundTerm t = (CompoundTerm)n.parseTerm(s);
+        assertEquals(s, t.name().toString());
+        assertEquals(s, t.toString());
+        assertEquals(s.hashCode(), t.name().hashCode());
+
+        final Term subject = ((Inheritance)t).getSubject();
+        final CharSequence name = t.name();
+        assertTrue(name instanceof CompoundNameRope);
+        assertEquals(subject.toString(), name.subSequence(1, 1 + subject.name().length()).toString());
+
+        //made again from the same components
+        final Term u = Inheritance.make(subject, ((Inheritance)t).getPredicate());
+        assertEquals(t, u);
+        assertEquals(t.hashCode(), u.hashCode());
+        assertEquals(0, t.compareTo(u));
+        assertSame(t, n.parseTerm(s));
+    }
+
+}
@@ -0,0 +1,110 @@
+package nars.web;
+
+import java.util.ArrayList;
+import java.util.List;
+import nars.core.NAR;
+import nars.core.build.Default;
+import nars.io.Output.OUT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class NARPoolTest {
+
+    @Test
+    public void testAffinity() {
+        final NARPool p = new NARPool(new Default(), 2, 10);
+        try {
+            final NAR a = p.attach("a");
+            final NAR b = p.attach("b");
+            assertNotSame(a, b);
+            assertTrue(a.isRunning());
+
+            //the same key, the same NAR, even when it is the busier one
+            assertSame(a, p.attach("a"));
+            assertEquals(2, p.getSessions(0) + p.getSessions(1) - 1);
+
+            p.detach("a");
+            p.detach("a");
+            p.detach("b");
+            assertEquals(0, p.getSessions(0) + p.getSessions(1));
+            //still running, for other sessions
+            assertTrue(a.isRunning());
+        }
+        finally {
+            p.stop();
+        }
+    }
+
+    static class Session extends NARConnection {
+        final List<String> lines = new ArrayList();
+
+        Session(NAR n) {
+            super(n, 10, true);
+        }
+
+        @Override public synchronized void println(String output) {
+            lines.add(output);
+        }
+    }
+
+    /** sessions of a shared NAR are shown what stems from their own input, which may answer them from each other's */
+    @Test
+    public void testSharedSessions() throws InterruptedException {
+        final NARPool p = new NARPool(new Default(), 1, 1);
+        try {
+            final NAR n = p.attach("x");
+            final Session a = new Session(n), b = new Session(n);
+
+            a.read("<a --> b>.\n<b --> c>.");
+            b.read("<a --> c>?\n<x --> y>.");
+            for (int i = 0; (i < 200) && !(contains(a, "OUT: <a --> c>.") && contains(b, "Answer: <a --> c>.")); i++)
+                Thread.sleep(10);
+            assertTrue(a.lines + "\n" + b.lines, contains(a, "OUT: <a --> c>."));
+            assertTrue(a.lines + "\n" + b.lines, contains(b, "Answer: <a --> c>."));
+
+            //neither is shown the other's input, nor what stems only from it
+            assertTrue(contains(a, "IN: <a --> b>."));
+            assertTrue(contains(b, "IN: <x --> y>."));
+            assertTrue(!contains(a, "IN: <x --> y>.") && !contains(a, "OUT: <x --> y>."));
+            assertTrue(!contains(b, "IN: <a --> b>.") && !contains(b, "OUT: <a --> b>."));
+
+            //a session's end does not stop the others' NAR
+            a.stop();
+            assertTrue(n.isRunning());
+        }
+        finally {
+            p.stop();
+        }
+    }
+
+    @Test
+    public void testRateLimit() {
+        final NAR n = new NAR(new Default());
+        final Session s = new Session(n);
+        s.setOutputRate(0.001f, 1);
+        s.getOutput().event(OUT.class, "x");
+        s.getOutput().event(OUT.class, "y");
+        assertEquals(1, s.getOutputDropped());
+        assertEquals(1, s.lines.size());
+
+        s.setInputRate(0.001f, 3);
+        s.read("<a --> b>.\n<b --> c>.");
+        s.read("<c --> d>.\n<d --> e>.");
+        assertEquals(1, s.getInputDropped());
+        n.stop();
+    }
+
+    static boolean contains(Session s, String prefix) {
+        synchronized (s) {
+            for (String l : s.lines)
+                if (l.startsWith(prefix))
+                    return true;
+        }
+        return false;
+    }
+
+}
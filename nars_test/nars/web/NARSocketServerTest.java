@@ -0,0 +1,116 @@
+package nars.web;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import nars.core.NAR;
+import nars.core.build.Default;
+import nars.entity.Task;
+import nars.io.BinaryDecoder;
+import nars.io.BinaryEncoder;
+import nars.io.Output;
+import nars.io.narsese.Narsese.InvalidInputException;
+import nars.io.narsese.NarseseReader;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class NARSocketServerTest {
+
+    NAR n;
+    NARSocketServer server;
+
+    @Before
+    public void start() throws IOException {
+        n = new NAR(new Default());
+        server = new NARSocketServer(n, new InetSocketAddress("localhost", 0), Output.DefaultOutputEvents);
+        server.start();
+        n.start(1);
+    }
+
+    @After
+    public void stop() {
+        n.stop();
+        server.stop();
+    }
+
+    Socket connect() throws IOException {
+        final Socket s = new Socket("localhost", server.getPort());
+        s.setSoTimeout(10000);
+        return s;
+    }
+
+    /** each client receives the output of the input of all */
+    @Test
+    public void testTextClients() throws IOException {
+        final Socket[] c = new Socket[4];
+        for (int i = 0; i < c.length; i++)
+            c[i] = connect();
+
+        c[0].getOutputStream().write("<a --> b>.\n".getBytes(StandardCharsets.UTF_8));
+        c[1].getOutputStream().write("<b --> c>.\n<a --> c>?\n".getBytes(StandardCharsets.UTF_8));
+
+        for (final Socket s : c) {
+            final BufferedReader r = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            boolean answered = false;
+            String line;
+            while (!answered && ((line = r.readLine()) != null))
+                answered = line.startsWith("OUT: <a --> c>.");
+            assertTrue(answered);
+            s.close();
+        }
+    }
+
+    /** a client which sends BinaryEncoder records receives them */
+    @Test
+    public void testBinaryClient() throws IOException, InvalidInputException {
+        final Socket s = connect();
+        final OutputStream out = s.getOutputStream();
+
+        final ByteArrayOutputStream b = new ByteArrayOutputStream();
+        final BinaryEncoder e = new BinaryEncoder(b);
+        final NarseseReader r = new NarseseReader(n);
+        e.writeTask(r.parseTask("<a --> b>."));
+        e.writeTask(r.parseTask("<a --> b>?"));
+        e.flush();
+
+        //in pieces, as they may arrive
+        final byte[] x = b.toByteArray();
+        for (int i = 0; i < x.length; i += 5) {
+            out.write(x, i, Math.min(5, x.length - i));
+            out.flush();
+        }
+
+        final BinaryDecoder d = new BinaryDecoder(new NAR(new Default()).memory, s.getInputStream());
+        boolean answered = false;
+        Object o;
+        while (!answered && ((o = d.read()) != null))
+            answered = (d.getChannel() == Output.OUT.class) && (o instanceof Task) &&
+                    ((Task)o).sentence.isJudgment() && ((Task)o).getTerm().toString().equals("<a --> b>");
+        assertTrue(answered);
+        assertTrue(server.getClients().get(0).isBinary());
+        s.close();
+    }
+
+    @Test
+    public void testDisconnect() throws IOException, InterruptedException {
+        connect().close();
+        final Socket s = connect();
+        s.getOutputStream().write("<a --> b>.\n".getBytes(StandardCharsets.UTF_8));
+        s.getInputStream().read();
+        s.close();
+
+        for (int i = 0; (i < 100) && !server.getClients().isEmpty(); i++)
+            Thread.sleep(20);
+        assertEquals(0, server.getClients().size());
+    }
+
+}
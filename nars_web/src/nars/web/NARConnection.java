@@ -6,51 +6,201 @@
 
 package nars.web;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import nars.core.NAR;
+import nars.entity.Task;
 import nars.io.TextOutput;
 import nars.io.TextOutput.LineOutput;
+import nars.io.narsese.Narsese;
 
 /**
- * An instance of a web socket session to a NAR
+ * An instance of a web socket session to a NAR.
+ * <p>
+ * The NAR is the session's own, or one shared with other sessions, ex: from
+ * a NARPool; a shared NAR is not started or stopped by the session.  Each
+ * session has its own output filter (its TextOutput) and, optionally, limits
+ * on the rates of its input lines and output lines, beyond which they are
+ * dropped.
+ * <p>
+ * A session of a shared NAR is only shown the tasks which stem from its own
+ * input: those whose evidential base includes the stamp serial of a task it
+ * submitted, which are its input tasks, their derivations (including those
+ * which also stem from other sessions' input), and the answers to its
+ * questions.  Output which is not a task (ex: errors) is shown to every
+ * session of the NAR.
  * @author me
  */
 abstract public class NARConnection implements LineOutput {
     public final NAR nar;
     protected final TextOutput writer;
     int cycleIntervalMS;
+    /** whether the NAR is shared with other sessions */
+    public final boolean shared;
     //private final TextReaction extraParser;
         
+    private Rate inputRate, outputRate;
+    private final AtomicLong inputDropped = new AtomicLong(), outputDropped = new AtomicLong();
+    
+    /** the stamp serials of the tasks submitted by this session, if the NAR is shared */
+    private final Set<Long> serials;
+    private final Narsese narsese;
     
     public NARConnection(NAR nar, int cycleIntervalMS) {
+        this(nar, cycleIntervalMS, false);
+    }
+
+    public NARConnection(NAR nar, int cycleIntervalMS, boolean shared) {
         this.nar = nar;
         this.cycleIntervalMS = cycleIntervalMS;
+        this.shared = shared;
+        this.serials = shared ? Collections.newSetFromMap(new ConcurrentHashMap<Long,Boolean>()) : null;
+        this.narsese = shared ? new Narsese(nar) : null;
              
-        this.writer = new TextOutput(nar, this);
+        this.writer = new TextOutput(nar, new LineOutput() {
+            @Override public void println(String output) {
+                if ((outputRate == null) || outputRate.take(1))
+                    NARConnection.this.println(output);
+                else
+                    outputDropped.incrementAndGet();
+            }
+        }) {
+            @Override protected boolean allowTask(final Task t) {
+                return (serials == null) || isOwn(t);
+            }
+        };
     }
 
     public void read(final String message) {
-        nar.addInput(message);
+        if (inputRate != null) {
+            if (!inputRate.take(lines(message))) {
+                inputDropped.incrementAndGet();
+                println("ERR: input rate limit exceeded");
+                return;
+            }
+        }
+        
+        if (serials == null)
+            nar.addInput(message);
+        else
+            readShared(message);
                 
         if (!running)
             resume();
     }
     
+    /** inputs the tasks of a message as this session's, and its other lines (ex: commands) as text */
+    private void readShared(final String message) {
+        for (String line : message.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty())
+                continue;
+            final Task t;
+            try {
+                t = narsese.parseTask(line);
+            } catch (Narsese.InvalidInputException e) {
+                nar.addInput(line);
+                continue;
+            }
+            serials.add(t.sentence.stamp.evidentialBase[0]);
+            nar.addInput(t);
+        }
+    }
+    
+    /** whether a task stems from the input of this session */
+    boolean isOwn(final Task t) {
+        if ((t.sentence == null) || (t.sentence.stamp == null))
+            return false;
+        for (final long e : t.sentence.stamp.evidentialBase)
+            if (serials.contains(e))
+                return true;
+        return false;
+    }
+    
+    static int lines(final String message) {
+        int n = 1;
+        for (int i = 0; i < message.length(); i++)
+            if (message.charAt(i) == '\n')
+                n++;
+        return n;
+    }
+    
     @Override
     abstract public void println(String output);
     
+    /** the session's output filter */
+    public TextOutput getOutput() {
+        return writer;
+    }
+    
+    /** limits input to a rate of lines per second, after a burst of up to maxBurst lines */
+    public NARConnection setInputRate(float linesPerSecond, int maxBurst) {
+        this.inputRate = new Rate(linesPerSecond, maxBurst);
+        return this;
+    }
+    
+    /** limits output to a rate of lines per second, after a burst of up to maxBurst lines */
+    public NARConnection setOutputRate(float linesPerSecond, int maxBurst) {
+        this.outputRate = new Rate(linesPerSecond, maxBurst);
+        return this;
+    }
+    
+    /** number of input messages which were dropped by the rate limit */
+    public long getInputDropped() {
+        return inputDropped.get();
+    }
+
+    /** number of output lines which were dropped by the rate limit */
+    public long getOutputDropped() {
+        return outputDropped.get();
+    }
+    
     
     boolean running = false;
     
     public void resume() {
         if (!running) {        
             running = true;
-            nar.start(cycleIntervalMS);
+            if (!shared || !nar.isRunning())
+                nar.start(cycleIntervalMS);
         }
     }
+    
+    /** ends the session; its NAR is stopped unless it is shared */
     public void stop() {
         running = false;
-        nar.stop();
+        writer.setActive(false);
+        if (!shared)
+            nar.stop();
     }
     
     
+    /** A token bucket: permits up to a rate of items per second, after a burst */
+    static final class Rate {
+        private final double perMS;
+        private final double maxBurst;
+        private double tokens;
+        private long last;
+
+        Rate(float perSecond, int maxBurst) {
+            this.perMS = perSecond / 1000.0;
+            this.maxBurst = maxBurst;
+            this.tokens = maxBurst;
+            this.last = System.currentTimeMillis();
+        }
+
+        /** takes n items, if permitted */
+        synchronized boolean take(final int n) {
+            final long now = System.currentTimeMillis();
+            tokens = Math.min(maxBurst, tokens + (now - last) * perMS);
+            last = now;
+            if (tokens < n)
+                return false;
+            tokens -= n;
+            return true;
+        }
+    }
+    
 }
@@ -0,0 +1,91 @@
+package nars.web;
+
+import java.util.HashMap;
+import java.util.Map;
+import nars.core.Build;
+import nars.core.NAR;
+
+/**
+ * A fixed number of NARs shared by many sessions.  A session is attached to
+ * the NAR with the fewest sessions, unless another session of the same key
+ * (ex: the same client address) is attached, in which case it joins that
+ * one, so that a user's knowledge stays in one reasoner.
+ * <p>
+ * Each NAR is started when its first session attaches, and is kept running
+ * afterward, since its knowledge is shared.
+ */
+public class NARPool {
+
+    private final NAR[] nars;
+    private final int[] sessions;
+    private final Map<Object, Affinity> affinity = new HashMap();
+    private final int cycleIntervalMS;
+
+    /** the NAR of a key and its number of attached sessions */
+    private static final class Affinity {
+        final int index;
+        int sessions;
+
+        Affinity(final int index) {
+            this.index = index;
+        }
+    }
+
+    public NARPool(final Build b, final int size, final int cycleIntervalMS) {
+        if (size < 1)
+            throw new IllegalArgumentException("Pool size must be positive: " + size);
+        this.nars = new NAR[size];
+        this.sessions = new int[size];
+        this.cycleIntervalMS = cycleIntervalMS;
+        for (int i = 0; i < size; i++)
+            nars[i] = new NAR(b);
+    }
+
+    /** attaches a session, returning its NAR, which is running */
+    public synchronized NAR attach(final Object key) {
+        Affinity a = affinity.get(key);
+        if (a == null) {
+            int least = 0;
+            for (int i = 1; i < nars.length; i++)
+                if (sessions[i] < sessions[least])
+                    least = i;
+            affinity.put(key, a = new Affinity(least));
+        }
+        a.sessions++;
+        sessions[a.index]++;
+
+        final NAR n = nars[a.index];
+        if (!n.isRunning())
+            n.start(cycleIntervalMS);
+        return n;
+    }
+
+    /** detaches a session which was attached with the same key */
+    public synchronized void detach(final Object key) {
+        final Affinity a = affinity.get(key);
+        if (a == null)
+            return;
+        sessions[a.index]--;
+        if (--a.sessions == 0)
+            affinity.remove(key);
+    }
+
+    public int size() {
+        return nars.length;
+    }
+
+    public NAR get(final int i) {
+        return nars[i];
+    }
+
+    /** number of sessions attached to a NAR */
+    public synchronized int getSessions(final int i) {
+        return sessions[i];
+    }
+
+    public synchronized void stop() {
+        for (final NAR n : nars)
+            n.stop();
+    }
+
+}
@@ -4,8 +4,9 @@ import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import nars.core.NAR;
 import nars.core.build.Default;
 import org.java_websocket.WebSocket;
 import org.java_websocket.WebSocketImpl;
@@ -19,6 +20,10 @@ public class NARServer  {
     
     private static int cycleIntervalMS = 50;
     
+    /** rate limits of each session of a shared NAR, in lines per second */
+    static float sessionInputRate = 20, sessionOutputRate = 200;
+    static int sessionInputBurst = 200, sessionOutputBurst = 1000;
+    
     class NARSWebSocketServer extends WebSocketServer  {
 
         public NARSWebSocketServer(InetSocketAddress addr) throws UnknownHostException {
@@ -33,11 +38,25 @@ public class NARServer  {
 
             if (WEBSOCKET_DEBUG) System.out.println("Connect: " + conn.getRemoteSocketAddress().getAddress().getHostAddress());
 
-            final NARConnection n = new NARConnection(new Default().build(), cycleIntervalMS) {
-                @Override public void println(String output) {
-                    conn.send(output);
-                }
-            };
+            final NARConnection n;
+            if (pool == null) {
+                n = new NARConnection(new Default().build(), cycleIntervalMS) {
+                    @Override public void println(String output) {
+                        conn.send(output);
+                    }
+                };
+            }
+            else {
+                //sessions from one address share a NAR
+                final NAR nar = pool.attach(sessionKey(conn));
+                n = new NARConnection(nar, cycleIntervalMS, true) {
+                    @Override public void println(String output) {
+                        conn.send(output);
+                    }
+                };
+                n.setInputRate(sessionInputRate, sessionInputBurst);
+                n.setOutputRate(sessionOutputRate, sessionOutputBurst);
+            }
             socketSession.put(conn, n);        
 
         }
@@ -46,10 +65,11 @@ public class NARServer  {
         public void onClose(WebSocket conn, int code, String reason, boolean remote) {
             if (WEBSOCKET_DEBUG) System.out.println(conn + " disconnected");
 
-            NARConnection n = socketSession.get(conn);
+            NARConnection n = socketSession.remove(conn);
             if (n!=null) {
                 n.stop();
-                socketSession.remove(conn);
+                if (n.shared)
+                    pool.detach(sessionKey(conn));
             }
         }
 
@@ -74,9 +94,21 @@ public class NARServer  {
     }
     
     final NARSWebSocketServer websockets;
-    private final Map<WebSocket, NARConnection> socketSession = new HashMap();
+    private final Map<WebSocket, NARConnection> socketSession = new ConcurrentHashMap();
+    /** the shared NARs, or null if each session has its own */
+    final NARPool pool;
 
     public NARServer(int httpPort, int webSocketsPort) throws UnknownHostException, IOException {
+        this(httpPort, webSocketsPort, 0);
+    }
+
+    /**
+     * @param poolSize if positive, the number of NARs which are shared by the
+     * sessions; otherwise each session has its own
+     */
+    public NARServer(int httpPort, int webSocketsPort, int poolSize) throws UnknownHostException, IOException {
+        pool = (poolSize > 0) ? new NARPool(new Default(), poolSize, cycleIntervalMS) : null;
+        
         websockets = new NARSWebSocketServer(new InetSocketAddress(webSocketsPort));
         websockets.start();
         
@@ -86,16 +118,22 @@ public class NARServer  {
 
 
 
+    static Object sessionKey(WebSocket conn) {
+        return conn.getRemoteSocketAddress().getAddress();
+    }
+
     public static void main(String[] args) throws Exception {
                 
         int httpPort;
         int wsPort = DEFAULT_WEBSOCKET_PORT;
         
+        int poolSize = 0;
+        
         String nlpHost = null;
         int nlpPort = 0;
         
         if (args.length < 1) {
-            System.out.println("Usage: NARServer <httpPort> [nlpHost nlpPort] [cycleIntervalMS]");
+            System.out.println("Usage: NARServer <httpPort> [nlpHost nlpPort] [cycleIntervalMS] [sharedNARs]");
             
             return;
         }
@@ -112,12 +150,17 @@ public class NARServer  {
             if (args.length >= 4) {
                 cycleIntervalMS = Integer.parseInt(args[3]);
             }
+            if (args.length >= 5) {
+                poolSize = Integer.parseInt(args[4]);
+            }
         }
                 
-        NARServer s = new NARServer(httpPort, wsPort);
+        NARServer s = new NARServer(httpPort, wsPort, poolSize);
         
         System.out.println("NARS Web Server ready. port: " + httpPort + ", websockets port: " + wsPort);
         System.out.println("  Cycle interval (ms): " + cycleIntervalMS);
+        if (poolSize > 0)
+            System.out.println("  Shared NARs: " + poolSize);
         /*if (nlp!=null) {
             System.out.println("  NLP enabled, using: " + nlpHost + ":" + nlpPort);            
         }*/
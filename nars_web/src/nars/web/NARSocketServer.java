@@ -0,0 +1,465 @@
+package nars.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import nars.core.NAR;
+import nars.core.build.Default;
+import nars.entity.Task;
+import nars.inference.AbstractObserver;
+import nars.io.BinaryDecoder;
+import nars.io.BinaryEncoder;
+import nars.io.Input;
+import nars.io.Output;
+import nars.io.TextOutput;
+
+/**
+ * A TCP server which connects many clients to one shared NAR, using a single
+ * thread and a Selector for all of their sockets.
+ * <p>
+ * Each client is an Input of the NAR: the selector thread splits what it
+ * receives into lines of Narsese, or pieces of a BinaryEncoder stream, which
+ * the NAR reads into the client's InPort buffer as it has room.  When a
+ * client has maxInput items waiting, its socket is not read until the NAR has
+ * taken half of them.
+ * <p>
+ * Every client receives the signals of the output channels, as the lines
+ * which TextOutput writes or, if it sends binary input, as BinaryEncoder
+ * records.  A client begins in text; the first byte it sends decides, since
+ * a binary stream begins with a record kind and Narsese with a printable
+ * character.  (A client which only listens can send a single 0, a reset, to
+ * receive binary.)  A line is formatted once for all text clients.
+ * <p>
+ * Output is queued per client, and sent by the selector thread with gathered
+ * writes.  When a client's queue holds maxOutput buffers, further output to it
+ * is dropped and counted, so that a slow client does not hold back the NAR or
+ * the others.
+ */
+public class NARSocketServer implements Runnable {
+
+    public final NAR nar;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final List<Client> clients = new CopyOnWriteArrayList();
+    /** clients whose interest ops are to be updated by the selector thread */
+    private final Queue<Client> pending = new ConcurrentLinkedQueue();
+    private final ClientOutput output;
+
+    private int maxInput = 1024;
+    private int maxOutput = 4096;
+    private int maxLineLength = 64 * 1024;
+    /** the most buffers in one gathered write */
+    private static final int maxGather = 64;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    public NARSocketServer(final NAR nar, final int port) throws IOException {
+        this(nar, new InetSocketAddress(port), Output.DefaultOutputEvents);
+    }
+
+    public NARSocketServer(final NAR nar, final InetSocketAddress address, final Class... channels) throws IOException {
+        this.nar = nar;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.configureBlocking(false);
+        server.socket().setReuseAddress(true);
+        server.bind(address);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        this.output = new ClientOutput(channels);
+    }
+
+    /** starts the selector thread */
+    public synchronized void start() {
+        if (thread != null) return;
+        running = true;
+        output.setActive(true);
+        thread = new Thread(this, "NARSocketServer");
+        thread.start();
+    }
+
+    /** stops the selector thread and disconnects every client */
+    public synchronized void stop() {
+        if (thread == null) return;
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) { }
+        thread = null;
+    }
+
+    /** the port which the server listens on */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public List<Client> getClients() {
+        return clients;
+    }
+
+    /** the most items of a client which wait for the NAR before its socket is no longer read */
+    public NARSocketServer setMaxInput(final int maxInput) {
+        this.maxInput = maxInput;
+        return this;
+    }
+
+    /** the most buffers queued for a client before its output is dropped */
+    public NARSocketServer setMaxOutput(final int maxOutput) {
+        this.maxOutput = maxOutput;
+        return this;
+    }
+
+    /** the longest line, or unread part of a binary stream, which a client can send */
+    public NARSocketServer setMaxLineLength(final int maxLineLength) {
+        this.maxLineLength = maxLineLength;
+        return this;
+    }
+
+    /** Selector loop.  Should not be called directly. */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+
+                Client c;
+                while ((c = pending.poll()) != null)
+                    c.updateInterest();
+
+                final Iterator<SelectionKey> i = selector.selectedKeys().iterator();
+                while (i.hasNext()) {
+                    final SelectionKey k = i.next();
+                    i.remove();
+                    if (!k.isValid())
+                        continue;
+
+                    if (k.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    c = (Client)k.attachment();
+                    try {
+                        if (k.isReadable())
+                            c.read();
+                        if (k.isValid() && k.isWritable())
+                            c.write();
+                    } catch (IOException e) {
+                        c.close();
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running)
+                nar.emit(Output.ERR.class, e);
+        } finally {
+            output.setActive(false);
+            for (final Client c : clients)
+                c.close();
+            try {
+                server.close();
+                selector.close();
+            } catch (IOException e) { }
+        }
+    }
+
+    protected void accept() throws IOException {
+        final SocketChannel s = server.accept();
+        if (s == null) return;
+        s.configureBlocking(false);
+        s.socket().setTcpNoDelay(true);
+
+        final Client c = new Client(s);
+        c.key = s.register(selector, SelectionKey.OP_READ, c);
+        clients.add(c);
+        nar.addInput(c);
+    }
+
+    /** formats each output signal once, for every client */
+    private final class ClientOutput extends AbstractObserver {
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        ClientOutput(final Class[] channels) {
+            super(nar, false, channels);
+        }
+
+        @Override
+        public void event(final Class channel, final Object... signal) {
+            byte[] line = null;
+            //whether the signal has no text, which is then not sent to text clients
+            boolean textSkipped = false;
+            for (final Client c : clients) {
+                if (c.binary) {
+                    c.send(channel, signal);
+                }
+                else if (!textSkipped) {
+                    if (line == null) {
+                        final String s = TextOutput.getOutputString(channel, signal[0], true, false, nar, buffer);
+                        if (s == null) {
+                            textSkipped = true;
+                            continue;
+                        }
+                        line = (s + '\n').getBytes(StandardCharsets.UTF_8);
+                    }
+                    c.send(ByteBuffer.wrap(line));
+                }
+            }
+        }
+    }
+
+    /** A connection; an Input of the NAR, which reads what the selector thread has received */
+    public final class Client implements Input {
+
+        public final SocketChannel socket;
+        SelectionKey key;
+
+        /** lines (String) or parts of a binary stream (ByteBuffer) received, for the NAR */
+        private final Queue<Object> received = new ConcurrentLinkedQueue();
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(maxLineLength);
+        private volatile boolean readPaused;
+
+        private final ArrayDeque<ByteBuffer> queue = new ArrayDeque();
+        private final ByteBuffer[] gather = new ByteBuffer[maxGather];
+        /** whether the selector thread has been asked to write the queue */
+        private boolean writing;
+        private long dropped;
+
+        /** whether the client sends, and receives, BinaryEncoder streams */
+        volatile boolean binary;
+        private boolean modeKnown;
+        private BinaryDecoder decoder;
+        private ByteBuffer decoding;
+        private BinaryEncoder encoder;
+        private ByteArrayOutputStream encoded;
+
+        private volatile boolean closed;
+
+        Client(final SocketChannel socket) {
+            this.socket = socket;
+        }
+
+        /** number of output buffers which were dropped because the queue was full */
+        public synchronized long getDropped() {
+            return dropped;
+        }
+
+        public boolean isBinary() {
+            return binary;
+        }
+
+        //---- input, by the selector thread
+
+        void read() throws IOException {
+            final int n = socket.read(readBuffer);
+            if (n == -1) {
+                close();
+                return;
+            }
+            if (n == 0)
+                return;
+
+            if (!modeKnown) {
+                modeKnown = true;
+                if (BinaryEncoder.isRecordStart(readBuffer.get(0))) {
+                    decoder = new BinaryDecoder(nar.memory).setRestamp(true);
+                    decoding = ByteBuffer.allocate(0);
+                    encoded = new ByteArrayOutputStream();
+                    encoder = new BinaryEncoder(encoded);
+                    binary = true;
+                }
+            }
+
+            readBuffer.flip();
+            if (binary) {
+                final ByteBuffer b = ByteBuffer.allocate(readBuffer.remaining());
+                b.put(readBuffer).flip();
+                received.add(b);
+            }
+            else {
+                readLines();
+            }
+            readBuffer.compact();
+
+            if (!readBuffer.hasRemaining())
+                throw new IOException("Line too long");
+
+            if (received.size() >= maxInput) {
+                readPaused = true;
+                updateInterest();
+            }
+        }
+
+        private void readLines() {
+            final int end = readBuffer.limit();
+            int start = readBuffer.position();
+            for (int i = start; i < end; i++) {
+                if (readBuffer.get(i) == '\n') {
+                    final String line = new String(readBuffer.array(), start, i - start, StandardCharsets.UTF_8).trim();
+                    if (!line.isEmpty())
+                        received.add(line);
+                    start = i + 1;
+                }
+            }
+            readBuffer.position(start);
+        }
+
+        //---- input, by the NAR
+
+        @Override
+        public Object next() throws IOException {
+            final Object x = binary ? nextBinary() : received.poll();
+
+            if (readPaused && (received.size() < maxInput / 2)) {
+                readPaused = false;
+                requestUpdate();
+            }
+            return x;
+        }
+
+        private Object nextBinary() throws IOException {
+            while (true) {
+                final Object x = decoder.read(decoding);
+                if (x instanceof Task)
+                    return x;
+                if (x != null)
+                    continue;
+
+                final ByteBuffer b = (ByteBuffer)received.poll();
+                if (b == null)
+                    return null;
+                if (decoding.remaining() + b.remaining() > maxLineLength)
+                    throw new IOException("Binary record too long");
+
+                //the unread part of the last piece, followed by the next
+                decoding = ByteBuffer.allocate(decoding.remaining() + b.remaining()).put(decoding).put(b);
+                decoding.flip();
+            }
+        }
+
+        @Override
+        public boolean finished(final boolean stop) {
+            if (stop)
+                close();
+            return closed && received.isEmpty();
+        }
+
+        //---- output, by the NAR
+
+        void send(final Class channel, final Object[] signal) {
+            try {
+                encoder.write(channel, signal);
+                encoder.flush();
+            } catch (IOException e) {
+                return;
+            }
+            send(ByteBuffer.wrap(encoded.toByteArray()));
+            encoded.reset();
+        }
+
+        synchronized void send(final ByteBuffer b) {
+            if (closed)
+                return;
+            if (queue.size() >= maxOutput) {
+                dropped++;
+                return;
+            }
+            queue.add(b);
+            if (!writing) {
+                writing = true;
+                requestUpdate();
+            }
+        }
+
+        private void requestUpdate() {
+            pending.add(this);
+            selector.wakeup();
+        }
+
+        //---- output, by the selector thread
+
+        void write() throws IOException {
+            final int n;
+            synchronized (this) {
+                n = Math.min(queue.size(), gather.length);
+                final Iterator<ByteBuffer> q = queue.iterator();
+                for (int i = 0; i < n; i++)
+                    gather[i] = q.next();
+            }
+
+            socket.write(gather, 0, n);
+
+            synchronized (this) {
+                for (int i = 0; i < n; i++) {
+                    if (gather[i].hasRemaining())
+                        break;
+                    queue.poll();
+                }
+                if (queue.isEmpty())
+                    writing = false;
+            }
+            for (int i = 0; i < n; i++)
+                gather[i] = null;
+
+            updateInterest();
+        }
+
+        void updateInterest() {
+            if (!key.isValid())
+                return;
+            final boolean write;
+            synchronized (this) {
+                write = !queue.isEmpty();
+            }
+            key.interestOps((readPaused ? 0 : SelectionKey.OP_READ) | (write ? SelectionKey.OP_WRITE : 0));
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            clients.remove(this);
+            if (key != null)
+                key.cancel();
+            try {
+                socket.close();
+            } catch (IOException e) { }
+            synchronized (this) {
+                queue.clear();
+            }
+        }
+
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: NARSocketServer <port> [cycleIntervalMS]");
+            return;
+        }
+        final int port = Integer.parseInt(args[0]);
+        final int cycleIntervalMS = (args.length > 1) ? Integer.parseInt(args[1]) : 50;
+
+        final NAR nar = new Default().build();
+        final NARSocketServer s = new NARSocketServer(nar, port);
+        s.start();
+        nar.start(cycleIntervalMS);
+
+        System.out.println("NARS socket server ready. port: " + s.getPort());
+        System.out.println("  Cycle interval (ms): " + cycleIntervalMS);
+    }
+
+}